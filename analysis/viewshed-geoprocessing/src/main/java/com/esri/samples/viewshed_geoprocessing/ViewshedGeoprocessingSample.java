@@ -20,8 +20,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -57,6 +59,7 @@ import com.esri.arcgisruntime.tasks.geoprocessing.GeoprocessingJob;
 import com.esri.arcgisruntime.tasks.geoprocessing.GeoprocessingParameters;
 import com.esri.arcgisruntime.tasks.geoprocessing.GeoprocessingResult;
 import com.esri.arcgisruntime.tasks.geoprocessing.GeoprocessingTask;
+import com.esri.samples.core.data.FeatureCollectionLoader;
 
 public class ViewshedGeoprocessingSample extends Application {
 
@@ -145,11 +148,18 @@ public class ViewshedGeoprocessingSample extends Application {
                   featureCollectionTable.loadAsync();
 
                   featureCollectionTable.addDoneLoadingListener(() -> {
-                    // create a new feature with the geometry of the clicked location and add it to the table
-                    Feature newFeature = featureCollectionTable.createFeature();
-                    newFeature.setGeometry(point);
+                    // add a feature with the geometry of the clicked location to the table
+                    FeatureCollectionLoader loader = new FeatureCollectionLoader(featureCollectionTable);
+                    loader.loadAsync(Stream.of(point), Collections.emptyMap()).whenComplete((count, ex) ->
+                        Platform.runLater(() -> {
+                      if (ex != null) {
+                        // remove the input and show an error if the observer could not be added
+                        inputGraphicsOverlay.getGraphics().remove(inputGraphic);
+                        progress.setVisible(false);
+                        new Alert(AlertType.ERROR, "Failed to add the observer point").show();
+                        return;
+                      }
 
-                    featureCollectionTable.addFeatureAsync(newFeature).addDoneListener(() -> {
                       // set the required parameters for viewshed
                       parameters.setProcessSpatialReference(featureCollectionTable.getSpatialReference());
                       parameters.setOutputSpatialReference(featureCollectionTable.getSpatialReference());
@@ -186,7 +196,7 @@ public class ViewshedGeoprocessingSample extends Application {
                           geoprocessingJob = null;
                         }
                       });
-                    });
+                    }));
                   });
                 } catch (InterruptedException | ExecutionException ex) {
                   new Alert(AlertType.ERROR, "Error creating default geoprocessing parameters").show();
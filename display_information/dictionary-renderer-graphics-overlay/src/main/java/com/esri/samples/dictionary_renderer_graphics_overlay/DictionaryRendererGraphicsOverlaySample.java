@@ -18,36 +18,23 @@ package com.esri.samples.dictionary_renderer_graphics_overlay;
 
 import static org.joox.JOOX.$;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
 import java.io.File;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-import com.esri.arcgisruntime.geometry.Multipoint;
-import com.esri.arcgisruntime.geometry.Point;
-import com.esri.arcgisruntime.geometry.PointCollection;
-import com.esri.arcgisruntime.geometry.SpatialReference;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
-import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.DictionaryRenderer;
 import com.esri.arcgisruntime.symbology.DictionarySymbolStyle;
+import com.esri.samples.core.graphics.MessageLoader;
 
 public class DictionaryRendererGraphicsOverlaySample extends Application {
 
@@ -83,70 +70,25 @@ public class DictionaryRendererGraphicsOverlaySample extends Application {
     DictionaryRenderer renderer = new DictionaryRenderer(symbolDictionary);
     graphicsOverlay.setRenderer(renderer);
 
-    // parse graphic attributes from a XML file
-    List<Map<String, Object>> messages = parseMessages();
-
-    // create graphics with attributes and add to graphics overlay
-    messages.stream()
-        .map(DictionaryRendererGraphicsOverlaySample::createGraphic)
-        .collect(Collectors.toCollection(() -> graphicsOverlay.getGraphics()));
+    // read the messages in a XML file in the background and add a graphic for each to the graphics overlay in batches
+    File mil2525dFile = new File(System.getProperty("data.dir"), "./samples-data/xml/Mil2525DMessages.xml");
+    CompletableFuture<Integer> loading = new MessageLoader(Platform::runLater).loadAsync(mil2525dFile, graphicsOverlay);
+    loading.whenCompleteAsync((count, ex) -> {
+      if (ex != null) {
+        new Alert(Alert.AlertType.ERROR, "Failed to read messages: " + ex.getCause().getMessage()).show();
+      } else if (mapView.getSpatialReference() != null) {
+        // view has already loaded
+        mapView.setViewpointGeometryAsync(graphicsOverlay.getExtent());
+      }
+    }, Platform::runLater);
 
     // once view has loaded
     mapView.addSpatialReferenceChangedListener(e -> {
-      // set initial viewpoint
-      mapView.setViewpointGeometryAsync(graphicsOverlay.getExtent());
-    });
-  }
-
-  /**
-   * Parses a XML file following the mil2525d specification and creates a message for each block of attributes found.
-   */
-  private List<Map<String, Object>> parseMessages() throws Exception {
-
-    File mil2525dFile = new File(System.getProperty("data.dir"), "./samples-data/xml/Mil2525DMessages.xml");
-    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-    Document document = documentBuilder.parse(mil2525dFile);
-    document.getDocumentElement().normalize();
-
-    final List<Map<String, Object>> messages = new ArrayList<>();
-
-    for (int i = 0; i < document.getElementsByTagName("message").getLength() ; i++) {
-      Node message = document.getElementsByTagName("message").item(i);
-
-      Map<String, Object> attributes = new HashMap<>();
-
-      NodeList childNodes = message.getChildNodes();
-      for (int j = 0; j < childNodes.getLength() ; j++) {
-        attributes.put(childNodes.item(j).getNodeName(), childNodes.item(j).getTextContent());
+      // set initial viewpoint when all graphics have been added
+      if (loading.isDone() && !loading.isCompletedExceptionally()) {
+        mapView.setViewpointGeometryAsync(graphicsOverlay.getExtent());
       }
-      messages.add(attributes);
-    }
-
-    return messages;
-  }
-
-  /**
-   * Creates a graphic using a symbol dictionary and the attributes that were passed.
-   * 
-   * @param attributes tells symbol dictionary what symbol to apply to graphic
-   */
-  private static Graphic createGraphic(Map<String, Object> attributes) {
-
-    // get spatial reference
-    int wkid = Integer.parseInt((String) attributes.get("_wkid"));
-    SpatialReference sr = SpatialReference.create(wkid);
-
-    // get points from coordinates' string
-    PointCollection points = new PointCollection(sr);
-    String[] coordinates = ((String) attributes.get("_control_points")).split(";");
-    Stream.of(coordinates)
-        .map(cs -> cs.split(","))
-        .map(c -> new Point(Double.valueOf(c[0]), Double.valueOf(c[1]), sr))
-        .collect(Collectors.toCollection(() -> points));
-
-    // return a graphic with multipoint geometry
-    return new Graphic(new Multipoint(points), attributes);
+    });
   }
 
   /**
@@ -17,23 +17,23 @@
 package com.esri.samples.add_features;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
 
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.geometry.Insets;
 import javafx.geometry.Point2D;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Label;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
-import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.Point;
@@ -41,12 +41,15 @@ import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.EditBuffer;
 
 public class AddFeaturesSample extends Application {
 
   private MapView mapView;
 
   private ServiceFeatureTable featureTable;
+  private EditBuffer editBuffer;
+  private Label editStatusLabel;
 
   private static final String SERVICE_LAYER_URL =
       "https://sampleserver6.arcgisonline.com/arcgis/rest/services/DamageAssessment/FeatureServer/0";
@@ -75,6 +78,10 @@ public class AddFeaturesSample extends Application {
       // create service feature table from URL
       featureTable = new ServiceFeatureTable(SERVICE_LAYER_URL);
 
+      // apply edits to the server in batches, collapsing repeated edits to the same feature
+      editBuffer = new EditBuffer(featureTable);
+      editBuffer.addChangeListener(this::showEditStatus);
+
       // create a feature layer from table
       FeatureLayer featureLayer = new FeatureLayer(featureTable);
 
@@ -102,8 +109,15 @@ public class AddFeaturesSample extends Application {
       // set ArcGISMap to be displayed in map view
       mapView.setMap(map);
 
-      // add the map view to stack pane
-      stackPane.getChildren().addAll(mapView);
+      // create a label showing the edits waiting to be applied
+      editStatusLabel = new Label();
+      editStatusLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      showEditStatus();
+
+      // add the map view and label to stack pane
+      stackPane.getChildren().addAll(mapView, editStatusLabel);
+      StackPane.setAlignment(editStatusLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(editStatusLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display the stack trace
@@ -112,8 +126,8 @@ public class AddFeaturesSample extends Application {
   }
 
   /**
-   * Adds a new Feature to a ServiceFeatureTable and applies the changes to the
-   * server.
+   * Adds a new Feature to a ServiceFeatureTable and queues the change to be
+   * applied to the server with the next batch.
    * 
    * @param mapPoint location to add feature
    * @param featureTable service feature table to add feature
@@ -130,37 +144,35 @@ public class AddFeaturesSample extends Application {
 
     // check if feature can be added to feature table
     if (featureTable.canAdd()) {
-      // add the new feature to the feature table and to server
-      featureTable.addFeatureAsync(feature).addDoneListener(() -> applyEdits(featureTable));
+      // add the new feature to the feature table, and to the server with the next batch
+      editBuffer.addAsync(feature).whenComplete((v, ex) -> checkEditApplied(ex));
     } else {
       displayMessage(null, "Cannot add a feature to this feature table");
     }
   }
 
   /**
-   * Sends any edits on the ServiceFeatureTable to the server.
+   * Shows a message if an edit could not be applied to the server.
    *
-   * @param featureTable service feature table
+   * @param ex exception the edit failed with, or null if it was applied
    */
-  private void applyEdits(ServiceFeatureTable featureTable) {
-
-    // apply the changes to the server
-    ListenableFuture<List<FeatureEditResult>> editResult = featureTable.applyEditsAsync();
-    editResult.addDoneListener(() -> {
-      try {
-        List<FeatureEditResult> edits = editResult.get();
-        // check if the server edit was successful
-        if (edits != null && edits.size() > 0) {
-          if (!edits.get(0).hasCompletedWithErrors()) {
-            displayMessage(null, "Feature successfully added");
-          } else {
-            throw edits.get(0).getError();
-          }
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        displayMessage("Exception applying edits on server", e.getCause().getMessage());
-      }
-    });
+  private void checkEditApplied(Throwable ex) {
+
+    if (ex != null) {
+      Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+      displayMessage("Exception applying edits on server", cause.getMessage());
+    }
+  }
+
+  /**
+   * Shows the number of edits waiting to be applied and how the batches applied so far went.
+   */
+  private void showEditStatus() {
+
+    Platform.runLater(() -> editStatusLabel.setText(String.format(
+        "Edits waiting: %d, batches applied: %d (%.0f ms mean), edits collapsed: %d, conflicts: %d",
+        editBuffer.getQueueDepth() + editBuffer.getInFlightCount(), editBuffer.getFlushCount(),
+        editBuffer.getMeanFlushMillis(), editBuffer.getCoalescedCount(), editBuffer.getConflictCount())));
   }
 
   /**
@@ -186,6 +198,11 @@ public class AddFeaturesSample extends Application {
   @Override
   public void stop() {
 
+    // apply any edits still waiting
+    if (editBuffer != null) {
+      editBuffer.close();
+    }
+
     if (mapView != null) {
       mapView.dispose();
     }
@@ -17,6 +17,7 @@
 package com.esri.samples.delete_features;
 
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -29,13 +30,13 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
-import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.layers.FeatureLayer;
@@ -43,12 +44,15 @@ import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.IdentifyLayerResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.EditBuffer;
 
 public class DeleteFeaturesSample extends Application {
 
   private MapView mapView;
   private FeatureLayer featureLayer;
   private ServiceFeatureTable featureTable;
+  private EditBuffer editBuffer;
+  private Label editStatusLabel;
   private Button deleteButton;
   private ListenableFuture<FeatureQueryResult> selectionResult;
 
@@ -99,6 +103,10 @@ public class DeleteFeaturesSample extends Application {
       // create service feature table from URL
       featureTable = new ServiceFeatureTable(FEATURE_LAYER_URL);
 
+      // apply edits to the server in batches, collapsing repeated edits to the same feature
+      editBuffer = new EditBuffer(featureTable);
+      editBuffer.addChangeListener(this::showEditStatus);
+
       // create a feature layer from table
       featureLayer = new FeatureLayer(featureTable);
 
@@ -133,8 +141,15 @@ public class DeleteFeaturesSample extends Application {
       // set ArcGISMap to be displayed in map view
       mapView.setMap(map);
 
-      // add the map view and control box to stack pane
-      stackPane.getChildren().addAll(mapView, deleteButton);
+      // create a label showing the edits waiting to be applied
+      editStatusLabel = new Label();
+      editStatusLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      showEditStatus();
+
+      // add the map view, control box and label to stack pane
+      stackPane.getChildren().addAll(mapView, deleteButton, editStatusLabel);
+      StackPane.setAlignment(editStatusLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(editStatusLabel, new Insets(10, 10, 30, 10));
       StackPane.setAlignment(deleteButton, Pos.TOP_LEFT);
       StackPane.setMargin(deleteButton, new Insets(10, 0, 0, 10));
 
@@ -145,39 +160,37 @@ public class DeleteFeaturesSample extends Application {
   }
 
   /**
-   * Deletes features from a ServiceFeatureTable and applies the changes to the
-   * server.
+   * Deletes features from a ServiceFeatureTable and queues the changes to be
+   * applied to the server with the next batch.
    */
   private void deleteFeatures(FeatureQueryResult features, ServiceFeatureTable featureTable) {
 
-    // delete feature from the feature table and apply edit to server
-    featureTable.deleteFeaturesAsync(features).addDoneListener(() -> applyEdits(featureTable));
+    // delete features from the feature table, and from the server with the next batch
+    editBuffer.deleteAsync(features).whenComplete((v, ex) -> checkEditApplied(ex));
   }
 
   /**
-   * Sends any edits on the ServiceFeatureTable to the server.
+   * Shows a message if an edit could not be applied to the server.
    *
-   * @param featureTable service feature table
+   * @param ex exception the edit failed with, or null if it was applied
    */
-  private void applyEdits(ServiceFeatureTable featureTable) {
-
-    // apply the changes to the server
-    ListenableFuture<List<FeatureEditResult>> editResult = featureTable.applyEditsAsync();
-    editResult.addDoneListener(() -> {
-      try {
-        List<FeatureEditResult> edits = editResult.get();
-        // check if the server edit was successful
-        if (edits != null && edits.size() > 0) {
-          if (!edits.get(0).hasCompletedWithErrors()) {
-            displayMessage(null, "Feature successfully deleted");
-          } else {
-            throw edits.get(0).getError();
-          }
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        displayMessage("Exception applying edits on server", e.getCause().getMessage());
-      }
-    });
+  private void checkEditApplied(Throwable ex) {
+
+    if (ex != null) {
+      Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+      displayMessage("Exception applying edits on server", cause.getMessage());
+    }
+  }
+
+  /**
+   * Shows the number of edits waiting to be applied and how the batches applied so far went.
+   */
+  private void showEditStatus() {
+
+    Platform.runLater(() -> editStatusLabel.setText(String.format(
+        "Edits waiting: %d, batches applied: %d (%.0f ms mean), edits collapsed: %d, conflicts: %d",
+        editBuffer.getQueueDepth() + editBuffer.getInFlightCount(), editBuffer.getFlushCount(),
+        editBuffer.getMeanFlushMillis(), editBuffer.getCoalescedCount(), editBuffer.getConflictCount())));
   }
 
   /**
@@ -203,6 +216,11 @@ public class DeleteFeaturesSample extends Application {
   @Override
   public void stop() {
 
+    // apply any edits still waiting
+    if (editBuffer != null) {
+      editBuffer.close();
+    }
+
     if (mapView != null) {
       mapView.dispose();
     }
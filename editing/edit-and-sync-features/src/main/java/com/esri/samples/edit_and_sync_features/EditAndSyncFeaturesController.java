@@ -17,22 +17,28 @@
 package com.esri.samples.edit_and_sync_features;
 
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Point2D;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.input.MouseButton;
 import javafx.scene.paint.Color;
 
-import com.esri.arcgisruntime.concurrent.Job;
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.Geodatabase;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.data.TileCache;
 import com.esri.arcgisruntime.geometry.Envelope;
@@ -57,12 +63,10 @@ import com.esri.arcgisruntime.mapping.view.ViewpointChangedListener;
 import com.esri.arcgisruntime.symbology.ColorUtil;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
-import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseJob;
 import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseParameters;
 import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
-import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseJob;
-import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseParameters;
-import com.esri.arcgisruntime.tasks.geodatabase.SyncLayerOption;
+import com.esri.samples.core.data.GeodatabaseSyncScheduler;
+import com.esri.samples.core.data.ReplicaDownloader;
 
 public class EditAndSyncFeaturesController {
 
@@ -70,13 +74,15 @@ public class EditAndSyncFeaturesController {
   @FXML private MapView mapView;
   @FXML private ProgressBar progressBar;
   @FXML private Button syncButton;
+  @FXML private Label syncStatusLabel;
 
   private final Graphic downloadAreaGraphic = new Graphic();
   private GeodatabaseSyncTask geodatabaseSyncTask;
-  private Geodatabase geodatabase;
+  private ReplicaDownloader replicaDownloader;
   private ArcGISMap map;
   private ViewpointChangedListener viewpointChangedListener;
   private Feature selectedFeature;
+  private final Map<Geodatabase, GeodatabaseSyncScheduler> syncSchedulers = new LinkedHashMap<>();
   
   private ServiceFeatureTable onlineFeatureTable; // keep loadable in scope to avoid garbage collection
 
@@ -155,11 +161,11 @@ public class EditAndSyncFeaturesController {
   }
 
   /**
-   * Generates a local geodatabase of the features in the download area and displays it in the map.
+   * Generates local geodatabases of the features in the download area, one per layer, and displays them in the map.
    */
   @FXML
   private void generateGeodatabase() {
-    // only allow geodatabase generation once
+    // disable generation while the download runs
     generateButton.setDisable(true);
     // stop updating the download area when changing the viewpoint
     mapView.removeViewpointChangedListener(viewpointChangedListener);
@@ -173,63 +179,52 @@ public class EditAndSyncFeaturesController {
         GenerateGeodatabaseParameters generateGeodatabaseParameters = generateGeodatabaseParametersFuture.get();
         generateGeodatabaseParameters.setReturnAttachments(false);
 
-        // create a temporary file for the geodatabase
-        File tempFile = File.createTempFile("gdb", ".geodatabase");
-        tempFile.deleteOnExit();
-
-        // create and start the generate job
-        GenerateGeodatabaseJob generateGeodatabaseJob = geodatabaseSyncTask.generateGeodatabase(generateGeodatabaseParameters, tempFile.getAbsolutePath());
-        generateGeodatabaseJob.start();
-
-        // show the job's progress in the progress bar
+        // download a geodatabase per layer, a few at a time, keeping finished layers on disk so that a failed
+        // download resumes where it stopped
+        if (replicaDownloader == null) {
+          replicaDownloader = new ReplicaDownloader(geodatabaseSyncTask, Paths.get(System.getProperty("java.io.tmpdir"),
+              "edit-and-sync-features-sample"));
+          // show the download's progress in the progress bar
+          replicaDownloader.addChangeListener(() -> Platform.runLater(() ->
+              progressBar.setProgress(replicaDownloader.getProgress() / 100.0)));
+        }
         progressBar.setVisible(true);
-        generateGeodatabaseJob.addJobChangedListener(() ->
-            progressBar.setProgress((double) generateGeodatabaseJob.getProgress() / 100.0)
-        );
-
-        // get the geodatabase when done
-        generateGeodatabaseJob.addJobDoneListener(() -> {
-          if (generateGeodatabaseJob.getStatus() == Job.Status.SUCCEEDED) {
-            geodatabase = generateGeodatabaseJob.getResult();
-            geodatabase.loadAsync();
-
-            // display the contents of the geodatabase to the map
-            geodatabase.addDoneLoadingListener(() -> {
-              progressBar.setVisible(false);
-              if (geodatabase.getLoadStatus() == LoadStatus.LOADED) {
-
-                // remove the existing layers from the map
-                map.getOperationalLayers().clear();
-
-                // iterate through the feature tables in the geodatabase and add new layers to the map
-                geodatabase.getGeodatabaseFeatureTables().forEach(geodatabaseFeatureTable -> {
-                  geodatabaseFeatureTable.loadAsync();
-                  geodatabaseFeatureTable.addDoneLoadingListener(() -> {
-                    if (geodatabaseFeatureTable.getGeometryType() == GeometryType.POINT) {
-                      // create a new feature layer from the table and add it to the map
-                      FeatureLayer featureLayer = new FeatureLayer(geodatabaseFeatureTable);
-                      map.getOperationalLayers().add(featureLayer);
-                    }
-                  });
-                });
-
-                generateButton.setDisable(true);
-                allowEditing();
-              } else {
-                new Alert(Alert.AlertType.ERROR, "Error loading geodatabase").show();
-              }
+
+        // display the contents of the geodatabases in the map when done
+        replicaDownloader.downloadAsync(generateGeodatabaseParameters).whenComplete((parts, ex) ->
+            Platform.runLater(() -> {
+          progressBar.setVisible(false);
+          if (ex == null) {
+            // remove the existing layers from the map
+            map.getOperationalLayers().clear();
+
+            // iterate through the feature tables in the geodatabases and add new layers to the map
+            parts.forEach(part -> {
+              Geodatabase geodatabase = part.getGeodatabase();
+              geodatabase.getGeodatabaseFeatureTables().forEach(geodatabaseFeatureTable -> {
+                if (geodatabaseFeatureTable.getGeometryType() == GeometryType.POINT) {
+                  // create a new feature layer from the table and add it to the map
+                  FeatureLayer featureLayer = new FeatureLayer(geodatabaseFeatureTable);
+                  map.getOperationalLayers().add(featureLayer);
+                }
+              });
+              syncSchedulers.put(geodatabase, new GeodatabaseSyncScheduler(geodatabaseSyncTask, geodatabase));
             });
+
+            startSyncing();
+            allowEditing();
           } else {
-            new Alert(Alert.AlertType.ERROR, "Error generating geodatabase").show();
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            new Alert(Alert.AlertType.ERROR, "Error generating geodatabase: " + cause.getMessage() +
+                "\nGenerate again to resume the download.").show();
+            generateButton.setDisable(false);
           }
-        });
+        }));
 
       } catch (InterruptedException | ExecutionException e) {
         new Alert(Alert.AlertType.ERROR, "Error generating geodatabase parameters").show();
         progressBar.setVisible(false);
-      } catch (IOException e) {
-        new Alert(Alert.AlertType.ERROR, "Error creating temp file for geodatabase").show();
-        progressBar.setVisible(false);
+        generateButton.setDisable(false);
       }
     });
   }
@@ -246,7 +241,10 @@ public class EditAndSyncFeaturesController {
           Point point = mapView.screenToLocation(screenPoint);
           if (GeometryEngine.intersects(point, downloadAreaGraphic.getGeometry())) {
             selectedFeature.setGeometry(point);
-            selectedFeature.getFeatureTable().updateFeatureAsync(selectedFeature).addDoneListener(() -> syncButton.setDisable(false));
+            // upload the edit shortly after in the background
+            GeodatabaseFeatureTable table = (GeodatabaseFeatureTable) selectedFeature.getFeatureTable();
+            table.updateFeatureAsync(selectedFeature).addDoneListener(() ->
+                syncSchedulers.get(table.getGeodatabase()).notifyEdited());
           } else {
             new Alert(Alert.AlertType.WARNING, "Cannot move feature outside downloaded area.").show();
           }
@@ -289,48 +287,45 @@ public class EditAndSyncFeaturesController {
   }
 
   /**
-   * Syncs changes made on either the local or web service geodatabase with each other.
+   * Starts syncing the geodatabases in the background. Edits are uploaded a few seconds after they are made, and all
+   * layers are synced in both directions every five minutes.
+   */
+  private void startSyncing() {
+    // show the progress and metrics of the background syncs of all geodatabases
+    syncSchedulers.values().forEach(syncScheduler -> syncScheduler.addChangeListener(() -> Platform.runLater(() -> {
+      progressBar.setVisible(syncSchedulers.values().stream().anyMatch(GeodatabaseSyncScheduler::isSyncing));
+      progressBar.setProgress(syncScheduler.getProgress() / 100.0);
+      syncStatusLabel.setText(String.format("%d uploads, %d full syncs%n%d failures%nLast job: %d ms (%.0f ms mean)",
+          syncSchedulers.values().stream().mapToLong(GeodatabaseSyncScheduler::getUploadCount).sum(),
+          syncSchedulers.values().stream().mapToLong(GeodatabaseSyncScheduler::getFullSyncCount).sum(),
+          syncSchedulers.values().stream().mapToLong(GeodatabaseSyncScheduler::getFailureCount).sum(),
+          syncScheduler.getLastJobMillis(), syncScheduler.getMeanJobMillis()));
+    })));
+
+    syncSchedulers.values().forEach(GeodatabaseSyncScheduler::start);
+    syncButton.setDisable(false);
+  }
+
+  /**
+   * Syncs changes made on either the local or web service geodatabases with each other without waiting for the next
+   * scheduled sync. Editing continues while the syncs run.
    */
   @FXML
   private void syncGeodatabase() {
-    clearSelection();
     syncButton.setDisable(true);
-    selectedFeature = null;
-    mapView.setOnMouseClicked(null);
-
-    // create parameters for the sync task
-    SyncGeodatabaseParameters syncGeodatabaseParameters = new SyncGeodatabaseParameters();
-    syncGeodatabaseParameters.setSyncDirection(SyncGeodatabaseParameters.SyncDirection.BIDIRECTIONAL);
-    syncGeodatabaseParameters.setRollbackOnFailure(false);
-
-    // specify the layer IDs of the feature tables to sync (all in this case)
-    geodatabase.getGeodatabaseFeatureTables().forEach(geodatabaseFeatureTable -> {
-      long serviceLayerId = geodatabaseFeatureTable.getServiceLayerId();
-      SyncLayerOption syncLayerOption = new SyncLayerOption(serviceLayerId);
-      syncGeodatabaseParameters.getLayerOptions().add(syncLayerOption);
-    });
-
-    // create a sync job with the parameters and start it
-    final SyncGeodatabaseJob syncGeodatabaseJob = geodatabaseSyncTask.syncGeodatabase(syncGeodatabaseParameters, geodatabase);
-    syncGeodatabaseJob.start();
-
-    // show the job's progress in the progress bar
-    progressBar.setVisible(true);
-    syncGeodatabaseJob.addJobChangedListener(() ->
-        progressBar.setProgress((double) syncGeodatabaseJob.getProgress() / 100.0)
-    );
 
-    // notify the user when the sync is complete
-    syncGeodatabaseJob.addJobDoneListener(() -> {
-      if (syncGeodatabaseJob.getStatus() == Job.Status.SUCCEEDED) {
-        new Alert(Alert.AlertType.INFORMATION, "Geoatabase sync successful").show();
+    // notify the user when the syncs of all geodatabases are complete
+    CompletableFuture<?>[] syncs = syncSchedulers.values().stream().map(GeodatabaseSyncScheduler::syncNowAsync)
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(syncs).whenComplete((result, ex) -> Platform.runLater(() -> {
+      if (ex == null) {
+        new Alert(Alert.AlertType.INFORMATION, "Geodatabase sync successful").show();
       } else {
-        new Alert(Alert.AlertType.ERROR, "Error syncing geodatabase").show();
+        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        new Alert(Alert.AlertType.ERROR, "Error syncing geodatabase: " + cause.getMessage()).show();
       }
-
-      progressBar.setVisible(false);
-      allowEditing();
-    });
+      syncButton.setDisable(false);
+    }));
   }
 
   /**
@@ -370,6 +365,12 @@ public class EditAndSyncFeaturesController {
    */
   void terminate() {
 
+    if (replicaDownloader != null) {
+      replicaDownloader.cancel();
+    }
+
+    syncSchedulers.values().forEach(GeodatabaseSyncScheduler::close);
+
     if (mapView != null) {
       mapView.dispose();
     }
@@ -17,7 +17,14 @@
 package com.esri.samples.edit_feature_attachments;
 
 import org.apache.commons.io.IOUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 import javafx.application.Application;
@@ -28,8 +35,12 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
@@ -37,6 +48,7 @@ import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Paint;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
@@ -51,11 +63,19 @@ import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.GeoElement;
 import com.esri.arcgisruntime.mapping.view.IdentifyLayerResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.AttachmentTransfers;
+import com.esri.samples.core.data.BlobCache;
 
 public class EditFeatureAttachmentsSample extends Application {
 
+  private static final long CACHE_MAX_BYTES = 512L * 1024 * 1024;
+
   private ListView<String> attachmentList;
   private Label attachmentsLabel;
+  private CheckBox streamCheckBox;
+  private ProgressBar transferProgressBar;
+  private Label transferLabel;
+  private AttachmentTransfers transfers;
 
   private ArcGISFeature selected;
   private List<Attachment> attachments;
@@ -83,7 +103,7 @@ public class EditFeatureAttachmentsSample extends Application {
       controlsVBox.setBackground(new Background(new BackgroundFill(Paint.valueOf("rgba(0,0,0,0.3)"), CornerRadii.EMPTY,
               Insets.EMPTY)));
       controlsVBox.setPadding(new Insets(10.0));
-      controlsVBox.setMaxSize(180, 250);
+      controlsVBox.setMaxSize(180, 350);
       controlsVBox.getStyleClass().add("panel-region");
 
       // create add/delete buttons
@@ -95,23 +115,62 @@ public class EditFeatureAttachmentsSample extends Application {
       deleteAttachmentButton.setMaxWidth(Double.MAX_VALUE);
       deleteAttachmentButton.setDisable(true);
 
+      Button viewAttachmentButton = new Button("View Attachment");
+      viewAttachmentButton.setMaxWidth(Double.MAX_VALUE);
+      viewAttachmentButton.setDisable(true);
+
+      // create a check box to stream large files in chunks instead of holding them in memory
+      streamCheckBox = new CheckBox("Stream large files");
+      streamCheckBox.setWrapText(true);
+
+      // create a progress bar and label to show uploads and downloads
+      transferProgressBar = new ProgressBar(0);
+      transferProgressBar.setMaxWidth(Double.MAX_VALUE);
+      transferProgressBar.setVisible(false);
+      transferLabel = new Label();
+      transferLabel.getStyleClass().add("panel-label");
+      transferLabel.setWrapText(true);
+
       // create a list to show selected feature's attachments
       attachmentList = new ListView<>();
       attachmentsLabel = new Label("Attachments: ");
       attachmentsLabel.getStyleClass().add("panel-label");
-      attachmentList.getSelectionModel().selectedItemProperty().addListener(event -> deleteAttachmentButton.setDisable(attachmentList.getSelectionModel().getSelectedIndex() == -1));
+      attachmentList.getSelectionModel().selectedItemProperty().addListener(event -> {
+        boolean noSelection = attachmentList.getSelectionModel().getSelectedIndex() == -1;
+        deleteAttachmentButton.setDisable(noSelection);
+        viewAttachmentButton.setDisable(noSelection);
+      });
+
+      // open a cache for attachments in the user's home directory, so they are only downloaded once
+      Path cacheDirectory = Paths.get(System.getProperty("user.home"), ".arcgis", "attachment-cache");
+      transfers = new AttachmentTransfers(new BlobCache(cacheDirectory, CACHE_MAX_BYTES));
 
       // get image attachment
       byte[] image = IOUtils.toByteArray(getClass().getResourceAsStream("/destroyed.png"));
 
-      // button click to add image attachment to selected feature
-      addAttachmentButton.setOnAction(e -> addAttachment(image));
+      // button click to add an attachment to the selected feature, or to choose a file and stream it
+      addAttachmentButton.setOnAction(e -> {
+        if (!streamCheckBox.isSelected()) {
+          addAttachment(image);
+          return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Choose an attachment");
+        File file = fileChooser.showOpenDialog(stage);
+        if (file != null) {
+          streamAttachment(file.toPath());
+        }
+      });
 
       // button click to delete selected attachment
       deleteAttachmentButton.setOnAction(e -> deleteAttachment(attachmentList.getSelectionModel().getSelectedIndex()));
 
+      // button click to download and show selected attachment
+      viewAttachmentButton.setOnAction(e -> viewAttachment(attachmentList.getSelectionModel().getSelectedIndex()));
+
       // add controls to the panel
-      controlsVBox.getChildren().addAll(addAttachmentButton, deleteAttachmentButton, attachmentsLabel, attachmentList);
+      controlsVBox.getChildren().addAll(addAttachmentButton, deleteAttachmentButton, viewAttachmentButton,
+          streamCheckBox, attachmentsLabel, attachmentList, transferProgressBar, transferLabel);
 
       // create a map view
       mapView = new MapView();
@@ -237,6 +296,133 @@ public class EditFeatureAttachmentsSample extends Application {
     }
   }
 
+  /**
+   * Uploads a file as an attachment of the selected feature. The file is streamed to the service in chunks, so large
+   * files are never read into memory, and copied into the attachment cache once the service has accepted it.
+   *
+   * @param file file to attach
+   */
+  private void streamAttachment(Path file) {
+
+    if (selected.canEditAttachments()) {
+      String contentType;
+      try {
+        contentType = Files.probeContentType(file);
+      } catch (IOException e) {
+        contentType = null;
+      }
+      ArcGISFeature feature = selected;
+      showTransferStarted("Uploading " + file.getFileName());
+      transfers.uploadAsync(feature, file, contentType != null ? contentType : "application/octet-stream",
+          this::showTransferProgress).whenComplete((attachmentId, ex) -> {
+            if (ex != null) {
+              showTransferFailed("Error adding attachment", ex);
+            } else {
+              showTransferDone("Added attachment " + file.getFileName());
+              // update the displayed list of attachments
+              fetchAttachments(feature);
+            }
+          });
+    } else {
+      displayMessage(null, "Cannot add attachment.");
+    }
+  }
+
+  /**
+   * Fetches the data of an attachment and shows it.
+   */
+  private void viewAttachment(int attachmentIndex) {
+
+    Attachment attachment = attachments.get(attachmentIndex);
+    if (streamCheckBox.isSelected()) {
+      viewCachedAttachment(attachment);
+      return;
+    }
+    ListenableFuture<InputStream> dataResult = attachment.fetchDataAsync();
+    dataResult.addDoneListener(() -> {
+      try (InputStream data = dataResult.get()) {
+        String contentType = attachment.getContentType();
+        if (contentType != null && contentType.startsWith("image/")) {
+          Image image = new Image(data, 800, 600, true, true);
+          Platform.runLater(() -> showImage(attachment.getName(), image));
+        } else {
+          displayMessage(attachment.getName(), "Only image attachments can be shown.");
+        }
+      } catch (InterruptedException | ExecutionException | IOException e) {
+        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        displayMessage("Error fetching attachment", cause.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Fetches an attachment through the attachment cache and shows it. Images are shown in a new window, other files
+   * are reported with their location in the cache.
+   */
+  private void viewCachedAttachment(Attachment attachment) {
+
+    showTransferStarted("Downloading " + attachment.getName());
+    transfers.fetchAsync(selected, attachment, this::showTransferProgress).whenComplete((path, ex) -> {
+      if (ex != null) {
+        showTransferFailed("Error fetching attachment", ex);
+        return;
+      }
+      showTransferDone(transfers.getCacheHitCount() + " of " + (transfers.getCacheHitCount() +
+          transfers.getDownloadCount()) + " views from cache");
+      Platform.runLater(() -> {
+        String contentType = attachment.getContentType();
+        if (contentType != null && contentType.startsWith("image/")) {
+          // load the image in the background from the cached file
+          showImage(attachment.getName(), new Image(path.toUri().toString(), 800, 600, true, true, true));
+        } else {
+          displayMessage(attachment.getName(), "Saved to " + path);
+        }
+      });
+    });
+  }
+
+  /**
+   * Shows an image in a new window.
+   */
+  private void showImage(String title, Image image) {
+
+    Stage imageStage = new Stage();
+    imageStage.initOwner(mapView.getScene().getWindow());
+    imageStage.setTitle(title);
+    imageStage.setScene(new Scene(new StackPane(new ImageView(image))));
+    imageStage.show();
+  }
+
+  private void showTransferStarted(String message) {
+
+    Platform.runLater(() -> {
+      transferProgressBar.setProgress(0);
+      transferProgressBar.setVisible(true);
+      transferLabel.setText(message);
+    });
+  }
+
+  private void showTransferProgress(long bytes, long totalBytes) {
+
+    Platform.runLater(() -> transferProgressBar.setProgress(totalBytes > 0 ? (double) bytes / totalBytes :
+        ProgressBar.INDETERMINATE_PROGRESS));
+  }
+
+  private void showTransferDone(String message) {
+
+    Platform.runLater(() -> {
+      transferProgressBar.setVisible(false);
+      transferLabel.setText(message);
+    });
+  }
+
+  private void showTransferFailed(String title, Throwable ex) {
+
+    Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+    showTransferDone("");
+    displayMessage(title, cause.getMessage());
+  }
+
   /**
    * Deletes a selected attachment from a Feature.
    */
@@ -307,6 +493,9 @@ public class EditFeatureAttachmentsSample extends Application {
   public void stop() {
 
     // release resources when the application closes
+    if (transfers != null) {
+      transfers.close();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
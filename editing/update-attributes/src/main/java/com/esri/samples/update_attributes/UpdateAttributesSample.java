@@ -17,6 +17,7 @@
 package com.esri.samples.update_attributes;
 
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 import javafx.application.Application;
@@ -41,7 +42,6 @@ import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
@@ -50,11 +50,14 @@ import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.GeoElement;
 import com.esri.arcgisruntime.mapping.view.IdentifyLayerResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.EditBuffer;
 
 public class UpdateAttributesSample extends Application {
 
   private ArcGISFeature identifiedFeature;
   private ServiceFeatureTable featureTable;
+  private EditBuffer editBuffer;
+  private Label editStatusLabel;
   private MapView mapView;
 
   private ComboBox<String> comboBox;
@@ -124,6 +127,10 @@ public class UpdateAttributesSample extends Application {
       // create service feature table from URL
       featureTable = new ServiceFeatureTable("https://sampleserver6.arcgisonline.com/arcgis/rest/services/DamageAssessment/FeatureServer/0");
 
+      // apply edits to the server in batches, collapsing repeated edits to the same feature
+      editBuffer = new EditBuffer(featureTable);
+      editBuffer.addChangeListener(this::showEditStatus);
+
       // create a feature layer with the feature table
       FeatureLayer featureLayer = new FeatureLayer(featureTable);
 
@@ -178,8 +185,15 @@ public class UpdateAttributesSample extends Application {
         }
       });
 
-      // add the map view and control box to stack pane
-      stackPane.getChildren().addAll(mapView, controlsVBox);
+      // create a label showing the edits waiting to be applied
+      editStatusLabel = new Label();
+      editStatusLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      showEditStatus();
+
+      // add the map view, control box and label to stack pane
+      stackPane.getChildren().addAll(mapView, controlsVBox, editStatusLabel);
+      StackPane.setAlignment(editStatusLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(editStatusLabel, new Insets(10, 10, 30, 10));
       StackPane.setAlignment(controlsVBox, Pos.TOP_LEFT);
       StackPane.setMargin(controlsVBox, new Insets(10, 0, 0, 10));
 
@@ -190,7 +204,8 @@ public class UpdateAttributesSample extends Application {
   }
 
   /**
-   * Applies changes to the feature, Service Feature Table, and server.
+   * Applies changes to the feature and Service Feature Table, and queues them to be applied to the server with the
+   * next batch.
    */
   private void updateAttributes(ArcGISFeature feature) {
 
@@ -198,38 +213,35 @@ public class UpdateAttributesSample extends Application {
       // update attribute
       identifiedFeature.getAttributes().put("typdamage", comboBox.getValue());
 
-      // update feature in the feature table
-      ListenableFuture<Void> editResult = featureTable.updateFeatureAsync(feature);
-      editResult.addDoneListener(() -> applyEdits(featureTable));
+      // update feature in the feature table, and on the server with the next batch
+      editBuffer.updateAsync(feature).whenComplete((v, ex) -> checkEditApplied(ex));
     } else {
       displayMessage(null, "Cannot update this feature.");
     }
   }
 
   /**
-   * Sends any edits on the ServiceFeatureTable to the server.
+   * Shows a message if an edit could not be applied to the server.
    *
-   * @param featureTable service feature table
+   * @param ex exception the edit failed with, or null if it was applied
    */
-  private void applyEdits(ServiceFeatureTable featureTable) {
-
-    // apply the changes to the server
-    ListenableFuture<List<FeatureEditResult>> editResult = featureTable.applyEditsAsync();
-    editResult.addDoneListener(() -> {
-      try {
-        List<FeatureEditResult> edits = editResult.get();
-        // check if the server edit was successful
-        if (edits != null && edits.size() > 0) {
-          if (!edits.get(0).hasCompletedWithErrors()) {
-            displayMessage(null, "Attributes updated.");
-          } else {
-            throw edits.get(0).getError();
-          }
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        displayMessage("Error applying edits on server", e.getCause().getMessage());
-      }
-    });
+  private void checkEditApplied(Throwable ex) {
+
+    if (ex != null) {
+      Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+      displayMessage("Error applying edits on server", cause.getMessage());
+    }
+  }
+
+  /**
+   * Shows the number of edits waiting to be applied and how the batches applied so far went.
+   */
+  private void showEditStatus() {
+
+    Platform.runLater(() -> editStatusLabel.setText(String.format(
+        "Edits waiting: %d, batches applied: %d (%.0f ms mean), edits collapsed: %d, conflicts: %d",
+        editBuffer.getQueueDepth() + editBuffer.getInFlightCount(), editBuffer.getFlushCount(),
+        editBuffer.getMeanFlushMillis(), editBuffer.getCoalescedCount(), editBuffer.getConflictCount())));
   }
 
   /**
@@ -255,6 +267,11 @@ public class UpdateAttributesSample extends Application {
   @Override
   public void stop() {
 
+    // apply any edits still waiting
+    if (editBuffer != null) {
+      editBuffer.close();
+    }
+
     // release resources when the application closes
     if (mapView != null) {
       mapView.dispose();
@@ -18,13 +18,17 @@ package com.esri.samples.update_geometries;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.geometry.Insets;
 import javafx.geometry.Point2D;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.StackPane;
@@ -33,21 +37,26 @@ import javafx.stage.Stage;
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
 import com.esri.arcgisruntime.data.Feature;
-import com.esri.arcgisruntime.data.FeatureEditResult;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.GeoElement;
 import com.esri.arcgisruntime.mapping.view.IdentifyLayerResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.EditBuffer;
+import com.esri.samples.core.data.FeatureIndex;
 
 public class UpdateGeometriesSample extends Application {
 
   private MapView mapView;
   private ServiceFeatureTable featureTable;
+  private EditBuffer editBuffer;
+  private Label editStatusLabel;
+  private volatile FeatureIndex featureIndex;
   private FeatureLayer featureLayer;
   private ArcGISFeature selectedFeature; // keep loadable in scope to avoid garbage collection
 
@@ -79,6 +88,20 @@ public class UpdateGeometriesSample extends Application {
       featureLayer = new FeatureLayer(featureTable);
       map.getOperationalLayers().add(featureLayer);
 
+      // apply edits to the server in batches, collapsing repeated edits to the same feature
+      editBuffer = new EditBuffer(featureTable);
+      editBuffer.addChangeListener(this::showEditStatus);
+
+      // index the table's features in memory once it has loaded, so clicks can be answered without the service
+      featureTable.addDoneLoadingListener(() -> {
+        if (featureTable.getLoadStatus() == LoadStatus.LOADED) {
+          FeatureIndex.loadAsync(featureTable).whenComplete((index, ex) -> {
+            featureIndex = index;
+            showEditStatus();
+          });
+        }
+      });
+
       // handle clicks on the map view to select and move features
       mapView.setOnMouseClicked((MouseEvent event) -> {
         if (event.isStillSincePress() && event.getButton() == MouseButton.PRIMARY) {
@@ -88,49 +111,22 @@ public class UpdateGeometriesSample extends Application {
           // get map location corresponding to screen point
           Point mapPoint = mapView.screenToLocation(point);
 
-          // identify any clicked feature
+          FeatureIndex index = featureIndex;
+          if (index != null) {
+            // find the clicked feature within 1 pixel in the index
+            double tolerance = mapView.getUnitsPerDensityIndependentPixel();
+            List<Feature> found = index.identify(mapPoint, tolerance, featureTable.getSpatialReference(), 1);
+            selectOrMove(found.isEmpty() ? null : found.get(0), mapPoint);
+            return;
+          }
+
+          // identify any clicked feature until the index has loaded
           ListenableFuture<IdentifyLayerResult> results = mapView.identifyLayerAsync(featureLayer, point, 1, false, 1);
           results.addDoneListener(() -> {
             try {
-
-              // get selected feature
               List<GeoElement> elements = results.get().getElements();
-              if (elements.size() > 0 && elements.get(0) instanceof ArcGISFeature) {
-
-                // clicked on a feature, select it
-                ArcGISFeature selected = (ArcGISFeature) elements.get(0);
-                featureLayer.clearSelection(); //clear previous selections
-                featureLayer.selectFeature(selected);
-
-              } else {
-
-                // didn't click on a feature
-                ListenableFuture<FeatureQueryResult> selectedQuery = featureLayer.getSelectedFeaturesAsync();
-                selectedQuery.addDoneListener(() -> {
-                  try {
-                    // check if a feature is currently selected
-                    FeatureQueryResult selectedQueryResult = selectedQuery.get();
-                    Iterator<Feature> features = selectedQueryResult.iterator();
-                    if (features.hasNext()) {
-                      // move selected feature to clicked location
-                      selectedFeature = (ArcGISFeature) features.next();
-                      selectedFeature.loadAsync();
-                      selectedFeature.addDoneLoadingListener(() -> {
-                        if (selectedFeature.canUpdateGeometry()) {
-                          selectedFeature.setGeometry(mapPoint);
-                          ListenableFuture<Void> featureTableResult = featureTable.updateFeatureAsync(selectedFeature);
-                          // apply the edits to the service
-                          featureTableResult.addDoneListener(this::applyEdits);
-                        }
-                      });
-
-                    } // else nothing currently selected, do nothing
-
-                  } catch (InterruptedException | ExecutionException e) {
-                    displayMessage("Exception getting selected feature", e.getCause().getMessage());
-                  }
-                });
-              }
+              selectOrMove(elements.size() > 0 && elements.get(0) instanceof Feature ? (Feature) elements.get(0) :
+                  null, mapPoint);
             } catch (InterruptedException | ExecutionException e) {
               displayMessage("Exception getting clicked feature", e.getCause().getMessage());
             }
@@ -142,8 +138,15 @@ public class UpdateGeometriesSample extends Application {
         }
       });
 
-      // add the map view to stack pane
-      stackPane.getChildren().add(mapView);
+      // create a label showing the edits waiting to be applied
+      editStatusLabel = new Label();
+      editStatusLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      showEditStatus();
+
+      // add the map view and label to stack pane
+      stackPane.getChildren().addAll(mapView, editStatusLabel);
+      StackPane.setAlignment(editStatusLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(editStatusLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display the stack trace
@@ -152,27 +155,78 @@ public class UpdateGeometriesSample extends Application {
   }
 
   /**
-   * Sends any edits on the ServiceFeatureTable to the server.
+   * Selects the clicked feature, or moves the selected feature to the clicked location if no feature was clicked.
+   *
+   * @param clicked clicked feature, or null
+   * @param mapPoint clicked location
    */
-  private void applyEdits() {
-
-    // apply the changes to the server
-    ListenableFuture<List<FeatureEditResult>> editResult = featureTable.applyEditsAsync();
-    editResult.addDoneListener(() -> {
-      try {
-        List<FeatureEditResult> edits = editResult.get();
-        // check if the server edit was successful
-        if (edits != null && edits.size() > 0) {
-          if (!edits.get(0).hasCompletedWithErrors()) {
-            displayMessage(null, "Geometry updated");
-          } else {
-            throw edits.get(0).getError();
-          }
+  private void selectOrMove(Feature clicked, Point mapPoint) {
+
+    if (clicked instanceof ArcGISFeature) {
+
+      // clicked on a feature, select it
+      featureLayer.clearSelection(); //clear previous selections
+      featureLayer.selectFeature(clicked);
+
+    } else {
+
+      // didn't click on a feature
+      ListenableFuture<FeatureQueryResult> selectedQuery = featureLayer.getSelectedFeaturesAsync();
+      selectedQuery.addDoneListener(() -> {
+        try {
+          // check if a feature is currently selected
+          FeatureQueryResult selectedQueryResult = selectedQuery.get();
+          Iterator<Feature> features = selectedQueryResult.iterator();
+          if (features.hasNext()) {
+            // move selected feature to clicked location
+            selectedFeature = (ArcGISFeature) features.next();
+            selectedFeature.loadAsync();
+            selectedFeature.addDoneLoadingListener(() -> {
+              if (selectedFeature.canUpdateGeometry()) {
+                selectedFeature.setGeometry(mapPoint);
+                // update the feature in the table, and on the service with the next batch
+                editBuffer.updateAsync(selectedFeature).whenComplete((v, ex) -> checkEditApplied(ex));
+                // replace the feature in the index, so the next click finds it at its new location
+                FeatureIndex index = featureIndex;
+                if (index != null) {
+                  index.put(selectedFeature);
+                }
+              }
+            });
+
+          } // else nothing currently selected, do nothing
+
+        } catch (InterruptedException | ExecutionException e) {
+          displayMessage("Exception getting selected feature", e.getCause().getMessage());
         }
-      } catch (InterruptedException | ExecutionException e) {
-        displayMessage("Error applying edits on server", e.getCause().getMessage());
-      }
-    });
+      });
+    }
+  }
+
+  /**
+   * Shows a message if an edit could not be applied to the server.
+   *
+   * @param ex exception the edit failed with, or null if it was applied
+   */
+  private void checkEditApplied(Throwable ex) {
+
+    if (ex != null) {
+      Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+      displayMessage("Error applying edits on server", cause.getMessage());
+    }
+  }
+
+  /**
+   * Shows the number of edits waiting to be applied and how the batches applied so far went.
+   */
+  private void showEditStatus() {
+
+    FeatureIndex index = featureIndex;
+    Platform.runLater(() -> editStatusLabel.setText(String.format(
+        "Edits waiting: %d, batches applied: %d (%.0f ms mean), edits collapsed: %d, conflicts: %d, %s",
+        editBuffer.getQueueDepth() + editBuffer.getInFlightCount(), editBuffer.getFlushCount(),
+        editBuffer.getMeanFlushMillis(), editBuffer.getCoalescedCount(), editBuffer.getConflictCount(),
+        index != null ? index.size() + " features indexed" : "identifying with the service")));
   }
 
   /**
@@ -198,6 +252,11 @@ public class UpdateGeometriesSample extends Application {
   @Override
   public void stop() {
 
+    // apply any edits still waiting
+    if (editBuffer != null) {
+      editBuffer.close();
+    }
+
     if (mapView != null) {
       mapView.dispose();
     }
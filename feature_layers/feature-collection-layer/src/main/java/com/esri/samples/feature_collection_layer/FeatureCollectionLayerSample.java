@@ -17,19 +17,23 @@
 package com.esri.samples.feature_collection_layer;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureCollection;
 import com.esri.arcgisruntime.data.FeatureCollectionTable;
 import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.geometry.Geometry;
 import com.esri.arcgisruntime.geometry.GeometryType;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.PolygonBuilder;
@@ -45,6 +49,7 @@ import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol.Style;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
+import com.esri.samples.core.data.FeatureCollectionLoader;
 
 public class FeatureCollectionLayerSample extends Application {
 
@@ -115,14 +120,10 @@ public class FeatureCollectionLayerSample extends Application {
     // add feature collection table to feature collection
     featureCollection.getTables().add(pointsTable);
 
-    // create feature using the collection table by passing an attribute and geometry
-    Map<String, Object> attributes = new HashMap<>();
-    attributes.put(pointFields.get(0).getName(), "Current Location");
+    // add a feature to the collection table with a geometry and a column of attribute values
     Point point = new Point(-79.497238, 8.849289, WGS84);
-    Feature addedFeature = pointsTable.createFeature(attributes, point);
-
-    // add feature to collection table
-    pointsTable.addFeatureAsync(addedFeature);
+    addFeatures(pointsTable, Stream.of(point),
+        Collections.singletonMap(pointFields.get(0).getName(), new String[] {"Current Location"}));
   }
 
   /**
@@ -147,16 +148,12 @@ public class FeatureCollectionLayerSample extends Application {
     // add feature collection table to feature collection
     featureCollection.getTables().add(polylineTable);
 
-    // create feature using the collection table by passing an attribute and geometry
-    Map<String, Object> attributes = new HashMap<>();
-    attributes.put(polylineFields.get(0).getName(), "AManAPlanACanalPanama");
+    // add a feature to the collection table with a geometry and a column of attribute values
     PolylineBuilder builder = new PolylineBuilder(WGS84);
     builder.addPoint(new Point(-79.497238, 8.849289, WGS84));
     builder.addPoint(new Point(-80.035568, 9.432302, WGS84));
-    Feature addedFeature = polylineTable.createFeature(attributes, builder.toGeometry());
-
-    // add feature to collection table
-    polylineTable.addFeatureAsync(addedFeature);
+    addFeatures(polylineTable, Stream.of(builder.toGeometry()),
+        Collections.singletonMap(polylineFields.get(0).getName(), new String[] {"AManAPlanACanalPanama"}));
   }
 
   /**
@@ -182,17 +179,33 @@ public class FeatureCollectionLayerSample extends Application {
     // add feature collection table to feature collection
     featureCollection.getTables().add(polygonTable);
 
-    // create feature using the collection table by passing an attribute and geometry
-    Map<String, Object> attributes = new HashMap<>();
-    attributes.put(polygonFields.get(0).getName(), "Restricted area");
+    // add a feature to the collection table with a geometry and a column of attribute values
     PolygonBuilder builder = new PolygonBuilder(WGS84);
     builder.addPoint(new Point(-79.497238, 8.849289, WGS84));
     builder.addPoint(new Point(-79.337936, 8.638903, WGS84));
     builder.addPoint(new Point(-79.11409, 8.895422, WGS84));
-    Feature addedFeature = polygonTable.createFeature(attributes, builder.toGeometry());
+    addFeatures(polygonTable, Stream.of(builder.toGeometry()),
+        Collections.singletonMap(polygonFields.get(0).getName(), new String[] {"Restricted area"}));
+  }
 
-    // add feature to collection table
-    polygonTable.addFeatureAsync(addedFeature);
+  /**
+   * Adds features to a Feature Collection Table in batches. The geometries and attribute columns can hold any number
+   * of features, only one is added to each table here.
+   *
+   * @param table Feature Collection Table to add the features to
+   * @param geometries geometries of the features
+   * @param columns attribute values of the features by field name, one array per field
+   */
+  private void addFeatures(FeatureCollectionTable table, Stream<? extends Geometry> geometries,
+      Map<String, Object> columns) {
+
+    new FeatureCollectionLoader(table).loadAsync(geometries, columns).whenComplete((count, ex) -> {
+      if (ex != null) {
+        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Failed to add features: " + cause.getMessage())
+            .show());
+      }
+    });
   }
 
   /**
@@ -17,9 +17,11 @@
 package com.esri.samples.feature_layer_definition_expression;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
@@ -28,9 +30,11 @@ import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.AttributeIndex;
 
 public class FeatureLayerDefinitionExpressionSample extends Application {
 
@@ -39,6 +43,8 @@ public class FeatureLayerDefinitionExpressionSample extends Application {
 
   private final static String FEATURE_SERVICE_URL =
       "https://sampleserver6.arcgisonline.com/arcgis/rest/services/SF311/FeatureServer/0";
+  private final static AttributeIndex.Filter TREE_MAINTENANCE =
+      AttributeIndex.Filter.equalTo("req_Type", "Tree Maintenance or Damage");
 
   @Override
   public void start(Stage stage) {
@@ -60,10 +66,14 @@ public class FeatureLayerDefinitionExpressionSample extends Application {
       ToggleButton definitionSwitch = new ToggleButton();
       definitionSwitch.setText("expression");
 
+      // create a label previewing how many features the expression matches
+      Label indexLabel = new Label("Indexing request types...");
+      indexLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+
       // set the definition expression
       definitionSwitch.selectedProperty().addListener((observable, oldValue, newValue) -> {
         if (definitionSwitch.isSelected()) {
-          featureLayer.setDefinitionExpression("req_Type = 'Tree Maintenance or Damage'");
+          featureLayer.setDefinitionExpression(TREE_MAINTENANCE.toWhereClause());
         } else {
           // reset the definition expression
           featureLayer.setDefinitionExpression("");
@@ -73,6 +83,22 @@ public class FeatureLayerDefinitionExpressionSample extends Application {
       // create service feature table
       final ServiceFeatureTable featureTable = new ServiceFeatureTable(FEATURE_SERVICE_URL);
 
+      // index the request types in memory once the table is loaded, without geometries, to count the features the
+      // expression matches before it is applied
+      featureTable.addDoneLoadingListener(() -> {
+        if (featureTable.getLoadStatus() == LoadStatus.LOADED) {
+          AttributeIndex.loadAsync(featureTable, null, false, "req_Type").whenComplete((index, ex) ->
+              Platform.runLater(() -> {
+                if (index != null) {
+                  indexLabel.setText("The expression matches " + index.count(TREE_MAINTENANCE) + " of " +
+                      index.size() + " features");
+                } else {
+                  indexLabel.setText("Indexing failed");
+                }
+              }));
+        }
+      });
+
       // create feature layer from service feature table
       featureLayer = new FeatureLayer(featureTable);
 
@@ -93,9 +119,11 @@ public class FeatureLayerDefinitionExpressionSample extends Application {
       mapView.setViewpointCenterAsync(startPoint, 150000);
 
       // add the map view and control panel to stack pane
-      stackPane.getChildren().addAll(mapView, definitionSwitch);
+      stackPane.getChildren().addAll(mapView, definitionSwitch, indexLabel);
       StackPane.setAlignment(definitionSwitch, Pos.TOP_LEFT);
       StackPane.setMargin(definitionSwitch, new Insets(10, 0, 0, 10));
+      StackPane.setAlignment(indexLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(indexLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display the stack trace
@@ -19,6 +19,7 @@ package com.esri.samples.feature_layer_geodatabase;
 import java.io.File;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.layout.StackPane;
@@ -26,18 +27,18 @@ import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.data.Geodatabase;
 import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
-import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.LayerLoader;
 
 public class FeatureLayerGeodatabaseSample extends Application {
 
   private MapView mapView;
   // keep loadables in scope to avoid garbage collection
   private Geodatabase geodatabase;
-  private FeatureLayer featureLayer;
+  private LayerLoader layerLoader;
 
   @Override
   public void start(Stage stage) {
@@ -68,20 +69,19 @@ public class FeatureLayerGeodatabaseSample extends Application {
         if (geodatabase.getLoadStatus() == LoadStatus.LOADED) {
           // access the geodatabase's feature table Trailheads
           GeodatabaseFeatureTable geodatabaseFeatureTable = geodatabase.getGeodatabaseFeatureTable("Trailheads");
-          geodatabaseFeatureTable.loadAsync();
-          // create a layer from the geodatabase feature table above and add to map
-          featureLayer = new FeatureLayer(geodatabaseFeatureTable);
-          featureLayer.addDoneLoadingListener(() -> {
-            if (featureLayer.getLoadStatus() == LoadStatus.LOADED) {
-              // set viewpoint to the location of feature layer's features
-              mapView.setViewpointCenterAsync(featureLayer.getFullExtent().getCenter(), 1000000);
+          // load the table in the background, a feature layer is added to the map once the table is in view
+          layerLoader = new LayerLoader(map.getOperationalLayers());
+          layerLoader.add(geodatabaseFeatureTable);
+          layerLoader.setLoadListener(load -> Platform.runLater(() -> {
+            if (load.getLoadStatus() == LoadStatus.LOADED) {
+              // set viewpoint to the location of the table's features
+              mapView.setViewpointCenterAsync(load.getExtent().getCenter(), 1000000);
             } else {
-              Alert alert = new Alert(Alert.AlertType.ERROR, "Feature Layer Failed to Load!");
+              Alert alert = new Alert(Alert.AlertType.ERROR, "Feature Table Failed to Load!");
               alert.show();
             }
-          });
-          // display feature layer to the map view
-          map.getOperationalLayers().add(featureLayer);
+          }));
+          layerLoader.loadAsync();
         } else {
           Alert alert = new Alert(Alert.AlertType.ERROR, "Geodatabase Failed to Load!");
           alert.show();
@@ -90,6 +90,13 @@ public class FeatureLayerGeodatabaseSample extends Application {
       // load geodatabase
       geodatabase.loadAsync();
 
+      // add the feature layer when the user stops navigating with the table in view
+      mapView.addNavigationChangedListener(navigationChangedEvent -> {
+        if (!navigationChangedEvent.isNavigating() && layerLoader != null) {
+          layerLoader.showVisible(mapView.getVisibleArea(), mapView.getMapScale());
+        }
+      });
+
       // add the map view to stack pane
       stackPane.getChildren().addAll(mapView);
     } catch (Exception e) {
@@ -20,6 +20,7 @@ import java.io.File;
 import java.util.List;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.layout.StackPane;
@@ -27,17 +28,18 @@ import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.data.GeoPackage;
 import com.esri.arcgisruntime.data.GeoPackageFeatureTable;
-import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.LayerLoader;
 
 public class FeatureLayerGeoPackageSample extends Application {
 
   private MapView mapView;
   private GeoPackage geoPackage; // keep loadable in scope to avoid garbage collection
+  private LayerLoader layerLoader;
   
   @Override
   public void start(Stage stage) {
@@ -67,12 +69,18 @@ public class FeatureLayerGeoPackageSample extends Application {
         if (geoPackage.getLoadStatus() == LoadStatus.LOADED) {
           List<GeoPackageFeatureTable> featureTables = geoPackage.getGeoPackageFeatureTables();
           if (featureTables.size() > 0) {
-            FeatureLayer featureLayer = new FeatureLayer(featureTables.get(0));
-            map.getOperationalLayers().add(featureLayer);
-            // zoom to the layer
-            featureLayer.addDoneLoadingListener(() ->
-              mapView.setViewpointAsync(new Viewpoint(featureLayer.getFullExtent()))
-            );
+            // load the table in the background, the feature layer is added once the table is in view
+            layerLoader = new LayerLoader(map.getOperationalLayers());
+            layerLoader.add(featureTables.get(0));
+            layerLoader.setLoadListener(load -> Platform.runLater(() -> {
+              if (load.getLoadStatus() == LoadStatus.LOADED) {
+                // zoom to the table's extent
+                mapView.setViewpointAsync(new Viewpoint(load.getExtent()));
+              } else {
+                new Alert(Alert.AlertType.ERROR, "Feature table failed to load").show();
+              }
+            }));
+            layerLoader.loadAsync();
           }
         } else {
           Alert alert = new Alert(Alert.AlertType.ERROR, geoPackage.getLoadError().getMessage());
@@ -84,6 +92,13 @@ public class FeatureLayerGeoPackageSample extends Application {
       mapView = new MapView();
       mapView.setMap(map);
 
+      // add the feature layer when the user stops navigating with the table in view
+      mapView.addNavigationChangedListener(navigationChangedEvent -> {
+        if (!navigationChangedEvent.isNavigating() && layerLoader != null) {
+          layerLoader.showVisible(mapView.getVisibleArea(), mapView.getMapScale());
+        }
+      });
+
       // add the map view to stack pane
       stackPane.getChildren().add(mapView);
 
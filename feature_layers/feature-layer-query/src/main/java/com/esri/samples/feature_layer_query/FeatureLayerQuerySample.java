@@ -16,6 +16,8 @@
 
 package com.esri.samples.feature_layer_query;
 
+import java.util.List;
+
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -51,6 +53,7 @@ import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
+import com.esri.samples.core.data.AttributeIndex;
 
 public class FeatureLayerQuerySample extends Application {
 
@@ -61,6 +64,7 @@ public class FeatureLayerQuerySample extends Application {
   private ServiceFeatureTable featureTable;
   private Point startPoint;
   private ListenableFuture<FeatureQueryResult> tableQueryResult;
+  private volatile AttributeIndex stateIndex;
 
   private final int SCALE = 100000000;
 
@@ -140,6 +144,8 @@ public class FeatureLayerQuerySample extends Application {
       featureLayer.addDoneLoadingListener(() -> {
         if (featureLayer.getLoadStatus() == LoadStatus.LOADED) {
           searchBox.setDisable(false);
+          // index the state names in memory, so searches are answered without a request to the service
+          AttributeIndex.loadAsync(featureTable, null, "STATE_NAME").thenAccept(index -> stateIndex = index);
         } else {
           Alert alert = new Alert(Alert.AlertType.ERROR, "Feature Layer Failed to Load!");
           alert.show();
@@ -179,9 +185,20 @@ public class FeatureLayerQuerySample extends Application {
    */
   private void searchForState(String state) {
 
+    // create a filter for the state that was entered, ignoring case
+    AttributeIndex.Filter filter = AttributeIndex.Filter.like("STATE_NAME", state, true);
+
+    // search for the state feature in the index once it has loaded
+    AttributeIndex index = stateIndex;
+    if (index != null) {
+      List<Feature> features = index.query(filter);
+      showState(features.isEmpty() ? null : features.get(0));
+      return;
+    }
+
     // create a query for the state that was entered
     QueryParameters query = new QueryParameters();
-    query.setWhereClause("upper(STATE_NAME) LIKE '" + state.toUpperCase() + "'");
+    query.setWhereClause(filter.toWhereClause());
 
     // search for the state feature in the feature table
     tableQueryResult = featureTable.queryFeaturesAsync(query);
@@ -190,22 +207,8 @@ public class FeatureLayerQuerySample extends Application {
       try {
         // get the result from the query
         FeatureQueryResult result = tableQueryResult.get();
-        // if a state feature was found
-        if (result.iterator().hasNext()) {
-          // get state feature and zoom to it
-          Feature feature = result.iterator().next();
-          Envelope envelope = feature.getGeometry().getExtent();
-          mapView.setViewpointGeometryAsync(envelope, 200);
-
-          // set the state feature to be selected
-          featureLayer.selectFeature(feature);
-        } else {
-          Platform.runLater(() -> {
-            dialog.setContentText("State Not Found! Add a valid state name.");
-            dialog.showAndWait();
-            mapView.setViewpointCenterAsync(startPoint, SCALE);
-          });
-        }
+        Feature feature = result.iterator().hasNext() ? result.iterator().next() : null;
+        Platform.runLater(() -> showState(feature));
       } catch (Exception e) {
         // on any error, display the stack trace
         e.printStackTrace();
@@ -213,6 +216,27 @@ public class FeatureLayerQuerySample extends Application {
     });
   }
 
+  /**
+   * Zooms to and selects a found state, or shows a dialog if no state was found.
+   *
+   * @param feature the state feature, or null if none was found
+   */
+  private void showState(Feature feature) {
+    // if a state feature was found
+    if (feature != null) {
+      // zoom to the state feature
+      Envelope envelope = feature.getGeometry().getExtent();
+      mapView.setViewpointGeometryAsync(envelope, 200);
+
+      // set the state feature to be selected
+      featureLayer.selectFeature(feature);
+    } else {
+      dialog.setContentText("State Not Found! Add a valid state name.");
+      dialog.showAndWait();
+      mapView.setViewpointCenterAsync(startPoint, SCALE);
+    }
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
@@ -17,14 +17,20 @@
 package com.esri.samples.feature_layer_rendering_mode_map;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
 import javafx.scene.control.SplitPane;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
@@ -35,12 +41,14 @@ import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.graphics.RenderingModeTuner;
 
 public class FeatureLayerRenderingModeMapSample extends Application {
 
   private MapView mapViewTop;
   private MapView mapViewBottom;
   private Timeline timeline;
+  private RenderingModeTuner renderingModeTuner;
 
   @Override
   public void start(Stage stage) {
@@ -65,20 +73,19 @@ public class FeatureLayerRenderingModeMapSample extends Application {
       mapTop.getLoadSettings().setPreferredPolylineFeatureRenderingMode(FeatureLayer.RenderingMode.STATIC);
       mapTop.getLoadSettings().setPreferredPolygonFeatureRenderingMode(FeatureLayer.RenderingMode.STATIC);
 
-      // create a map (bottom) and set it to render all features in dynamic rendering mode
+      // create a map (bottom) whose layers start in dynamic rendering mode and are tuned while it draws
       ArcGISMap mapBottom = new ArcGISMap();
-      mapBottom.getLoadSettings().setPreferredPointFeatureRenderingMode(FeatureLayer.RenderingMode.DYNAMIC);
-      mapBottom.getLoadSettings().setPreferredPolylineFeatureRenderingMode(FeatureLayer.RenderingMode.DYNAMIC);
-      mapBottom.getLoadSettings().setPreferredPolygonFeatureRenderingMode(FeatureLayer.RenderingMode.DYNAMIC);
 
       // creating top map view
       mapViewTop = new MapView();
       mapViewTop.setMap(mapTop);
-      splitPane.getItems().add(mapViewTop);
+      Label topLabel = createLabel("Static");
+      splitPane.getItems().add(new StackPane(mapViewTop, topLabel));
       // creating bottom map view
       mapViewBottom = new MapView();
       mapViewBottom.setMap(mapBottom);
-      splitPane.getItems().add(mapViewBottom);
+      Label bottomLabel = createLabel("Tuned, starting dynamic");
+      splitPane.getItems().add(new StackPane(mapViewBottom, bottomLabel));
 
       // create service feature table using a point, polyline, and polygon service
       ServiceFeatureTable pointServiceFeatureTable = new ServiceFeatureTable("https://sampleserver6.arcgisonline.com/arcgis/rest/services/Energy/Geology/FeatureServer/0");
@@ -92,7 +99,17 @@ public class FeatureLayerRenderingModeMapSample extends Application {
 
       // add each layer to top and bottom map
       mapTop.getOperationalLayers().addAll(Arrays.asList(pointFeatureLayer, polylineFeatureLayer, polygonFeatureLayer));
-      mapBottom.getOperationalLayers().addAll(Arrays.asList(pointFeatureLayer.copy(), polylineFeatureLayer.copy(), polygonFeatureLayer.copy()));
+      FeatureLayer[] bottomLayers = {pointFeatureLayer.copy(), polylineFeatureLayer.copy(), polygonFeatureLayer.copy()};
+      for (FeatureLayer bottomLayer : bottomLayers) {
+        bottomLayer.setRenderingMode(FeatureLayer.RenderingMode.DYNAMIC);
+      }
+      mapBottom.getOperationalLayers().addAll(Arrays.asList(bottomLayers));
+
+      // switch the bottom layers between dynamic and static rendering by draw time and feature count, and show the
+      // draw times and the switches made with the draw times before and after each one
+      renderingModeTuner = new RenderingModeTuner(mapViewBottom, mapBottom.getOperationalLayers());
+      renderingModeTuner.setDecisionListener(decision -> bottomLabel.setText(describe(renderingModeTuner)));
+      mapViewBottom.addDrawStatusChangedListener(event -> bottomLabel.setText(describe(renderingModeTuner)));
 
       // viewpoint locations for map view to zoom in and out to
       Viewpoint zoomOutPoint = new Viewpoint(new Point(-118.37, 34.46, SpatialReferences.getWgs84()), 650000, 0);
@@ -123,6 +140,32 @@ public class FeatureLayerRenderingModeMapSample extends Application {
     mapViewBottom.setViewpointAsync(viewpoint, 5);
   }
 
+  /**
+   * Creates a label shown over the bottom left of a view.
+   *
+   * @param text initial text
+   * @return label
+   */
+  private static Label createLabel(String text) {
+    Label label = new Label(text);
+    label.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+    StackPane.setAlignment(label, Pos.BOTTOM_LEFT);
+    StackPane.setMargin(label, new Insets(10, 10, 30, 10));
+    return label;
+  }
+
+  /**
+   * Describes the draw times and the last few switches of a tuner.
+   *
+   * @param tuner rendering mode tuner
+   * @return description
+   */
+  private static String describe(RenderingModeTuner tuner) {
+    List<RenderingModeTuner.Decision> decisions = tuner.getDecisions();
+    return "Tuned: " + tuner + decisions.subList(Math.max(0, decisions.size() - 3), decisions.size()).stream()
+        .map(decision -> "\n" + decision).collect(Collectors.joining());
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
@@ -132,6 +175,10 @@ public class FeatureLayerRenderingModeMapSample extends Application {
     // stop the timer
     timeline.stop();
 
+    if (renderingModeTuner != null) {
+      renderingModeTuner.close();
+    }
+
     if (mapViewTop != null) {
       mapViewTop.dispose();
     }
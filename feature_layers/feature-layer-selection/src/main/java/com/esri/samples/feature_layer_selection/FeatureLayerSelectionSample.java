@@ -20,8 +20,12 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
 import javafx.geometry.Point2D;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
@@ -30,17 +34,22 @@ import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.IdentifyLayerResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.FeatureIndex;
 
 public class FeatureLayerSelectionSample extends Application {
 
   private MapView mapView;
+  private Label indexLabel;
+  private volatile FeatureIndex featureIndex;
 
   @Override
   public void start(Stage stage) {
@@ -80,6 +89,21 @@ public class FeatureLayerSelectionSample extends Application {
       // add the layer to the ArcGISMap
       map.getOperationalLayers().add(featureLayer);
 
+      // create a label to show how long selections take
+      indexLabel = new Label("Loading spatial index...");
+      indexLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+
+      // index the table's features in memory once it has loaded, so clicks can be answered without the service
+      serviceFeatureTable.addDoneLoadingListener(() -> {
+        if (serviceFeatureTable.getLoadStatus() == LoadStatus.LOADED) {
+          FeatureIndex.loadAsync(serviceFeatureTable).whenComplete((index, ex) -> {
+            featureIndex = index;
+            Platform.runLater(() -> indexLabel.setText(ex == null ? index.size() + " features indexed" :
+                "Spatial index failed to load, using identify"));
+          });
+        }
+      });
+
       mapView.setOnMouseClicked(event -> {
         // check for primary or secondary mouse click
         if (event.isStillSincePress() && event.getButton() == MouseButton.PRIMARY) {
@@ -89,7 +113,19 @@ public class FeatureLayerSelectionSample extends Application {
           // create a point from where the user clicked
           Point2D point = new Point2D(event.getX(), event.getY());
 
-          // identify the clicked features
+          FeatureIndex index = featureIndex;
+          if (index != null) {
+            // find the features within 10 pixels of the click in the index
+            Point mapPoint = mapView.screenToLocation(point);
+            double tolerance = 10 * mapView.getUnitsPerDensityIndependentPixel();
+            featureLayer.selectFeatures(index.identify(mapPoint, tolerance, serviceFeatureTable.getSpatialReference(),
+                10));
+            indexLabel.setText(String.format("%d features indexed, %.0f microseconds per selection", index.size(),
+                index.getMeanQueryMicros()));
+            return;
+          }
+
+          // identify the clicked features until the index has loaded
           final ListenableFuture<IdentifyLayerResult> results = mapView.identifyLayerAsync(featureLayer, point, 10,
               false, 10);
           results.addDoneListener(() -> {
@@ -113,8 +149,10 @@ public class FeatureLayerSelectionSample extends Application {
         }
       });
 
-      // add the map view to stack pane
-      stackPane.getChildren().add(mapView);
+      // add the map view and label to stack pane
+      stackPane.getChildren().addAll(mapView, indexLabel);
+      StackPane.setAlignment(indexLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(indexLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display exception
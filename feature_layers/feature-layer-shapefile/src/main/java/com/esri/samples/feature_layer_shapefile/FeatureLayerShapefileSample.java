@@ -17,24 +17,39 @@
 package com.esri.samples.feature_layer_shapefile;
 
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Point2D;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
 import com.esri.arcgisruntime.data.ShapefileFeatureTable;
+import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.arcgisruntime.symbology.Renderer;
+import com.esri.samples.core.data.ShapefileImporter;
 
 public class FeatureLayerShapefileSample extends Application {
 
   private MapView mapView;
   private FeatureLayer featureLayer; // keep loadable in scope to avoid garbage collection
+  private ShapefileImporter importer;
 
   @Override
   public void start(Stage stage) {
@@ -77,14 +92,75 @@ public class FeatureLayerShapefileSample extends Application {
       // add the feature layer to the map
       map.getOperationalLayers().add(featureLayer);
 
-      // add the map view to the stack pane
-      stackPane.getChildren().add(mapView);
+      // add a button to import the shapefile into memory, and a label showing the import's timings
+      Button importButton = new Button("Import into memory");
+      Label importLabel = new Label();
+      importLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      importLabel.setVisible(false);
+
+      // import the shapefile into a feature collection table and a spatial index, reading records in parallel, and
+      // show it in place of the shapefile feature table
+      importButton.setOnAction(e -> {
+        importButton.setDisable(true);
+        importLabel.setText("Importing shapefile");
+        importLabel.setVisible(true);
+        importer = new ShapefileImporter(shapefile.toPath());
+        importer.importAsync().whenComplete((table, ex) -> Platform.runLater(() -> {
+          if (ex == null) {
+            importLabel.setText(importer.toString());
+            replaceLayer(map, table);
+          } else {
+            importButton.setDisable(false);
+            importLabel.setVisible(false);
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            new Alert(Alert.AlertType.ERROR, "Failed to import shapefile: " + cause.getMessage()).show();
+          }
+        }));
+      });
+
+      // once imported, select the features within 10 pixels of a click, found in the importer's spatial index
+      mapView.setOnMouseClicked(e -> {
+        if (e.isStillSincePress() && e.getButton() == MouseButton.PRIMARY && importer != null &&
+            featureLayer.getFeatureTable() instanceof FeatureCollectionTable) {
+          Point mapPoint = mapView.screenToLocation(new Point2D(e.getX(), e.getY()));
+          List<Feature> features = importer.getIndex().identify(mapPoint,
+              10 * mapView.getUnitsPerDensityIndependentPixel(), featureLayer.getFeatureTable().getSpatialReference(),
+              10);
+          featureLayer.clearSelection();
+          featureLayer.selectFeatures(features);
+        }
+      });
+
+      // add the map view, button and label to the stack pane
+      stackPane.getChildren().addAll(mapView, importButton, importLabel);
+      StackPane.setAlignment(importButton, Pos.TOP_LEFT);
+      StackPane.setMargin(importButton, new Insets(10, 0, 0, 10));
+      StackPane.setAlignment(importLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(importLabel, new Insets(10, 10, 30, 10));
     } catch (Exception e) {
       // on any error, display the stack trace.
       e.printStackTrace();
     }
   }
 
+  /**
+   * Replaces the shapefile's feature layer with a layer showing the imported features, drawn with the same renderer.
+   *
+   * @param map map
+   * @param table table holding the imported features
+   */
+  private void replaceLayer(ArcGISMap map, FeatureCollectionTable table) {
+    FeatureLayer importedLayer = new FeatureLayer(table);
+    // copy the shapefile's symbology, as the imported table has no renderer of its own
+    Renderer renderer = featureLayer.getRenderer();
+    if (renderer != null) {
+      importedLayer.setRenderer(Renderer.fromJson(renderer.toJson()));
+    }
+    map.getOperationalLayers().remove(featureLayer);
+    featureLayer = importedLayer;
+    map.getOperationalLayers().add(featureLayer);
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
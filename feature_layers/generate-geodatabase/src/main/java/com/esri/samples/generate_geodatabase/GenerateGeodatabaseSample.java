@@ -16,9 +16,11 @@
 package com.esri.samples.generate_geodatabase;
 
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -28,36 +30,32 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-import com.esri.arcgisruntime.concurrent.Job;
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
-import com.esri.arcgisruntime.data.Geodatabase;
 import com.esri.arcgisruntime.data.TileCache;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.layers.ArcGISTiledLayer;
 import com.esri.arcgisruntime.layers.FeatureLayer;
-import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
-import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseJob;
 import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseParameters;
 import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
+import com.esri.samples.core.data.ReplicaDownloader;
 
 public class GenerateGeodatabaseSample extends Application {
 
   private MapView mapView;
   // keep loadables in scope to avoid garbage collection
   private GeodatabaseSyncTask syncTask;
-  private Geodatabase geodatabase;
-  
-  private final AtomicInteger replica = new AtomicInteger();
+  private ReplicaDownloader downloader;
 
   @Override
   public void start(Stage stage) {
@@ -97,6 +95,11 @@ public class GenerateGeodatabaseSample extends Application {
           progressBar.progressProperty()));
       progressBar.setProgress(0.0);
 
+      // add a label showing the download rate of each part
+      Label partsLabel = new Label();
+      partsLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      partsLabel.setVisible(false);
+
       // create a geodatabase sync task
       String featureServiceURL =
           "https://sampleserver6.arcgisonline.com/arcgis/rest/services/Sync/WildfireSync/FeatureServer";
@@ -104,9 +107,17 @@ public class GenerateGeodatabaseSample extends Application {
       syncTask.loadAsync();
       syncTask.addDoneLoadingListener(() -> generateButton.setDisable(false));
 
+      // download one geodatabase per layer, three at a time, into a directory kept between runs so that a failed
+      // download resumes from the layers which finished
+      Path downloadDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "generate-geodatabase-sample");
+      downloader = new ReplicaDownloader(syncTask, downloadDirectory);
+      downloader.addChangeListener(() -> Platform.runLater(() ->
+          progressBar.setProgress(downloader.getProgress() / 100.0)));
+
       // generate the geodatabase on button click
       generateButton.setOnMouseClicked(event -> {
-        // clear any previous operational layers and graphics if button clicked more than once
+        // clear any previous operational layers and graphics if button clicked more than once, the downloader closes
+        // the geodatabases they show before opening or deleting their files
         map.getOperationalLayers().clear();
         graphicsOverlay.getGraphics().clear();
 
@@ -124,59 +135,43 @@ public class GenerateGeodatabaseSample extends Application {
             GenerateGeodatabaseParameters parameters = defaultParameters.get();
             parameters.setReturnAttachments(false);
 
-            // temporary file for geodatabase
-            File tempFile = File.createTempFile("gdb" + replica.getAndIncrement(), ".geodatabase");
-            tempFile.deleteOnExit();
-
-            // create and start the job
-            GenerateGeodatabaseJob job = syncTask.generateGeodatabase(parameters, tempFile.getAbsolutePath());
-            job.start();
-
-            // show progress
-            job.addProgressChangedListener(() -> {
-              int progress = job.getProgress();
-              progressBar.setProgress((double) progress / 100.0);
-            });
-
-            // get geodatabase when done
-            job.addJobDoneListener(() -> {
-              if (job.getStatus() == Job.Status.SUCCEEDED) {
-                geodatabase = job.getResult();
+            // generate the geodatabases, skipping the layers already downloaded for this extent
+            generateButton.setDisable(true);
+            downloader.downloadAsync(parameters).whenComplete((parts, ex) -> Platform.runLater(() -> {
+              generateButton.setDisable(false);
+              progressBar.setProgress(0.0);
+              // show the features and bytes per second of each part
+              partsLabel.setText(downloader.getParts().stream().map(ReplicaDownloader.Part::toString)
+                  .collect(Collectors.joining("\n")));
+              partsLabel.setVisible(true);
+              // unregister the replicas of all finished parts, including those of an earlier failed download, since
+              // we're not syncing
+              downloader.unregisterAsync();
+              if (ex == null) {
                 displayMessage("Geodatabase successfully generated", "Unregistering geodatabase since we're not " +
                     "syncing it here");
-                geodatabase.loadAsync();
-                geodatabase.addDoneLoadingListener(() -> {
-                  if (geodatabase.getLoadStatus() == LoadStatus.LOADED) {
-                    geodatabase.getGeodatabaseFeatureTables().forEach(ft -> {
-                      ft.loadAsync();
-                      map.getOperationalLayers().add(new FeatureLayer(ft));
-                    });
-                  } else {
-                    displayMessage("Error loading geodatabase", geodatabase.getLoadError().getMessage());
-                  }
-                });
-                // unregister since we're not syncing
-                syncTask.unregisterGeodatabaseAsync(geodatabase);
-              } else if (job.getError() != null) {
-                displayMessage("Error generating geodatabase", job.getError().getMessage());
+                parts.forEach(part -> part.getGeodatabase().getGeodatabaseFeatureTables().forEach(ft ->
+                    map.getOperationalLayers().add(new FeatureLayer(ft))));
               } else {
-                displayMessage("Unknown Error generating geodatabase", null);
+                Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                displayMessage("Error generating geodatabase", cause.getMessage() + "\nGenerate again to " +
+                    "resume the download.");
               }
-            });
+            }));
           } catch (InterruptedException | ExecutionException e) {
             displayMessage("Error generating geodatabase parameters", e.getMessage());
-          } catch (IOException e) {
-            displayMessage("Could not create file for geodatabase", e.getMessage());
           }
         });
       });
 
       // add the map view and controls to stack pane
-      stackPane.getChildren().addAll(mapView, generateButton, progressBar);
+      stackPane.getChildren().addAll(mapView, generateButton, progressBar, partsLabel);
       StackPane.setAlignment(generateButton, Pos.TOP_LEFT);
       StackPane.setMargin(generateButton, new Insets(10, 0, 0, 10));
       StackPane.setAlignment(progressBar, Pos.TOP_RIGHT);
       StackPane.setMargin(progressBar, new Insets(10, 10, 0, 0));
+      StackPane.setAlignment(partsLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(partsLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display stack trace
@@ -16,11 +16,13 @@
 
 package com.esri.samples.list_related_features;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -40,17 +42,21 @@ import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
+import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.DrawStatus;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.RelatedFeatureCache;
 
 public class ListRelatedFeaturesSample extends Application {
 
   private MapView mapView;
   private ArcGISMap map; // keep loadable in scope to avoid garbage collection
+  private volatile RelatedFeatureCache relatedFeatureCache;
 
   @Override
   public void start(Stage stage) {
@@ -98,6 +104,20 @@ public class ListRelatedFeaturesSample extends Application {
         // get the first feature layer for querying
         FeatureLayer featureLayer = (FeatureLayer) map.getOperationalLayers().get(0);
 
+        // cache the related features of the layer's features, prefetching those of the visible features whenever
+        // navigation stops
+        featureLayer.addDoneLoadingListener(() -> {
+          if (featureLayer.getFeatureTable() instanceof ServiceFeatureTable) {
+            relatedFeatureCache = new RelatedFeatureCache((ServiceFeatureTable) featureLayer.getFeatureTable());
+            mapView.addNavigationChangedListener(navigationChangedEvent -> {
+              if (!navigationChangedEvent.isNavigating()) {
+                prefetchVisibleFeatures((ServiceFeatureTable) featureLayer.getFeatureTable());
+              }
+            });
+            prefetchVisibleFeatures((ServiceFeatureTable) featureLayer.getFeatureTable());
+          }
+        });
+
         mapView.setOnMouseClicked(event -> {
           // check for primary or secondary mouse click
           if (event.isStillSincePress() && event.getButton() == MouseButton.PRIMARY) {
@@ -121,39 +141,42 @@ public class ListRelatedFeaturesSample extends Application {
                 Iterator<Feature> iterator = result.iterator();
                 if (iterator.hasNext()) {
                   ArcGISFeature selectedFeature = (ArcGISFeature) iterator.next();
-                  // get the feature's feature table
-                  ArcGISFeatureTable featureTable = selectedFeature.getFeatureTable();
-
-                  // query related features
-                  final ListenableFuture<List<RelatedFeatureQueryResult>> relatedFeatureQuery = featureTable
-                      .queryRelatedFeaturesAsync(selectedFeature);
-                  relatedFeatureQuery.addDoneListener(() -> {
-                    try {
-                      //clear previous results
-                      accordion.getPanes().clear();
-                      // add all related features (grouped) into panes of the accordion
-                      List<RelatedFeatureQueryResult> results = relatedFeatureQuery.get();
-                      for(RelatedFeatureQueryResult relatedFeatureQueryResult : results){
-                        ListView<String> featureList = new ListView<>();
-                        String relatedTableName = relatedFeatureQueryResult.getRelatedTable().getTableName();
-                        // create a pane for the feature table with a list for its features
-                        TitledPane tablePane = new TitledPane(relatedTableName, featureList);
-                        accordion.getPanes().add(tablePane);
-                        for(Feature relatedFeature : relatedFeatureQueryResult) {
-                          // show the related feature with its display field value in the list
-                          ArcGISFeature feature = (ArcGISFeature) relatedFeature;
-                          String displayFieldName = feature.getFeatureTable().getLayerInfo().getDisplayFieldName();
-                          String displayFieldValue = feature.getAttributes().get(displayFieldName).toString();
-                          featureList.getItems().add(displayFieldValue);
+                  if (relatedFeatureCache == null) {
+                    // the cache is created once the layer has loaded, query the feature's table until then
+                    ListenableFuture<List<RelatedFeatureQueryResult>> relatedFeatureQuery =
+                        selectedFeature.getFeatureTable().queryRelatedFeaturesAsync(selectedFeature);
+                    relatedFeatureQuery.addDoneListener(() -> {
+                      try {
+                        //clear previous results
+                        accordion.getPanes().clear();
+                        for (RelatedFeatureQueryResult relatedFeatureQueryResult : relatedFeatureQuery.get()) {
+                          addRelatedFeaturesPane(accordion, relatedFeatureQueryResult.getRelatedTable(),
+                              relatedFeatureQueryResult);
                         }
+                        expandLastPane(accordion);
+                      } catch (InterruptedException | ExecutionException e) {
+                        Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to get related features");
+                        alert.show();
                       }
-                      //expand the accordion's last pane to show the related features
-                      accordion.setExpandedPane(accordion.getPanes().get(accordion.getPanes().size() - 1));
-                    } catch (InterruptedException | ExecutionException e) {
+                    });
+                    return;
+                  }
+
+                  // get the related features from the cache, which usually holds them already
+                  relatedFeatureCache.queryAsync(selectedFeature).whenComplete((results, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
                       Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to get related features");
                       alert.show();
+                      return;
+                    }
+                    //clear previous results
+                    accordion.getPanes().clear();
+                    for (RelatedFeatureCache.RelatedFeatures relatedFeatures : results) {
+                      addRelatedFeaturesPane(accordion, relatedFeatures.getRelatedTable(),
+                          relatedFeatures.getFeatures());
                     }
-                  });
+                    expandLastPane(accordion);
+                  }));
                 }
 
               } catch (InterruptedException | ExecutionException e) {
@@ -175,6 +198,67 @@ public class ListRelatedFeaturesSample extends Application {
     }
   }
 
+  /**
+   * Adds a pane to the accordion listing the related features of one table by their display field value.
+   *
+   * @param accordion accordion showing the related features
+   * @param relatedTable the related table, or null if it is not in the map
+   * @param relatedFeatures the related features in the table
+   */
+  private void addRelatedFeaturesPane(Accordion accordion, ArcGISFeatureTable relatedTable,
+      Iterable<Feature> relatedFeatures) {
+    if (relatedTable == null) {
+      return;
+    }
+    ListView<String> featureList = new ListView<>();
+    // create a pane for the feature table with a list for its features
+    TitledPane tablePane = new TitledPane(relatedTable.getTableName(), featureList);
+    accordion.getPanes().add(tablePane);
+    String displayFieldName = relatedTable.getLayerInfo().getDisplayFieldName();
+    for (Feature relatedFeature : relatedFeatures) {
+      // show the related feature with its display field value in the list
+      featureList.getItems().add(String.valueOf(relatedFeature.getAttributes().get(displayFieldName)));
+    }
+  }
+
+  /**
+   * Expands the accordion's last pane to show the related features.
+   *
+   * @param accordion accordion showing the related features
+   */
+  private void expandLastPane(Accordion accordion) {
+    if (!accordion.getPanes().isEmpty()) {
+      accordion.setExpandedPane(accordion.getPanes().get(accordion.getPanes().size() - 1));
+    }
+  }
+
+  /**
+   * Queries the features in the visible area and prefetches their related features, with one query per relationship.
+   *
+   * @param featureTable the feature layer's table
+   */
+  private void prefetchVisibleFeatures(ServiceFeatureTable featureTable) {
+    Viewpoint visibleArea = mapView.getCurrentViewpoint(Viewpoint.Type.BOUNDING_GEOMETRY);
+    if (visibleArea == null) {
+      return;
+    }
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setGeometry(visibleArea.getTargetGeometry());
+    queryParameters.setMaxFeatures(RelatedFeatureCache.DEFAULT_PREFETCH_DEPTH);
+    // load all fields to include the relationships' key fields
+    ListenableFuture<FeatureQueryResult> visibleFeaturesQuery =
+        featureTable.queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
+    visibleFeaturesQuery.addDoneListener(() -> {
+      try {
+        List<Feature> visibleFeatures = new ArrayList<>();
+        visibleFeaturesQuery.get().forEach(visibleFeatures::add);
+        relatedFeatureCache.prefetchAsync(visibleFeatures);
+      } catch (InterruptedException | ExecutionException e) {
+        // features are queried one at a time when clicked instead
+      }
+    });
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
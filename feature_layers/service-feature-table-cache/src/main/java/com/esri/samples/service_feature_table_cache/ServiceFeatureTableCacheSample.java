@@ -16,30 +16,55 @@
 
 package com.esri.samples.service_feature_table_cache;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
+import com.esri.arcgisruntime.data.FeatureCollection;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.Field;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.arcgisruntime.layers.FeatureCollectionLayer;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.FeatureTileLoader;
+import com.esri.samples.core.data.FeatureTileStore;
 
 public class ServiceFeatureTableCacheSample extends Application {
 
   private MapView mapView;
   private ServiceFeatureTable serviceFeatureTable; // keep loadable in scope to avoid garbage collection
+  private FeatureTileLoader tileLoader;
+  private Label cacheLabel;
 
   private static final String FEATURE_SERVICE_URL =
       "https://services2.arcgis.com/ZQgQTuoyBrtmoGdP/arcgis/rest/services/US_Bridges/FeatureServer/0";
 
+  // below this scale features are shown from tiles kept on disk between sessions
+  private static final double TILE_MIN_SCALE = 500000;
+  private static final double TILE_SIZE_METERS = 25000;
+  private static final double TILE_SIZE_DEGREES = 0.25;
+  private static final long CACHE_MAX_BYTES = 256L * 1024 * 1024;
+
   @Override
   public void start(Stage stage) {
 
@@ -80,19 +105,63 @@ public class ServiceFeatureTableCacheSample extends Application {
       serviceFeatureTable.addDoneLoadingListener(() -> {
         if (serviceFeatureTable.getLoadStatus() == LoadStatus.LOADED) {
 
-          // create the feature layer using the service feature table
+          // create the feature layer using the service feature table, shown when zoomed out
           FeatureLayer featureLayer = new FeatureLayer(serviceFeatureTable);
+          featureLayer.setMaxScale(TILE_MIN_SCALE);
 
           // add the layer to the ArcGISMap
           map.getOperationalLayers().add(featureLayer);
 
+          // create a feature collection table with the same fields for the features read from the tile cache, shown
+          // when zoomed in
+          List<Field> fields = new ArrayList<>();
+          for (Field field : serviceFeatureTable.getFields()) {
+            if (field.getFieldType() != Field.Type.OID && field.getFieldType() != Field.Type.GLOBALID) {
+              fields.add(field);
+            }
+          }
+          FeatureCollectionTable cachedTable = new FeatureCollectionTable(fields,
+              serviceFeatureTable.getGeometryType(), serviceFeatureTable.getSpatialReference());
+          FeatureCollection featureCollection = new FeatureCollection();
+          featureCollection.getTables().add(cachedTable);
+          FeatureCollectionLayer cachedLayer = new FeatureCollectionLayer(featureCollection);
+          cachedLayer.setMinScale(TILE_MIN_SCALE);
+          map.getOperationalLayers().add(cachedLayer);
+
+          // draw the cached features like the service's features
+          featureLayer.addDoneLoadingListener(() -> cachedTable.setRenderer(featureLayer.getRenderer()));
+
+          try {
+            // open the tile cache in the user's home directory, so later runs start from the tiles already downloaded
+            Path cacheDirectory = Paths.get(System.getProperty("user.home"), ".arcgis", "feature-tile-cache");
+            FeatureTileStore tileStore = new FeatureTileStore(cacheDirectory, CACHE_MAX_BYTES);
+            double tileSize = serviceFeatureTable.getSpatialReference().isGeographic() ? TILE_SIZE_DEGREES :
+                TILE_SIZE_METERS;
+            tileLoader = new FeatureTileLoader(serviceFeatureTable, cachedTable, tileStore, tileSize);
+          } catch (IOException e) {
+            new Alert(Alert.AlertType.ERROR, "Error opening the tile cache").show();
+          }
+
         } else {
           new Alert(Alert.AlertType.ERROR, "Error loading Service Feature Table").show();
         }
       });
 
-      // add the map view to stack pane
-      stackPane.getChildren().addAll(mapView);
+      // load the tiles covering the visible area whenever the user stops panning or zooming
+      mapView.addNavigationChangedListener(navigationChangedEvent -> {
+        if (!navigationChangedEvent.isNavigating()) {
+          loadVisibleTiles();
+        }
+      });
+
+      // show how many tiles were read from disk and how many were downloaded
+      cacheLabel = new Label("Zoom in to load features from the tile cache");
+      cacheLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+
+      // add the map view and label to stack pane
+      stackPane.getChildren().addAll(mapView, cacheLabel);
+      StackPane.setAlignment(cacheLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(cacheLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display stack trace
@@ -100,6 +169,32 @@ public class ServiceFeatureTableCacheSample extends Application {
     }
   }
 
+  /**
+   * Loads the features in the visible area from the tile cache, downloading the tiles which are not cached yet, and
+   * removes the features of the tiles which are no longer visible.
+   */
+  private void loadVisibleTiles() {
+    if (tileLoader == null) {
+      return;
+    }
+    if (mapView.getMapScale() > TILE_MIN_SCALE) {
+      // the cached layer is hidden, so release its features
+      tileLoader.clearAsync();
+      return;
+    }
+    Envelope visibleExtent = GeometryEngine.project(mapView.getVisibleArea().getExtent(),
+        serviceFeatureTable.getSpatialReference()).getExtent();
+    tileLoader.loadAsync(visibleExtent).whenComplete((count, ex) -> Platform.runLater(() -> {
+      if (ex != null) {
+        new Alert(Alert.AlertType.ERROR, "Error loading feature tiles").show();
+      } else {
+        cacheLabel.setText(String.format("Tiles from disk: %d, tiles downloaded: %d (%.0f ms each), features: %d",
+            tileLoader.getDiskTileCount(), tileLoader.getServiceTileCount(), tileLoader.getMeanServiceMillis(),
+            tileLoader.getShownFeatureCount()));
+      }
+    }));
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
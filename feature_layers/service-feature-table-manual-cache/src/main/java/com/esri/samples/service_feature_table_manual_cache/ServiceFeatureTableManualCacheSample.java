@@ -18,7 +18,7 @@ package com.esri.samples.service_feature_table_manual_cache;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletionException;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -36,9 +36,6 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 
-import com.esri.arcgisruntime.concurrent.ListenableFuture;
-import com.esri.arcgisruntime.data.FeatureQueryResult;
-import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.SpatialReferences;
@@ -48,14 +45,16 @@ import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.ParallelPopulator;
 
 public class ServiceFeatureTableManualCacheSample extends Application {
 
   private MapView mapView;
   private FeatureLayer featureLayer; // keep loadable in scope to avoid garbage collection
   private Label featuresReturnLabel;
+  private Label timingLabel;
   private ServiceFeatureTable featureTable;
-  private ListenableFuture<FeatureQueryResult> tableResult;
+  private ParallelPopulator populator;
 
   private static final String SERVICE_FEATURE_URL =
       "https://sampleserver6.arcgisonline.com/arcgis/rest/services/SF311/FeatureServer/0";
@@ -81,7 +80,7 @@ public class ServiceFeatureTableManualCacheSample extends Application {
       controlsVBox.setBackground(new Background(new BackgroundFill(Paint.valueOf("rgba(0,0,0,0.3)"), CornerRadii.EMPTY,
           Insets.EMPTY)));
       controlsVBox.setPadding(new Insets(10.0));
-      controlsVBox.setMaxSize(200, 80);
+      controlsVBox.setMaxSize(260, 100);
       controlsVBox.getStyleClass().add("panel-region");
 
       // create button to request the service table's cache
@@ -95,8 +94,12 @@ public class ServiceFeatureTableManualCacheSample extends Application {
       featuresReturnLabel = new Label("Features Returned: ");
       featuresReturnLabel.getStyleClass().add("panel-label");
 
-      // add label and button to the control panel
-      controlsVBox.getChildren().addAll(featuresReturnLabel, requestCacheButton);
+      // create a label to display how long the requests took
+      timingLabel = new Label();
+      timingLabel.getStyleClass().add("panel-label");
+
+      // add labels and button to the control panel
+      controlsVBox.getChildren().addAll(featuresReturnLabel, timingLabel, requestCacheButton);
 
       // create service feature table from a url
       featureTable = new ServiceFeatureTable(SERVICE_FEATURE_URL);
@@ -110,6 +113,8 @@ public class ServiceFeatureTableManualCacheSample extends Application {
       // enable button when feature layer is done loading
       featureLayer.addDoneLoadingListener(() -> {
         if (featureLayer.getLoadStatus() == LoadStatus.LOADED) {
+          // populate the table with several object ID ranges at once
+          populator = new ParallelPopulator(featureTable);
           requestCacheButton.setDisable(false);
         } else {
           Alert alert = new Alert(Alert.AlertType.ERROR, "Feature Layer Failed to Load!");
@@ -145,28 +150,26 @@ public class ServiceFeatureTableManualCacheSample extends Application {
    */
   private void fetchCacheManually() {
 
-    // create query to select all tree or damage features
-    QueryParameters queryParams = new QueryParameters();
-    queryParams.setWhereClause("req_type = 'Tree Maintenance or Damage'");
+    // select all tree or damage features
+    String whereClause = "req_type = 'Tree Maintenance or Damage'";
 
     // * means all features
     List<String> outfields = Collections.singletonList("*");
-    // get queried features from service feature table and clear previous cache
-    tableResult = featureTable.populateFromServiceAsync(queryParams, true, outfields);
-
-    tableResult.addDoneListener(() -> {
-      try {
-        // find the number of features returned from query
-        AtomicInteger featuresReturned = new AtomicInteger();
-        tableResult.get().forEach(feature -> featuresReturned.getAndIncrement());
-
-        // display to user how many features where returned
-        Platform.runLater(() -> featuresReturnLabel.setText("Features Returned: " + featuresReturned));
-      } catch (Exception e) {
-        // on any error, display the stack trace
-        e.printStackTrace();
+
+    // request the object IDs of the features, then clear the previous cache and populate the table with ranges of
+    // object IDs in parallel
+    populator.populateAsync(whereClause, outfields).whenComplete((result, ex) -> Platform.runLater(() -> {
+      if (ex != null) {
+        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        new Alert(Alert.AlertType.ERROR, "Failed to populate the table: " + cause.getMessage()).show();
+      } else {
+        // display to user how many features where returned and how long it took, compared with the time the ranges
+        // took added up
+        featuresReturnLabel.setText("Features Returned: " + result.getFeatureCount());
+        timingLabel.setText(String.format("%d ranges in %d ms (ranges summed: %d ms)", result.getPageCount(),
+            result.getTotalMillis(), result.getSerialPageMillis()));
       }
-    });
+    }));
   }
 
   /**
@@ -3,9 +3,12 @@ package com.esri.samples.statistical_query_group_and_sort;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -30,6 +33,8 @@ import com.esri.arcgisruntime.data.StatisticType;
 import com.esri.arcgisruntime.data.StatisticsQueryParameters;
 import com.esri.arcgisruntime.data.StatisticsQueryResult;
 import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.samples.core.data.ColumnarFeatureCache;
+import com.esri.samples.core.data.LocalStatistics;
 
 public class StatisticalQueryGroupAndSortController {
 
@@ -48,6 +53,10 @@ public class StatisticalQueryGroupAndSortController {
   @FXML private Button removeOrderByFieldButton;
 
   private ServiceFeatureTable featureTable;
+  private LocalStatistics localStatistics;
+
+  // ignore counties with missing data
+  private static final String WHERE_CLAUSE = "\"State\" IS NOT NULL";
 
   public void initialize() {
 
@@ -77,14 +86,24 @@ public class StatisticalQueryGroupAndSortController {
         fieldNameComboBox.getSelectionModel().select("Diabetes_Percent");
         statisticTypeComboBox.getSelectionModel().select("MINIMUM");
         statisticDefinitionsTableView.getItems().addAll(
-            new StatisticDefinition("Diabetes_Percent", StatisticType.AVERAGE),
-            new StatisticDefinition("Diabetes_Percent", StatisticType.COUNT),
-            new StatisticDefinition("Diabetes_Percent", StatisticType.STANDARD_DEVIATION)
+            createStatisticDefinition("Diabetes_Percent", StatisticType.AVERAGE),
+            createStatisticDefinition("Diabetes_Percent", StatisticType.COUNT),
+            createStatisticDefinition("Diabetes_Percent", StatisticType.STANDARD_DEVIATION)
         );
         groupFieldsListView.getItems().stream().filter(f -> f.getFieldName().equals("State")).collect(Collectors
             .toList()).get(0).setGrouping(true);
         orderByTableView.getItems().add(new OrderByField(new QueryParameters.OrderBy("State", QueryParameters.SortOrder
             .ASCENDING)));
+
+        // cache the attributes of all counties so that statistics can be computed locally
+        ColumnarFeatureCache.loadAsync(featureTable, WHERE_CLAUSE, fieldNames).whenCompleteAsync((cache, ex) -> {
+          if (ex == null) {
+            localStatistics = new LocalStatistics(cache);
+          } else {
+            // keep querying the service for statistics
+            new Alert(Alert.AlertType.WARNING, "Failed to cache features: " + ex.getMessage()).show();
+          }
+        }, Platform::runLater);
       } else {
         new Alert(Alert.AlertType.ERROR, "Failed to load feature table").show();
       }
@@ -175,12 +194,25 @@ public class StatisticalQueryGroupAndSortController {
     if (statisticDefinitionsTableView.getItems().stream().filter(row -> row.getFieldName().equals(selectedFieldName) && row
         .getStatisticType().name().equals(selectedStatisticType)).collect(Collectors.toList()).isEmpty()) {
       // add the statistic definition to the table
-      statisticDefinitionsTableView.getItems().add(new StatisticDefinition(selectedFieldName, StatisticType.valueOf(selectedStatisticType)));
+      statisticDefinitionsTableView.getItems().add(createStatisticDefinition(selectedFieldName, StatisticType.valueOf(selectedStatisticType)));
     } else {
       new Alert(Alert.AlertType.WARNING, "The selected combination has already been chosen.").show();
     }
   }
 
+  /**
+   * Creates a statistic definition with an output field name, so that the statistics computed locally and by the
+   * service have the same names.
+   *
+   * @param fieldName field to compute the statistic on
+   * @param statisticType type of statistic
+   * @return the statistic definition
+   */
+  private static StatisticDefinition createStatisticDefinition(String fieldName, StatisticType statisticType) {
+    return new StatisticDefinition(fieldName, statisticType, LocalStatistics.defaultOutputName(fieldName,
+        statisticType));
+  }
+
   /**
    * Called when the "Remove" button is clicked. Removes a statistic definition from the table.
    */
@@ -246,10 +278,22 @@ public class StatisticalQueryGroupAndSortController {
     // add the fields from the Order By table into the parameters' order-by fields
     queryParameters.getOrderByFields().addAll(orderByTableView.getItems().stream().map(OrderByField::getOrderBy).collect(Collectors.toList()));
 
-    // ignore counties with missing data
-    queryParameters.setWhereClause("\"State\" IS NOT NULL");
+    queryParameters.setWhereClause(WHERE_CLAUSE);
+
+    if (localStatistics != null) {
+      // compute the statistics from the cached features
+      localStatistics.queryStatisticsAsync(queryParameters).whenCompleteAsync((records, ex) -> {
+        if (ex == null) {
+          records.forEach(record -> addStatisticRecord(record.getGroup(), record.getStatistics()));
+        } else {
+          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+          new Alert(Alert.AlertType.ERROR, cause.getMessage()).show();
+        }
+      }, Platform::runLater);
+      return;
+    }
 
-    // execute the statistics query
+    // execute the statistics query on the service while the features are being cached
     ListenableFuture<StatisticsQueryResult> statisticsQuery = featureTable.queryStatisticsAsync(queryParameters);
     statisticsQuery.addDoneListener(() -> {
       try {
@@ -259,17 +303,7 @@ public class StatisticalQueryGroupAndSortController {
         // iterate through the result records
         for (Iterator<StatisticRecord> records = result.iterator(); records.hasNext();) {
           StatisticRecord record = records.next();
-
-          // create a tree item representing the group list
-          TreeItem<String> groupTreeItem = new TreeItem<>(String.join(", ", record.getGroup().values().stream().map
-              (Object::toString).collect(Collectors.toList())));
-          statisticRecordTreeView.getRoot().getChildren().add(groupTreeItem);
-
-          // add child tree items for each record's statistics, showing the statistic name and value
-          List<TreeItem<String>> statisticTreeItems = record.getStatistics().entrySet().stream().map(statistic ->
-            new TreeItem<>(statistic.getKey() + " : " + statistic.getValue())
-          ).collect(Collectors.toList());
-          groupTreeItem.getChildren().addAll(statisticTreeItems);
+          addStatisticRecord(record.getGroup(), record.getStatistics());
         }
       } catch (Exception ex) {
         new Alert(Alert.AlertType.ERROR, ex.getCause().getMessage()).show();
@@ -277,4 +311,23 @@ public class StatisticalQueryGroupAndSortController {
     });
   }
 
+  /**
+   * Adds a tree item for a group of the statistics query result, with a child item for each of its statistics.
+   *
+   * @param group values of the group-by fields
+   * @param statistics statistic names and values
+   */
+  private void addStatisticRecord(Map<String, Object> group, Map<String, Object> statistics) {
+    // create a tree item representing the group list
+    TreeItem<String> groupTreeItem = new TreeItem<>(String.join(", ", group.values().stream().map
+        (String::valueOf).collect(Collectors.toList())));
+    statisticRecordTreeView.getRoot().getChildren().add(groupTreeItem);
+
+    // add child tree items for each record's statistics, showing the statistic name and value
+    List<TreeItem<String>> statisticTreeItems = statistics.entrySet().stream().map(statistic ->
+      new TreeItem<>(statistic.getKey() + " : " + statistic.getValue())
+    ).collect(Collectors.toList());
+    groupTreeItem.getChildren().addAll(statisticTreeItems);
+  }
+
 }
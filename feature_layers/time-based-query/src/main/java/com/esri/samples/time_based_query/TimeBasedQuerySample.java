@@ -16,16 +16,36 @@
 
 package com.esri.samples.time_based_query;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
+import com.esri.arcgisruntime.arcgisservices.LayerTimeInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.layers.FeatureLayer;
@@ -34,11 +54,24 @@ import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.TimeExtent;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.ParallelPopulator;
+import com.esri.samples.core.data.TemporalIndex;
 
 public class TimeBasedQuerySample extends Application {
 
   private MapView mapView;
   private ServiceFeatureTable serviceFeatureTable; // keep loadable in scope to avoid garbage collection
+  private FeatureLayer featureLayer;
+  private TemporalIndex temporalIndex;
+  private TemporalIndex.Window timeWindow;
+  private Timeline playback;
+  private Label windowLabel;
+  private Label metricsLabel;
+
+  // length of the time window shown, and how far it moves in each frame of the playback
+  private static final long WINDOW_MILLIS = TimeUnit.DAYS.toMillis(7);
+  private static final long FRAME_STEP_MILLIS = TimeUnit.HOURS.toMillis(6);
+  private static final int FRAMES_PER_SECOND = 30;
 
   @Override
   public void start(Stage stage) throws Exception {
@@ -60,6 +93,34 @@ public class TimeBasedQuerySample extends Application {
       ArcGISMap map = new ArcGISMap(Basemap.createOceans());
       mapView.setMap(map);
 
+      // create a slider for the end of the time window and a button to play the window through time
+      Slider timeSlider = new Slider();
+      timeSlider.setPrefWidth(300);
+      ToggleButton playButton = new ToggleButton("Play");
+      HBox playbackBox = new HBox(5, playButton, timeSlider);
+      playbackBox.setAlignment(Pos.CENTER_LEFT);
+      windowLabel = new Label("Loading features...");
+      metricsLabel = new Label();
+      VBox controlsVBox = new VBox(5, playbackBox, windowLabel, metricsLabel);
+      controlsVBox.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 10;");
+      controlsVBox.setMaxSize(420, 100);
+      controlsVBox.setDisable(true);
+
+      // advance the slider 30 times a second while playing, starting again at the beginning
+      playback = new Timeline(new KeyFrame(Duration.millis(1000.0 / FRAMES_PER_SECOND), e -> {
+        double next = timeSlider.getValue() + FRAME_STEP_MILLIS;
+        timeSlider.setValue(next > timeSlider.getMax() ? timeSlider.getMin() : next);
+      }));
+      playback.setCycleCount(Animation.INDEFINITE);
+      playButton.selectedProperty().addListener((observable, oldValue, playing) -> {
+        if (playing) {
+          playback.play();
+        } else {
+          playback.stop();
+        }
+      });
+      timeSlider.valueProperty().addListener((observable, oldValue, newValue) -> showWindow(newValue.longValue()));
+
       // create a feature table with the URL of the feature service
       String serviceURL = "https://sampleserver6.arcgisonline.com/arcgis/rest/services/Hurricanes/MapServer/0";
       serviceFeatureTable = new ServiceFeatureTable(serviceURL);
@@ -67,24 +128,43 @@ public class TimeBasedQuerySample extends Application {
       // define the request mode to manual
       serviceFeatureTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
 
-      // load the table and set the query
+      // load the table and populate it once, then index the features by time
       serviceFeatureTable.addDoneLoadingListener(() -> {
         if (serviceFeatureTable.getLoadStatus() == LoadStatus.LOADED) {
-          // create query parameters
-          QueryParameters queryParameters = new QueryParameters();
-          // set a time extent (beginning of time to September 16th, 2000)
-          Calendar beg = new Calendar.Builder().setDate(1, 1, 1).build();
-          Calendar end = new Calendar.Builder().setDate(2000, 9, 16).build();
-          TimeExtent timeExtent = new TimeExtent(beg, end);
-          queryParameters.setTimeExtent(timeExtent);
-
           // return all fields
           List<String> outputFields = Collections.singletonList("*");
 
-          // populate the service with features that fit the time extent, when done zoom to the layer's extent
-          serviceFeatureTable.populateFromServiceAsync(queryParameters, true, outputFields).addDoneListener(() -> {
-            mapView.setViewpointGeometryAsync(serviceFeatureTable.getExtent());
-          });
+          // populate the table with all features, then read them from the table's cache
+          new ParallelPopulator(serviceFeatureTable).populateAsync("1=1", outputFields)
+              .thenCompose(result -> queryCachedFeatures())
+              .whenComplete((features, ex) -> Platform.runLater(() -> {
+                if (ex != null) {
+                  Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                  new Alert(Alert.AlertType.ERROR, "Failed to load features: " + cause.getMessage()).show();
+                  return;
+                }
+
+                // bucket the features by the layer's time field in an interval tree
+                LayerTimeInfo timeInfo = serviceFeatureTable.getLayerInfo().getTimeInfo();
+                String endField = timeInfo.getEndTimeField();
+                temporalIndex = new TemporalIndex(features, timeInfo.getStartTimeField(),
+                    endField == null || endField.isEmpty() ? null : endField);
+                timeWindow = temporalIndex.newWindow();
+                if (temporalIndex.size() == 0) {
+                  windowLabel.setText("No features have a time");
+                  return;
+                }
+
+                // start with the window ending on September 16th, 2000
+                Calendar end = new Calendar.Builder().setDate(2000, 8, 16).build();
+                timeSlider.setMin(temporalIndex.getStartMillis());
+                timeSlider.setMax(Math.max(temporalIndex.getStartMillis(), temporalIndex.getEndMillis()));
+                timeSlider.setValue(Math.max(timeSlider.getMin(), Math.min(timeSlider.getMax(),
+                    end.getTimeInMillis())));
+                showWindow((long) timeSlider.getValue());
+                controlsVBox.setDisable(false);
+                mapView.setViewpointGeometryAsync(serviceFeatureTable.getExtent());
+              }));
 
         } else {
           new Alert(Alert.AlertType.ERROR, serviceFeatureTable.getLoadError().getMessage()).show();
@@ -92,13 +172,15 @@ public class TimeBasedQuerySample extends Application {
       });
 
       // create the feature layer using the service feature table
-      FeatureLayer featureLayer = new FeatureLayer(serviceFeatureTable);
+      featureLayer = new FeatureLayer(serviceFeatureTable);
 
       // add the layer to the map
       map.getOperationalLayers().add(featureLayer);
 
-      // add the map view to stack pane
-      stackPane.getChildren().addAll(mapView);
+      // add the map view and controls to stack pane
+      stackPane.getChildren().addAll(mapView, controlsVBox);
+      StackPane.setAlignment(controlsVBox, Pos.TOP_LEFT);
+      StackPane.setMargin(controlsVBox, new Insets(10, 0, 0, 10));
 
     } catch (Exception e) {
       // on any error, display stack trace
@@ -106,13 +188,62 @@ public class TimeBasedQuerySample extends Application {
     }
   }
 
+  /**
+   * Queries all features held in the table's cache, which is queried locally in manual cache mode.
+   *
+   * @return a future completing with the features
+   */
+  private CompletableFuture<List<Feature>> queryCachedFeatures() {
+    CompletableFuture<List<Feature>> features = new CompletableFuture<>();
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause("1=1");
+    ListenableFuture<FeatureQueryResult> query = serviceFeatureTable.queryFeaturesAsync(queryParameters);
+    query.addDoneListener(() -> {
+      try {
+        List<Feature> cached = new ArrayList<>();
+        query.get().forEach(cached::add);
+        features.complete(cached);
+      } catch (Exception e) {
+        features.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+      }
+    });
+    return features;
+  }
+
+  /**
+   * Shows the features within the week before a time, found in the temporal index. Only the features entering and
+   * leaving the window since the last call change their visibility.
+   *
+   * @param endMillis end of the time window in milliseconds since the epoch
+   */
+  private void showWindow(long endMillis) {
+    if (timeWindow == null) {
+      return;
+    }
+    Calendar start = Calendar.getInstance();
+    start.setTimeInMillis(endMillis - WINDOW_MILLIS);
+    Calendar end = Calendar.getInstance();
+    end.setTimeInMillis(endMillis);
+    TemporalIndex.Changes changes = timeWindow.move(new TimeExtent(start, end));
+    featureLayer.setFeaturesVisible(changes.getLeft(), false);
+    featureLayer.setFeaturesVisible(changes.getEntered(), true);
+
+    windowLabel.setText(String.format("%1$tb %1$te %1$tY - %2$tb %2$te %2$tY: %3$d of %4$d features", start, end,
+        changes.getShownCount(), temporalIndex.size()));
+    metricsLabel.setText(String.format("Frame %.0f microseconds (max %.0f), index %d KB",
+        timeWindow.getLastMoveMicros(), timeWindow.getMaxMoveMicros(), temporalIndex.getIndexBytes() / 1024));
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
   @Override
   public void stop() {
 
-    // release resources when the application closes
+    // stop the playback and release resources when the application closes
+    if (playback != null) {
+      playback.stop();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
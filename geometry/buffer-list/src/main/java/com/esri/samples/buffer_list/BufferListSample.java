@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
@@ -57,6 +58,7 @@ import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
+import com.esri.samples.core.geometry.TiledBuffer;
 
 public class BufferListSample extends Application {
 
@@ -176,15 +178,36 @@ public class BufferListSample extends Application {
         }
       });
 
+      // buffer the points in spatial tiles on a background pool, showing each tile's buffers as soon as it completes
+      TiledBuffer tiledBuffer = new TiledBuffer();
+
       // draw the buffer(s) when the button is clicked
       createButton.setOnAction(e -> {
-        // if the buffers are unioned, only one polygon is returned
         if (!geometries.isEmpty() && !distances.isEmpty()) {
-          List<Polygon> buffers = GeometryEngine.buffer(geometries, distances, unionCheckBox.isSelected());
-          buffers.forEach(bufferGeometry -> {
-            Graphic bufferGraphic = new Graphic(bufferGeometry, fillSymbol);
-            bufferGraphicsOverlay.getGraphics().add(bufferGraphic);
-          });
+          createButton.setDisable(true);
+          clearButton.setDisable(true);
+          boolean union = unionCheckBox.isSelected();
+          List<Graphic> tileGraphics = new ArrayList<>();
+          tiledBuffer.bufferAsync(new ArrayList<>(geometries), new ArrayList<>(distances), union, tileBuffers ->
+              Platform.runLater(() -> tileBuffers.forEach(bufferGeometry -> {
+                Graphic bufferGraphic = new Graphic(bufferGeometry, fillSymbol);
+                tileGraphics.add(bufferGraphic);
+                bufferGraphicsOverlay.getGraphics().add(bufferGraphic);
+              }))
+          ).whenComplete((buffers, ex) -> Platform.runLater(() -> {
+            createButton.setDisable(false);
+            clearButton.setDisable(false);
+            if (ex != null) {
+              new Alert(Alert.AlertType.ERROR, "Error creating buffers: " + ex.getMessage()).show();
+            } else if (union) {
+              // if the buffers are unioned, replace the union of each tile with the single union of all tiles
+              bufferGraphicsOverlay.getGraphics().removeAll(tileGraphics);
+              buffers.forEach(bufferGeometry -> {
+                Graphic bufferGraphic = new Graphic(bufferGeometry, fillSymbol);
+                bufferGraphicsOverlay.getGraphics().add(bufferGraphic);
+              });
+            }
+          }));
         }
       });
 
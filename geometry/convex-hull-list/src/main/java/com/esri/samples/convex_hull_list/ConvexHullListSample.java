@@ -18,9 +18,12 @@ package com.esri.samples.convex_hull_list;
 
 import javafx.application.Application;
 import javafx.geometry.Insets;
+import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
@@ -30,6 +33,7 @@ import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 import javafx.scene.control.Button;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.esri.arcgisruntime.geometry.Geometry;
@@ -45,6 +49,8 @@ import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
+import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
+import com.esri.samples.core.geometry.IncrementalConvexHull;
 
 
 public class ConvexHullListSample extends Application {
@@ -130,6 +136,23 @@ public class ConvexHullListSample extends Application {
       // add the polygon2 graphic to the graphics overlay collection
       polygonGraphicsOverlay.getGraphics().add(polygonGraphic2);
 
+      // create a graphics overlay for the points added by clicking on the map and their convex hull
+      GraphicsOverlay clickedGraphicsOverlay = new GraphicsOverlay();
+      mapView.getGraphicsOverlays().add(clickedGraphicsOverlay);
+      SimpleMarkerSymbol clickedPointSymbol = new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, 0xFF00AA00, 10);
+      SimpleLineSymbol clickedHullLine = new SimpleLineSymbol(SimpleLineSymbol.Style.DASH, 0xFF00AA00, 3);
+      Graphic clickedHullGraphic = new Graphic();
+      clickedHullGraphic.setSymbol(new SimpleFillSymbol(SimpleFillSymbol.Style.NULL, 0x00000000, clickedHullLine));
+      clickedGraphicsOverlay.getGraphics().add(clickedHullGraphic);
+
+      // keep the convex hull of the clicked points up to date as each point is added, rather than computing it again
+      // from all of the points on every click
+      IncrementalConvexHull clickedConvexHull = new IncrementalConvexHull(SpatialReferences.getWebMercator());
+
+      // create a label showing the number of clicked points and hull vertices
+      Label clickedLabel = new Label("Click on the map to add points to a live convex hull");
+      clickedLabel.setWrapText(true);
+
       // create a button to create and show the convex hull
       Button convexHullButton = new Button("Create Convex Hull");
       convexHullButton.setMaxWidth(Double.MAX_VALUE);
@@ -177,6 +200,11 @@ public class ConvexHullListSample extends Application {
       clearButton.setOnAction(e -> {
         // clear convex hull graphics from map view
         convexHullGraphicsOverlay.getGraphics().clear();
+        // clear the clicked points and their hull
+        clickedConvexHull.clear();
+        clickedGraphicsOverlay.getGraphics().retainAll(Collections.singletonList(clickedHullGraphic));
+        clickedHullGraphic.setGeometry(null);
+        clickedLabel.setText("Click on the map to add points to a live convex hull");
         // once cleared disable clear button
         clearButton.setDisable(true);
         // enable convex hull button after clearing
@@ -185,14 +213,30 @@ public class ConvexHullListSample extends Application {
         checkBox.setSelected(false);
       });
 
+      // add a point to the clicked points' convex hull on each click
+      mapView.setOnMouseClicked(event -> {
+        if (event.isStillSincePress() && event.getButton() == MouseButton.PRIMARY) {
+          Point clickedPoint = (Point) GeometryEngine.project(mapView.screenToLocation(new Point2D(event.getX(),
+              event.getY())), SpatialReferences.getWebMercator());
+          clickedGraphicsOverlay.getGraphics().add(new Graphic(clickedPoint, clickedPointSymbol));
+          clickedConvexHull.add(clickedPoint);
+          Polygon hull = clickedConvexHull.getPolygon();
+          clickedHullGraphic.setGeometry(hull);
+          clickedLabel.setText(String.format("%d clicked points, %d hull vertices", clickedConvexHull.size(),
+              hull.getParts().isEmpty() ? 0 : hull.getParts().get(0).getPointCount()));
+          // allow the clicked points to be cleared
+          clearButton.setDisable(false);
+        }
+      });
+
       // create a control panel
       VBox controlsVBox = new VBox(6);
       controlsVBox.setBackground(new Background(new BackgroundFill(Paint.valueOf("rgba(0, 0, 0, 0.3)"),
               CornerRadii.EMPTY, Insets.EMPTY)));
       controlsVBox.setPadding(new Insets(10));
-      controlsVBox.setMaxSize(260, 110);
+      controlsVBox.setMaxSize(260, 150);
       controlsVBox.getStyleClass().add("panel-region");
-      controlsVBox.getChildren().addAll(convexHullButton, clearButton, checkBox);
+      controlsVBox.getChildren().addAll(convexHullButton, clearButton, checkBox, clickedLabel);
 
       // add the map view to the stack pane
       stackPane.getChildren().addAll(mapView, controlsVBox);
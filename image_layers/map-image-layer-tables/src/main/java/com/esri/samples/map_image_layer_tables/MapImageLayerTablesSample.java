@@ -20,10 +20,12 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.layout.StackPane;
@@ -35,8 +37,6 @@ import com.esri.arcgisruntime.data.ArcGISFeature;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
 import com.esri.arcgisruntime.data.QueryParameters;
-import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
-import com.esri.arcgisruntime.data.RelatedQueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.layers.ArcGISMapImageLayer;
@@ -49,6 +49,7 @@ import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.esri.arcgisruntime.symbology.SimpleMarkerSymbol;
 import com.esri.arcgisruntime.symbology.SimpleRenderer;
+import com.esri.samples.core.data.RelatedFeatureCache;
 
 public class MapImageLayerTablesSample extends Application {
 
@@ -57,6 +58,8 @@ public class MapImageLayerTablesSample extends Application {
   private ServiceFeatureTable commentsTable;
   private ListView<Feature> commentsListView;
   private ArcGISFeature relatedFeature; // keep loadable in scope to avoid garbage collection
+  private RelatedFeatureCache relatedFeatureCache;
+  private Label cacheLabel;
   
   /**
    * Starting point of this application.
@@ -124,21 +127,27 @@ public class MapImageLayerTablesSample extends Application {
       // when a comment is selected, query its related spatial features and show the first result on the map
       commentsListView.getSelectionModel().selectedItemProperty().addListener(observable -> showRelatedRequests());
 
+      // create a label showing how related feature queries were answered
+      cacheLabel = new Label();
+      cacheLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      cacheLabel.setVisible(false);
+
       // when the layer is loaded, get the comment features
       imageLayer.addDoneLoadingListener(() -> {
         if (imageLayer.getLoadStatus() == LoadStatus.LOADED) {
           // zoom to the layer's extent
           mapView.setViewpoint(new Viewpoint(imageLayer.getFullExtent()));
 
-          // get the comments feature table
+          // get the comments feature table and cache the features related to its features
           commentsTable = imageLayer.getTables().get(0);
 
           // create query parameters to get features that have non-empty comments
           QueryParameters queryParameters = new QueryParameters();
           queryParameters.setWhereClause("requestid <> '' AND comments <> ''");
 
-          // query the comments table for features
-          ListenableFuture<FeatureQueryResult> featureQuery = commentsTable.queryFeaturesAsync(queryParameters);
+          // query the comments table for features, with all fields to include the relationship's key field
+          ListenableFuture<FeatureQueryResult> featureQuery =
+              commentsTable.queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
           featureQuery.addDoneListener(() -> {
             try {
               // add the returned features to the list view
@@ -146,6 +155,10 @@ public class MapImageLayerTablesSample extends Application {
               for (Feature f : results) {
                 commentsListView.getItems().addAll(f);
               }
+
+              // request the related features of the first comments in the list in one query
+              relatedFeatureCache = new RelatedFeatureCache(commentsTable);
+              relatedFeatureCache.prefetchAsync(commentsListView.getItems()).thenRun(this::updateCacheLabel);
             } catch (InterruptedException | ExecutionException ex) {
               new Alert(Alert.AlertType.ERROR, "Error querying comment features");
             }
@@ -156,9 +169,11 @@ public class MapImageLayerTablesSample extends Application {
       });
 
       // add the mapview and controls to the stack pane
-      stackPane.getChildren().addAll(mapView, commentsListView);
+      stackPane.getChildren().addAll(mapView, commentsListView, cacheLabel);
       StackPane.setAlignment(commentsListView, Pos.TOP_LEFT);
       StackPane.setMargin(commentsListView, new Insets(10, 0, 0, 10));
+      StackPane.setAlignment(cacheLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(cacheLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display the stack trace.
@@ -167,8 +182,8 @@ public class MapImageLayerTablesSample extends Application {
   }
 
   /**
-   * Queries for spatial features related to the selected comment in the list view and shows the first result on the
-   * map as a graphic.
+   * Gets the spatial features related to the selected comment in the list view from the related feature cache and
+   * shows the first result on the map as a graphic. The related features of the following comments are prefetched.
    */
   private void showRelatedRequests() {
     // clear any previous results
@@ -176,30 +191,25 @@ public class MapImageLayerTablesSample extends Application {
 
     // get the selected comment feature from the list view
     Feature selectedCommentFeature = commentsListView.getSelectionModel().getSelectedItem();
-    if (selectedCommentFeature != null) {
+    if (selectedCommentFeature != null && relatedFeatureCache != null) {
 
       // get the relationships info between layers in the table
       ArcGISFeature feature = (ArcGISFeature) selectedCommentFeature;
       List<RelationshipInfo> relationshipInfos = commentsTable.getLayerInfo().getRelationshipInfos();
       if (!relationshipInfos.isEmpty()) {
 
-        // use the first relationship for the related query parameters
+        // get the features related through the first relationship, which were usually prefetched already
         RelationshipInfo commentsRelationshipInfo = relationshipInfos.get(0);
-        RelatedQueryParameters relatedQueryParameters = new RelatedQueryParameters(commentsRelationshipInfo);
-        relatedQueryParameters.setReturnGeometry(true);
-
-        // query the table for related features using the parameters
-        ListenableFuture<List<RelatedFeatureQueryResult>> relatedFeaturesRequest = commentsTable
-            .queryRelatedFeaturesAsync(feature, relatedQueryParameters);
-        relatedFeaturesRequest.addDoneListener(() -> {
-          try {
-            // loop through the returned related features
-            List<RelatedFeatureQueryResult> results = relatedFeaturesRequest.get();
-            if (!results.isEmpty()) {
-              RelatedFeatureQueryResult relatedResult = results.get(0);
-              if (relatedResult.iterator().hasNext()) {
+        relatedFeatureCache.queryAsync(feature, commentsRelationshipInfo).whenComplete((related, ex) ->
+            Platform.runLater(() -> {
+              updateCacheLabel();
+              if (ex != null) {
+                new Alert(Alert.AlertType.ERROR, "Failed to query relationships").show();
+              } else if (related.getFeatures().isEmpty()) {
+                new Alert(Alert.AlertType.INFORMATION, "No related features found").show();
+              } else {
                 // get the first related feature
-                relatedFeature = (ArcGISFeature) relatedResult.iterator().next();
+                relatedFeature = (ArcGISFeature) related.getFeatures().get(0);
                 // load the feature and get its geometry to show as a graphic on the map
                 relatedFeature.loadAsync();
                 relatedFeature.addDoneLoadingListener(() -> {
@@ -212,16 +222,27 @@ public class MapImageLayerTablesSample extends Application {
                   }
                 });
               }
-            } else {
-              new Alert(Alert.AlertType.INFORMATION, "No related features found").show();
-            }
-          } catch (InterruptedException | ExecutionException ex) {
-            new Alert(Alert.AlertType.ERROR, "Failed to query relationships").show();
-          }
-        });
+            }));
+
+        // prefetch the related features of the comments after the selected one
+        List<Feature> comments = commentsListView.getItems();
+        int selectedIndex = commentsListView.getSelectionModel().getSelectedIndex();
+        relatedFeatureCache.prefetchAsync(comments.subList(selectedIndex + 1, comments.size()))
+            .thenRun(this::updateCacheLabel);
       }
     }
+  }
 
+  /**
+   * Shows how related feature queries were answered.
+   */
+  private void updateCacheLabel() {
+    Platform.runLater(() -> {
+      cacheLabel.setText(String.format("Related features: %d from cache, %d prefetched in %d queries, %d single queries",
+          relatedFeatureCache.getHitCount(), relatedFeatureCache.getPrefetchCount(),
+          relatedFeatureCache.getBatchQueryCount(), relatedFeatureCache.getSingleQueryCount()));
+      cacheLabel.setVisible(true);
+    });
   }
 
   @Override
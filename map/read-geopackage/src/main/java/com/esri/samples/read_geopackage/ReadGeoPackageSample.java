@@ -19,23 +19,29 @@ package com.esri.samples.read_geopackage;
 import java.io.File;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.data.GeoPackage;
-import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.layers.RasterLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.LayerLoader;
 
 public class ReadGeoPackageSample extends Application {
 
   private GeoPackage geoPackage; // keep loadable in scope to avoid garbage collection
   private MapView mapView;
+  private LayerLoader layerLoader;
+  private Label loadLabel;
 
   @Override
   public void start(Stage stage) {
@@ -57,34 +63,50 @@ public class ReadGeoPackageSample extends Application {
       mapView = new MapView();
       mapView.setMap(map);
 
+      // create a label showing how many tables have loaded and how long they took
+      loadLabel = new Label();
+      loadLabel.setStyle("-fx-background-color: rgba(255, 255, 255, 0.8); -fx-padding: 5;");
+      loadLabel.setVisible(false);
+
       // load the local GeoPackage
       File geoPackageFile = new File(System.getProperty("data.dir"), "./samples-data/auroraCO/AuroraCO.gpkg");
       geoPackage = new GeoPackage(geoPackageFile.getAbsolutePath());
       geoPackage.loadAsync();
       geoPackage.addDoneLoadingListener(() -> {
         if (geoPackage.getLoadStatus() == LoadStatus.LOADED) {
+          // load the rasters and feature tables in the GeoPackage in parallel, adding their layers once they are visible
+          layerLoader = new LayerLoader(map.getOperationalLayers());
+
           // add raster layers from the rasters in the GeoPackage
           geoPackage.getGeoPackageRasters().forEach(raster -> {
             RasterLayer rasterLayer = new RasterLayer(raster);
             // make the layer semi-transparent to see through it
             rasterLayer.setOpacity(0.5f);
 
-            map.getOperationalLayers().add(rasterLayer);
+            layerLoader.add(rasterLayer);
           });
 
           // add feature layers from the feature tables in the GeoPackage
-          geoPackage.getGeoPackageFeatureTables().forEach(table -> {
-            FeatureLayer featureLayer = new FeatureLayer(table);
+          geoPackage.getGeoPackageFeatureTables().forEach(layerLoader::add);
 
-            map.getOperationalLayers().add(featureLayer);
-          });
+          layerLoader.setLoadListener(load -> Platform.runLater(this::showVisibleLayers));
+          layerLoader.loadAsync();
         } else {
           new Alert(Alert.AlertType.ERROR, "GeoPackage failed to load").show();
         }
       });
 
+      // add the layers which have come into view when the user stops navigating
+      mapView.addNavigationChangedListener(navigationChangedEvent -> {
+        if (!navigationChangedEvent.isNavigating()) {
+          showVisibleLayers();
+        }
+      });
+
       // add the map view to the stack pane
-      stackPane.getChildren().add(mapView);
+      stackPane.getChildren().addAll(mapView, loadLabel);
+      StackPane.setAlignment(loadLabel, Pos.BOTTOM_LEFT);
+      StackPane.setMargin(loadLabel, new Insets(10, 10, 30, 10));
 
     } catch (Exception e) {
       // on any error, display the stack trace
@@ -92,6 +114,17 @@ public class ReadGeoPackageSample extends Application {
     }
   }
 
+  /**
+   * Adds the layers of the loaded tables which are within the visible area of the map view, and shows the load times.
+   */
+  private void showVisibleLayers() {
+    if (layerLoader != null) {
+      layerLoader.showVisible(mapView.getVisibleArea(), mapView.getMapScale());
+      loadLabel.setText(layerLoader.toString());
+      loadLabel.setVisible(true);
+    }
+  }
+
   /**
    * Stops and releases all resources used in application.
    */
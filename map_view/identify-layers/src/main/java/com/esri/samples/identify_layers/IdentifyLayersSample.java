@@ -16,6 +16,7 @@
 
 package com.esri.samples.identify_layers;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -28,6 +29,7 @@ import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureTable;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Point;
@@ -40,6 +42,7 @@ import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.mapping.Viewpoint;
 import com.esri.arcgisruntime.mapping.view.IdentifyLayerResult;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.samples.core.data.FeatureIndex;
 
 public class IdentifyLayersSample extends Application {
 
@@ -47,6 +50,8 @@ public class IdentifyLayersSample extends Application {
   // keep loadables in scope to avoid garbage collection
   private ArcGISMapImageLayer mapImageLayer; 
   private FeatureLayer featureLayer;
+  private FeatureTable featureTable;
+  private volatile FeatureIndex featureIndex;
 
   /**
    * Opens and runs application.
@@ -95,12 +100,16 @@ public class IdentifyLayersSample extends Application {
       map.getOperationalLayers().add(mapImageLayer);
 
       // add a feature layer
-      FeatureTable featureTable = new ServiceFeatureTable("https://sampleserver6.arcgisonline.com/arcgis/rest/services/DamageAssessment/FeatureServer/0");
+      featureTable = new ServiceFeatureTable("https://sampleserver6.arcgisonline.com/arcgis/rest/services/DamageAssessment/FeatureServer/0");
       featureLayer = new FeatureLayer(featureTable);
       featureLayer.addDoneLoadingListener(() -> {
         if (mapImageLayer.getLoadStatus() != LoadStatus.LOADED) {
           new Alert(Alert.AlertType.ERROR, "Failed to load the feature layer").show();
         }
+        if (featureLayer.getLoadStatus() == LoadStatus.LOADED) {
+          // index the features in memory, so clicks on them are answered without a request to the service
+          FeatureIndex.loadAsync(featureTable).thenAccept(index -> featureIndex = index);
+        }
       });
       map.getOperationalLayers().add(featureLayer);
 
@@ -110,26 +119,32 @@ public class IdentifyLayersSample extends Application {
 
           // identify layers with GeoElements where the user clicked
           Point2D point2D = new Point2D(e.getX(), e.getY());
-          ListenableFuture<List<IdentifyLayerResult>> identifyResults = mapView.identifyLayersAsync(point2D, 12, false, 10);
-          identifyResults.addDoneListener(() -> {
-            try {
-              // build a string with the total count of identified GeoElements for each layer
-              StringBuilder resultsList = new StringBuilder();
-              List<IdentifyLayerResult> results = identifyResults.get();
-              // for each result layer, recursively search its sublayers to get the total count of GeoElements
-              for (IdentifyLayerResult result : results) {
-                int recursiveGeoElementCount = searchGeoElements(result);
-                resultsList.append(result.getLayerContent().getName()).append(": ").append(recursiveGeoElementCount).append("\n");
+          FeatureIndex index = featureIndex;
+          if (index != null) {
+            // find the features within 12 pixels of the click in the index, only the map image layer needs identify
+            Point mapPoint = mapView.screenToLocation(point2D);
+            List<Feature> features = index.identify(mapPoint, 12 * mapView.getUnitsPerDensityIndependentPixel(),
+                featureTable.getSpatialReference(), 10);
+            ListenableFuture<IdentifyLayerResult> identifyResult = mapView.identifyLayerAsync(mapImageLayer, point2D,
+                12, false, 10);
+            identifyResult.addDoneListener(() -> {
+              try {
+                showResults(features.size(), Collections.singletonList(identifyResult.get()));
+              } catch (InterruptedException | ExecutionException ex) {
+                new Alert(Alert.AlertType.ERROR, "Failed to identify layers").show();
+              }
+            });
+          } else {
+            ListenableFuture<List<IdentifyLayerResult>> identifyResults = mapView.identifyLayersAsync(point2D, 12,
+                false, 10);
+            identifyResults.addDoneListener(() -> {
+              try {
+                showResults(0, identifyResults.get());
+              } catch (InterruptedException | ExecutionException ex) {
+                new Alert(Alert.AlertType.ERROR, "Failed to identify layers").show();
               }
-              // show the result counts string in a dialog
-              String resultString = resultsList.toString();
-              Alert alert = new Alert(Alert.AlertType.INFORMATION, resultString.equals("") ? "No Results" : resultString);
-              alert.initOwner(mapView.getScene().getWindow());
-              alert.show();
-            } catch (InterruptedException | ExecutionException ex) {
-              new Alert(Alert.AlertType.ERROR, "Failed to identify layers").show();
-            }
-          });
+            });
+          }
         }
       });
 
@@ -141,6 +156,33 @@ public class IdentifyLayersSample extends Application {
     }
   }
 
+  /**
+   * Shows the number of GeoElements identified in each layer in a dialog.
+   *
+   * @param indexedFeatureCount number of features found in the feature index
+   * @param results identify results of the layers which were not searched in the index
+   */
+  private void showResults(int indexedFeatureCount, List<IdentifyLayerResult> results) {
+    // build a string with the total count of identified GeoElements for each layer
+    StringBuilder resultsList = new StringBuilder();
+    if (indexedFeatureCount > 0) {
+      resultsList.append(featureLayer.getName()).append(": ").append(indexedFeatureCount).append("\n");
+    }
+    // for each result layer, recursively search its sublayers to get the total count of GeoElements
+    for (IdentifyLayerResult result : results) {
+      int recursiveGeoElementCount = searchGeoElements(result);
+      if (recursiveGeoElementCount == 0) {
+        continue;
+      }
+      resultsList.append(result.getLayerContent().getName()).append(": ").append(recursiveGeoElementCount).append("\n");
+    }
+    // show the result counts string in a dialog
+    String resultString = resultsList.toString();
+    Alert alert = new Alert(Alert.AlertType.INFORMATION, resultString.equals("") ? "No Results" : resultString);
+    alert.initOwner(mapView.getScene().getWindow());
+    alert.show();
+  }
+
   /**
    * Searches an identify layer result recursively to find the identified GeoElements for all identified sublayers.
    *
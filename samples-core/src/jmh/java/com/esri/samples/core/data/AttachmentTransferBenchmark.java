@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the peak heap used to upload an attachment by reading the whole file into a byte array, as
+ * {@code addAttachmentAsync} requires, with streaming it in chunks through {@link AttachmentTransfers.Multipart}
+ * and then copying it into a {@link BlobCache}. The upload itself is written to a stream which discards it, so the
+ * numbers only reflect the client side. Run with {@code -prof gc} to also see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AttachmentTransferBenchmark {
+
+  @Param({"100", "500"})
+  public int fileMegabytes;
+
+  private Path directory;
+  private Path file;
+  private BlobCache cache;
+
+  /**
+   * Peak heap used during an invocation, reported next to the time.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PeakHeap {
+
+    public double peakHeapMegabytes;
+
+    @Setup(Level.Invocation)
+    public void reset() {
+      System.gc();
+      heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    void record() {
+      peakHeapMegabytes = heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / 1e6;
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+      return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("attachment-benchmark");
+    file = directory.resolve("attachment.bin");
+    byte[] chunk = new byte[1024 * 1024];
+    Random random = new Random(42);
+    try (OutputStream output = Files.newOutputStream(file)) {
+      for (int i = 0; i < fileMegabytes; i++) {
+        random.nextBytes(chunk);
+        output.write(chunk);
+      }
+    }
+    cache = new BlobCache(directory.resolve("cache"), Long.MAX_VALUE);
+  }
+
+  @TearDown(Level.Invocation)
+  public void clearCache() throws IOException {
+    cache.clear();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void eager(PeakHeap peakHeap, Blackhole blackhole) throws IOException {
+    byte[] content = Files.readAllBytes(file);
+    AttachmentTransfers.Multipart multipart = new AttachmentTransfers.Multipart("attachment.bin",
+        "application/octet-stream");
+    try (OutputStream upload = new DiscardingStream(blackhole)) {
+      upload.write(content);
+    }
+    blackhole.consume(multipart.length(content.length));
+    blackhole.consume(cache.put(new ByteArrayInputStream(content), null, content.length, TransferProgress.NONE));
+    peakHeap.record();
+  }
+
+  @Benchmark
+  public void chunked(PeakHeap peakHeap, Blackhole blackhole) throws IOException {
+    AttachmentTransfers.Multipart multipart = new AttachmentTransfers.Multipart("attachment.bin",
+        "application/octet-stream");
+    long size = Files.size(file);
+    try (InputStream input = Files.newInputStream(file); OutputStream upload = new DiscardingStream(blackhole)) {
+      multipart.write(input, upload, size, TransferProgress.NONE);
+    }
+    try (InputStream input = Files.newInputStream(file)) {
+      blackhole.consume(cache.put(input, null, size, TransferProgress.NONE));
+    }
+    peakHeap.record();
+  }
+
+  private static final class DiscardingStream extends OutputStream {
+
+    private final Blackhole blackhole;
+
+    DiscardingStream(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(int b) {
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      blackhole.consume(len);
+    }
+  }
+}
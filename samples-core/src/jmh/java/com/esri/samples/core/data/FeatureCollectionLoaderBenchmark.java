@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.geometry.GeometryType;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.samples.core.geometry.SyntheticGeometries;
+
+/**
+ * Compares adding 100,000 and 1,000,000 points with two attributes to a {@link FeatureCollectionTable} one feature
+ * at a time, with all features created first and added in a single call, and through {@link FeatureCollectionLoader}
+ * for a range of batch sizes. The features per second and the peak heap of each invocation are reported next to the
+ * time; the batch size only applies to the loader. The default batch size of the loader is where the features per
+ * second level off without the peak heap growing further.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FeatureCollectionLoaderBenchmark {
+
+  @Param({"100000", "1000000"})
+  public int featureCount;
+
+  @Param({"100", "1000", "5000", "20000"})
+  public int batchSize;
+
+  private final SpatialReference webMercator = SpatialReferences.getWebMercator();
+  private FeatureCollectionTable table;
+  private double[] xs;
+  private double[] ys;
+  private int[] ids;
+  private double[] values;
+
+  /**
+   * Features per second and peak heap of an invocation.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class LoadCounters {
+
+    public double featuresPerSecond;
+    public double peakHeapMegabytes;
+    private long start;
+
+    @Setup(Level.Invocation)
+    public void reset() {
+      System.gc();
+      heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+      start = System.nanoTime();
+    }
+
+    void record(long features) {
+      featuresPerSecond = features * 1e9 / (System.nanoTime() - start);
+      peakHeapMegabytes = heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / 1e6;
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+      return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(20);
+    double side = Math.sqrt(featureCount) * 1000;
+    xs = new double[featureCount];
+    ys = new double[featureCount];
+    ids = new int[featureCount];
+    values = new double[featureCount];
+    for (int i = 0; i < featureCount; i++) {
+      xs[i] = SyntheticGeometries.CENTER_X + (random.nextDouble() - 0.5) * side;
+      ys[i] = SyntheticGeometries.CENTER_Y + (random.nextDouble() - 0.5) * side;
+      ids[i] = i;
+      values[i] = random.nextDouble() * 100;
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void createTable() {
+    table = new FeatureCollectionTable(Arrays.asList(Field.createInteger("ID", "ID"),
+        Field.createDouble("VALUE", "Value")), GeometryType.POINT, webMercator);
+  }
+
+  @Benchmark
+  public void oneAtATime(LoadCounters counters) throws Exception {
+    for (int i = 0; i < featureCount; i++) {
+      table.addFeatureAsync(table.createFeature(attributes(i), point(i))).get();
+    }
+    counters.record(featureCount);
+  }
+
+  @Benchmark
+  public void allAtOnce(LoadCounters counters) throws Exception {
+    List<Feature> features = new ArrayList<>(featureCount);
+    for (int i = 0; i < featureCount; i++) {
+      features.add(table.createFeature(attributes(i), point(i)));
+    }
+    table.addFeaturesAsync(features).get();
+    counters.record(featureCount);
+  }
+
+  @Benchmark
+  public void loader(LoadCounters counters) throws Exception {
+    Map<String, Object> columns = new HashMap<>();
+    columns.put("ID", ids);
+    columns.put("VALUE", values);
+    FeatureCollectionLoader loader = new FeatureCollectionLoader(table, batchSize,
+        FeatureCollectionLoader.DEFAULT_MAX_IN_FLIGHT);
+    counters.record(loader.loadAsync(IntStream.range(0, featureCount).mapToObj(this::point), columns).get());
+  }
+
+  private Point point(int i) {
+    return new Point(xs[i], ys[i], webMercator);
+  }
+
+  private Map<String, Object> attributes(int i) {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("ID", ids[i]);
+    attributes.put("VALUE", values[i]);
+    return attributes;
+  }
+}
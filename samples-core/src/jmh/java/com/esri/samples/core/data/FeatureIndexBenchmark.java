@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.GeometryType;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.samples.core.geometry.SyntheticGeometries;
+
+/**
+ * Compares a click identify and a box selection answered by {@link FeatureIndex} with envelope queries made through
+ * {@code queryFeaturesAsync} on a {@link FeatureCollectionTable} holding the features, for 10,000 to 1,000,000
+ * random points. {@code identifyLayersAsync} needs a map view which has drawn the layer, so the table query, which
+ * searches the same local data, stands in for it. The click tolerance is 10 pixels at a scale where the points are
+ * about 50 pixels apart on average.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FeatureIndexBenchmark {
+
+  private static final int QUERY_COUNT = 1024;
+  private static final int MAX_RESULTS = 10;
+
+  @Param({"10000", "100000", "1000000"})
+  public int featureCount;
+
+  private FeatureCollectionTable table;
+  private FeatureIndex index;
+  private Point[] clicks;
+  private Envelope[] boxes;
+  private double tolerance;
+  private int next;
+
+  @Setup
+  public void setup() throws Exception {
+    SpatialReference webMercator = SpatialReferences.getWebMercator();
+    table = new FeatureCollectionTable(Collections.singletonList(Field.createInteger("ID", "ID")), GeometryType.POINT,
+        webMercator);
+
+    // spread the points over a square so that their density does not depend on the count
+    double side = Math.sqrt(featureCount) * 1000;
+    double originX = SyntheticGeometries.CENTER_X - side / 2;
+    double originY = SyntheticGeometries.CENTER_Y - side / 2;
+    Random random = new Random(16);
+    List<Feature> features = new ArrayList<>(featureCount);
+    for (int i = 0; i < featureCount; i++) {
+      Point point = new Point(originX + random.nextDouble() * side, originY + random.nextDouble() * side,
+          webMercator);
+      features.add(table.createFeature(Collections.singletonMap("ID", i), point));
+    }
+    table.addFeaturesAsync(features).get();
+    index = new FeatureIndex(null);
+    index.addAll(features);
+
+    // one pixel is 20 m, so points are 50 pixels apart
+    tolerance = 10 * 20;
+    clicks = new Point[QUERY_COUNT];
+    boxes = new Envelope[QUERY_COUNT];
+    for (int i = 0; i < QUERY_COUNT; i++) {
+      double x = originX + random.nextDouble() * side;
+      double y = originY + random.nextDouble() * side;
+      clicks[i] = new Point(x, y, webMercator);
+      boxes[i] = new Envelope(x, y, x + 5000, y + 5000, webMercator);
+    }
+  }
+
+  @Benchmark
+  public List<Feature> indexIdentify() {
+    return index.identify(clicks[next++ & (QUERY_COUNT - 1)], tolerance, MAX_RESULTS);
+  }
+
+  @Benchmark
+  public FeatureQueryResult tableIdentify() throws Exception {
+    Point click = clicks[next++ & (QUERY_COUNT - 1)];
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setGeometry(new Envelope(click.getX() - tolerance, click.getY() - tolerance,
+        click.getX() + tolerance, click.getY() + tolerance, click.getSpatialReference()));
+    queryParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+    queryParameters.setMaxFeatures(MAX_RESULTS);
+    return table.queryFeaturesAsync(queryParameters).get();
+  }
+
+  @Benchmark
+  public List<Feature> indexSelect() {
+    return index.select(boxes[next++ & (QUERY_COUNT - 1)], Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  public FeatureQueryResult tableSelect() throws Exception {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setGeometry(boxes[next++ & (QUERY_COUNT - 1)]);
+    queryParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+    return table.queryFeaturesAsync(queryParameters).get();
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A stand-in for a feature service with one point layer, served over HTTP on the loopback interface. It answers the
+ * layer metadata and query requests made by a service feature table with JSON, pages query results by the maximum
+ * record count like ArcGIS Server does, and sleeps before each response to simulate the server's work.
+ *
+ * <p>Where clauses are only evaluated for the object ID range conditions written by {@link ParallelPopulator}, any
+ * other condition matches all features.
+ */
+public final class LocalFeatureServer implements AutoCloseable {
+
+  private static final String SERVICE_PATH = "/arcgis/rest/services/Synthetic/FeatureServer";
+  private static final Pattern LOWER_BOUND = Pattern.compile("OBJECTID\\s*>=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+  private static final Pattern UPPER_BOUND = Pattern.compile("OBJECTID\\s*<=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final int featureCount;
+  private final int maxRecordCount;
+  private final long requestMillis;
+  private final long featureMicros;
+
+  /**
+   * Starts a server on a free port.
+   *
+   * @param featureCount number of features in the layer, with object IDs 1 to featureCount
+   * @param maxRecordCount maximum number of features in one query response
+   * @param requestMillis time spent on every request
+   * @param featureMicros additional time spent per feature returned
+   * @throws IOException if the server cannot be started
+   */
+  public LocalFeatureServer(int featureCount, int maxRecordCount, long requestMillis, long featureMicros)
+      throws IOException {
+    this.featureCount = featureCount;
+    this.maxRecordCount = maxRecordCount;
+    this.requestMillis = requestMillis;
+    this.featureMicros = featureMicros;
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(SERVICE_PATH, this::handle);
+    executor = Executors.newFixedThreadPool(16);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * @return URL of the layer
+   */
+  public String getLayerUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + SERVICE_PATH + "/0";
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    Map<String, String> parameters = parameters(exchange);
+    String path = exchange.getRequestURI().getPath();
+    String body;
+    int returned = 0;
+    if (path.endsWith("/0/query")) {
+      StringBuilder response = new StringBuilder();
+      returned = query(parameters, response);
+      body = response.toString();
+    } else if (path.endsWith("/0")) {
+      body = layerInfo();
+    } else {
+      body = serviceInfo();
+    }
+
+    try {
+      Thread.sleep(requestMillis + returned * featureMicros / 1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  /**
+   * Writes the query response.
+   *
+   * @return number of features written
+   */
+  private int query(Map<String, String> parameters, StringBuilder response) {
+    String where = parameters.getOrDefault("where", "1=1");
+    long low = 1;
+    long high = featureCount;
+    Matcher lower = LOWER_BOUND.matcher(where);
+    if (lower.find()) {
+      low = Math.max(low, Long.parseLong(lower.group(1)));
+    }
+    Matcher upper = UPPER_BOUND.matcher(where);
+    if (upper.find()) {
+      high = Math.min(high, Long.parseLong(upper.group(1)));
+    }
+    long matching = Math.max(0, high - low + 1);
+
+    if ("true".equalsIgnoreCase(parameters.get("returnCountOnly"))) {
+      response.append("{\"count\":").append(matching).append('}');
+      return 0;
+    }
+    if ("true".equalsIgnoreCase(parameters.get("returnIdsOnly"))) {
+      response.append("{\"objectIdFieldName\":\"OBJECTID\",\"objectIds\":[");
+      for (long id = low; id <= high; id++) {
+        response.append(id == low ? "" : ",").append(id);
+      }
+      response.append("]}");
+      return 0;
+    }
+
+    long offset = Long.parseLong(parameters.getOrDefault("resultOffset", "0"));
+    long count = Math.min(maxRecordCount, Long.parseLong(parameters.getOrDefault("resultRecordCount",
+        String.valueOf(maxRecordCount))));
+    long first = low + offset;
+    long last = Math.min(high, first + count - 1);
+    response.append("{\"objectIdFieldName\":\"OBJECTID\",\"geometryType\":\"esriGeometryPoint\",")
+        .append("\"spatialReference\":{\"wkid\":102100,\"latestWkid\":3857},\"fields\":").append(fields())
+        .append(",\"features\":[");
+    for (long id = first; id <= last; id++) {
+      // a grid of points around the center of the synthetic geometries
+      double x = -13046000 + (id % 1000) * 50;
+      double y = 4036000 + (id / 1000) * 50;
+      response.append(id == first ? "" : ",")
+          .append("{\"attributes\":{\"OBJECTID\":").append(id)
+          .append(",\"name\":\"Feature ").append(id).append("\",\"value\":").append(id % 97 / 7.0)
+          .append("},\"geometry\":{\"x\":").append(x).append(",\"y\":").append(y).append("}}");
+    }
+    response.append("],\"exceededTransferLimit\":").append(last < high).append('}');
+    return (int) Math.max(0, last - first + 1);
+  }
+
+  private String serviceInfo() {
+    return "{\"currentVersion\":10.71,\"serviceDescription\":\"\",\"hasVersionedData\":false," +
+        "\"supportsDisconnectedEditing\":false,\"supportedQueryFormats\":\"JSON\",\"maxRecordCount\":" +
+        maxRecordCount + ",\"capabilities\":\"Query\",\"spatialReference\":{\"wkid\":102100,\"latestWkid\":3857}," +
+        "\"fullExtent\":" + extent() + ",\"initialExtent\":" + extent() + ",\"layers\":[{\"id\":0," +
+        "\"name\":\"Synthetic\",\"geometryType\":\"esriGeometryPoint\"}],\"tables\":[]}";
+  }
+
+  private String layerInfo() {
+    return "{\"currentVersion\":10.71,\"id\":0,\"name\":\"Synthetic\",\"type\":\"Feature Layer\"," +
+        "\"geometryType\":\"esriGeometryPoint\",\"objectIdField\":\"OBJECTID\",\"displayField\":\"name\"," +
+        "\"extent\":" + extent() + ",\"fields\":" + fields() + ",\"maxRecordCount\":" + maxRecordCount +
+        ",\"supportedQueryFormats\":\"JSON\",\"capabilities\":\"Query\",\"supportsAdvancedQueries\":true," +
+        "\"useStandardizedQueries\":true,\"supportsStatistics\":true,\"hasAttachments\":false," +
+        "\"htmlPopupType\":\"esriServerHTMLPopupTypeNone\",\"typeIdField\":null,\"types\":[],\"templates\":[]," +
+        "\"advancedQueryCapabilities\":{\"supportsPagination\":true,\"supportsOrderBy\":true," +
+        "\"supportsDistinct\":true,\"supportsQueryWithResultType\":false}," +
+        "\"drawingInfo\":{\"renderer\":{\"type\":\"simple\",\"symbol\":{\"type\":\"esriSMS\"," +
+        "\"style\":\"esriSMSCircle\",\"color\":[255,0,0,255],\"size\":4}}}}";
+  }
+
+  private String extent() {
+    return "{\"xmin\":-13046000,\"ymin\":4036000,\"xmax\":-12996000,\"ymax\":" + (4036000 + featureCount / 20) +
+        ",\"spatialReference\":{\"wkid\":102100,\"latestWkid\":3857}}";
+  }
+
+  private static String fields() {
+    return "[{\"name\":\"OBJECTID\",\"type\":\"esriFieldTypeOID\",\"alias\":\"OBJECTID\"}," +
+        "{\"name\":\"name\",\"type\":\"esriFieldTypeString\",\"alias\":\"name\",\"length\":64}," +
+        "{\"name\":\"value\",\"type\":\"esriFieldTypeDouble\",\"alias\":\"value\"}]";
+  }
+
+  /**
+   * Reads the parameters from the query string and, for POST requests, the form encoded body.
+   */
+  private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+    Map<String, String> parameters = new HashMap<>();
+    addParameters(exchange.getRequestURI().getRawQuery(), parameters);
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (InputStream input = exchange.getRequestBody()) {
+      byte[] buffer = new byte[8192];
+      for (int read; (read = input.read(buffer)) != -1; ) {
+        body.write(buffer, 0, read);
+      }
+    }
+    addParameters(new String(body.toByteArray(), StandardCharsets.UTF_8), parameters);
+    return parameters;
+  }
+
+  private static void addParameters(String encoded, Map<String, String> parameters)
+      throws UnsupportedEncodingException {
+    if (encoded == null || encoded.isEmpty()) {
+      return;
+    }
+    for (String pair : encoded.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0) {
+        parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+            URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+
+/**
+ * Measures a grouped and ordered statistics query against a {@link ColumnarFeatureCache} of synthetic county-like
+ * features, on a single thread and on all cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LocalStatisticsBenchmark {
+
+  private static final String[] FIELDS = {"State", "Urban", "Diabetes_Percent", "Obesity_Percent"};
+
+  @Param({"10000", "100000", "1000000"})
+  public int featureCount;
+
+  /** Pool parallelism, 0 for one thread per core. */
+  @Param({"1", "0"})
+  public int parallelism;
+
+  private ForkJoinPool pool;
+  private LocalStatistics statistics;
+  private StatisticsQueryParameters queryParameters;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(8);
+    List<Map<String, Object>> rows = new AbstractList<Map<String, Object>>() {
+      @Override
+      public Map<String, Object> get(int index) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("State", "State " + random.nextInt(50));
+        attributes.put("Urban", random.nextInt(6));
+        attributes.put("Diabetes_Percent", random.nextInt(20) == 0 ? null : 5 + 15 * random.nextDouble());
+        attributes.put("Obesity_Percent", 15 + 30 * random.nextDouble());
+        return attributes;
+      }
+
+      @Override
+      public int size() {
+        return featureCount;
+      }
+    };
+    ColumnarFeatureCache cache = ColumnarFeatureCache.of(Arrays.asList(FIELDS), rows, "");
+
+    pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    statistics = new LocalStatistics(cache, pool, LocalStatistics.DEFAULT_RANGE_SIZE);
+
+    queryParameters = new StatisticsQueryParameters(Arrays.asList(
+        new StatisticDefinition("Diabetes_Percent", StatisticType.AVERAGE),
+        new StatisticDefinition("Diabetes_Percent", StatisticType.COUNT),
+        new StatisticDefinition("Diabetes_Percent", StatisticType.STANDARD_DEVIATION),
+        new StatisticDefinition("Obesity_Percent", StatisticType.MAXIMUM)));
+    queryParameters.getGroupByFieldNames().addAll(Arrays.asList("State", "Urban"));
+    queryParameters.getOrderByFields().add(new QueryParameters.OrderBy("State", QueryParameters.SortOrder.ASCENDING));
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public List<LocalStatisticRecord> groupedQuery() {
+    return statistics.queryStatistics(queryParameters);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+/**
+ * Compares populating a manual cache service feature table with a single {@code populateFromServiceAsync} call and
+ * with {@link ParallelPopulator}, against a {@link LocalFeatureServer} which spends 50 ms per request plus 20
+ * microseconds per feature and returns at most 1,000 features per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelPopulatorBenchmark {
+
+  private static final String WHERE_CLAUSE = "1=1";
+  private static final List<String> OUT_FIELDS = Collections.singletonList("*");
+
+  @Param({"10000", "50000"})
+  public int featureCount;
+
+  /** Number of ranges requested at once, 0 for a single populate call. */
+  @Param({"0", "1", "4", "8"})
+  public int concurrency;
+
+  private LocalFeatureServer server;
+  private ServiceFeatureTable featureTable;
+
+  @Setup
+  public void setup() throws Exception {
+    server = new LocalFeatureServer(featureCount, ParallelPopulator.DEFAULT_RANGE_SIZE, 50, 20);
+    featureTable = new ServiceFeatureTable(server.getLayerUrl());
+    featureTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+    CompletableFuture<LoadStatus> loaded = new CompletableFuture<>();
+    featureTable.addDoneLoadingListener(() -> loaded.complete(featureTable.getLoadStatus()));
+    featureTable.loadAsync();
+    if (loaded.get() != LoadStatus.LOADED) {
+      throw new IllegalStateException("Table failed to load", featureTable.getLoadError());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.close();
+  }
+
+  @Benchmark
+  public int populate() throws Exception {
+    if (concurrency == 0) {
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause(WHERE_CLAUSE);
+      ListenableFuture<FeatureQueryResult> populate =
+          featureTable.populateFromServiceAsync(queryParameters, true, OUT_FIELDS);
+      int count = 0;
+      for (Feature feature : populate.get()) {
+        count++;
+      }
+      return count;
+    }
+    ParallelPopulator populator = new ParallelPopulator(featureTable, ParallelPopulator.DEFAULT_RANGE_SIZE,
+        concurrency, ForkJoinPool.commonPool());
+    return populator.populateAsync(WHERE_CLAUSE, OUT_FIELDS).get().getFeatureCount();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ShapefileFeatureTable;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+import com.esri.samples.core.geometry.SyntheticGeometries;
+
+/**
+ * Compares reading a shapefile of 100,000 and 1,000,000 points or square polygons through a
+ * {@link ShapefileFeatureTable}, which the shapefile samples display directly, with importing it through
+ * {@link ShapefileImporter}. The read benchmarks load the table and query all features, or import the file on all
+ * cores; the query benchmarks select the features in a 5 km box from the shapefile table and from the importer's
+ * {@link FeatureIndex}. Divide the record count by the read time for the records per second.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ShapefileImportBenchmark {
+
+  private static final int QUERY_COUNT = 1024;
+
+  @Param({"100000", "1000000"})
+  public int recordCount;
+
+  @Param({"false", "true"})
+  public boolean polygons;
+
+  private Path directory;
+  private Path shapefile;
+  private ShapefileFeatureTable shapefileTable;
+  private FeatureIndex index;
+  private Envelope[] boxes;
+  private int next;
+
+  @Setup
+  public void setup() throws Exception {
+    directory = Files.createTempDirectory("shapefile-benchmark");
+    shapefile = directory.resolve("features.shp");
+    double side = SyntheticShapefile.write(shapefile, recordCount, polygons, 24);
+
+    // the first query loads the table
+    shapefileTable = new ShapefileFeatureTable(shapefile.toString());
+    shapefileTable.queryFeaturesAsync(new QueryParameters()).get();
+    ShapefileImporter importer = new ShapefileImporter(shapefile);
+    importer.importAsync().get();
+    index = importer.getIndex();
+
+    double originX = SyntheticGeometries.CENTER_X - side / 2;
+    double originY = SyntheticGeometries.CENTER_Y - side / 2;
+    Random random = new Random(24);
+    boxes = new Envelope[QUERY_COUNT];
+    for (int i = 0; i < QUERY_COUNT; i++) {
+      double x = originX + random.nextDouble() * side;
+      double y = originY + random.nextDouble() * side;
+      boxes[i] = new Envelope(x, y, x + 5000, y + 5000, SpatialReferences.getWebMercator());
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long shapefileRead() throws Exception {
+    ShapefileFeatureTable table = new ShapefileFeatureTable(shapefile.toString());
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause("1=1");
+    long count = 0;
+    for (Feature feature : table.queryFeaturesAsync(queryParameters).get()) {
+      count += feature.getAttributes().size();
+    }
+    return count;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long importerRead() throws Exception {
+    ShapefileImporter importer = new ShapefileImporter(shapefile);
+    importer.importAsync().get();
+    return importer.getImportedCount();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public FeatureQueryResult shapefileQuery() throws Exception {
+    QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setGeometry(boxes[next++ & (QUERY_COUNT - 1)]);
+    queryParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+    return shapefileTable.queryFeaturesAsync(queryParameters).get();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<Feature> importerQuery() {
+    return index.select(boxes[next++ & (QUERY_COUNT - 1)], Integer.MAX_VALUE);
+  }
+}
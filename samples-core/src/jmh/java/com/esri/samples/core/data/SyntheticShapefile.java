@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.esri.samples.core.geometry.SyntheticGeometries;
+
+/**
+ * Writes shapefiles of random points or small square polygons in Web Mercator around the center of
+ * {@link SyntheticGeometries}, with an integer ID, a text NAME, a double VALUE and a DATE field.
+ */
+public final class SyntheticShapefile {
+
+  private static final int POINT = 1;
+  private static final int POLYGON = 5;
+  private static final String WEB_MERCATOR_WKT = "PROJCS[\"WGS_1984_Web_Mercator_Auxiliary_Sphere\"," +
+      "GEOGCS[\"GCS_WGS_1984\",DATUM[\"D_WGS_1984\",SPHEROID[\"WGS_1984\",6378137.0,298.257223563]]," +
+      "PRIMEM[\"Greenwich\",0.0],UNIT[\"Degree\",0.0174532925199433]]," +
+      "PROJECTION[\"Mercator_Auxiliary_Sphere\"],PARAMETER[\"False_Easting\",0.0]," +
+      "PARAMETER[\"False_Northing\",0.0],PARAMETER[\"Central_Meridian\",0.0]," +
+      "PARAMETER[\"Standard_Parallel_1\",0.0],PARAMETER[\"Auxiliary_Sphere_Type\",0.0],UNIT[\"Meter\",1.0]]";
+
+  /** Field lengths of the ID, NAME, VALUE and DATE fields. */
+  private static final int[] FIELD_LENGTHS = {9, 16, 12, 8};
+
+  private SyntheticShapefile() {
+  }
+
+  /**
+   * Writes a shapefile with its .shx, .dbf and .prj files.
+   *
+   * @param shp path of the .shp file to write
+   * @param recordCount number of records
+   * @param polygons whether to write square polygons instead of points
+   * @param seed seed for the coordinates and values
+   * @return side of the square holding the features, in meters
+   * @throws IOException if a file cannot be written
+   */
+  public static double write(Path shp, int recordCount, boolean polygons, long seed) throws IOException {
+    // spread the features over a square so that their density does not depend on the count
+    double side = Math.sqrt(recordCount) * 1000;
+    double originX = SyntheticGeometries.CENTER_X - side / 2;
+    double originY = SyntheticGeometries.CENTER_Y - side / 2;
+    int shapeType = polygons ? POLYGON : POINT;
+    // content length in bytes: point is type and x, y; polygon is type, box, counts, one part index and 5 points
+    int contentLength = polygons ? 4 + 32 + 8 + 4 + 5 * 16 : 20;
+    int recordLength = 8 + contentLength;
+    String baseName = shp.getFileName().toString().replaceFirst("\\.shp$", "");
+
+    Random random = new Random(seed);
+    ByteBuffer record = ByteBuffer.allocate(recordLength);
+    ByteBuffer row = ByteBuffer.allocate(1 + 9 + 16 + 12 + 8);
+    try (OutputStream shpOut = new BufferedOutputStream(Files.newOutputStream(shp), 1 << 16);
+         OutputStream shxOut = new BufferedOutputStream(Files.newOutputStream(shp.resolveSibling(baseName + ".shx")),
+             1 << 16);
+         OutputStream dbfOut = new BufferedOutputStream(Files.newOutputStream(shp.resolveSibling(baseName + ".dbf")),
+             1 << 16)) {
+      shpOut.write(header(shapeType, 100 + (long) recordCount * recordLength, originX, originY, side));
+      shxOut.write(header(shapeType, 100 + (long) recordCount * 8, originX, originY, side));
+      dbfOut.write(dbfHeader(recordCount));
+
+      ByteBuffer index = ByteBuffer.allocate(8);
+      for (int i = 0; i < recordCount; i++) {
+        double x = originX + random.nextDouble() * side;
+        double y = originY + random.nextDouble() * side;
+        int offset = 100 + i * recordLength;
+
+        record.clear();
+        record.order(ByteOrder.BIG_ENDIAN).putInt(i + 1).putInt(contentLength / 2);
+        record.order(ByteOrder.LITTLE_ENDIAN).putInt(shapeType);
+        if (polygons) {
+          double size = 100 + random.nextDouble() * 400;
+          record.putDouble(x).putDouble(y).putDouble(x + size).putDouble(y + size).putInt(1).putInt(5).putInt(0);
+          // clockwise, as shapefile outer rings are
+          record.putDouble(x).putDouble(y).putDouble(x).putDouble(y + size).putDouble(x + size)
+              .putDouble(y + size).putDouble(x + size).putDouble(y).putDouble(x).putDouble(y);
+        } else {
+          record.putDouble(x).putDouble(y);
+        }
+        shpOut.write(record.array());
+
+        index.clear();
+        index.order(ByteOrder.BIG_ENDIAN).putInt(offset / 2).putInt(contentLength / 2);
+        shxOut.write(index.array());
+
+        row.clear();
+        row.put((byte) ' ');
+        putText(row, String.format("%9d", i), 9);
+        putText(row, "feature " + i, 16);
+        putText(row, String.format("%12.3f", random.nextDouble() * 1000), 12);
+        putText(row, String.format("2020%02d%02d", 1 + i % 12, 1 + i % 28), 8);
+        dbfOut.write(row.array());
+      }
+      dbfOut.write(0x1A);
+    }
+    Files.write(shp.resolveSibling(baseName + ".prj"), WEB_MERCATOR_WKT.getBytes(StandardCharsets.US_ASCII));
+    return side;
+  }
+
+  private static byte[] header(int shapeType, long fileBytes, double originX, double originY, double side) {
+    ByteBuffer header = ByteBuffer.allocate(100);
+    header.order(ByteOrder.BIG_ENDIAN).putInt(0, 9994).putInt(24, (int) (fileBytes / 2));
+    header.order(ByteOrder.LITTLE_ENDIAN).putInt(28, 1000).putInt(32, shapeType)
+        .putDouble(36, originX).putDouble(44, originY).putDouble(52, originX + side).putDouble(60, originY + side);
+    return header.array();
+  }
+
+  private static byte[] dbfHeader(int recordCount) {
+    String[] names = {"ID", "NAME", "VALUE", "DATE"};
+    char[] types = {'N', 'C', 'N', 'D'};
+    int[] decimals = {0, 0, 3, 0};
+    int headerLength = 32 + 32 * names.length + 1;
+    int recordLength = 1;
+    for (int length : FIELD_LENGTHS) {
+      recordLength += length;
+    }
+    ByteBuffer header = ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+    header.put(0, (byte) 3).put(1, (byte) 120).put(2, (byte) 1).put(3, (byte) 1).putInt(4, recordCount)
+        .putShort(8, (short) headerLength).putShort(10, (short) recordLength);
+    for (int i = 0; i < names.length; i++) {
+      int at = 32 + 32 * i;
+      byte[] name = names[i].getBytes(StandardCharsets.US_ASCII);
+      for (int j = 0; j < name.length; j++) {
+        header.put(at + j, name[j]);
+      }
+      header.put(at + 11, (byte) types[i]).put(at + 16, (byte) FIELD_LENGTHS[i]).put(at + 17, (byte) decimals[i]);
+    }
+    header.put(headerLength - 1, (byte) 0x0D);
+    return header.array();
+  }
+
+  private static void putText(ByteBuffer row, String text, int length) {
+    byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+    for (int i = 0; i < length; i++) {
+      row.put(i < bytes.length ? bytes[i] : (byte) ' ');
+    }
+  }
+}
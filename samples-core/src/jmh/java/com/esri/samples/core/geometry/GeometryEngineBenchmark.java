@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.geometry.GeodeticCurveType;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.LinearUnit;
+import com.esri.arcgisruntime.geometry.LinearUnitId;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Measures the cost of the {@link GeometryEngine} operations used by the geometry samples on synthetic polygons and
+ * polylines of increasing vertex count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeometryEngineBenchmark {
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int vertexCount;
+
+  @Param({"POLYGON", "POLYLINE"})
+  public String shape;
+
+  private Geometry geometry;
+  private Geometry other;
+  private LinearUnit meters;
+  private SpatialReference wgs84;
+
+  @Setup
+  public void setup() {
+    geometry = "POLYGON".equals(shape) ? SyntheticGeometries.polygon(vertexCount, 0, 1) :
+        SyntheticGeometries.polyline(vertexCount, 1);
+    // a second, shifted polygon that partially overlaps the first geometry
+    other = SyntheticGeometries.polygon(vertexCount, SyntheticGeometries.RADIUS, 2);
+    meters = new LinearUnit(LinearUnitId.METERS);
+    wgs84 = SpatialReferences.getWgs84();
+  }
+
+  @Benchmark
+  public Geometry buffer() {
+    return GeometryEngine.buffer(geometry, 1000);
+  }
+
+  @Benchmark
+  public Geometry bufferGeodetic() {
+    return GeometryEngine.bufferGeodetic(geometry, 1000, meters, Double.NaN, GeodeticCurveType.GEODESIC);
+  }
+
+  @Benchmark
+  public Geometry union() {
+    return GeometryEngine.union(geometry, other);
+  }
+
+  @Benchmark
+  public Geometry intersection() {
+    return GeometryEngine.intersection(geometry, other);
+  }
+
+  @Benchmark
+  public Geometry simplify() {
+    return GeometryEngine.simplify(geometry);
+  }
+
+  @Benchmark
+  public Geometry densify() {
+    return GeometryEngine.densify(geometry, 100);
+  }
+
+  @Benchmark
+  public Geometry generalize() {
+    return GeometryEngine.generalize(geometry, 100, true);
+  }
+
+  @Benchmark
+  public Geometry project() {
+    return GeometryEngine.project(geometry, wgs84);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Compares testing a fixed zone against many candidates with seven {@link GeometryEngine} predicate calls per pair,
+ * as done in the spatial relationships sample, with a single {@link PreparedGeometry#relationships} call per pair.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreparedGeometryBenchmark {
+
+  private static final int CANDIDATE_COUNT = 1000;
+
+  @Param({"100", "10000"})
+  public int zoneVertexCount;
+
+  @Param({"POINT", "POLYLINE", "POLYGON"})
+  public String candidateType;
+
+  private Polygon zone;
+  private PreparedGeometry preparedZone;
+  private List<Geometry> candidates;
+
+  @Setup
+  public void setup() {
+    zone = SyntheticGeometries.polygon(zoneVertexCount, 0, 1);
+    preparedZone = PreparedGeometry.prepare(zone);
+
+    // candidates scattered over an area twice the size of the zone, so some are inside, some cross its boundary and
+    // some are disjoint
+    Random random = new Random(3);
+    candidates = new ArrayList<>(CANDIDATE_COUNT);
+    for (int i = 0; i < CANDIDATE_COUNT; i++) {
+      double x = SyntheticGeometries.CENTER_X + (random.nextDouble() * 4 - 2) * SyntheticGeometries.RADIUS;
+      double y = SyntheticGeometries.CENTER_Y + (random.nextDouble() * 4 - 2) * SyntheticGeometries.RADIUS;
+      Point point = new Point(x, y, SpatialReferences.getWebMercator());
+      switch (candidateType) {
+        case "POINT":
+          candidates.add(point);
+          break;
+        case "POLYLINE":
+          Point end = new Point(x + SyntheticGeometries.RADIUS / 5, y + SyntheticGeometries.RADIUS / 5,
+              SpatialReferences.getWebMercator());
+          candidates.add(new Polyline(new PointCollection(Arrays.asList(point, end))));
+          break;
+        default:
+          candidates.add(GeometryEngine.buffer(point, SyntheticGeometries.RADIUS / 10));
+          break;
+      }
+    }
+
+    // GeometryEngine is the reference, so only time the prepared zone if it finds the same relationships
+    for (Geometry candidate : candidates) {
+      EnumSet<SpatialRelationship> expected = geometryEngineRelationships(zone, candidate);
+      EnumSet<SpatialRelationship> actual = preparedZone.relationships(candidate);
+      if (!actual.equals(expected)) {
+        throw new IllegalStateException("PreparedGeometry found " + actual + " where GeometryEngine found " +
+            expected + " for " + candidate.toJson());
+      }
+    }
+  }
+
+  private static EnumSet<SpatialRelationship> geometryEngineRelationships(Geometry a, Geometry b) {
+    EnumSet<SpatialRelationship> relationships = EnumSet.noneOf(SpatialRelationship.class);
+    if (GeometryEngine.crosses(a, b)) {
+      relationships.add(SpatialRelationship.CROSSES);
+    }
+    if (GeometryEngine.contains(a, b)) {
+      relationships.add(SpatialRelationship.CONTAINS);
+    }
+    if (GeometryEngine.disjoint(a, b)) {
+      relationships.add(SpatialRelationship.DISJOINT);
+    }
+    if (GeometryEngine.intersects(a, b)) {
+      relationships.add(SpatialRelationship.INTERSECTS);
+    }
+    if (GeometryEngine.overlaps(a, b)) {
+      relationships.add(SpatialRelationship.OVERLAPS);
+    }
+    if (GeometryEngine.touches(a, b)) {
+      relationships.add(SpatialRelationship.TOUCHES);
+    }
+    if (GeometryEngine.within(a, b)) {
+      relationships.add(SpatialRelationship.WITHIN);
+    }
+    return relationships;
+  }
+
+  @Benchmark
+  public void geometryEngine(Blackhole blackhole) {
+    for (Geometry candidate : candidates) {
+      blackhole.consume(GeometryEngine.crosses(zone, candidate));
+      blackhole.consume(GeometryEngine.contains(zone, candidate));
+      blackhole.consume(GeometryEngine.disjoint(zone, candidate));
+      blackhole.consume(GeometryEngine.intersects(zone, candidate));
+      blackhole.consume(GeometryEngine.overlaps(zone, candidate));
+      blackhole.consume(GeometryEngine.touches(zone, candidate));
+      blackhole.consume(GeometryEngine.within(zone, candidate));
+    }
+  }
+
+  @Benchmark
+  public void preparedGeometry(Blackhole blackhole) {
+    for (Geometry candidate : candidates) {
+      EnumSet<SpatialRelationship> relationships = preparedZone.relationships(candidate);
+      blackhole.consume(relationships);
+    }
+  }
+}
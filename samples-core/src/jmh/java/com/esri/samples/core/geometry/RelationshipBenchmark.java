@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+
+/**
+ * Measures the cost of the {@link GeometryEngine} relationship predicates between a synthetic polygon and a second
+ * polygon or polyline of the same vertex count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelationshipBenchmark {
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int vertexCount;
+
+  @Param({"POLYGON", "POLYLINE"})
+  public String shape;
+
+  private Geometry polygon;
+  private Geometry other;
+
+  @Setup
+  public void setup() {
+    polygon = SyntheticGeometries.polygon(vertexCount, 0, 1);
+    other = "POLYGON".equals(shape) ? SyntheticGeometries.polygon(vertexCount, SyntheticGeometries.RADIUS, 2) :
+        SyntheticGeometries.polyline(vertexCount, 2);
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return GeometryEngine.contains(polygon, other);
+  }
+
+  @Benchmark
+  public boolean crosses() {
+    return GeometryEngine.crosses(polygon, other);
+  }
+
+  @Benchmark
+  public boolean disjoint() {
+    return GeometryEngine.disjoint(polygon, other);
+  }
+
+  @Benchmark
+  public boolean intersects() {
+    return GeometryEngine.intersects(polygon, other);
+  }
+
+  @Benchmark
+  public boolean overlaps() {
+    return GeometryEngine.overlaps(polygon, other);
+  }
+
+  @Benchmark
+  public boolean touches() {
+    return GeometryEngine.touches(polygon, other);
+  }
+
+  @Benchmark
+  public boolean within() {
+    return GeometryEngine.within(other, polygon);
+  }
+}
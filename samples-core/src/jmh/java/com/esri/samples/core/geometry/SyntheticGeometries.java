@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.Random;
+
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Deterministic geometry generators used as benchmark inputs. All geometries are in Web Mercator around the same
+ * center so that pairs created with different seeds overlap.
+ */
+public final class SyntheticGeometries {
+
+  /** Center of the generated geometries (roughly Redlands, CA) in Web Mercator. */
+  public static final double CENTER_X = -13046000;
+  public static final double CENTER_Y = 4036000;
+
+  /** Mean radius of the generated polygons in meters. */
+  public static final double RADIUS = 50000;
+
+  private SyntheticGeometries() {
+  }
+
+  /**
+   * Creates a simple, star-shaped polygon with the given number of vertices. The radius of each vertex is jittered
+   * so that the boundary is not a regular shape, which keeps the geometry engine from taking shortcuts.
+   *
+   * @param vertexCount number of vertices in the ring
+   * @param offsetX offset of the center in x, in meters
+   * @param seed seed for the jitter
+   * @return a polygon in Web Mercator
+   */
+  public static Polygon polygon(int vertexCount, double offsetX, long seed) {
+    Random random = new Random(seed);
+    SpatialReference webMercator = SpatialReferences.getWebMercator();
+    PointCollection points = new PointCollection(webMercator);
+    for (int i = 0; i < vertexCount; i++) {
+      double angle = 2 * Math.PI * i / vertexCount;
+      double radius = RADIUS * (0.8 + 0.2 * random.nextDouble());
+      points.add(new Point(CENTER_X + offsetX + radius * Math.cos(angle), CENTER_Y + radius * Math.sin(angle)));
+    }
+    return new Polygon(points);
+  }
+
+  /**
+   * Creates a polyline that zig-zags across the generated polygons from west to east.
+   *
+   * @param vertexCount number of vertices in the path
+   * @param seed seed for the jitter
+   * @return a polyline in Web Mercator
+   */
+  public static Polyline polyline(int vertexCount, long seed) {
+    Random random = new Random(seed);
+    SpatialReference webMercator = SpatialReferences.getWebMercator();
+    PointCollection points = new PointCollection(webMercator);
+    double startX = CENTER_X - 2 * RADIUS;
+    double step = 4 * RADIUS / Math.max(1, vertexCount - 1);
+    for (int i = 0; i < vertexCount; i++) {
+      double y = CENTER_Y + RADIUS * 0.5 * Math.sin(i * 8 * Math.PI / vertexCount) +
+          RADIUS * 0.05 * random.nextGaussian();
+      points.add(new Point(startX + i * step, y));
+    }
+    return new Polyline(points);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
+
+/**
+ * Compares a single {@link GeometryEngine#buffer(Iterable, Iterable, boolean)} call with {@link TiledBuffer} for
+ * increasing point counts and pool sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TiledBufferBenchmark {
+
+  @Param({"5000", "50000"})
+  public int pointCount;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  @Param({"true", "false"})
+  public boolean union;
+
+  private List<Geometry> points;
+  private List<Double> distances;
+  private ForkJoinPool pool;
+  private TiledBuffer tiledBuffer;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(4);
+    points = new ArrayList<>(pointCount);
+    distances = new ArrayList<>(pointCount);
+    for (int i = 0; i < pointCount; i++) {
+      double x = SyntheticGeometries.CENTER_X + (random.nextDouble() * 2 - 1) * SyntheticGeometries.RADIUS * 10;
+      double y = SyntheticGeometries.CENTER_Y + (random.nextDouble() * 2 - 1) * SyntheticGeometries.RADIUS * 10;
+      points.add(new Point(x, y, SpatialReferences.getWebMercator()));
+      distances.add(500 + random.nextDouble() * 2000);
+    }
+    pool = new ForkJoinPool(threads);
+    tiledBuffer = new TiledBuffer(pool, TiledBuffer.DEFAULT_TILE_CAPACITY);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public List<Polygon> geometryEngine() {
+    return GeometryEngine.buffer(points, distances, union);
+  }
+
+  @Benchmark
+  public List<Polygon> tiledBuffer() {
+    return tiledBuffer.bufferAsync(points, distances, union, null).join();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.graphics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.esri.arcgisruntime.mapping.view.Graphic;
+
+/**
+ * Compares reading MIL-STD-2525D message files into graphics with a DOM parser, as the dictionary renderer graphics
+ * overlay sample used to, with the streaming {@link MessageReader}. Run with {@code -prof gc} to compare allocation.
+ * The DOM approach needs a large heap for the biggest file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MessageReaderBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  public int messageCount;
+
+  private File messageFile;
+
+  @Setup
+  public void setup() throws IOException {
+    messageFile = File.createTempFile("messages", ".xml");
+    Random random = new Random(5);
+    try (BufferedWriter writer = Files.newBufferedWriter(messageFile.toPath(), StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<messages>\n");
+      for (int i = 0; i < messageCount; i++) {
+        double x = -13046000 + random.nextDouble() * 100000;
+        double y = 4036000 + random.nextDouble() * 100000;
+        writer.write("  <message>\n");
+        writer.write("    <_type>position_report</_type>\n");
+        writer.write("    <_action>update</_action>\n");
+        writer.write("    <_id>{" + new UUID(random.nextLong(), random.nextLong()) + "}</_id>\n");
+        writer.write("    <_control_points>" + x + "," + y + "</_control_points>\n");
+        writer.write("    <_wkid>3857</_wkid>\n");
+        writer.write("    <sidc>10031000001211000000</sidc>\n");
+        writer.write("    <uniquedesignation>Unit " + i + "</uniquedesignation>\n");
+        writer.write("  </message>\n");
+      }
+      writer.write("</messages>\n");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    messageFile.delete();
+  }
+
+  @Benchmark
+  public List<Graphic> dom() throws Exception {
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(messageFile);
+    document.getDocumentElement().normalize();
+    // reuse the message reader's geometry parsing so only the XML handling differs
+    MessageReader geometryReader = new MessageReader(new ByteArrayInputStream(
+        "<messages/>".getBytes(StandardCharsets.UTF_8)));
+    List<Graphic> graphics = new ArrayList<>();
+    for (int i = 0; i < document.getElementsByTagName("message").getLength(); i++) {
+      Node message = document.getElementsByTagName("message").item(i);
+      Map<String, Object> attributes = new HashMap<>();
+      NodeList childNodes = message.getChildNodes();
+      for (int j = 0; j < childNodes.getLength(); j++) {
+        if (childNodes.item(j).getNodeType() == Node.ELEMENT_NODE) {
+          attributes.put(childNodes.item(j).getNodeName(), childNodes.item(j).getTextContent());
+        }
+      }
+      graphics.add(geometryReader.createGraphic(attributes));
+    }
+    return graphics;
+  }
+
+  @Benchmark
+  public List<Graphic> stax() throws IOException {
+    List<Graphic> graphics = new ArrayList<>();
+    try (MessageReader reader = new MessageReader(new BufferedInputStream(new FileInputStream(messageFile), 1 << 16))) {
+      List<Graphic> batch;
+      while (!(batch = reader.nextGraphics(MessageLoader.DEFAULT_BATCH_SIZE)).isEmpty()) {
+        graphics.addAll(batch);
+      }
+    }
+    return graphics;
+  }
+}
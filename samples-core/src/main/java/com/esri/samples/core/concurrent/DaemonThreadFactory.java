@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads of the executors in the samples core project. The threads are daemon threads, so that work
+ * left in the background never keeps a sample running after its window is closed, and are numbered after a name.
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+
+  private final String name;
+  private final AtomicInteger count = new AtomicInteger();
+
+  /**
+   * @param name name of the threads, followed by a number counting the threads created by this factory
+   */
+  public DaemonThreadFactory(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public Thread newThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.data.ArcGISFeature;
+import com.esri.arcgisruntime.data.Attachment;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Streams attachments between a feature service and a {@link BlobCache}.
+ *
+ * <p>{@code ArcGISFeature.addAttachmentAsync} takes the whole attachment as a byte array and
+ * {@code Attachment.fetchDataAsync} is usually read into one, so both hold the full file in memory. For large files,
+ * transfers here go through the layer's REST endpoints instead and are copied in chunks: downloads straight into the
+ * cache, and uploads from the file to the request body. Once the service has accepted an upload, the file is copied
+ * into the cache so the new attachment is never downloaded again. Downloads of an attachment already in the cache
+ * are skipped, and concurrent downloads of the same attachment share one request. A fixed pool limits the number of
+ * transfers running at a time. Only successful responses with the attachment's content are cached; the JSON errors
+ * the service returns with a 200 status are reported as failed transfers.
+ *
+ * <p>The feature's table must be a {@link ServiceFeatureTable} which does not need a token, since the requests do not
+ * go through the Runtime's authentication. Use the Runtime methods for other layers.
+ */
+public final class AttachmentTransfers implements AutoCloseable {
+
+  /** Default number of transfers running at a time. */
+  public static final int DEFAULT_MAX_CONCURRENT = 2;
+
+  private static final int TIMEOUT_MILLIS = 60000;
+
+  private final BlobCache cache;
+  private final ExecutorService executor;
+  private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+
+  private final LongAdder downloadCount = new LongAdder();
+  private final LongAdder uploadCount = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder bytesTransferred = new LongAdder();
+  private final AtomicInteger activeTransfers = new AtomicInteger();
+
+  /**
+   * Creates transfers with the default concurrency.
+   *
+   * @param cache cache attachments are stored in
+   */
+  public AttachmentTransfers(BlobCache cache) {
+    this(cache, DEFAULT_MAX_CONCURRENT);
+  }
+
+  /**
+   * Creates transfers.
+   *
+   * @param cache cache attachments are stored in
+   * @param maxConcurrent number of transfers running at a time
+   */
+  public AttachmentTransfers(BlobCache cache, int maxConcurrent) {
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("Maximum concurrency must be positive");
+    }
+    this.cache = cache;
+    executor = Executors.newFixedThreadPool(maxConcurrent, new DaemonThreadFactory("attachment-transfer"));
+  }
+
+  /**
+   * Gets the content of an attachment from the cache, downloading it first if needed.
+   *
+   * @param feature feature the attachment belongs to
+   * @param attachment attachment to fetch
+   * @param progress receives the number of bytes downloaded, on a transfer thread
+   * @return a future completing with the path of the cached content
+   */
+  public CompletableFuture<Path> fetchAsync(ArcGISFeature feature, Attachment attachment, TransferProgress progress) {
+    String url;
+    try {
+      url = featureUrl(feature) + "/attachments/" + attachment.getId();
+    } catch (IOException e) {
+      CompletableFuture<Path> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+    // attachment IDs are not reused, but the size guards against content replaced by another client
+    String key = url + "#" + attachment.getSize();
+    Path cached = cache.get(key);
+    if (cached != null) {
+      cacheHits.increment();
+      progress.onProgress(attachment.getSize(), attachment.getSize());
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    CompletableFuture<Path> download = downloads.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> {
+      try {
+        return download(url, key, attachment.getSize(), attachment.getContentType(), progress);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }, executor));
+    download.whenComplete((path, ex) -> downloads.remove(key, download));
+    return download;
+  }
+
+  /**
+   * Uploads a file as a new attachment of a feature and stores it in the cache once the service has accepted it.
+   *
+   * @param feature feature to attach the file to
+   * @param file file to upload
+   * @param contentType MIME type of the file
+   * @param progress receives the number of bytes uploaded, on a transfer thread
+   * @return a future completing with the ID of the new attachment
+   */
+  public CompletableFuture<Long> uploadAsync(ArcGISFeature feature, Path file, String contentType,
+      TransferProgress progress) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return upload(featureUrl(feature), file, contentType, progress);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  private Path download(String url, String key, long size, String contentType, TransferProgress progress)
+      throws IOException {
+    activeTransfers.incrementAndGet();
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    try {
+      int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Downloading the attachment failed: HTTP " + status);
+      }
+      // the service reports errors as JSON with a 200 status, which must not be cached as the attachment
+      String responseType = mediaType(connection.getContentType());
+      if (!responseType.equals(mediaType(contentType)) &&
+          (responseType.equals("application/json") || responseType.startsWith("text/"))) {
+        throw new IOException("Downloading the attachment failed" + errorMessage(ServiceResponses.read(connection)));
+      }
+      return store(connection, key, size, progress);
+    } finally {
+      connection.disconnect();
+      activeTransfers.decrementAndGet();
+    }
+  }
+
+  private Path store(HttpURLConnection connection, String key, long size, TransferProgress progress)
+      throws IOException {
+    try (InputStream input = connection.getInputStream()) {
+      long length = connection.getContentLengthLong();
+      Path path = cache.put(key, input, length >= 0 ? length : size, progress);
+      downloadCount.increment();
+      bytesTransferred.add(Files.size(path));
+      return path;
+    }
+  }
+
+  private long upload(String featureUrl, Path file, String contentType, TransferProgress progress)
+      throws IOException {
+    activeTransfers.incrementAndGet();
+    long size = Files.size(file);
+    Multipart multipart = new Multipart(file.getFileName().toString(), contentType);
+    HttpURLConnection connection = (HttpURLConnection) new URL(featureUrl + "/addAttachment").openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", multipart.contentType());
+    // a fixed length keeps the connection from buffering the whole body to compute it
+    connection.setFixedLengthStreamingMode(multipart.length(size));
+    try {
+      try (InputStream input = Files.newInputStream(file); OutputStream output = connection.getOutputStream()) {
+        multipart.write(input, output, size, progress);
+      }
+      int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Adding the attachment failed: HTTP " + status);
+      }
+      String body = ServiceResponses.read(connection);
+      JsonObject response = ServiceResponses.parse(body);
+      JsonElement result = response != null ? response.get("addAttachmentResult") : null;
+      if (result == null || !result.isJsonObject()) {
+        throw new IOException("Adding the attachment failed" + errorMessage(body));
+      }
+      JsonObject addResult = result.getAsJsonObject();
+      JsonElement success = addResult.get("success");
+      JsonElement objectId = addResult.get("objectId");
+      if (success == null || !success.getAsBoolean() || objectId == null) {
+        throw new IOException("Adding the attachment failed" + errorMessage(body));
+      }
+      long attachmentId = objectId.getAsLong();
+      uploadCount.increment();
+      bytesTransferred.add(size);
+      // only cache attachments the service has accepted, reading the local file again rather than holding it
+      try (InputStream input = Files.newInputStream(file)) {
+        cache.put(featureUrl + "/attachments/" + attachmentId + "#" + size, input, size, TransferProgress.NONE);
+      } catch (IOException e) {
+        // the attachment was added, and is downloaded into the cache when it is first fetched
+      }
+      return attachmentId;
+    } finally {
+      connection.disconnect();
+      activeTransfers.decrementAndGet();
+    }
+  }
+
+  private static String featureUrl(ArcGISFeature feature) throws IOException {
+    if (!(feature.getFeatureTable() instanceof ServiceFeatureTable)) {
+      throw new IOException("Feature does not belong to a service feature table");
+    }
+    ServiceFeatureTable table = (ServiceFeatureTable) feature.getFeatureTable();
+    Long objectId = FeatureTables.objectId(feature, FeatureTables.objectIdField(table));
+    if (objectId == null) {
+      throw new IOException("Feature has no object ID");
+    }
+    return table.getUri() + "/" + objectId;
+  }
+
+  /**
+   * Reads the message of an error response or of the error of a rejected attachment.
+   *
+   * @return the message preceded by a colon, or an empty string if the body has none
+   */
+  private static String errorMessage(String body) {
+    JsonObject response = ServiceResponses.parse(body);
+    String message = ServiceResponses.errorMessage(response);
+    JsonElement result = response != null ? response.get("addAttachmentResult") : null;
+    if (message.isEmpty() && result != null && result.isJsonObject()) {
+      message = ServiceResponses.errorMessage(result.getAsJsonObject());
+    }
+    return message;
+  }
+
+  /**
+   * @return the media type of a content type without its parameters, in lower case
+   */
+  private static String mediaType(String contentType) {
+    if (contentType == null) {
+      return "";
+    }
+    int parameters = contentType.indexOf(';');
+    return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim().toLowerCase();
+  }
+
+  /**
+   * Shuts down the transfer threads. Running transfers are finished.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  /**
+   * A multipart/form-data body with the f=json parameter and one file part.
+   */
+  static final class Multipart {
+
+    private final String boundary = "----attachment" + UUID.randomUUID().toString().replace("-", "");
+    private final byte[] head;
+    private final byte[] tail;
+
+    Multipart(String fileName, String contentType) {
+      String name = fileName.replace("\"", "");
+      head = ("--" + boundary + "\r\n" +
+          "Content-Disposition: form-data; name=\"f\"\r\n\r\n" +
+          "json\r\n" +
+          "--" + boundary + "\r\n" +
+          "Content-Disposition: form-data; name=\"attachment\"; filename=\"" + name + "\"\r\n" +
+          "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+      tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    String contentType() {
+      return "multipart/form-data; boundary=" + boundary;
+    }
+
+    long length(long fileSize) {
+      return head.length + fileSize + tail.length;
+    }
+
+    /**
+     * Writes the body, copying the file in chunks.
+     */
+    void write(InputStream file, OutputStream output, long fileSize, TransferProgress progress) throws IOException {
+      output.write(head);
+      byte[] chunk = new byte[BlobCache.DEFAULT_CHUNK_SIZE];
+      long written = 0;
+      int read;
+      while ((read = file.read(chunk)) != -1) {
+        output.write(chunk, 0, read);
+        written += read;
+        progress.onProgress(written, fileSize);
+      }
+      output.write(tail);
+    }
+  }
+
+  /**
+   * @return number of attachments downloaded
+   */
+  public long getDownloadCount() {
+    return downloadCount.sum();
+  }
+
+  /**
+   * @return number of attachments uploaded
+   */
+  public long getUploadCount() {
+    return uploadCount.sum();
+  }
+
+  /**
+   * @return number of fetches answered from the cache
+   */
+  public long getCacheHitCount() {
+    return cacheHits.sum();
+  }
+
+  /**
+   * @return number of bytes downloaded and uploaded
+   */
+  public long getBytesTransferred() {
+    return bytesTransferred.sum();
+  }
+
+  /**
+   * @return number of transfers running
+   */
+  public int getActiveTransferCount() {
+    return activeTransfers.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d downloads, %d uploads, %d cache hits, %.1f MB transferred", getDownloadCount(),
+        getUploadCount(), getCacheHitCount(), getBytesTransferred() / 1e6);
+  }
+}
@@ -0,0 +1,698 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureTable;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.QueryParameters;
+
+/**
+ * Indexes the attribute values of features held in memory, so that where-clause style filters are answered without
+ * querying the table again.
+ *
+ * <p>Each indexed field has a hash index for equality and a sorted index for ranges and LIKE patterns, with a second
+ * case-insensitive sorted index for text fields. Every index entry holds a bitmap of the features with that value, and
+ * {@link Filter}s combine the bitmaps of their conditions with AND, OR and NOT. A LIKE pattern only tests the distinct
+ * values sharing its literal prefix, rather than every feature.
+ *
+ * <p>Filters follow the three-valued logic of SQL: a comparison with a null value is unknown rather than false, so
+ * neither a condition nor its NOT matches a feature whose field is null, unless the condition is {@code IS NULL}.
+ *
+ * <p>Numbers are compared as doubles and dates by their time in milliseconds. Features are matched by object ID, or by
+ * identity if they have none. All methods are thread-safe.
+ */
+public final class AttributeIndex {
+
+  @SuppressWarnings("unchecked")
+  private static final Comparator<Object> KEY_ORDER = (a, b) -> a.getClass() == b.getClass() ?
+      ((Comparable<Object>) a).compareTo(b) : a.getClass().getName().compareTo(b.getClass().getName());
+
+  private final String objectIdField;
+  private final String[] fields;
+  private final Map<String, FieldIndex> indexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  // entries by slot, null once removed, with the indexed values of each entry
+  private final List<Feature> features = new ArrayList<>();
+  private final List<Object[]> values = new ArrayList<>();
+  private final BitSet live = new BitSet();
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private final Map<Object, Integer> slots = new HashMap<>();
+  private final Map<Feature, Integer> slotsByIdentity = new IdentityHashMap<>();
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder queryNanos = new LongAdder();
+  private final LongAdder matches = new LongAdder();
+
+  /**
+   * Creates an empty index.
+   *
+   * @param objectIdField name of the object ID field used to match updated features, or null to match by identity
+   * @param fields names of the fields to index, as they appear in the features' attributes
+   */
+  public AttributeIndex(String objectIdField, Collection<String> fields) {
+    if (fields.isEmpty()) {
+      throw new IllegalArgumentException("At least one field must be indexed");
+    }
+    this.objectIdField = objectIdField;
+    this.fields = fields.toArray(new String[0]);
+    for (String field : this.fields) {
+      indexes.put(field, new FieldIndex());
+    }
+  }
+
+  /**
+   * Queries all features of a table matching a where clause and indexes them.
+   *
+   * @param featureTable loaded table to index
+   * @param whereClause where clause the features must match, or null for all features
+   * @param fields names of the fields to index, matched against the table's fields ignoring case
+   * @return a future completing with the index once all features have been read
+   */
+  public static CompletableFuture<AttributeIndex> loadAsync(FeatureTable featureTable, String whereClause,
+      String... fields) {
+    return loadAsync(featureTable, whereClause, true, fields);
+  }
+
+  /**
+   * Queries all features of a table matching a where clause and indexes them, leaving out their geometries if they
+   * are only counted or filtered by attribute, which keeps less in memory.
+   *
+   * @param featureTable loaded table to index
+   * @param whereClause where clause the features must match, or null for all features
+   * @param returnGeometry whether to query the geometries of the features
+   * @param fields names of the fields to index, matched against the table's fields ignoring case
+   * @return a future completing with the index once all features have been read
+   */
+  public static CompletableFuture<AttributeIndex> loadAsync(FeatureTable featureTable, String whereClause,
+      boolean returnGeometry, String... fields) {
+    List<String> tableFields = new ArrayList<>();
+    for (String name : fields) {
+      String tableField = null;
+      for (Field field : featureTable.getFields()) {
+        if (field.getName().equalsIgnoreCase(name)) {
+          tableField = field.getName();
+        }
+      }
+      if (tableField == null) {
+        CompletableFuture<AttributeIndex> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalArgumentException("Table has no field " + name));
+        return failed;
+      }
+      tableFields.add(tableField);
+    }
+    AttributeIndex index = new AttributeIndex(FeatureTables.objectIdField(featureTable), tableFields);
+    List<Feature> loaded = new ArrayList<>();
+    return FeaturePages.forEach(featureTable, () -> {
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause(whereClause != null ? whereClause : "1=1");
+      queryParameters.setReturnGeometry(returnGeometry);
+      return queryParameters;
+    }, loaded::add).thenApply(count -> {
+      index.addAll(loaded);
+      return index;
+    });
+  }
+
+  /**
+   * Adds features, or replaces them if they are already indexed.
+   *
+   * @param added features to add
+   */
+  public synchronized void addAll(Iterable<? extends Feature> added) {
+    for (Feature feature : added) {
+      put(feature);
+    }
+  }
+
+  /**
+   * Adds a feature, or replaces it if it is already indexed, for example after its attributes were updated.
+   *
+   * @param feature feature to add
+   */
+  public synchronized void put(Feature feature) {
+    Object key = FeatureTables.objectId(feature, objectIdField);
+    Integer existing = key != null ? slots.get(key) : slotsByIdentity.get(feature);
+    int slot;
+    if (existing != null) {
+      slot = existing;
+      unindex(slot);
+    } else if (!freeSlots.isEmpty()) {
+      slot = freeSlots.pop();
+    } else {
+      slot = features.size();
+      features.add(null);
+      values.add(null);
+    }
+
+    Object[] keys = new Object[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      keys[i] = key(feature.getAttributes().get(fields[i]));
+      indexes.get(fields[i]).add(keys[i], slot);
+    }
+    features.set(slot, feature);
+    values.set(slot, keys);
+    live.set(slot);
+    if (key != null) {
+      slots.put(key, slot);
+    } else {
+      slotsByIdentity.put(feature, slot);
+    }
+  }
+
+  /**
+   * Removes a feature.
+   *
+   * @param feature feature to remove
+   * @return true if the feature was indexed
+   */
+  public synchronized boolean remove(Feature feature) {
+    Object key = FeatureTables.objectId(feature, objectIdField);
+    Integer slot = key != null ? slots.remove(key) : slotsByIdentity.remove(feature);
+    if (slot == null) {
+      return false;
+    }
+    unindex(slot);
+    features.set(slot, null);
+    values.set(slot, null);
+    live.clear(slot);
+    freeSlots.push(slot);
+    return true;
+  }
+
+  private void unindex(int slot) {
+    Object[] keys = values.get(slot);
+    for (int i = 0; i < fields.length; i++) {
+      indexes.get(fields[i]).remove(keys[i], slot);
+    }
+  }
+
+  /**
+   * Finds the features matching a filter.
+   *
+   * @param filter filter on indexed fields
+   * @return the matching features
+   */
+  public List<Feature> query(Filter filter) {
+    long start = System.nanoTime();
+    List<Feature> found = new ArrayList<>();
+    synchronized (this) {
+      BitSet matched = filter.evaluate(this).matched;
+      for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+        found.add(features.get(slot));
+      }
+    }
+    record(start, found.size());
+    return found;
+  }
+
+  /**
+   * Finds the object IDs of the features matching a filter.
+   *
+   * @param filter filter on indexed fields
+   * @return the object IDs of the matching features which have one
+   */
+  public List<Long> queryObjectIds(Filter filter) {
+    long start = System.nanoTime();
+    List<Long> found = new ArrayList<>();
+    synchronized (this) {
+      BitSet matched = filter.evaluate(this).matched;
+      for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+        Long objectId = FeatureTables.objectId(features.get(slot), objectIdField);
+        if (objectId != null) {
+          found.add(objectId);
+        }
+      }
+    }
+    record(start, found.size());
+    return found;
+  }
+
+  /**
+   * Counts the features matching a filter.
+   *
+   * @param filter filter on indexed fields
+   * @return the number of matching features
+   */
+  public int count(Filter filter) {
+    long start = System.nanoTime();
+    int count;
+    synchronized (this) {
+      count = filter.evaluate(this).matched.cardinality();
+    }
+    record(start, count);
+    return count;
+  }
+
+  private void record(long start, int found) {
+    queries.increment();
+    queryNanos.add(System.nanoTime() - start);
+    matches.add(found);
+  }
+
+  private FieldIndex index(String field) {
+    FieldIndex index = indexes.get(field);
+    if (index == null) {
+      throw new IllegalArgumentException("Field is not indexed: " + field);
+    }
+    return index;
+  }
+
+  /**
+   * Converts an attribute or filter value to the form it is indexed by.
+   */
+  static Object key(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    } else if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis();
+    } else if (value instanceof Character) {
+      return value.toString();
+    }
+    return value;
+  }
+
+  /**
+   * @return number of indexed features
+   */
+  public synchronized int size() {
+    return live.cardinality();
+  }
+
+  /**
+   * @return number of queries
+   */
+  public long getQueryCount() {
+    return queries.sum();
+  }
+
+  /**
+   * @return mean time of a query in microseconds
+   */
+  public double getMeanQueryMicros() {
+    long count = queries.sum();
+    return count == 0 ? 0 : queryNanos.sum() / 1000.0 / count;
+  }
+
+  /**
+   * @return number of features matched by queries
+   */
+  public long getMatchCount() {
+    return matches.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d features, %d queries (%.1f microseconds mean), %d matches", size(), getQueryCount(),
+        getMeanQueryMicros(), getMatchCount());
+  }
+
+  /**
+   * The bitmaps of one field's values.
+   */
+  private static final class FieldIndex {
+
+    final Map<Object, BitSet> equal = new HashMap<>();
+    final NavigableMap<Object, BitSet> sorted = new TreeMap<>(KEY_ORDER);
+    final NavigableMap<String, BitSet> sortedIgnoreCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    final BitSet nulls = new BitSet();
+
+    void add(Object key, int slot) {
+      if (key == null) {
+        nulls.set(slot);
+        return;
+      }
+      BitSet slots = equal.computeIfAbsent(key, k -> new BitSet());
+      if (slots.isEmpty()) {
+        sorted.put(key, slots);
+      }
+      slots.set(slot);
+      if (key instanceof String) {
+        sortedIgnoreCase.computeIfAbsent((String) key, k -> new BitSet()).set(slot);
+      }
+    }
+
+    void remove(Object key, int slot) {
+      if (key == null) {
+        nulls.clear(slot);
+        return;
+      }
+      BitSet slots = equal.get(key);
+      slots.clear(slot);
+      if (slots.isEmpty()) {
+        equal.remove(key);
+        sorted.remove(key);
+      }
+      if (key instanceof String) {
+        BitSet folded = sortedIgnoreCase.get(key);
+        folded.clear(slot);
+        if (folded.isEmpty()) {
+          sortedIgnoreCase.remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * A condition on indexed fields, evaluated to a bitmap of the matching features. Filters can also be written as a
+   * where clause, to query a table the same way when no index is available.
+   */
+  public abstract static class Filter {
+
+    private Filter() {
+    }
+
+    abstract Truth evaluate(AttributeIndex index);
+
+    /**
+     * @return the filter as a where clause
+     */
+    public abstract String toWhereClause();
+
+    @Override
+    public String toString() {
+      return toWhereClause();
+    }
+
+    /**
+     * Matches features whose field equals a value.
+     *
+     * @param field indexed field
+     * @param value text, number or date
+     * @return the filter
+     */
+    public static Filter equalTo(String field, Object value) {
+      Object key = key(value);
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          FieldIndex fieldIndex = index.index(field);
+          BitSet slots = fieldIndex.equal.get(key);
+          return new Truth(slots != null ? (BitSet) slots.clone() : new BitSet(), (BitSet) fieldIndex.nulls.clone());
+        }
+
+        @Override
+        public String toWhereClause() {
+          return field + " = " + literal(value);
+        }
+      };
+    }
+
+    /**
+     * Matches features whose field has no value.
+     *
+     * @param field indexed field
+     * @return the filter
+     */
+    public static Filter isNull(String field) {
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          return new Truth((BitSet) index.index(field).nulls.clone(), new BitSet());
+        }
+
+        @Override
+        public String toWhereClause() {
+          return field + " IS NULL";
+        }
+      };
+    }
+
+    /**
+     * Matches features whose field lies within a range.
+     *
+     * @param field indexed field
+     * @param from lower bound, or null for none
+     * @param fromInclusive whether the lower bound matches
+     * @param to upper bound, or null for none
+     * @param toInclusive whether the upper bound matches
+     * @return the filter
+     */
+    public static Filter range(String field, Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+      Object fromKey = key(from);
+      Object toKey = key(to);
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          FieldIndex fieldIndex = index.index(field);
+          BitSet unknown = (BitSet) fieldIndex.nulls.clone();
+          NavigableMap<Object, BitSet> sorted = fieldIndex.sorted;
+          if (fromKey != null && toKey != null) {
+            if (KEY_ORDER.compare(fromKey, toKey) > 0) {
+              return new Truth(new BitSet(), unknown);
+            }
+            sorted = sorted.subMap(fromKey, fromInclusive, toKey, toInclusive);
+          } else if (fromKey != null) {
+            sorted = sorted.tailMap(fromKey, fromInclusive);
+          } else if (toKey != null) {
+            sorted = sorted.headMap(toKey, toInclusive);
+          }
+          return new Truth(union(sorted.values()), unknown);
+        }
+
+        @Override
+        public String toWhereClause() {
+          String lower = from != null ? field + (fromInclusive ? " >= " : " > ") + literal(from) : null;
+          String upper = to != null ? field + (toInclusive ? " <= " : " < ") + literal(to) : null;
+          if (lower != null && upper != null) {
+            return lower + " AND " + upper;
+          }
+          return lower != null ? lower : upper != null ? upper : field + " IS NOT NULL";
+        }
+      };
+    }
+
+    /**
+     * Matches features whose text field matches a LIKE pattern, where % matches any text and _ any single character.
+     *
+     * @param field indexed text field
+     * @param pattern pattern to match
+     * @param ignoreCase whether to compare upper and lower case letters as equal
+     * @return the filter
+     */
+    public static Filter like(String field, String pattern, boolean ignoreCase) {
+      int wildcard = 0;
+      while (wildcard < pattern.length() && pattern.charAt(wildcard) != '%' && pattern.charAt(wildcard) != '_') {
+        wildcard++;
+      }
+      String prefix = pattern.substring(0, wildcard);
+      Pattern regex = wildcard < pattern.length() ?
+          Pattern.compile(toRegex(pattern), ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0) : null;
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          FieldIndex fieldIndex = index.index(field);
+          // only the values starting with the literal prefix can match
+          NavigableMap<?, BitSet> candidates;
+          if (ignoreCase) {
+            candidates = regex == null ? fieldIndex.sortedIgnoreCase.subMap(prefix, true, prefix, true) :
+                fieldIndex.sortedIgnoreCase.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+          } else {
+            candidates = regex == null ? fieldIndex.sorted.subMap(prefix, true, prefix, true) :
+                fieldIndex.sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+          }
+          BitSet matched = new BitSet();
+          for (Map.Entry<?, BitSet> entry : candidates.entrySet()) {
+            if (entry.getKey() instanceof String &&
+                (regex == null || regex.matcher((String) entry.getKey()).matches())) {
+              matched.or(entry.getValue());
+            }
+          }
+          return new Truth(matched, (BitSet) fieldIndex.nulls.clone());
+        }
+
+        @Override
+        public String toWhereClause() {
+          return ignoreCase ? "upper(" + field + ") LIKE " + literal(pattern.toUpperCase()) :
+              field + " LIKE " + literal(pattern);
+        }
+      };
+    }
+
+    /**
+     * Matches features matching all of the given filters.
+     *
+     * @param filters filters to combine
+     * @return the filter
+     */
+    public static Filter and(Filter... filters) {
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          // true if all are true, unknown if none is false and not all are true
+          BitSet matched = (BitSet) index.live.clone();
+          BitSet notFalse = (BitSet) index.live.clone();
+          for (Filter filter : filters) {
+            Truth truth = filter.evaluate(index);
+            matched.and(truth.matched);
+            notFalse.and(truth.matchedOrUnknown());
+          }
+          notFalse.andNot(matched);
+          return new Truth(matched, notFalse);
+        }
+
+        @Override
+        public String toWhereClause() {
+          return join(filters, " AND ", "1=1");
+        }
+      };
+    }
+
+    /**
+     * Matches features matching any of the given filters.
+     *
+     * @param filters filters to combine
+     * @return the filter
+     */
+    public static Filter or(Filter... filters) {
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          // true if any is true, unknown if none is true and any is unknown
+          BitSet matched = new BitSet();
+          BitSet unknown = new BitSet();
+          for (Filter filter : filters) {
+            Truth truth = filter.evaluate(index);
+            matched.or(truth.matched);
+            unknown.or(truth.unknown);
+          }
+          unknown.andNot(matched);
+          return new Truth(matched, unknown);
+        }
+
+        @Override
+        public String toWhereClause() {
+          return join(filters, " OR ", "1=0");
+        }
+      };
+    }
+
+    /**
+     * Matches features not matching a filter.
+     *
+     * @param filter filter to negate
+     * @return the filter
+     */
+    public static Filter not(Filter filter) {
+      return new Filter() {
+        @Override
+        Truth evaluate(AttributeIndex index) {
+          // an unknown condition stays unknown, so features with null values match neither it nor its negation
+          Truth truth = filter.evaluate(index);
+          BitSet matched = (BitSet) index.live.clone();
+          matched.andNot(truth.matchedOrUnknown());
+          return new Truth(matched, truth.unknown);
+        }
+
+        @Override
+        public String toWhereClause() {
+          return "NOT (" + filter.toWhereClause() + ")";
+        }
+      };
+    }
+
+    /**
+     * The features for which a filter is true and those for which it is unknown, because it compares a null value.
+     * All others are false.
+     */
+    static final class Truth {
+
+      final BitSet matched;
+      final BitSet unknown;
+
+      Truth(BitSet matched, BitSet unknown) {
+        this.matched = matched;
+        this.unknown = unknown;
+      }
+
+      BitSet matchedOrUnknown() {
+        BitSet slots = (BitSet) matched.clone();
+        slots.or(unknown);
+        return slots;
+      }
+    }
+
+    private static BitSet union(Collection<BitSet> bitmaps) {
+      BitSet matched = new BitSet();
+      for (BitSet bitmap : bitmaps) {
+        matched.or(bitmap);
+      }
+      return matched;
+    }
+
+    private static String join(Filter[] filters, String operator, String empty) {
+      if (filters.length == 0) {
+        return empty;
+      }
+      StringBuilder clause = new StringBuilder();
+      for (Filter filter : filters) {
+        if (clause.length() > 0) {
+          clause.append(operator);
+        }
+        clause.append('(').append(filter.toWhereClause()).append(')');
+      }
+      return clause.toString();
+    }
+
+    private static String literal(Object value) {
+      if (value instanceof Number) {
+        return value.toString();
+      } else if (value instanceof Calendar) {
+        return String.format("timestamp '%1$tY-%1$tm-%1$td %1$tH:%1$tM:%1$tS'", value);
+      }
+      return "'" + String.valueOf(value).replace("'", "''") + "'";
+    }
+
+    private static String toRegex(String pattern) {
+      StringBuilder regex = new StringBuilder();
+      StringBuilder literal = new StringBuilder();
+      for (char c : pattern.toCharArray()) {
+        if (c == '%' || c == '_') {
+          if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+          }
+          regex.append(c == '%' ? ".*" : ".");
+        } else {
+          literal.append(c);
+        }
+      }
+      if (literal.length() > 0) {
+        regex.append(Pattern.quote(literal.toString()));
+      }
+      return regex.toString();
+    }
+  }
+}
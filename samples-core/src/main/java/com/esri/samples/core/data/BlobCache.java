@@ -0,0 +1,345 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A content addressed store of files on disk. Each blob is named by the SHA-256 hash of its content, so the same
+ * content is only stored once, and an index maps keys chosen by the caller, such as the URL of an attachment, to the
+ * hash of their content.
+ *
+ * <p>Content is copied in fixed size chunks and never held in memory as a whole. The total size of the blobs is
+ * limited; the least recently read or written blobs are deleted first. Keys whose blob was deleted are reported as
+ * missing.
+ */
+public final class BlobCache {
+
+  /** Default size of the chunks content is copied in. */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  private static final String INDEX = "index.properties";
+  private static final String BLOB_PREFIX = "sha256-";
+
+  private final Path directory;
+  private final long maxBytes;
+  private final int chunkSize;
+  private final Properties index = new Properties();
+
+  // blob sizes by hash, least recently used first
+  private final Map<String, Long> blobs = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
+
+  /**
+   * Opens a cache, creating the directory if needed and reading the blobs and index already in it.
+   *
+   * @param directory directory of the cache
+   * @param maxBytes maximum total size of the blobs
+   * @throws IOException if the directory cannot be read
+   */
+  public BlobCache(Path directory, long maxBytes) throws IOException {
+    this(directory, maxBytes, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Opens a cache, creating the directory if needed and reading the blobs and index already in it.
+   *
+   * @param directory directory of the cache
+   * @param maxBytes maximum total size of the blobs
+   * @param chunkSize size of the chunks content is copied in
+   * @throws IOException if the directory cannot be read
+   */
+  public BlobCache(Path directory, long maxBytes, int chunkSize) throws IOException {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive");
+    }
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.chunkSize = chunkSize;
+    Files.createDirectories(directory);
+
+    List<Path> existing = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, BLOB_PREFIX + "*")) {
+      files.forEach(existing::add);
+    }
+    // the least recently used blobs were touched longest ago
+    existing.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+    for (Path blob : existing) {
+      long size = Files.size(blob);
+      blobs.put(blob.getFileName().toString().substring(BLOB_PREFIX.length()), size);
+      totalBytes += size;
+    }
+
+    Path indexFile = directory.resolve(INDEX);
+    if (Files.exists(indexFile)) {
+      try (Reader reader = Files.newBufferedReader(indexFile)) {
+        index.load(reader);
+      }
+    }
+  }
+
+  /**
+   * Finds the blob stored for a key.
+   *
+   * @param key key of the content
+   * @return path of the blob, or null if no content is stored for the key
+   */
+  public synchronized Path get(String key) {
+    String hash = index.getProperty(key);
+    if (hash == null || blobs.get(hash) == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    Path blob = blobPath(hash);
+    try {
+      Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // only the order of eviction in later sessions suffers
+    }
+    return blob;
+  }
+
+  /**
+   * Copies content into the cache chunk by chunk. The content is not linked to a key yet, see
+   * {@link #link(String, String)}.
+   *
+   * @param input content to store, which is read to the end but not closed
+   * @param tee stream which also receives every chunk, such as an upload, or null
+   * @param totalBytes size of the content for progress updates, or -1 if it is not known
+   * @param progress receives the number of bytes copied after each chunk
+   * @return the hash of the content
+   * @throws IOException if the content cannot be read or written
+   */
+  public String put(InputStream input, OutputStream tee, long totalBytes, TransferProgress progress)
+      throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    Path temporary = Files.createTempFile(directory, "blob", ".tmp");
+    long size;
+    try {
+      try (OutputStream output = new DigestOutputStream(Files.newOutputStream(temporary), digest)) {
+        size = copy(input, output, tee, chunkSize, totalBytes, progress);
+      }
+      String hash = hex(digest.digest());
+      synchronized (this) {
+        if (blobs.containsKey(hash)) {
+          // the same content is already stored, reading its size marks it as recently used
+          Files.delete(temporary);
+          blobs.get(hash);
+        } else {
+          Files.move(temporary, blobPath(hash), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+          blobs.put(hash, size);
+          this.totalBytes += size;
+          bytesWritten.add(size);
+          evict(hash);
+        }
+      }
+      return hash;
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Copies content into the cache and links it to a key.
+   *
+   * @param key key of the content
+   * @param input content to store, which is read to the end but not closed
+   * @param totalBytes size of the content for progress updates, or -1 if it is not known
+   * @param progress receives the number of bytes copied after each chunk
+   * @return path of the blob
+   * @throws IOException if the content cannot be read or written
+   */
+  public Path put(String key, InputStream input, long totalBytes, TransferProgress progress) throws IOException {
+    String hash = put(input, null, totalBytes, progress);
+    link(key, hash);
+    return blobPath(hash);
+  }
+
+  /**
+   * Links a key to content which was already stored.
+   *
+   * @param key key of the content
+   * @param hash hash returned when the content was stored
+   * @throws IOException if the index cannot be written
+   */
+  public synchronized void link(String key, String hash) throws IOException {
+    index.setProperty(key, hash);
+    saveIndex();
+  }
+
+  /**
+   * Deletes all blobs and the index.
+   *
+   * @throws IOException if a blob cannot be deleted
+   */
+  public synchronized void clear() throws IOException {
+    for (String hash : blobs.keySet()) {
+      Files.deleteIfExists(blobPath(hash));
+    }
+    blobs.clear();
+    totalBytes = 0;
+    index.clear();
+    saveIndex();
+  }
+
+  /**
+   * Copies a stream in chunks.
+   *
+   * @param tee stream which also receives every chunk, or null
+   * @return the number of bytes copied
+   */
+  static long copy(InputStream input, OutputStream output, OutputStream tee, int chunkSize, long totalBytes,
+      TransferProgress progress) throws IOException {
+    byte[] chunk = new byte[chunkSize];
+    long copied = 0;
+    for (int read; (read = input.read(chunk)) != -1; ) {
+      output.write(chunk, 0, read);
+      if (tee != null) {
+        tee.write(chunk, 0, read);
+      }
+      copied += read;
+      progress.onProgress(copied, totalBytes);
+    }
+    return copied;
+  }
+
+  private void evict(String keep) throws IOException {
+    Iterator<Map.Entry<String, Long>> eldest = blobs.entrySet().iterator();
+    while (totalBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      if (entry.getKey().equals(keep)) {
+        continue;
+      }
+      try {
+        Files.deleteIfExists(blobPath(entry.getKey()));
+      } catch (NoSuchFileException e) {
+        // already gone
+      }
+      totalBytes -= entry.getValue();
+      eldest.remove();
+      evictions.increment();
+    }
+  }
+
+  private void saveIndex() throws IOException {
+    // drop keys whose blob was evicted
+    index.values().removeIf(hash -> !blobs.containsKey(hash));
+    Path temporary = Files.createTempFile(directory, "index", ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temporary)) {
+      index.store(writer, null);
+    }
+    Files.move(temporary, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Path blobPath(String hash) {
+    return directory.resolve(BLOB_PREFIX + hash);
+  }
+
+  private static FileTime lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * @return number of keys found with their content
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of keys looked up without content
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return number of blobs deleted to stay within the maximum size
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return number of bytes written to new blobs
+   */
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  /**
+   * @return total size of the blobs in bytes
+   */
+  public synchronized long getSize() {
+    return totalBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d hits, %d misses, %d evictions, %.1f MB written, %.1f MB on disk", getHitCount(),
+        getMissCount(), getEvictionCount(), getBytesWritten() / 1e6, getSize() / 1e6);
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import com.esri.arcgisruntime.data.FeatureTable;
+import com.esri.arcgisruntime.data.QueryParameters;
+
+/**
+ * The attribute values of a set of features held in memory column by column. Every column is dictionary encoded with
+ * its distinct values in sorted order, so grouping and ordering by a field only compares integer codes. Numeric
+ * columns also keep their values in a primitive array for computing statistics.
+ *
+ * <p>A cache is immutable once loaded and can be read from several threads at once.
+ */
+public final class ColumnarFeatureCache {
+
+  private final int size;
+  private final String whereClause;
+  private final Map<String, Column> columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  private ColumnarFeatureCache(int size, String whereClause, Map<String, Column> columns) {
+    this.size = size;
+    this.whereClause = whereClause;
+    this.columns.putAll(columns);
+  }
+
+  /**
+   * Queries all features matching a where clause from a table, one page at a time, and caches the given fields.
+   *
+   * @param featureTable table to query
+   * @param whereClause where clause the features must match, or an empty string for all features
+   * @param fieldNames names of the fields to cache
+   * @return a future completing with the cache once all pages have been read
+   */
+  public static CompletableFuture<ColumnarFeatureCache> loadAsync(FeatureTable featureTable, String whereClause,
+      List<String> fieldNames) {
+    Builder builder = new Builder(fieldNames);
+    return FeaturePages.forEach(featureTable, () -> {
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause(whereClause);
+      queryParameters.setReturnGeometry(false);
+      return queryParameters;
+    }, feature -> builder.add(feature.getAttributes())).thenApply(count -> builder.build(whereClause));
+  }
+
+  /**
+   * Caches attribute values which are already in memory.
+   *
+   * @param fieldNames names of the fields to cache
+   * @param rows attributes of each feature
+   * @param whereClause where clause the rows were selected with, or an empty string
+   * @return the cache
+   */
+  public static ColumnarFeatureCache of(List<String> fieldNames, Iterable<? extends Map<String, ?>> rows,
+      String whereClause) {
+    Builder builder = new Builder(fieldNames);
+    rows.forEach(builder::add);
+    return builder.build(whereClause);
+  }
+
+  /**
+   * @return number of cached features
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return where clause the cached features were selected with
+   */
+  public String getWhereClause() {
+    return whereClause;
+  }
+
+  /**
+   * @return names of the cached fields
+   */
+  public List<String> getFieldNames() {
+    return Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the field is not cached
+   */
+  Column column(String fieldName) {
+    Column column = columns.get(fieldName);
+    if (column == null) {
+      throw new IllegalArgumentException("Field " + fieldName + " is not cached");
+    }
+    return column;
+  }
+
+  /**
+   * The values of one field.
+   */
+  static final class Column {
+
+    /** Field name as given when loading. */
+    final String name;
+
+    /** Distinct non-null values in ascending order. */
+    final Object[] dictionary;
+
+    /** Index of each feature's value in the dictionary, or -1 for null. */
+    final int[] codes;
+
+    /** Each feature's value, or NaN if it is null. Only set if all non-null values are numbers. */
+    final double[] numbers;
+
+    /** Features with a non-null value. */
+    final BitSet present;
+
+    private Column(String name, Object[] dictionary, int[] codes, double[] numbers, BitSet present) {
+      this.name = name;
+      this.dictionary = dictionary;
+      this.codes = codes;
+      this.numbers = numbers;
+      this.present = present;
+    }
+
+    boolean isNumeric() {
+      return numbers != null;
+    }
+  }
+
+  /**
+   * Collects values row by row and encodes them into columns.
+   */
+  private static final class Builder {
+
+    private final String[] fieldNames;
+    private Object[][] values;
+    private int size;
+
+    Builder(List<String> fieldNames) {
+      this.fieldNames = fieldNames.toArray(new String[0]);
+      values = new Object[this.fieldNames.length][1024];
+    }
+
+    void add(Map<String, ?> attributes) {
+      if (values.length > 0 && size == values[0].length) {
+        for (int f = 0; f < values.length; f++) {
+          values[f] = Arrays.copyOf(values[f], size * 2);
+        }
+      }
+      for (int f = 0; f < fieldNames.length; f++) {
+        values[f][size] = attributes.get(fieldNames[f]);
+      }
+      size++;
+    }
+
+    ColumnarFeatureCache build(String whereClause) {
+      Map<String, Column> columns = new HashMap<>();
+      for (int f = 0; f < fieldNames.length; f++) {
+        columns.put(fieldNames[f], encode(fieldNames[f], values[f]));
+        // let the raw values go as soon as they are encoded
+        values[f] = null;
+      }
+      return new ColumnarFeatureCache(size, whereClause == null ? "" : whereClause, columns);
+    }
+
+    private Column encode(String name, Object[] raw) {
+      BitSet present = new BitSet(size);
+      boolean numeric = true;
+      Map<Object, Integer> distinct = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        if (raw[i] != null) {
+          present.set(i);
+          numeric &= raw[i] instanceof Number;
+          distinct.putIfAbsent(raw[i], 0);
+        }
+      }
+
+      Object[] dictionary = distinct.keySet().toArray();
+      Arrays.sort(dictionary, VALUE_ORDER);
+      for (int i = 0; i < dictionary.length; i++) {
+        distinct.put(dictionary[i], i);
+      }
+
+      int[] codes = new int[size];
+      double[] numbers = numeric ? new double[size] : null;
+      for (int i = 0; i < size; i++) {
+        codes[i] = raw[i] == null ? -1 : distinct.get(raw[i]);
+        if (numeric) {
+          numbers[i] = raw[i] == null ? Double.NaN : ((Number) raw[i]).doubleValue();
+        }
+      }
+      return new Column(name, dictionary, codes, numbers, present);
+    }
+  }
+
+  /**
+   * Orders numbers by value and anything else by its natural order, falling back to the string value.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static final Comparator<Object> VALUE_ORDER = (a, b) -> {
+    if (a instanceof Number && b instanceof Number) {
+      return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+    }
+    if (a instanceof Comparable && a.getClass() == b.getClass()) {
+      return ((Comparable) a).compareTo(b);
+    }
+    return a.toString().compareTo(b.toString());
+  };
+}
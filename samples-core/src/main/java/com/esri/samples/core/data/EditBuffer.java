@@ -0,0 +1,539 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureEditResult;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+
+/**
+ * Applies the edits made to a service feature table in batches instead of calling {@code applyEditsAsync} after
+ * every edit.
+ *
+ * <p>Each edit is made to the local table straight away, so it shows on the map, and queued by object ID. Edits to a
+ * feature which is already queued are collapsed: an add followed by updates is still an add, updates followed by a
+ * delete are a delete, and an add followed by a delete cancels out. The queue is applied once it holds the maximum
+ * batch size or when the oldest queued edit has waited for the maximum delay. Only one {@code applyEditsAsync} call
+ * runs at a time, and one which fails is retried with a doubling delay, since the table keeps its local edits until
+ * they are applied. As {@code applyEditsAsync} sends every local edit of the table, each call takes along all edits
+ * queued up to that moment; edits queued while it runs stay queued for the next flush. Each buffer waits for its
+ * flushes on its own thread, which {@link #close()} stops.
+ *
+ * <p>The future returned for each edit completes once the edit has been applied. It fails if the service rejected
+ * the edit, which is counted as a conflict, or if applying the batch failed after all retries.
+ */
+public final class EditBuffer implements AutoCloseable {
+
+  /** Default number of queued features which triggers a flush. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 25;
+
+  /** Default time an edit waits before it is applied. */
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 2000;
+
+  /** Default number of times a failed flush is retried. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /** Default delay before the first retry, doubled for every further retry. */
+  public static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+  /** Longest time {@link #close()} waits for the queued edits to be applied. */
+  public static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+  private enum Operation {
+    ADD, UPDATE, DELETE
+  }
+
+  private final ServiceFeatureTable featureTable;
+  private final int maxBatchSize;
+  private final long maxDelayMillis;
+  private final int maxRetries;
+  private final long retryDelayMillis;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("edit-buffer-flush"));
+
+  private final Map<Object, Pending> pending = new LinkedHashMap<>();
+  private Map<Object, Pending> batch = Collections.emptyMap();
+  private ScheduledFuture<?> timer;
+  private boolean flushing;
+  private boolean flushRequested;
+  private int inFlight;
+  private String idField;
+
+  private final LongAdder edits = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder flushMillis = new LongAdder();
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder failedFlushes = new LongAdder();
+  private volatile long lastFlushMillis;
+
+  /**
+   * Creates a buffer with the default batch size, delay and retries.
+   *
+   * @param featureTable table to edit
+   */
+  public EditBuffer(ServiceFeatureTable featureTable) {
+    this(featureTable, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_MAX_RETRIES,
+        DEFAULT_RETRY_DELAY_MILLIS);
+  }
+
+  /**
+   * Creates a buffer.
+   *
+   * @param featureTable table to edit
+   * @param maxBatchSize number of queued features which triggers a flush
+   * @param maxDelayMillis time an edit waits before it is applied
+   * @param maxRetries number of times a failed flush is retried
+   * @param retryDelayMillis delay before the first retry, doubled for every further retry
+   */
+  public EditBuffer(ServiceFeatureTable featureTable, int maxBatchSize, long maxDelayMillis, int maxRetries,
+      long retryDelayMillis) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Maximum batch size must be positive");
+    }
+    if (maxDelayMillis < 0 || maxRetries < 0 || retryDelayMillis < 0) {
+      throw new IllegalArgumentException("Delays and retries must not be negative");
+    }
+    this.featureTable = featureTable;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayMillis = maxDelayMillis;
+    this.maxRetries = maxRetries;
+    this.retryDelayMillis = retryDelayMillis;
+  }
+
+  /**
+   * Adds a feature to the table and queues the add.
+   *
+   * @param feature feature created by the table
+   * @return a future completing once the feature has been added to the service
+   */
+  public CompletableFuture<Void> addAsync(Feature feature) {
+    return edit(Operation.ADD, feature, featureTable.addFeatureAsync(feature));
+  }
+
+  /**
+   * Updates a feature in the table and queues the update.
+   *
+   * @param feature feature with changed attributes or geometry
+   * @return a future completing once the update has been applied to the service
+   */
+  public CompletableFuture<Void> updateAsync(Feature feature) {
+    return edit(Operation.UPDATE, feature, featureTable.updateFeatureAsync(feature));
+  }
+
+  /**
+   * Deletes a feature from the table and queues the delete.
+   *
+   * @param feature feature to delete
+   * @return a future completing once the feature has been deleted from the service
+   */
+  public CompletableFuture<Void> deleteAsync(Feature feature) {
+    return edit(Operation.DELETE, feature, featureTable.deleteFeatureAsync(feature));
+  }
+
+  /**
+   * Deletes features from the table and queues the deletes.
+   *
+   * @param features features to delete
+   * @return a future completing once all features have been deleted from the service
+   */
+  public CompletableFuture<Void> deleteAsync(Iterable<Feature> features) {
+    List<CompletableFuture<Void>> deletes = new ArrayList<>();
+    features.forEach(feature -> deletes.add(deleteAsync(feature)));
+    return CompletableFuture.allOf(deletes.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Applies the queued edits now.
+   *
+   * @return a future completing once the edits queued so far, and those being applied, have been applied
+   */
+  public CompletableFuture<Void> flushAsync() {
+    List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    synchronized (this) {
+      batch.values().forEach(p -> waiters.addAll(p.waiters));
+      pending.values().forEach(p -> waiters.addAll(p.waiters));
+      if (flushing) {
+        // apply the edits queued during the running flush as soon as it completes
+        flushRequested = true;
+      } else {
+        startFlush();
+      }
+    }
+    return CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Applies the queued edits, waiting up to {@link #CLOSE_TIMEOUT_MILLIS} for them and for the batch being applied,
+   * and stops the buffer's flush thread. Edits which fail or are not applied in time are reported through their own
+   * futures; retries already scheduled still run.
+   */
+  @Override
+  public void close() {
+    try {
+      flushAsync().get(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      // reported through the futures of the edits concerned
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Adds a listener called whenever the queue changes or a flush completes, on the thread which made the change.
+   *
+   * @param listener listener to add
+   */
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  private CompletableFuture<Void> edit(Operation operation, Feature feature, ListenableFuture<Void> localEdit) {
+    CompletableFuture<Void> applied = new CompletableFuture<>();
+    localEdit.addDoneListener(() -> {
+      try {
+        localEdit.get();
+      } catch (Exception e) {
+        applied.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+        return;
+      }
+      // the object ID is read after the local edit, when an added feature has been given one
+      enqueue(key(feature), feature, operation, applied);
+    });
+    return applied;
+  }
+
+  private void enqueue(Object key, Feature feature, Operation operation, CompletableFuture<Void> applied) {
+    List<CompletableFuture<Void>> cancelled = null;
+    synchronized (this) {
+      edits.increment();
+      Pending queued = pending.get(key);
+      if (queued == null) {
+        queued = new Pending(operation);
+        pending.put(key, queued);
+      } else {
+        coalesced.increment();
+        queued.operation = merge(queued.operation, operation);
+      }
+      queued.feature = feature;
+      queued.waiters.add(applied);
+
+      // a feature added and deleted again was never on the service, so there is nothing to apply
+      if (queued.operation == null) {
+        pending.remove(key);
+        cancelled = queued.waiters;
+      }
+
+      if (pending.size() >= maxBatchSize) {
+        startFlush();
+      } else if (!pending.isEmpty() && timer == null && !flushing) {
+        timer = schedule(this::flushAsync, maxDelayMillis);
+      }
+    }
+    if (cancelled != null) {
+      cancelled.forEach(waiter -> waiter.complete(null));
+    }
+    notifyListeners();
+  }
+
+  /**
+   * Combines a queued operation with a later one on the same feature.
+   *
+   * @return the combined operation, or null if they cancel out
+   */
+  private static Operation merge(Operation queued, Operation later) {
+    if (later == Operation.DELETE) {
+      return queued == Operation.ADD ? null : Operation.DELETE;
+    }
+    return queued;
+  }
+
+  /**
+   * Starts applying the queued edits unless a flush is already running. Must be called holding the lock.
+   */
+  private void startFlush() {
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+    if (flushing || pending.isEmpty()) {
+      return;
+    }
+    flushing = true;
+    flushRequested = false;
+    apply(new LinkedHashMap<>(), 0, System.nanoTime());
+  }
+
+  private void apply(Map<Object, Pending> batch, int attempt, long start) {
+    ListenableFuture<List<FeatureEditResult>> applyEdits;
+    synchronized (this) {
+      this.batch = batch;
+      // the table sends all of its local edits, so the batch takes every edit queued up to now
+      for (Iterator<Map.Entry<Object, Pending>> i = pending.entrySet().iterator(); i.hasNext(); ) {
+        Map.Entry<Object, Pending> entry = i.next();
+        if (!batch.containsKey(entry.getKey())) {
+          batch.put(entry.getKey(), entry.getValue());
+          i.remove();
+        }
+      }
+      inFlight = batch.size();
+      applyEdits = featureTable.applyEditsAsync();
+    }
+    // waited for on this buffer's flush thread rather than in a done listener, so close() can block the application
+    // thread, and without holding up the flushes of other buffers
+    execute(() -> {
+      List<FeatureEditResult> results;
+      try {
+        results = applyEdits.get();
+      } catch (Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (attempt < maxRetries &&
+            schedule(() -> apply(batch, attempt + 1, start), retryDelayMillis << attempt) != null) {
+          retries.increment();
+        } else {
+          failedFlushes.increment();
+          finishFlush(start);
+          batch.values().forEach(p -> p.waiters.forEach(waiter -> waiter.completeExceptionally(cause)));
+        }
+        return;
+      }
+      // resolved before the next flush can take the edits queued since this one was sent
+      complete(batch, results);
+      finishFlush(start);
+    });
+  }
+
+  private void complete(Map<Object, Pending> batch, List<FeatureEditResult> results) {
+    List<FeatureEditResult> allResults = results != null ? results : new ArrayList<>();
+    Map<Long, FeatureEditResult> byId = new HashMap<>();
+    for (FeatureEditResult result : allResults) {
+      if (result.hasCompletedWithErrors()) {
+        conflicts.increment();
+      }
+      byId.put(result.getObjectId(), result);
+    }
+
+    // an applied add has been given the object ID the service assigned, so every edit is matched by its current ID
+    Set<Long> matched = new HashSet<>();
+    Map<Pending, FeatureEditResult> resolved = new LinkedHashMap<>();
+    List<Pending> unmatchedAdds = new ArrayList<>();
+    for (Pending p : batch.values()) {
+      Long objectId = FeatureTables.objectId(p.feature, idField());
+      FeatureEditResult result = objectId != null ? byId.get(objectId) : null;
+      if (result != null) {
+        matched.add(objectId);
+        resolved.put(p, result);
+      } else if (p.operation == Operation.ADD) {
+        unmatchedAdds.add(p);
+      } else {
+        resolved.put(p, null);
+      }
+    }
+
+    // an add the service rejected keeps its local object ID, so the remaining results are matched to adds in order
+    Iterator<FeatureEditResult> unmatchedResults = allResults.stream()
+        .filter(result -> !matched.contains(result.getObjectId())).iterator();
+    for (Pending p : unmatchedAdds) {
+      resolved.put(p, unmatchedResults.hasNext() ? unmatchedResults.next() : null);
+    }
+
+    resolved.forEach((p, result) -> p.waiters.forEach(waiter -> {
+      if (result != null && result.hasCompletedWithErrors()) {
+        waiter.completeExceptionally(result.getError());
+      } else {
+        waiter.complete(null);
+      }
+    }));
+  }
+
+  private void finishFlush(long start) {
+    long millis = (System.nanoTime() - start) / 1000000;
+    synchronized (this) {
+      flushes.increment();
+      flushMillis.add(millis);
+      lastFlushMillis = millis;
+      flushing = false;
+      inFlight = 0;
+      batch = Collections.emptyMap();
+      if (flushRequested || pending.size() >= maxBatchSize) {
+        startFlush();
+      } else if (!pending.isEmpty() && timer == null) {
+        timer = schedule(this::flushAsync, maxDelayMillis);
+      }
+    }
+    notifyListeners();
+  }
+
+  /**
+   * Runs a task on the flush thread, or on the calling thread once the buffer is closed.
+   */
+  private void execute(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.run();
+    }
+  }
+
+  /**
+   * Schedules a task on the flush thread.
+   *
+   * @return the scheduled task, or null if the buffer is closed
+   */
+  private ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+    try {
+      return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
+  private void notifyListeners() {
+    changeListeners.forEach(Runnable::run);
+  }
+
+  private Object key(Feature feature) {
+    Long objectId = FeatureTables.objectId(feature, idField());
+    // features without an object ID cannot be matched with later edits
+    return objectId != null ? objectId : new Object();
+  }
+
+  private synchronized String idField() {
+    if (idField == null) {
+      idField = FeatureTables.objectIdField(featureTable);
+    }
+    return idField;
+  }
+
+  /**
+   * @return number of features with edits waiting to be applied
+   */
+  public synchronized int getQueueDepth() {
+    return pending.size();
+  }
+
+  /**
+   * @return number of features with edits being applied
+   */
+  public synchronized int getInFlightCount() {
+    return inFlight;
+  }
+
+  /**
+   * @return number of edits made through this buffer
+   */
+  public long getEditCount() {
+    return edits.sum();
+  }
+
+  /**
+   * @return number of edits collapsed into an edit already queued for the same feature
+   */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  /**
+   * @return number of completed flushes, each of which is one batch
+   */
+  public long getFlushCount() {
+    return flushes.sum();
+  }
+
+  /**
+   * @return mean time from the start of a flush until it completed, including retries, in milliseconds
+   */
+  public double getMeanFlushMillis() {
+    long count = flushes.sum();
+    return count == 0 ? 0 : (double) flushMillis.sum() / count;
+  }
+
+  /**
+   * @return time taken by the last flush in milliseconds
+   */
+  public long getLastFlushMillis() {
+    return lastFlushMillis;
+  }
+
+  /**
+   * @return number of edits the service rejected
+   */
+  public long getConflictCount() {
+    return conflicts.sum();
+  }
+
+  /**
+   * @return number of times a failed flush was retried
+   */
+  public long getRetryCount() {
+    return retries.sum();
+  }
+
+  /**
+   * @return number of flushes which failed after all retries
+   */
+  public long getFailedFlushCount() {
+    return failedFlushes.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d queued, %d edits, %d coalesced, %d flushes (%.0f ms mean), %d conflicts, %d retries",
+        getQueueDepth(), getEditCount(), getCoalescedCount(), getFlushCount(), getMeanFlushMillis(),
+        getConflictCount(), getRetryCount());
+  }
+
+  /**
+   * The combined operation queued for one feature and the futures of the edits it stands for.
+   */
+  private static final class Pending {
+
+    Operation operation;
+    Feature feature;
+    final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+    Pending(Operation operation) {
+      this.operation = operation;
+    }
+  }
+}
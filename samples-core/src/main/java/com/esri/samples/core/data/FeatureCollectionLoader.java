@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+
+/**
+ * Adds large numbers of features to a feature collection table in batches.
+ *
+ * <p>Geometries are read from a stream and attributes from columns, one array per field, so that no per-feature
+ * objects are needed until the features are created. Features are created on a background thread and added with one
+ * {@code addFeaturesAsync} call per batch. At most a fixed number of batches are being added at once; once that many
+ * are running, the background thread waits for one to finish before creating more features, so a slow table holds back
+ * reading rather than letting created features pile up in memory.
+ *
+ * <p>Loads run one at a time on a shared background thread.
+ */
+public final class FeatureCollectionLoader {
+
+  /** Default number of features added per call. */
+  public static final int DEFAULT_BATCH_SIZE = 5000;
+
+  /** Default maximum number of batches being added at once. */
+  public static final int DEFAULT_MAX_IN_FLIGHT = 2;
+
+  private static final ExecutorService LOADER =
+      Executors.newSingleThreadExecutor(new DaemonThreadFactory("feature-collection-loader"));
+
+  private final FeatureCollectionTable featureTable;
+  private final int batchSize;
+  private final int maxInFlight;
+
+  private final LongAdder features = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder batchNanos = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private volatile double lastFeaturesPerSecond;
+
+  /**
+   * Creates a loader with the default batch size and number of batches in flight.
+   *
+   * @param featureTable loaded table to add the features to
+   */
+  public FeatureCollectionLoader(FeatureCollectionTable featureTable) {
+    this(featureTable, DEFAULT_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * Creates a loader.
+   *
+   * @param featureTable loaded table to add the features to
+   * @param batchSize number of features added per call
+   * @param maxInFlight maximum number of batches being added at once
+   */
+  public FeatureCollectionLoader(FeatureCollectionTable featureTable, int batchSize, int maxInFlight) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("Maximum batches in flight must be positive");
+    }
+    this.featureTable = featureTable;
+    this.batchSize = batchSize;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Adds a feature for each geometry of a stream, with the attributes in the same row of the columns.
+   *
+   * <p>Each column is an array of a primitive type, {@code String} or another attribute type, indexed by row, and must
+   * hold at least as many values as there are geometries. The stream is closed once it has been read. If the load
+   * fails, the features in the batches added before the failure stay in the table.
+   *
+   * @param geometries geometries of the features, read on the background thread
+   * @param columns attribute values by field name
+   * @return a future completing with the number of features added once all batches have been added
+   */
+  public CompletableFuture<Long> loadAsync(Stream<? extends Geometry> geometries, Map<String, Object> columns) {
+    Map<String, IntFunction<Object>> readers = new HashMap<>();
+    for (Map.Entry<String, Object> column : columns.entrySet()) {
+      readers.put(column.getKey(), reader(column.getKey(), column.getValue()));
+    }
+    CompletableFuture<Long> done = new CompletableFuture<>();
+    LOADER.execute(() -> {
+      try (Stream<? extends Geometry> stream = geometries) {
+        load(stream.iterator(), readers, done);
+      } catch (Throwable e) {
+        done.completeExceptionally(e);
+      }
+    });
+    return done;
+  }
+
+  private void load(Iterator<? extends Geometry> geometries, Map<String, IntFunction<Object>> readers,
+      CompletableFuture<Long> done) throws InterruptedException {
+    long start = System.nanoTime();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    int row = 0;
+    while (geometries.hasNext() && error.get() == null) {
+      List<Feature> batch = new ArrayList<>(batchSize);
+      while (batch.size() < batchSize && geometries.hasNext()) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (Map.Entry<String, IntFunction<Object>> reader : readers.entrySet()) {
+          try {
+            attributes.put(reader.getKey(), reader.getValue().apply(row));
+          } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Column " + reader.getKey() + " has fewer values than geometries");
+          }
+        }
+        batch.add(featureTable.createFeature(attributes, geometries.next()));
+        row++;
+      }
+
+      // wait for a batch to finish if too many are being added already
+      long waitStart = System.nanoTime();
+      inFlight.acquire();
+      waitNanos.add(System.nanoTime() - waitStart);
+
+      long batchStart = System.nanoTime();
+      ListenableFuture<Void> add = featureTable.addFeaturesAsync(batch);
+      add.addDoneListener(() -> {
+        try {
+          add.get();
+          features.add(batch.size());
+          batches.increment();
+          batchNanos.add(System.nanoTime() - batchStart);
+        } catch (Exception e) {
+          error.compareAndSet(null, e.getCause() != null ? e.getCause() : e);
+        } finally {
+          inFlight.release();
+        }
+      });
+    }
+
+    // wait for the remaining batches
+    inFlight.acquire(maxInFlight);
+    inFlight.release(maxInFlight);
+    if (error.get() != null) {
+      done.completeExceptionally(error.get());
+    } else {
+      long nanos = System.nanoTime() - start;
+      lastFeaturesPerSecond = nanos > 0 ? row * 1e9 / nanos : 0;
+      done.complete((long) row);
+    }
+  }
+
+  /**
+   * Reads the values of a column by row, unboxing nothing until a row is read.
+   */
+  private static IntFunction<Object> reader(String field, Object column) {
+    if (column instanceof double[]) {
+      double[] values = (double[]) column;
+      return row -> values[row];
+    } else if (column instanceof float[]) {
+      float[] values = (float[]) column;
+      return row -> values[row];
+    } else if (column instanceof long[]) {
+      long[] values = (long[]) column;
+      return row -> values[row];
+    } else if (column instanceof int[]) {
+      int[] values = (int[]) column;
+      return row -> values[row];
+    } else if (column instanceof short[]) {
+      short[] values = (short[]) column;
+      return row -> values[row];
+    } else if (column instanceof Object[]) {
+      Object[] values = (Object[]) column;
+      return row -> values[row];
+    }
+    throw new IllegalArgumentException("Column " + field + " is not an array of a supported type");
+  }
+
+  /**
+   * @return number of features added by all loads
+   */
+  public long getFeatureCount() {
+    return features.sum();
+  }
+
+  /**
+   * @return number of batches added by all loads
+   */
+  public long getBatchCount() {
+    return batches.sum();
+  }
+
+  /**
+   * @return mean time taken by the table to add a batch in milliseconds
+   */
+  public double getMeanBatchMillis() {
+    long count = batches.sum();
+    return count == 0 ? 0 : batchNanos.sum() / 1e6 / count;
+  }
+
+  /**
+   * @return total time spent waiting for batches to finish before creating more features in milliseconds
+   */
+  public double getWaitMillis() {
+    return waitNanos.sum() / 1e6;
+  }
+
+  /**
+   * @return number of features added per second by the last completed load
+   */
+  public double getLastFeaturesPerSecond() {
+    return lastFeaturesPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d features in %d batches (%.1f ms mean), %.0f ms waiting, %.0f features per second",
+        getFeatureCount(), getBatchCount(), getMeanBatchMillis(), getWaitMillis(), getLastFeaturesPerSecond());
+  }
+}
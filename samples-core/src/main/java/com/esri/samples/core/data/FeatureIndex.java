@@ -0,0 +1,391 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureTable;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.samples.core.geometry.PackedRTree;
+
+/**
+ * An in-memory spatial index over the features of a table, for answering clicks and box selections without a round
+ * trip through {@code identifyLayersAsync}.
+ *
+ * <p>Candidates are found by envelope in a {@link PackedRTree} and then refined against the exact geometry with
+ * {@link GeometryEngine}. Features added or updated after the tree was packed are kept in a small unpacked list which
+ * is scanned with every query, and removed or replaced features are skipped; the tree is packed again once that list
+ * or the number of skipped entries grows past a fraction of the tree. Features are matched by object ID, or by
+ * identity if they have none. Callers keep the index current by calling {@link #put(Feature)} and
+ * {@link #remove(Feature)} as they add, update and delete features of the table.
+ *
+ * <p>Query geometries must be in the spatial reference of the features, except for the identify taking the spatial
+ * reference of the features, which projects the tolerance around the location. All methods are thread-safe.
+ */
+public final class FeatureIndex {
+
+  /** Smallest number of unpacked or removed entries which causes the tree to be packed again. */
+  private static final int MIN_REPACK = 256;
+
+  /** Fraction of the tree size of unpacked or removed entries which causes the tree to be packed again. */
+  private static final double REPACK_FRACTION = 0.1;
+
+  private final String objectIdField;
+
+  // entries by slot, null once removed or replaced
+  private final List<Feature> features = new ArrayList<>();
+  private double[] envelopes = new double[64];
+  private final Map<Object, Integer> slots = new HashMap<>();
+  private final Map<Feature, Integer> slotsByIdentity = new IdentityHashMap<>();
+
+  private PackedRTree tree = new PackedRTree(new double[0], new int[0], 0);
+  private final List<Integer> unpacked = new ArrayList<>();
+  private int removed;
+  private boolean bulkLoading;
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder queryNanos = new LongAdder();
+  private final LongAdder candidates = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder packs = new LongAdder();
+
+  /**
+   * Creates an empty index.
+   *
+   * @param objectIdField name of the object ID field used to match updated features, or null to match by identity
+   */
+  public FeatureIndex(String objectIdField) {
+    this.objectIdField = objectIdField;
+  }
+
+  /**
+   * Queries all features of a table and indexes them.
+   *
+   * @param featureTable loaded table to index
+   * @return a future completing with the index once all features have been read
+   */
+  public static CompletableFuture<FeatureIndex> loadAsync(FeatureTable featureTable) {
+    return loadAsync(featureTable, null);
+  }
+
+  /**
+   * Queries the features of a table within an area and indexes them.
+   *
+   * @param featureTable loaded table to index
+   * @param area area to load the features of, or null for all features
+   * @return a future completing with the index once all features have been read
+   */
+  public static CompletableFuture<FeatureIndex> loadAsync(FeatureTable featureTable, Geometry area) {
+    FeatureIndex index = new FeatureIndex(FeatureTables.objectIdField(featureTable));
+    List<Feature> loaded = new ArrayList<>();
+    return FeaturePages.forEach(featureTable, () -> {
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause("1=1");
+      if (area != null) {
+        queryParameters.setGeometry(area);
+        queryParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+      }
+      return queryParameters;
+    }, loaded::add).thenApply(count -> {
+      index.addAll(loaded);
+      return index;
+    });
+  }
+
+  /**
+   * Adds features, or replaces them if they are already indexed, and packs the tree.
+   *
+   * @param added features to add
+   */
+  public synchronized void addAll(Iterable<? extends Feature> added) {
+    // pack once at the end rather than every time the unpacked list fills up
+    bulkLoading = true;
+    try {
+      for (Feature feature : added) {
+        put(feature);
+      }
+    } finally {
+      bulkLoading = false;
+    }
+    pack();
+  }
+
+  /**
+   * Adds a feature, or replaces it if it is already indexed, for example after its geometry was updated.
+   *
+   * @param feature feature to add
+   */
+  public synchronized void put(Feature feature) {
+    remove(feature);
+    Geometry geometry = feature.getGeometry();
+    if (geometry == null || geometry.isEmpty()) {
+      return;
+    }
+    int slot = features.size();
+    Envelope extent = geometry.getExtent();
+    if (envelopes.length < (slot + 1) * 4) {
+      double[] grown = new double[Math.max(envelopes.length * 2, (slot + 1) * 4)];
+      System.arraycopy(envelopes, 0, grown, 0, slot * 4);
+      envelopes = grown;
+    }
+    envelopes[slot * 4] = extent.getXMin();
+    envelopes[slot * 4 + 1] = extent.getYMin();
+    envelopes[slot * 4 + 2] = extent.getXMax();
+    envelopes[slot * 4 + 3] = extent.getYMax();
+    features.add(feature);
+    Object key = key(feature);
+    if (key != null) {
+      slots.put(key, slot);
+    } else {
+      slotsByIdentity.put(feature, slot);
+    }
+    unpacked.add(slot);
+    packIfNeeded();
+  }
+
+  /**
+   * Removes a feature.
+   *
+   * @param feature feature to remove
+   * @return true if the feature was indexed
+   */
+  public synchronized boolean remove(Feature feature) {
+    Object key = key(feature);
+    Integer slot = key != null ? slots.remove(key) : slotsByIdentity.remove(feature);
+    if (slot == null) {
+      return false;
+    }
+    features.set(slot, null);
+    removed++;
+    packIfNeeded();
+    return true;
+  }
+
+  /**
+   * Finds the features within a distance of a location, such as a click.
+   *
+   * @param point location in the spatial reference of the features
+   * @param tolerance distance in the units of the spatial reference
+   * @param maxResults maximum number of features to return
+   * @return the features found
+   */
+  public List<Feature> identify(Point point, double tolerance, int maxResults) {
+    double x = point.getX();
+    double y = point.getY();
+    return search(x - tolerance, y - tolerance, x + tolerance, y + tolerance, maxResults, geometry -> {
+      if (geometry instanceof Point) {
+        double dx = ((Point) geometry).getX() - x;
+        double dy = ((Point) geometry).getY() - y;
+        return dx * dx + dy * dy <= tolerance * tolerance;
+      }
+      return GeometryEngine.distanceBetween(geometry, point) <= tolerance;
+    });
+  }
+
+  /**
+   * Finds the features within a distance of a location given in another spatial reference than the features, such as
+   * a click on a map. The square of the tolerance around the location is projected rather than the location alone,
+   * so the tolerance keeps the units of the location's spatial reference.
+   *
+   * @param point location in any spatial reference
+   * @param tolerance distance in the units of the point's spatial reference
+   * @param spatialReference spatial reference of the features
+   * @param maxResults maximum number of features to return
+   * @return the features found
+   */
+  public List<Feature> identify(Point point, double tolerance, SpatialReference spatialReference, int maxResults) {
+    SpatialReference pointSpatialReference = point.getSpatialReference();
+    if (pointSpatialReference == null || spatialReference == null || pointSpatialReference.equals(spatialReference)) {
+      return identify(point, tolerance, maxResults);
+    }
+    Envelope area = new Envelope(point.getX() - tolerance, point.getY() - tolerance, point.getX() + tolerance,
+        point.getY() + tolerance, pointSpatialReference);
+    return select(GeometryEngine.project(area, spatialReference), maxResults);
+  }
+
+  /**
+   * Finds the features intersecting an area, such as a selection box.
+   *
+   * @param area area in the spatial reference of the features
+   * @param maxResults maximum number of features to return
+   * @return the features found
+   */
+  public List<Feature> select(Geometry area, int maxResults) {
+    Envelope extent = area.getExtent();
+    boolean envelope = area instanceof Envelope;
+    return search(extent.getXMin(), extent.getYMin(), extent.getXMax(), extent.getYMax(), maxResults, geometry -> {
+      if (envelope && geometry instanceof Point) {
+        // already known to be inside the envelope
+        return true;
+      }
+      return GeometryEngine.intersects(area, geometry);
+    });
+  }
+
+  private interface Refinement {
+
+    boolean matches(Geometry geometry);
+  }
+
+  private List<Feature> search(double xmin, double ymin, double xmax, double ymax, int maxResults,
+      Refinement refinement) {
+    long start = System.nanoTime();
+    List<Feature> found = new ArrayList<>();
+    int[] visited = new int[1];
+    synchronized (this) {
+      PackedRTree.Visitor visitor = slot -> {
+        Feature feature = features.get(slot);
+        if (feature == null) {
+          return true;
+        }
+        visited[0]++;
+        if (refinement.matches(feature.getGeometry())) {
+          found.add(feature);
+        }
+        return found.size() < maxResults;
+      };
+      if (maxResults > 0 && tree.query(xmin, ymin, xmax, ymax, visitor)) {
+        for (int slot : unpacked) {
+          if (envelopes[slot * 4] <= xmax && envelopes[slot * 4 + 2] >= xmin && envelopes[slot * 4 + 1] <= ymax &&
+              envelopes[slot * 4 + 3] >= ymin && !visitor.visit(slot)) {
+            break;
+          }
+        }
+      }
+    }
+    queries.increment();
+    queryNanos.add(System.nanoTime() - start);
+    candidates.add(visited[0]);
+    hits.add(found.size());
+    return found;
+  }
+
+  private void packIfNeeded() {
+    if (bulkLoading) {
+      return;
+    }
+    int threshold = Math.max(MIN_REPACK, (int) (tree.size() * REPACK_FRACTION));
+    if (unpacked.size() > threshold || removed > threshold) {
+      pack();
+    }
+  }
+
+  /**
+   * Drops removed entries and packs all entries into a new tree.
+   */
+  private void pack() {
+    if (removed > 0) {
+      // compact the slots, which are renumbered
+      List<Feature> live = new ArrayList<>(features.size() - removed);
+      double[] compacted = new double[Math.max(64, (features.size() - removed) * 4)];
+      for (int slot = 0; slot < features.size(); slot++) {
+        Feature feature = features.get(slot);
+        if (feature != null) {
+          System.arraycopy(envelopes, slot * 4, compacted, live.size() * 4, 4);
+          live.add(feature);
+        }
+      }
+      features.clear();
+      features.addAll(live);
+      envelopes = compacted;
+      slots.clear();
+      slotsByIdentity.clear();
+      for (int slot = 0; slot < features.size(); slot++) {
+        Feature feature = features.get(slot);
+        Object key = key(feature);
+        if (key != null) {
+          slots.put(key, slot);
+        } else {
+          slotsByIdentity.put(feature, slot);
+        }
+      }
+      removed = 0;
+    }
+    int[] ids = new int[features.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i;
+    }
+    tree = new PackedRTree(envelopes, ids, ids.length);
+    unpacked.clear();
+    packs.increment();
+  }
+
+  private Object key(Feature feature) {
+    return FeatureTables.objectId(feature, objectIdField);
+  }
+
+  /**
+   * @return number of indexed features
+   */
+  public synchronized int size() {
+    return features.size() - removed;
+  }
+
+  /**
+   * @return number of identify and select queries
+   */
+  public long getQueryCount() {
+    return queries.sum();
+  }
+
+  /**
+   * @return mean time of a query in microseconds
+   */
+  public double getMeanQueryMicros() {
+    long count = queries.sum();
+    return count == 0 ? 0 : queryNanos.sum() / 1000.0 / count;
+  }
+
+  /**
+   * @return number of features whose envelope matched a query and whose geometry was tested
+   */
+  public long getCandidateCount() {
+    return candidates.sum();
+  }
+
+  /**
+   * @return number of features returned by queries
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of times the tree was packed
+   */
+  public long getPackCount() {
+    return packs.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d features, %d queries (%.1f microseconds mean), %d candidates, %d hits, %d packs",
+        size(), getQueryCount(), getMeanQueryMicros(), getCandidateCount(), getHitCount(), getPackCount());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.FeatureTable;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+/**
+ * Queries all features matching a query one page at a time, since services return at most their maximum record count
+ * per request.
+ *
+ * <p>Pages are ordered by object ID, so that each offset refers to the same features on every request. A service
+ * without pagination support ignores the offset and returns the first page again; this is noticed from the page not
+ * starting after the last object ID read, and reading stops there.
+ */
+final class FeaturePages {
+
+  /** Number of features requested per page. */
+  static final int PAGE_SIZE = 2000;
+
+  private FeaturePages() {
+  }
+
+  /**
+   * Passes every feature matching the query to a consumer, which is called on the thread completing each page.
+   *
+   * @param featureTable table to query
+   * @param queryParameters creates the parameters for each page, the offset, maximum features and order are set here
+   * @param consumer receives the features
+   * @return a future completing with the number of features once all pages have been read
+   */
+  static CompletableFuture<Integer> forEach(FeatureTable featureTable, Supplier<QueryParameters> queryParameters,
+      Consumer<Feature> consumer) {
+    CompletableFuture<Integer> done = new CompletableFuture<>();
+    // the object ID field is only known once the table has loaded
+    featureTable.addDoneLoadingListener(() -> {
+      if (featureTable.getLoadStatus() == LoadStatus.LOADED) {
+        queryPage(featureTable, FeatureTables.objectIdField(featureTable), queryParameters, consumer, 0, null, done);
+      } else {
+        done.completeExceptionally(featureTable.getLoadError());
+      }
+    });
+    featureTable.loadAsync();
+    return done;
+  }
+
+  private static void queryPage(FeatureTable featureTable, String idField, Supplier<QueryParameters> queryParameters,
+      Consumer<Feature> consumer, int offset, Long lastId, CompletableFuture<Integer> done) {
+    QueryParameters page = queryParameters.get();
+    page.setResultOffset(offset);
+    page.setMaxFeatures(PAGE_SIZE);
+    if (idField != null) {
+      page.getOrderByFields().add(new QueryParameters.OrderBy(idField, QueryParameters.SortOrder.ASCENDING));
+    }
+
+    // service feature tables only return all attributes when asked for them
+    ListenableFuture<FeatureQueryResult> query = featureTable instanceof ServiceFeatureTable ?
+        ((ServiceFeatureTable) featureTable).queryFeaturesAsync(page, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL) :
+        featureTable.queryFeaturesAsync(page);
+    query.addDoneListener(() -> {
+      try {
+        FeatureQueryResult result = query.get();
+        List<Feature> features = new ArrayList<>();
+        result.forEach(features::add);
+        if (features.isEmpty()) {
+          done.complete(offset);
+          return;
+        }
+
+        Long firstId = idField != null ? FeatureTables.objectId(features.get(0), idField) : null;
+        if (lastId != null && firstId != null && firstId <= lastId) {
+          // the service ignored the offset, so the page repeats features already read
+          done.complete(offset);
+          return;
+        }
+        features.forEach(consumer);
+
+        // a service returning fewer features than requested says so with the transfer limit, a local table does not
+        int count = offset + features.size();
+        if (result.isTransferLimitExceeded() || features.size() == PAGE_SIZE) {
+          Long pageLastId = idField != null ? FeatureTables.objectId(features.get(features.size() - 1), idField) : null;
+          queryPage(featureTable, idField, queryParameters, consumer, count, pageLastId, done);
+        } else {
+          done.complete(count);
+        }
+      } catch (Exception e) {
+        done.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+      }
+    });
+  }
+}
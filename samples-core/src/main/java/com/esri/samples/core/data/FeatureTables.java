@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureTable;
+import com.esri.arcgisruntime.data.Field;
+
+/**
+ * Helpers for reading the object IDs of a feature table's features.
+ */
+final class FeatureTables {
+
+  private FeatureTables() {
+  }
+
+  /**
+   * Finds the object ID field of a loaded table.
+   *
+   * @param featureTable table to search
+   * @return the name of the field, or null if the table has none
+   */
+  static String objectIdField(FeatureTable featureTable) {
+    for (Field field : featureTable.getFields()) {
+      if (field.getFieldType() == Field.Type.OID) {
+        return field.getName();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the object ID of a feature.
+   *
+   * @param feature feature to read
+   * @param objectIdField name of the object ID field, may be null
+   * @return the object ID, or null if the feature has none
+   */
+  static Long objectId(Feature feature, String objectIdField) {
+    Object objectId = objectIdField != null ? feature.getAttributes().get(objectIdField) : null;
+    return objectId instanceof Number ? ((Number) objectId).longValue() : null;
+  }
+}
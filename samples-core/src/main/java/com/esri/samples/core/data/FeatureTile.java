@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+
+/**
+ * The features of one tile of a {@link FeatureTileStore}: their geometries and attributes, and the validator and time
+ * they were downloaded with.
+ */
+public final class FeatureTile {
+
+  private final String validator;
+  private final long createdMillis;
+  private final List<Geometry> geometries;
+  private final List<Map<String, Object>> attributes;
+
+  /**
+   * @param validator value identifying the state of the service the features were downloaded from, e.g. its last edit
+   * date and feature count, or an empty string
+   * @param createdMillis time the features were downloaded, in milliseconds since the epoch
+   * @param geometries geometry of each feature, may contain nulls
+   * @param attributes attributes of each feature
+   */
+  public FeatureTile(String validator, long createdMillis, List<Geometry> geometries,
+      List<Map<String, Object>> attributes) {
+    if (geometries.size() != attributes.size()) {
+      throw new IllegalArgumentException("Each feature needs a geometry and attributes");
+    }
+    this.validator = validator == null ? "" : validator;
+    this.createdMillis = createdMillis;
+    this.geometries = Collections.unmodifiableList(geometries);
+    this.attributes = Collections.unmodifiableList(attributes);
+  }
+
+  public String getValidator() {
+    return validator;
+  }
+
+  public long getCreatedMillis() {
+    return createdMillis;
+  }
+
+  public int size() {
+    return geometries.size();
+  }
+
+  public List<Geometry> getGeometries() {
+    return geometries;
+  }
+
+  public List<Map<String, Object>> getAttributes() {
+    return attributes;
+  }
+}
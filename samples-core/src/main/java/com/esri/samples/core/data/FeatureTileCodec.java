@@ -0,0 +1,300 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.ImmutablePart;
+import com.esri.arcgisruntime.geometry.Multipart;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Part;
+import com.esri.arcgisruntime.geometry.PartCollection;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+/**
+ * Binary encoding of a {@link FeatureTile}.
+ *
+ * <p>The header holds a magic number, the validator, the creation time, the well-known ID of the spatial reference
+ * and the names of all attributes. Each feature follows as a geometry tag with x, y coordinates (z and m values are
+ * not kept), and one tagged value per attribute name. All numbers are big-endian.
+ */
+final class FeatureTileCodec {
+
+  private static final int MAGIC = 0x46544331; // "FTC1"
+
+  private static final byte NONE = 0;
+  private static final byte POINT = 1;
+  private static final byte MULTIPOINT = 2;
+  private static final byte POLYLINE = 3;
+  private static final byte POLYGON = 4;
+
+  private static final byte NULL = 0;
+  private static final byte SHORT = 1;
+  private static final byte INTEGER = 2;
+  private static final byte LONG = 3;
+  private static final byte FLOAT = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte TEXT = 6;
+  private static final byte DATE = 7;
+  private static final byte GUID = 8;
+  private static final byte BLOB = 9;
+
+  private FeatureTileCodec() {
+  }
+
+  static ByteBuffer encode(FeatureTile tile) {
+    Writer writer = new Writer();
+    writer.ensure(32).putInt(MAGIC);
+    writer.string(tile.getValidator());
+    writer.ensure(8).putLong(tile.getCreatedMillis());
+
+    SpatialReference spatialReference = null;
+    for (Geometry geometry : tile.getGeometries()) {
+      if (geometry != null && geometry.getSpatialReference() != null) {
+        spatialReference = geometry.getSpatialReference();
+        break;
+      }
+    }
+    writer.ensure(4).putInt(spatialReference != null ? spatialReference.getWkid() : 0);
+
+    // every attribute name is written once in the header and features refer to them by position
+    Map<String, Integer> names = new LinkedHashMap<>();
+    for (Map<String, Object> attributes : tile.getAttributes()) {
+      for (String name : attributes.keySet()) {
+        names.putIfAbsent(name, names.size());
+      }
+    }
+    writer.ensure(4).putInt(names.size());
+    for (String name : names.keySet()) {
+      writer.string(name);
+    }
+
+    writer.ensure(4).putInt(tile.size());
+    for (int i = 0; i < tile.size(); i++) {
+      writeGeometry(writer, tile.getGeometries().get(i));
+      Map<String, Object> attributes = tile.getAttributes().get(i);
+      for (String name : names.keySet()) {
+        writeValue(writer, attributes.containsKey(name) ? attributes.get(name) : null);
+      }
+    }
+    ByteBuffer buffer = writer.buffer;
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the buffer does not hold a tile
+   */
+  static FeatureTile decode(ByteBuffer buffer) {
+    if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a feature tile");
+    }
+    String validator = readString(buffer);
+    long created = buffer.getLong();
+    int wkid = buffer.getInt();
+    SpatialReference spatialReference = wkid != 0 ? SpatialReference.create(wkid) : null;
+
+    String[] names = new String[buffer.getInt()];
+    for (int n = 0; n < names.length; n++) {
+      names[n] = readString(buffer);
+    }
+
+    int count = buffer.getInt();
+    List<Geometry> geometries = new ArrayList<>(count);
+    List<Map<String, Object>> attributes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      geometries.add(readGeometry(buffer, spatialReference));
+      Map<String, Object> values = new HashMap<>();
+      for (String name : names) {
+        values.put(name, readValue(buffer));
+      }
+      attributes.add(values);
+    }
+    return new FeatureTile(validator, created, geometries, attributes);
+  }
+
+  private static void writeGeometry(Writer writer, Geometry geometry) {
+    if (geometry == null || geometry.isEmpty()) {
+      writer.ensure(1).put(NONE);
+      return;
+    }
+    switch (geometry.getGeometryType()) {
+      case POINT:
+        Point point = (Point) geometry;
+        writer.ensure(17).put(POINT).putDouble(point.getX()).putDouble(point.getY());
+        break;
+      case MULTIPOINT:
+        Multipoint multipoint = (Multipoint) geometry;
+        writer.ensure(5).put(MULTIPOINT).putInt(multipoint.getPoints().size());
+        for (Point p : multipoint.getPoints()) {
+          writer.ensure(16).putDouble(p.getX()).putDouble(p.getY());
+        }
+        break;
+      case POLYLINE:
+      case POLYGON:
+        Multipart multipart = (Multipart) geometry;
+        writer.ensure(5).put(geometry instanceof Polygon ? POLYGON : POLYLINE).putInt(multipart.getParts().size());
+        for (ImmutablePart part : multipart.getParts()) {
+          writer.ensure(4).putInt(part.getPointCount());
+          for (Point p : part.getPoints()) {
+            writer.ensure(16).putDouble(p.getX()).putDouble(p.getY());
+          }
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported geometry type " + geometry.getGeometryType());
+    }
+  }
+
+  private static Geometry readGeometry(ByteBuffer buffer, SpatialReference spatialReference) {
+    byte type = buffer.get();
+    switch (type) {
+      case NONE:
+        return null;
+      case POINT:
+        return new Point(buffer.getDouble(), buffer.getDouble(), spatialReference);
+      case MULTIPOINT:
+        return new Multipoint(readPoints(buffer, buffer.getInt(), spatialReference));
+      case POLYLINE:
+      case POLYGON:
+        PartCollection parts = new PartCollection(spatialReference);
+        int partCount = buffer.getInt();
+        for (int p = 0; p < partCount; p++) {
+          parts.add(new Part(readPoints(buffer, buffer.getInt(), spatialReference)));
+        }
+        return type == POLYGON ? new Polygon(parts) : new Polyline(parts);
+      default:
+        throw new IllegalArgumentException("Unknown geometry tag " + type);
+    }
+  }
+
+  private static PointCollection readPoints(ByteBuffer buffer, int count, SpatialReference spatialReference) {
+    PointCollection points = new PointCollection(spatialReference);
+    for (int i = 0; i < count; i++) {
+      points.add(new Point(buffer.getDouble(), buffer.getDouble(), spatialReference));
+    }
+    return points;
+  }
+
+  private static void writeValue(Writer writer, Object value) {
+    if (value == null) {
+      writer.ensure(1).put(NULL);
+    } else if (value instanceof Short) {
+      writer.ensure(3).put(SHORT).putShort((Short) value);
+    } else if (value instanceof Integer) {
+      writer.ensure(5).put(INTEGER).putInt((Integer) value);
+    } else if (value instanceof Long) {
+      writer.ensure(9).put(LONG).putLong((Long) value);
+    } else if (value instanceof Float) {
+      writer.ensure(5).put(FLOAT).putFloat((Float) value);
+    } else if (value instanceof Double) {
+      writer.ensure(9).put(DOUBLE).putDouble((Double) value);
+    } else if (value instanceof String) {
+      writer.ensure(1).put(TEXT);
+      writer.string((String) value);
+    } else if (value instanceof Calendar) {
+      Calendar calendar = (Calendar) value;
+      writer.ensure(9).put(DATE).putLong(calendar.getTimeInMillis());
+      writer.string(calendar.getTimeZone().getID());
+    } else if (value instanceof UUID) {
+      UUID uuid = (UUID) value;
+      writer.ensure(17).put(GUID).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    } else if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      writer.ensure(5 + bytes.length).put(BLOB).putInt(bytes.length).put(bytes);
+    } else {
+      throw new IllegalArgumentException("Unsupported attribute type " + value.getClass().getName());
+    }
+  }
+
+  private static Object readValue(ByteBuffer buffer) {
+    byte type = buffer.get();
+    switch (type) {
+      case NULL:
+        return null;
+      case SHORT:
+        return buffer.getShort();
+      case INTEGER:
+        return buffer.getInt();
+      case LONG:
+        return buffer.getLong();
+      case FLOAT:
+        return buffer.getFloat();
+      case DOUBLE:
+        return buffer.getDouble();
+      case TEXT:
+        return readString(buffer);
+      case DATE:
+        long millis = buffer.getLong();
+        Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone(readString(buffer)));
+        calendar.setTimeInMillis(millis);
+        return calendar;
+      case GUID:
+        return new UUID(buffer.getLong(), buffer.getLong());
+      case BLOB:
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+      default:
+        throw new IllegalArgumentException("Unknown attribute tag " + type);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A heap buffer which grows as it is written to.
+   */
+  private static final class Writer {
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    ByteBuffer ensure(int bytes) {
+      if (buffer.remaining() < bytes) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+      }
+      return buffer;
+    }
+
+    void string(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      ensure(4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+  }
+}
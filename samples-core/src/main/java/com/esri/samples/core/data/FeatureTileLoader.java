@@ -0,0 +1,502 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.esri.arcgisruntime.arcgisservices.ArcGISFeatureLayerInfo;
+import com.esri.arcgisruntime.arcgisservices.EditFieldsInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticRecord;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+import com.esri.arcgisruntime.data.StatisticsQueryResult;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+
+/**
+ * Loads the features of a service feature table tile by tile into a feature collection table, keeping the tiles in a
+ * {@link FeatureTileStore} so they are read from disk instead of the service in later sessions. The target table only
+ * holds the tiles of the last extent loaded: the features of tiles which left it are deleted, so memory use follows
+ * the view rather than everything seen in the session.
+ *
+ * <p>The tiles form a square grid in the spatial reference of the service table. Each tile is validated against the
+ * newest edit date and the number of features within the tile, which are queried as statistics through the service
+ * table, so the table's credentials are used and an edit elsewhere in the layer keeps the tile. If the layer does not
+ * track edit dates or the statistics cannot be queried, cached tiles are used until they reach the maximum age.
+ *
+ * <p>Features which cross tile boundaries are returned with every tile they intersect, but are only added once, and
+ * only deleted once no loaded tile holds them.
+ */
+public final class FeatureTileLoader {
+
+  /** Default maximum age of a cached tile: one day. */
+  public static final long DEFAULT_MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+  /** Default maximum number of tiles loaded for one extent. */
+  public static final int DEFAULT_MAX_TILES = 64;
+
+  private final ServiceFeatureTable serviceTable;
+  private final FeatureCollectionTable targetTable;
+  private final FeatureTileStore store;
+  private final double tileSize;
+  private final String whereClause;
+  private final Set<String> outFields = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+  private final long maxAgeMillis;
+  private final int maxTiles;
+  private final Executor executor;
+  private final String layerKey;
+
+  // the request of each tile being loaded or loaded, replaced when a tile is loaded again after leaving the extent
+  private final Map<String, Tile> requestedTiles = new ConcurrentHashMap<>();
+  // guarded by this: the keys of the features of each loaded tile, and the number of loaded tiles holding a feature
+  private final Map<String, List<Object>> tileFeatureKeys = new HashMap<>();
+  private final Map<Object, Feature> shownFeatures = new HashMap<>();
+  private final Map<Object, Integer> references = new HashMap<>();
+  // adds and deletes run one after another, so a tile's features are never deleted before they were added
+  private CompletableFuture<Void> edits = CompletableFuture.completedFuture(null);
+  private String idField;
+  private String editDateField;
+  private Set<String> targetFields;
+
+  private final LongAdder diskTiles = new LongAdder();
+  private final LongAdder serviceTiles = new LongAdder();
+  private final LongAdder serviceMillis = new LongAdder();
+  private final LongAdder addedFeatures = new LongAdder();
+  private final LongAdder removedFeatures = new LongAdder();
+  private final LongAdder writeFailures = new LongAdder();
+
+  /**
+   * Creates a loader for all features of a service table, with the default maximum age and tile count. Work done
+   * off the service's threads, such as reading and writing tiles, runs on the common fork-join pool.
+   *
+   * @param serviceTable loaded service feature table to query
+   * @param targetTable table the features are added to
+   * @param store store keeping the tiles
+   * @param tileSize tile size in the units of the service table's spatial reference
+   */
+  public FeatureTileLoader(ServiceFeatureTable serviceTable, FeatureCollectionTable targetTable, FeatureTileStore store,
+      double tileSize) {
+    this(serviceTable, targetTable, store, tileSize, "1=1", Collections.singletonList("*"),
+        DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_TILES, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a loader.
+   *
+   * @param serviceTable loaded service feature table to query
+   * @param targetTable table the features are added to
+   * @param store store keeping the tiles
+   * @param tileSize tile size in the units of the service table's spatial reference
+   * @param whereClause where clause the features must match
+   * @param outFields names of the fields to keep, or "*" for all
+   * @param maxAgeMillis age beyond which a cached tile is downloaded again
+   * @param maxTiles maximum number of tiles loaded for one extent, larger extents are ignored
+   * @param executor executor reading and writing tiles
+   */
+  public FeatureTileLoader(ServiceFeatureTable serviceTable, FeatureCollectionTable targetTable, FeatureTileStore store,
+      double tileSize, String whereClause, List<String> outFields, long maxAgeMillis, int maxTiles, Executor executor) {
+    if (tileSize <= 0) {
+      throw new IllegalArgumentException("Tile size must be positive");
+    }
+    if (maxTiles <= 0) {
+      throw new IllegalArgumentException("Maximum tiles must be positive");
+    }
+    this.serviceTable = serviceTable;
+    this.targetTable = targetTable;
+    this.store = store;
+    this.tileSize = tileSize;
+    this.whereClause = whereClause;
+    this.outFields.addAll(outFields);
+    this.maxAgeMillis = maxAgeMillis;
+    this.maxTiles = maxTiles;
+    this.executor = executor;
+    layerKey = FeatureTileStore.layerKey(serviceTable.getUri(), whereClause, outFields, tileSize);
+  }
+
+  /**
+   * Loads the tiles covering an extent which have not been loaded yet, and deletes the features of the loaded tiles
+   * outside it.
+   *
+   * @param extent extent in the spatial reference of the service table
+   * @return a future completing with the number of features added, which is zero if the extent covers more than the
+   * maximum number of tiles, in which case all loaded tiles are removed
+   */
+  public CompletableFuture<Integer> loadAsync(Envelope extent) {
+    long column0 = (long) Math.floor(extent.getXMin() / tileSize);
+    long column1 = (long) Math.floor(extent.getXMax() / tileSize);
+    long row0 = (long) Math.floor(extent.getYMin() / tileSize);
+    long row1 = (long) Math.floor(extent.getYMax() / tileSize);
+    if ((column1 - column0 + 1) * (row1 - row0 + 1) > maxTiles) {
+      return clearAsync().thenApply(removed -> 0);
+    }
+
+    // free the tiles which left the extent before loading the new ones
+    List<Tile> left = new ArrayList<>();
+    for (Tile tile : requestedTiles.values()) {
+      if (tile.column < column0 || tile.column > column1 || tile.row < row0 || tile.row > row1) {
+        left.add(tile);
+      }
+    }
+    removeTiles(left);
+
+    List<CompletableFuture<Integer>> tiles = new ArrayList<>();
+    for (long row = row0; row <= row1; row++) {
+      for (long column = column0; column <= column1; column++) {
+        Tile tile = new Tile(column, row);
+        if (requestedTiles.putIfAbsent(tile.key, tile) == null) {
+          tiles.add(loadTile(tile));
+        }
+      }
+    }
+    return CompletableFuture.allOf(tiles.toArray(new CompletableFuture[0]))
+        .thenApply(v -> tiles.stream().mapToInt(CompletableFuture::join).sum());
+  }
+
+  /**
+   * Deletes the features of all loaded tiles from the target table. Tiles stay in the store.
+   *
+   * @return a future completing with the number of features deleted
+   */
+  public CompletableFuture<Integer> clearAsync() {
+    return removeTiles(new ArrayList<>(requestedTiles.values()));
+  }
+
+  private CompletableFuture<Integer> loadTile(Tile request) {
+    Envelope envelope = new Envelope(request.column * tileSize, request.row * tileSize, (request.column + 1) * tileSize,
+        (request.row + 1) * tileSize, serviceTable.getSpatialReference());
+    CompletableFuture<Integer> added = validator(envelope).thenComposeAsync(currentValidator -> {
+      FeatureTile cached = store.get(layerKey, request.column, request.row, currentValidator, maxAgeMillis);
+      if (cached != null) {
+        diskTiles.increment();
+        return CompletableFuture.completedFuture(cached);
+      }
+      return queryTile(request.column, request.row, envelope, currentValidator);
+    }, executor).thenCompose(tile -> addFeatures(request, tile));
+
+    // let a later load try failed tiles again
+    added.whenComplete((count, ex) -> {
+      if (ex != null) {
+        removeTiles(Collections.singletonList(request));
+      }
+    });
+    return added;
+  }
+
+  private CompletableFuture<FeatureTile> queryTile(long column, long row, Envelope envelope,
+      String currentValidator) {
+    List<Geometry> geometries = new ArrayList<>();
+    List<Map<String, Object>> attributes = new ArrayList<>();
+    long start = System.nanoTime();
+
+    return FeaturePages.forEach(serviceTable, () -> {
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.setWhereClause(whereClause);
+      queryParameters.setGeometry(envelope);
+      queryParameters.setReturnGeometry(true);
+      return queryParameters;
+    }, feature -> {
+      geometries.add(feature.getGeometry());
+      attributes.add(keptAttributes(feature));
+    }).thenApplyAsync(count -> {
+      serviceTiles.increment();
+      serviceMillis.add((System.nanoTime() - start) / 1000000);
+      // an unknown validator is stored as an empty one, so the tile is replaced once the service can be reached
+      FeatureTile tile = new FeatureTile(currentValidator != null ? currentValidator : "", System.currentTimeMillis(),
+          geometries, attributes);
+      try {
+        store.put(layerKey, column, row, tile);
+      } catch (IOException e) {
+        // the features can still be shown, they are only downloaded again next time
+        writeFailures.increment();
+      }
+      return tile;
+    }, executor);
+  }
+
+  private Map<String, Object> keptAttributes(Feature feature) {
+    if (outFields.contains("*")) {
+      return new HashMap<>(feature.getAttributes());
+    }
+    Map<String, Object> kept = new HashMap<>();
+    feature.getAttributes().forEach((name, value) -> {
+      // the object ID is always kept to add features crossing tile boundaries only once
+      if (outFields.contains(name) || name.equalsIgnoreCase(idField())) {
+        kept.put(name, value);
+      }
+    });
+    return kept;
+  }
+
+  private CompletableFuture<Integer> addFeatures(Tile request, FeatureTile tile) {
+    String id = idField();
+    Set<String> fields = targetFields();
+    List<Feature> features = new ArrayList<>();
+    synchronized (this) {
+      if (requestedTiles.get(request.key) != request) {
+        // the tile left the extent while it was loading
+        return CompletableFuture.completedFuture(0);
+      }
+      List<Object> keys = new ArrayList<>();
+      for (int i = 0; i < tile.size(); i++) {
+        Map<String, Object> attributes = tile.getAttributes().get(i);
+        Object objectId = id != null ? attributes.get(id) : null;
+        if (objectId != null && shownFeatures.containsKey(objectId)) {
+          // already added with a neighbouring tile
+          references.merge(objectId, 1, Integer::sum);
+          keys.add(objectId);
+          continue;
+        }
+        Map<String, Object> targetAttributes = new HashMap<>();
+        attributes.forEach((name, value) -> {
+          if (fields.contains(name)) {
+            targetAttributes.put(name, value);
+          }
+        });
+        Feature feature = targetTable.createFeature(targetAttributes, tile.getGeometries().get(i));
+        Object key = objectId != null ? objectId : feature;
+        shownFeatures.put(key, feature);
+        references.put(key, 1);
+        keys.add(key);
+        features.add(feature);
+      }
+      tileFeatureKeys.put(request.key, keys);
+    }
+    if (features.isEmpty()) {
+      return CompletableFuture.completedFuture(0);
+    }
+    return edit(() -> targetTable.addFeaturesAsync(features)).thenApply(v -> {
+      addedFeatures.add(features.size());
+      return features.size();
+    });
+  }
+
+  /**
+   * Forgets tiles and deletes the features no other loaded tile holds.
+   */
+  private CompletableFuture<Integer> removeTiles(List<Tile> tiles) {
+    List<Feature> features = new ArrayList<>();
+    synchronized (this) {
+      for (Tile tile : tiles) {
+        if (!requestedTiles.remove(tile.key, tile)) {
+          continue;
+        }
+        List<Object> keys = tileFeatureKeys.remove(tile.key);
+        if (keys == null) {
+          // still loading, its features are not added
+          continue;
+        }
+        for (Object key : keys) {
+          if (references.merge(key, -1, Integer::sum) == 0) {
+            references.remove(key);
+            features.add(shownFeatures.remove(key));
+          }
+        }
+      }
+    }
+    if (features.isEmpty()) {
+      return CompletableFuture.completedFuture(0);
+    }
+    CompletableFuture<Integer> removed = edit(() -> targetTable.deleteFeaturesAsync(features)).thenApply(v -> {
+      removedFeatures.add(features.size());
+      return features.size();
+    });
+    // the features of a failed add are not in the table, and deleting them only fails
+    return removed.exceptionally(ex -> 0);
+  }
+
+  /**
+   * Runs an edit of the target table once the previous edit has finished.
+   */
+  private synchronized CompletableFuture<Void> edit(Supplier<ListenableFuture<Void>> operation) {
+    CompletableFuture<Void> next = edits.handle((v, ex) -> null).thenCompose(v -> {
+      CompletableFuture<Void> done = new CompletableFuture<>();
+      ListenableFuture<Void> edit = operation.get();
+      edit.addDoneListener(() -> {
+        try {
+          edit.get();
+          done.complete(null);
+        } catch (Exception e) {
+          done.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+        }
+      });
+      return done;
+    });
+    edits = next;
+    return next;
+  }
+
+  private synchronized String idField() {
+    if (idField == null) {
+      idField = FeatureTables.objectIdField(serviceTable);
+    }
+    return idField;
+  }
+
+  private synchronized String editDateField() {
+    if (editDateField == null) {
+      ArcGISFeatureLayerInfo layerInfo = serviceTable.getLayerInfo();
+      EditFieldsInfo editFields = layerInfo != null ? layerInfo.getEditFieldsInfo() : null;
+      editDateField = editFields != null && editFields.getEditDateField() != null ? editFields.getEditDateField() : "";
+    }
+    return editDateField.isEmpty() ? null : editDateField;
+  }
+
+  private synchronized Set<String> targetFields() {
+    if (targetFields == null) {
+      targetFields = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+      for (Field field : targetTable.getFields()) {
+        targetFields.add(field.getName());
+      }
+    }
+    return targetFields;
+  }
+
+  /**
+   * Queries the newest edit date and the feature count within a tile, completing with null if they cannot be read.
+   */
+  private CompletableFuture<String> validator(Envelope envelope) {
+    String editDate = editDateField();
+    if (editDate == null || idField() == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    // the count changes when features are deleted or moved out, which leaves the newest edit date as it was
+    StatisticsQueryParameters statisticsParameters = new StatisticsQueryParameters(Arrays.asList(
+        new StatisticDefinition(editDate, StatisticType.MAXIMUM, "LAST_EDIT_DATE"),
+        new StatisticDefinition(idField(), StatisticType.COUNT, "FEATURE_COUNT")));
+    statisticsParameters.setWhereClause(whereClause);
+    statisticsParameters.setGeometry(envelope);
+    statisticsParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+    CompletableFuture<String> statistics = new CompletableFuture<>();
+    ListenableFuture<StatisticsQueryResult> query = serviceTable.queryStatisticsAsync(statisticsParameters);
+    query.addDoneListener(() -> {
+      try {
+        Iterator<StatisticRecord> records = query.get().iterator();
+        statistics.complete(records.hasNext() ? validator(records.next().getStatistics()) : null);
+      } catch (Exception e) {
+        statistics.complete(null);
+      }
+    });
+    return statistics;
+  }
+
+  private static String validator(Map<String, Object> statistics) {
+    // ordered by name, as the service decides the case of the output field names
+    StringBuilder validator = new StringBuilder();
+    new TreeMap<>(statistics).forEach((name, value) -> validator.append(name.toUpperCase()).append(':')
+        .append(value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : value).append(';'));
+    return validator.toString();
+  }
+
+  /**
+   * @return number of tiles read from the store
+   */
+  public long getDiskTileCount() {
+    return diskTiles.sum();
+  }
+
+  /**
+   * @return number of tiles queried from the service
+   */
+  public long getServiceTileCount() {
+    return serviceTiles.sum();
+  }
+
+  /**
+   * @return mean time to query a tile from the service in milliseconds, or 0 if none was queried
+   */
+  public double getMeanServiceMillis() {
+    long count = serviceTiles.sum();
+    return count == 0 ? 0 : (double) serviceMillis.sum() / count;
+  }
+
+  /**
+   * @return number of features added to the target table
+   */
+  public long getFeatureCount() {
+    return addedFeatures.sum();
+  }
+
+  /**
+   * @return number of features deleted from the target table as their tiles left the extent
+   */
+  public long getRemovedFeatureCount() {
+    return removedFeatures.sum();
+  }
+
+  /**
+   * @return number of features in the target table
+   */
+  public synchronized int getShownFeatureCount() {
+    return shownFeatures.size();
+  }
+
+  /**
+   * @return number of tiles which could not be written to the store
+   */
+  public long getWriteFailureCount() {
+    return writeFailures.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("FeatureTileLoader[disk tiles=%d, service tiles=%d (%.1f ms mean), features=%d, " +
+        "removed=%d, %s]", getDiskTileCount(), getServiceTileCount(), getMeanServiceMillis(), getFeatureCount(),
+        getRemovedFeatureCount(), store);
+  }
+
+  /**
+   * A request for a tile. A tile loaded again after leaving the extent gets a new request, so a load which was still
+   * running when the tile left does not add its features.
+   */
+  private static final class Tile {
+
+    private final long column;
+    private final long row;
+    private final String key;
+
+    Tile(long column, long row) {
+      this.column = column;
+      this.row = row;
+      key = column + "_" + row;
+    }
+  }
+}
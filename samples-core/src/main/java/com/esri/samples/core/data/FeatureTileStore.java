@@ -0,0 +1,307 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps feature tiles on disk between sessions. Each tile is a file in the binary format of {@link FeatureTileCodec},
+ * written through a file channel and read through a memory mapping, in a directory per layer key. A layer key identifies the service, where clause,
+ * fields and tile size the tiles were downloaded with.
+ *
+ * <p>A tile is only returned if it was downloaded with the current validator of the service and is younger than the
+ * maximum age. The least recently used tiles are deleted once the files take up more than the maximum size. File
+ * modification times record the use of a tile, so the order is kept between sessions.
+ */
+public final class FeatureTileStore {
+
+  private static final String EXTENSION = ".tile";
+
+  private final Path directory;
+  private final long maxBytes;
+  /** Size of each tile file, in least recently used order. */
+  private final LinkedHashMap<Path, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder staleMisses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
+
+  /**
+   * Opens the store in a directory, creating the directory if needed.
+   *
+   * @param directory directory holding the tiles
+   * @param maxBytes size the tile files may take up
+   * @throws IOException if the directory cannot be created or listed
+   */
+  public FeatureTileStore(Path directory, long maxBytes) throws IOException {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive");
+    }
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    Files.createDirectories(directory);
+    try (Stream<Path> paths = Files.walk(directory, 2)) {
+      List<Path> tiles = paths.filter(path -> path.toString().endsWith(EXTENSION)).collect(Collectors.toList());
+      tiles.sort(Comparator.comparing(FeatureTileStore::lastModified));
+      for (Path tile : tiles) {
+        long size = Files.size(tile);
+        files.put(tile, size);
+        totalBytes += size;
+      }
+    }
+    synchronized (this) {
+      evict();
+    }
+  }
+
+  /**
+   * Creates the key for the tiles of a layer.
+   *
+   * @param serviceUrl URL of the feature service layer
+   * @param whereClause where clause of the tile queries
+   * @param outFields names of the fields kept, or "*" for all
+   * @param tileSize tile size in the units of the layer's spatial reference
+   * @return a key which is safe to use as a directory name
+   */
+  public static String layerKey(String serviceUrl, String whereClause, List<String> outFields, double tileSize) {
+    String identity = serviceUrl + "\n" + whereClause + "\n" + String.join(",", outFields) + "\n" + tileSize;
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(identity.getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder();
+      for (int i = 0; i < 8; i++) {
+        key.append(String.format("%02x", digest[i]));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads a tile.
+   *
+   * @param layerKey key of the layer
+   * @param column tile column
+   * @param row tile row
+   * @param validator current validator of the service, or null if it is not known, in which case any validator is
+   * accepted
+   * @param maxAgeMillis age beyond which a tile is stale
+   * @return the tile, or null if it is not stored or is stale
+   */
+  public FeatureTile get(String layerKey, long column, long row, String validator, long maxAgeMillis) {
+    Path path = path(layerKey, column, row);
+    synchronized (this) {
+      if (files.get(path) == null) {
+        misses.increment();
+        return null;
+      }
+    }
+
+    FeatureTile tile;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      bytesRead.add(channel.size());
+      tile = FeatureTileCodec.decode(buffer);
+    } catch (IOException | RuntimeException e) {
+      // unreadable tiles are downloaded again
+      remove(path);
+      misses.increment();
+      return null;
+    }
+
+    boolean expired = System.currentTimeMillis() - tile.getCreatedMillis() > maxAgeMillis;
+    if (expired || (validator != null && !validator.equals(tile.getValidator()))) {
+      remove(path);
+      staleMisses.increment();
+      return null;
+    }
+
+    hits.increment();
+    try {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // only the order of eviction in later sessions suffers
+    }
+    return tile;
+  }
+
+  /**
+   * Writes a tile, replacing any earlier version, and evicts the least recently used tiles beyond the maximum size.
+   *
+   * @param layerKey key of the layer
+   * @param column tile column
+   * @param row tile row
+   * @param tile tile to write
+   * @throws IOException if the tile cannot be written
+   */
+  public void put(String layerKey, long column, long row, FeatureTile tile) throws IOException {
+    Path path = path(layerKey, column, row);
+    ByteBuffer encoded = FeatureTileCodec.encode(tile);
+    long size = encoded.remaining();
+
+    // write next to the tile and move it into place so readers never see a partial file
+    Files.createDirectories(path.getParent());
+    Path temporary = Files.createTempFile(path.getParent(), "tile", ".tmp");
+    // written through the channel rather than a mapping, which would keep the file open until it is garbage
+    // collected and make the move fail on Windows
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+      while (encoded.hasRemaining()) {
+        channel.write(encoded);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    bytesWritten.add(size);
+
+    synchronized (this) {
+      Long previous = files.put(path, size);
+      totalBytes += size - (previous != null ? previous : 0);
+      evict();
+    }
+  }
+
+  /**
+   * Deletes all tiles.
+   */
+  public synchronized void clear() {
+    for (Path path : new ArrayList<>(files.keySet())) {
+      remove(path);
+    }
+  }
+
+  private synchronized void remove(Path path) {
+    Long size = files.remove(path);
+    if (size != null) {
+      totalBytes -= size;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // a file which is still mapped cannot be deleted on some platforms, it is replaced when written again
+    }
+  }
+
+  private void evict() {
+    for (Iterator<Map.Entry<Path, Long>> iterator = files.entrySet().iterator();
+         iterator.hasNext() && totalBytes > maxBytes; ) {
+      Map.Entry<Path, Long> eldest = iterator.next();
+      iterator.remove();
+      totalBytes -= eldest.getValue();
+      evictions.increment();
+      try {
+        Files.deleteIfExists(eldest.getKey());
+      } catch (IOException e) {
+        // see remove
+      }
+    }
+  }
+
+  private Path path(String layerKey, long column, long row) {
+    return directory.resolve(layerKey).resolve(column + "_" + row + EXTENSION);
+  }
+
+  private static FileTime lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  /**
+   * @return number of tiles read from disk
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of tiles which were not stored or could not be read
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return number of tiles which were stored but outdated
+   */
+  public long getStaleCount() {
+    return staleMisses.sum();
+  }
+
+  /**
+   * @return number of tiles deleted to stay within the maximum size
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return number of bytes read from tile files
+   */
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  /**
+   * @return number of bytes written to tile files
+   */
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  /**
+   * @return current size of all tile files
+   */
+  public synchronized long getSize() {
+    return totalBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d hits, %d misses, %d stale, %d evictions, %.1f MB read, %.1f MB written, %.1f MB on disk",
+        getHitCount(), getMissCount(), getStaleCount(), getEvictionCount(), getBytesRead() / 1e6,
+        getBytesWritten() / 1e6, getSize() / 1e6);
+  }
+}
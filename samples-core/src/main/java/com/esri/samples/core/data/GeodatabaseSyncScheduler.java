@@ -0,0 +1,436 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.concurrent.Job;
+import com.esri.arcgisruntime.data.Geodatabase;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
+import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseJob;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseParameters;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncGeodatabaseParameters.SyncDirection;
+import com.esri.arcgisruntime.tasks.geodatabase.SyncLayerOption;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+
+/**
+ * Syncs a replica geodatabase with its feature service in the background, so edits are sent in small deltas instead
+ * of one large sync at the end.
+ *
+ * <p>Two kinds of sync are scheduled:
+ * <ul>
+ *   <li>an upload, a short time after the first of a series of edits, which only sends the layers whose table
+ *   {@link GeodatabaseFeatureTable#hasLocalEdits() has local edits} and is skipped if there are none;</li>
+ *   <li>a full bidirectional sync of all layers at a fixed interval, or when {@link #syncNowAsync()} is called, which
+ *   also brings down the changes made by others.</li>
+ * </ul>
+ *
+ * <p>Only one sync job runs at a time. Syncs requested while a job runs are merged into one which starts when it
+ * completes; a full sync covers an upload. A failed sync is retried with a delay doubling from the retry delay up to
+ * the maximum retry delay. The layer options only select layers for geodatabases generated with the per-layer sync
+ * model; a per-geodatabase replica always syncs all layers, but still in the requested direction.
+ */
+public final class GeodatabaseSyncScheduler implements AutoCloseable {
+
+  /** Default interval between full syncs. */
+  public static final long DEFAULT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  /** Default delay between the first of a series of edits and the upload. */
+  public static final long DEFAULT_EDIT_DELAY_MILLIS = 3000;
+
+  /** Default delay before the first retry of a failed sync, doubled for every further failure. */
+  public static final long DEFAULT_RETRY_DELAY_MILLIS = 5000;
+
+  /** Default longest delay between retries. */
+  public static final long DEFAULT_MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("geodatabase-sync"));
+
+  private enum Kind {
+    UPLOAD, FULL
+  }
+
+  private final GeodatabaseSyncTask syncTask;
+  private final Geodatabase geodatabase;
+  private final long intervalMillis;
+  private final long editDelayMillis;
+  private final long retryDelayMillis;
+  private final long maxRetryDelayMillis;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+  private SyncGeodatabaseJob job;
+  private Kind pending;
+  private final List<CompletableFuture<Void>> fullSyncWaiters = new ArrayList<>();
+  private final List<CompletableFuture<Void>> jobWaiters = new ArrayList<>();
+  private ScheduledFuture<?> periodicTimer;
+  private ScheduledFuture<?> editTimer;
+  private ScheduledFuture<?> retryTimer;
+  private int consecutiveFailures;
+  private boolean closed;
+
+  private final LongAdder fullSyncs = new LongAdder();
+  private final LongAdder uploads = new LongAdder();
+  private final LongAdder skippedUploads = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder jobMillis = new LongAdder();
+  private volatile long lastJobMillis;
+  private volatile int lastLayerCount;
+  private volatile long lastSyncTime;
+  private volatile Throwable lastError;
+
+  /**
+   * Creates a scheduler with the default interval, edit delay and retry delays.
+   *
+   * @param syncTask task of the feature service the geodatabase was generated from
+   * @param geodatabase loaded replica geodatabase
+   */
+  public GeodatabaseSyncScheduler(GeodatabaseSyncTask syncTask, Geodatabase geodatabase) {
+    this(syncTask, geodatabase, DEFAULT_INTERVAL_MILLIS, DEFAULT_EDIT_DELAY_MILLIS, DEFAULT_RETRY_DELAY_MILLIS,
+        DEFAULT_MAX_RETRY_DELAY_MILLIS);
+  }
+
+  /**
+   * Creates a scheduler.
+   *
+   * @param syncTask task of the feature service the geodatabase was generated from
+   * @param geodatabase loaded replica geodatabase
+   * @param intervalMillis interval between full syncs
+   * @param editDelayMillis delay between the first of a series of edits and the upload
+   * @param retryDelayMillis delay before the first retry of a failed sync, doubled for every further failure
+   * @param maxRetryDelayMillis longest delay between retries
+   */
+  public GeodatabaseSyncScheduler(GeodatabaseSyncTask syncTask, Geodatabase geodatabase, long intervalMillis,
+      long editDelayMillis, long retryDelayMillis, long maxRetryDelayMillis) {
+    if (intervalMillis <= 0) {
+      throw new IllegalArgumentException("Interval must be positive");
+    }
+    if (editDelayMillis < 0 || retryDelayMillis < 0 || maxRetryDelayMillis < retryDelayMillis) {
+      throw new IllegalArgumentException("Delays must not be negative and the maximum retry delay must not be " +
+          "less than the retry delay");
+    }
+    this.syncTask = syncTask;
+    this.geodatabase = geodatabase;
+    this.intervalMillis = intervalMillis;
+    this.editDelayMillis = editDelayMillis;
+    this.retryDelayMillis = retryDelayMillis;
+    this.maxRetryDelayMillis = maxRetryDelayMillis;
+  }
+
+  /**
+   * Starts the periodic full syncs. The first one runs after one interval.
+   */
+  public synchronized void start() {
+    if (periodicTimer == null && !closed) {
+      periodicTimer = SCHEDULER.scheduleWithFixedDelay(() -> request(Kind.FULL), intervalMillis, intervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Tells the scheduler that a table of the geodatabase was edited. An upload runs once the edit delay has passed
+   * since the first edit not uploaded yet.
+   */
+  public synchronized void notifyEdited() {
+    if (editTimer == null && !closed) {
+      editTimer = SCHEDULER.schedule(() -> {
+        synchronized (this) {
+          editTimer = null;
+        }
+        request(Kind.UPLOAD);
+      }, editDelayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Runs a full sync as soon as no other sync is running.
+   *
+   * @return a future completing once the full sync has succeeded, or failing with the error of the sync or because
+   * the scheduler is closed
+   */
+  public CompletableFuture<Void> syncNowAsync() {
+    CompletableFuture<Void> synced = new CompletableFuture<>();
+    synchronized (this) {
+      if (closed) {
+        synced.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+        return synced;
+      }
+      fullSyncWaiters.add(synced);
+      if (retryTimer != null) {
+        // an explicit request does not wait for the backoff
+        retryTimer.cancel(false);
+        retryTimer = null;
+      }
+    }
+    request(Kind.FULL);
+    return synced;
+  }
+
+  private void request(Kind kind) {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (job != null || retryTimer != null) {
+        pending = merge(pending, kind);
+        return;
+      }
+      run(kind);
+    }
+    notifyListeners();
+  }
+
+  /**
+   * Starts a sync job. Must be called while holding the lock.
+   */
+  private void run(Kind kind) {
+    List<GeodatabaseFeatureTable> tables = new ArrayList<>();
+    for (GeodatabaseFeatureTable table : geodatabase.getGeodatabaseFeatureTables()) {
+      if (kind == Kind.FULL || table.hasLocalEdits()) {
+        tables.add(table);
+      }
+    }
+    if (kind == Kind.UPLOAD && tables.isEmpty()) {
+      // nothing to upload
+      skippedUploads.increment();
+      return;
+    }
+
+    SyncDirection direction = kind == Kind.UPLOAD ? SyncDirection.UPLOAD : SyncDirection.BIDIRECTIONAL;
+    SyncGeodatabaseParameters parameters = new SyncGeodatabaseParameters();
+    parameters.setSyncDirection(direction);
+    parameters.setRollbackOnFailure(false);
+    tables.forEach(table -> parameters.getLayerOptions().add(new SyncLayerOption(table.getServiceLayerId(),
+        direction)));
+
+    // requests made while this job runs wait for the next full sync
+    if (kind == Kind.FULL) {
+      jobWaiters.addAll(fullSyncWaiters);
+      fullSyncWaiters.clear();
+    }
+
+    long start = System.nanoTime();
+    SyncGeodatabaseJob syncJob = syncTask.syncGeodatabase(parameters, geodatabase);
+    job = syncJob;
+    syncJob.addJobChangedListener(this::notifyListeners);
+    syncJob.addJobDoneListener(() -> completed(kind, syncJob, tables.size(), start));
+    syncJob.start();
+  }
+
+  private void completed(Kind kind, SyncGeodatabaseJob syncJob, int layerCount, long start) {
+    List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    Throwable error = null;
+    synchronized (this) {
+      if (job != syncJob) {
+        return;
+      }
+      job = null;
+      waiters.addAll(jobWaiters);
+      jobWaiters.clear();
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      lastJobMillis = millis;
+      jobMillis.add(millis);
+
+      if (syncJob.getStatus() == Job.Status.SUCCEEDED) {
+        consecutiveFailures = 0;
+        lastLayerCount = layerCount;
+        lastSyncTime = System.currentTimeMillis();
+        (kind == Kind.FULL ? fullSyncs : uploads).increment();
+        if (pending != null && !closed) {
+          Kind next = pending;
+          pending = null;
+          run(next);
+        }
+      } else {
+        error = syncJob.getError() != null ? syncJob.getError() : new IllegalStateException("Sync " +
+            syncJob.getStatus().toString().toLowerCase());
+        lastError = error;
+        failures.increment();
+        consecutiveFailures++;
+        if (!closed) {
+          // retry the failed sync together with anything requested meanwhile
+          Kind retry = merge(pending, kind);
+          pending = null;
+          long delay = Math.min(maxRetryDelayMillis, retryDelayMillis << Math.min(30, consecutiveFailures - 1));
+          retryTimer = SCHEDULER.schedule(() -> {
+            Kind next;
+            synchronized (this) {
+              retryTimer = null;
+              next = merge(pending, retry);
+              pending = null;
+            }
+            request(next);
+          }, delay, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    for (CompletableFuture<Void> waiter : waiters) {
+      if (error == null) {
+        waiter.complete(null);
+      } else {
+        waiter.completeExceptionally(error);
+      }
+    }
+    notifyListeners();
+  }
+
+  private static Kind merge(Kind a, Kind b) {
+    return a == Kind.FULL || b == Kind.FULL ? Kind.FULL : Kind.UPLOAD;
+  }
+
+  /**
+   * Stops scheduling syncs. A running sync job is left to complete, and futures from {@link #syncNowAsync()} waiting
+   * for a later sync fail.
+   */
+  @Override
+  public void close() {
+    List<CompletableFuture<Void>> waiters;
+    synchronized (this) {
+      closed = true;
+      for (ScheduledFuture<?> timer : new ScheduledFuture<?>[] {periodicTimer, editTimer, retryTimer}) {
+        if (timer != null) {
+          timer.cancel(false);
+        }
+      }
+      periodicTimer = null;
+      editTimer = null;
+      retryTimer = null;
+      pending = null;
+      waiters = new ArrayList<>(fullSyncWaiters);
+      fullSyncWaiters.clear();
+    }
+
+    IllegalStateException closedError = new IllegalStateException("Scheduler is closed");
+    waiters.forEach(waiter -> waiter.completeExceptionally(closedError));
+  }
+
+  /**
+   * Adds a listener called whenever a sync starts, makes progress or completes, on the thread which made the
+   * change.
+   *
+   * @param listener listener to add
+   */
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  private void notifyListeners() {
+    changeListeners.forEach(Runnable::run);
+  }
+
+  /**
+   * @return true while a sync job runs
+   */
+  public synchronized boolean isSyncing() {
+    return job != null;
+  }
+
+  /**
+   * @return progress of the running sync job in percent, or 0 if none runs
+   */
+  public synchronized int getProgress() {
+    return job != null ? job.getProgress() : 0;
+  }
+
+  /**
+   * @return number of successful full syncs
+   */
+  public long getFullSyncCount() {
+    return fullSyncs.sum();
+  }
+
+  /**
+   * @return number of successful upload only syncs
+   */
+  public long getUploadCount() {
+    return uploads.sum();
+  }
+
+  /**
+   * @return number of uploads skipped because no table had local edits
+   */
+  public long getSkippedUploadCount() {
+    return skippedUploads.sum();
+  }
+
+  /**
+   * @return number of failed sync jobs
+   */
+  public long getFailureCount() {
+    return failures.sum();
+  }
+
+  /**
+   * @return number of sync jobs which failed since the last successful one
+   */
+  public synchronized int getConsecutiveFailureCount() {
+    return consecutiveFailures;
+  }
+
+  /**
+   * @return the error of the last failed sync job, or null if none failed
+   */
+  public Throwable getLastError() {
+    return lastError;
+  }
+
+  /**
+   * @return mean duration of the sync jobs, successful or not, in milliseconds
+   */
+  public double getMeanJobMillis() {
+    long count = fullSyncs.sum() + uploads.sum() + failures.sum();
+    return count == 0 ? 0 : (double) jobMillis.sum() / count;
+  }
+
+  /**
+   * @return duration of the last sync job in milliseconds
+   */
+  public long getLastJobMillis() {
+    return lastJobMillis;
+  }
+
+  /**
+   * @return number of layers in the last successful sync
+   */
+  public int getLastLayerCount() {
+    return lastLayerCount;
+  }
+
+  /**
+   * @return time of the last successful sync in milliseconds since the epoch, or 0 if none succeeded
+   */
+  public long getLastSyncTime() {
+    return lastSyncTime;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d full syncs, %d uploads (%d skipped), %d failures, %.0f ms mean, %d ms last",
+        getFullSyncCount(), getUploadCount(), getSkippedUploadCount(), getFailureCount(), getMeanJobMillis(),
+        getLastJobMillis());
+  }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.esri.arcgisruntime.arcgisservices.ArcGISFeatureLayerInfo;
+import com.esri.arcgisruntime.data.ArcGISFeatureTable;
+import com.esri.arcgisruntime.data.FeatureTable;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.layers.Layer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.loadable.Loadable;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+
+/**
+ * Loads the tables of a GeoPackage or geodatabase in parallel and adds a layer for each one to a map only once its
+ * data is within the visible area at a scale where it is shown.
+ *
+ * <p>Loading a table reads its schema and extent, which for containers with hundreds of tables takes much longer than
+ * drawing the few of them on screen. Tables are loaded on a fixed number of background threads, and the time each
+ * one took is recorded. Feature layers are only created when {@link #showVisible} finds that a loaded table is on
+ * screen. Other layers, such as raster layers, are created by the caller but are likewise loaded in the background
+ * and only added to the map when visible. Layers keep the order in which their sources were added to the loader.
+ */
+public final class LayerLoader {
+
+  /** Default number of tables loaded at once. */
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  private final List<Layer> layers;
+  private final int parallelism;
+  private final List<TableLoad> loads = new ArrayList<>();
+  private volatile Consumer<TableLoad> loadListener = load -> {};
+
+  /**
+   * Creates a loader which loads {@link #DEFAULT_PARALLELISM} tables at once.
+   *
+   * @param layers operational layers of the map to add the layers to
+   */
+  public LayerLoader(List<Layer> layers) {
+    this(layers, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Creates a loader.
+   *
+   * @param layers operational layers of the map to add the layers to
+   * @param parallelism number of tables loaded at once
+   */
+  public LayerLoader(List<Layer> layers, int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.layers = layers;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Adds a feature table to load. A feature layer is created for it once it is visible.
+   *
+   * @param table table to load
+   * @return the load of the table
+   */
+  public synchronized TableLoad add(FeatureTable table) {
+    TableLoad load = new TableLoad(table, () -> new FeatureLayer(table));
+    loads.add(load);
+    return load;
+  }
+
+  /**
+   * Adds a layer to load, which is added to the map once it is visible.
+   *
+   * @param layer layer to load
+   * @return the load of the layer
+   */
+  public synchronized TableLoad add(Layer layer) {
+    TableLoad load = new TableLoad(layer, () -> layer);
+    loads.add(load);
+    return load;
+  }
+
+  /**
+   * Sets a listener called on a background thread each time a table has loaded or failed to load.
+   *
+   * @param loadListener listener to call
+   */
+  public void setLoadListener(Consumer<TableLoad> loadListener) {
+    this.loadListener = loadListener;
+  }
+
+  /**
+   * Starts loading all tables which have been added and not loaded yet.
+   *
+   * @return a future completing when every table has loaded or failed to load
+   */
+  public synchronized CompletableFuture<Void> loadAsync() {
+    List<TableLoad> pending = new ArrayList<>();
+    for (TableLoad load : loads) {
+      if (!load.started) {
+        load.started = true;
+        pending.add(load);
+      }
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(pending.size(), 1)),
+        new DaemonThreadFactory("layer-loader"));
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (TableLoad load : pending) {
+      futures.add(CompletableFuture.runAsync(() -> load(load), executor));
+    }
+    // the threads end once the queued loads have run
+    executor.shutdown();
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Loads a table on the calling thread, waiting for the load to finish so that the executor bounds the number of
+   * loads in progress.
+   */
+  private void load(TableLoad load) {
+    long start = System.nanoTime();
+    CountDownLatch done = new CountDownLatch(1);
+    load.source.addDoneLoadingListener(done::countDown);
+    load.source.loadAsync();
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    load.loadNanos = System.nanoTime() - start;
+    if (load.source.getLoadStatus() == LoadStatus.LOADED) {
+      load.readExtent();
+    }
+    load.status = load.source.getLoadStatus();
+    loadListener.accept(load);
+  }
+
+  /**
+   * Adds the layers of the loaded tables whose extent intersects the visible area and whose scale range includes
+   * the map scale. Call on the thread which owns the map.
+   *
+   * @param visibleArea visible area of the map view, or null if it has not been drawn yet
+   * @param mapScale current scale of the map view
+   * @return the layers added
+   */
+  public List<Layer> showVisible(Geometry visibleArea, double mapScale) {
+    if (visibleArea == null) {
+      return Collections.emptyList();
+    }
+    List<TableLoad> all = getLoads();
+    List<Layer> added = new ArrayList<>();
+    for (int i = 0; i < all.size(); i++) {
+      TableLoad load = all.get(i);
+      if (load.layer == null && load.status == LoadStatus.LOADED && load.isVisible(visibleArea, mapScale)) {
+        load.layer = load.layerFactory.get();
+        layers.add(insertionIndex(all, i), load.layer);
+        added.add(load.layer);
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Finds where to insert the layer of a load so that it is drawn below the layers of the loads added after it.
+   */
+  private int insertionIndex(List<TableLoad> all, int loadIndex) {
+    for (int i = loadIndex + 1; i < all.size(); i++) {
+      Layer later = all.get(i).layer;
+      int index = later == null ? -1 : layers.indexOf(later);
+      if (index >= 0) {
+        return index;
+      }
+    }
+    return layers.size();
+  }
+
+  /**
+   * @return the loads of all tables in the order they were added
+   */
+  public synchronized List<TableLoad> getLoads() {
+    return new ArrayList<>(loads);
+  }
+
+  /**
+   * @return number of tables which have finished loading, including those which failed to load
+   */
+  public long getLoadedCount() {
+    return getLoads().stream().filter(load -> load.status != null).count();
+  }
+
+  /**
+   * @return number of layers added to the map
+   */
+  public long getShownCount() {
+    return getLoads().stream().filter(load -> load.layer != null).count();
+  }
+
+  /**
+   * @return mean time taken to load a table in milliseconds
+   */
+  public double getMeanLoadMillis() {
+    return getLoads().stream().filter(load -> load.status != null).mapToDouble(TableLoad::getLoadMillis).average()
+        .orElse(0);
+  }
+
+  /**
+   * @return longest time taken to load a table in milliseconds
+   */
+  public double getMaxLoadMillis() {
+    return getLoads().stream().mapToDouble(TableLoad::getLoadMillis).max().orElse(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d of %d tables loaded (%.1f ms mean, %.1f ms max), %d shown", getLoadedCount(),
+        getLoads().size(), getMeanLoadMillis(), getMaxLoadMillis(), getShownCount());
+  }
+
+  /**
+   * The load of one table or layer and the layer created for it.
+   */
+  public static final class TableLoad {
+
+    private final Loadable source;
+    private final Supplier<Layer> layerFactory;
+    private boolean started;
+    private volatile LoadStatus status;
+    private volatile long loadNanos;
+    private volatile String name;
+    private volatile Envelope extent;
+    private double minScale;
+    private double maxScale;
+    private Envelope projectedExtent;
+    private volatile Layer layer;
+
+    private TableLoad(Loadable source, Supplier<Layer> layerFactory) {
+      this.source = source;
+      this.layerFactory = layerFactory;
+    }
+
+    /**
+     * Reads the name, extent and scale range of the loaded source.
+     */
+    private void readExtent() {
+      if (source instanceof FeatureTable) {
+        FeatureTable table = (FeatureTable) source;
+        name = table.getTableName();
+        extent = table.getExtent();
+        if (table instanceof ArcGISFeatureTable) {
+          ArcGISFeatureLayerInfo layerInfo = ((ArcGISFeatureTable) table).getLayerInfo();
+          if (layerInfo != null) {
+            minScale = layerInfo.getMinScale();
+            maxScale = layerInfo.getMaxScale();
+          }
+        }
+      } else {
+        Layer sourceLayer = (Layer) source;
+        name = sourceLayer.getName();
+        extent = sourceLayer.getFullExtent();
+        minScale = sourceLayer.getMinScale();
+        maxScale = sourceLayer.getMaxScale();
+      }
+    }
+
+    /**
+     * Whether the extent intersects the envelope of the visible area and the map scale is within the scale range. A
+     * scale of 0 means there is no limit.
+     */
+    private boolean isVisible(Geometry visibleArea, double mapScale) {
+      if ((minScale > 0 && mapScale > minScale) || (maxScale > 0 && mapScale < maxScale)) {
+        return false;
+      }
+      if (extent == null || extent.isEmpty()) {
+        return false;
+      }
+      SpatialReference spatialReference = visibleArea.getSpatialReference();
+      if (projectedExtent == null || !Objects.equals(spatialReference, projectedExtent.getSpatialReference())) {
+        projectedExtent = spatialReference == null || spatialReference.equals(extent.getSpatialReference()) ? extent :
+            GeometryEngine.project(extent, spatialReference).getExtent();
+      }
+      Envelope visible = visibleArea.getExtent();
+      return projectedExtent.getXMin() <= visible.getXMax() && projectedExtent.getXMax() >= visible.getXMin()
+          && projectedExtent.getYMin() <= visible.getYMax() && projectedExtent.getYMax() >= visible.getYMin();
+    }
+
+    /**
+     * @return name of the table or layer, or null if it has not loaded
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return load status once the load has finished, or null while it is pending
+     */
+    public LoadStatus getLoadStatus() {
+      return status;
+    }
+
+    /**
+     * @return time taken to load in milliseconds, or 0 while the load is pending
+     */
+    public double getLoadMillis() {
+      return loadNanos / 1e6;
+    }
+
+    /**
+     * @return extent of the data, or null if it has not loaded
+     */
+    public Envelope getExtent() {
+      return extent;
+    }
+
+    /**
+     * @return the layer added to the map, or null if the data has not been visible yet
+     */
+    public Layer getLayer() {
+      return layer;
+    }
+  }
+}
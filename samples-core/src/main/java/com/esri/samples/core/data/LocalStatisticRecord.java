@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One group of a local statistics query. Like a {@code StatisticRecord}, it holds the values of the group-by fields
+ * and the statistics computed for the group, both keyed by name in the order of the query parameters.
+ */
+public final class LocalStatisticRecord {
+
+  private final Map<String, Object> group;
+  private final Map<String, Object> statistics;
+
+  LocalStatisticRecord(Map<String, Object> group, Map<String, Object> statistics) {
+    this.group = Collections.unmodifiableMap(group);
+    this.statistics = Collections.unmodifiableMap(statistics);
+  }
+
+  /**
+   * @return the group-by field values of this group, empty if the query was not grouped
+   */
+  public Map<String, Object> getGroup() {
+    return group;
+  }
+
+  /**
+   * @return the statistics of this group, keyed by their output field names
+   */
+  public Map<String, Object> getStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public String toString() {
+    return group + " " + statistics;
+  }
+}
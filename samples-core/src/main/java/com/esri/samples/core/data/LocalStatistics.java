@@ -0,0 +1,429 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.StatisticDefinition;
+import com.esri.arcgisruntime.data.StatisticType;
+import com.esri.arcgisruntime.data.StatisticsQueryParameters;
+
+/**
+ * Computes statistics queries against a {@link ColumnarFeatureCache} instead of the feature service, so changing the
+ * statistics, grouping or ordering of a query does not need a round trip.
+ *
+ * <p>The cached features are split into ranges which are aggregated in parallel on a {@link ForkJoinPool} and merged
+ * pairwise. Variance and standard deviation are sample statistics, merged with the parallel form of Welford's
+ * algorithm, and are null for groups with fewer than two values. Minimum and maximum also work on text and date
+ * fields; the other statistics except count need a numeric field. Nulls are skipped by all statistics and form their
+ * own group when grouping.
+ *
+ * <p>Records are sorted by the order-by fields, which may name group-by fields or statistic output fields, and then
+ * by the group-by values.
+ */
+public final class LocalStatistics {
+
+  /** Default number of features aggregated by a single task. */
+  public static final int DEFAULT_RANGE_SIZE = 16384;
+
+  private final ColumnarFeatureCache cache;
+  private final ForkJoinPool pool;
+  private final int rangeSize;
+
+  /**
+   * Creates an engine which runs on the common pool with the default range size.
+   *
+   * @param cache features to compute statistics of
+   */
+  public LocalStatistics(ColumnarFeatureCache cache) {
+    this(cache, ForkJoinPool.commonPool(), DEFAULT_RANGE_SIZE);
+  }
+
+  /**
+   * @param cache features to compute statistics of
+   * @param pool pool to run the aggregation tasks on
+   * @param rangeSize number of features aggregated by a single task
+   */
+  public LocalStatistics(ColumnarFeatureCache cache, ForkJoinPool pool, int rangeSize) {
+    if (rangeSize < 1) {
+      throw new IllegalArgumentException("Range size must be positive");
+    }
+    this.cache = cache;
+    this.pool = pool;
+    this.rangeSize = rangeSize;
+  }
+
+  /**
+   * Gets the name a feature service gives a statistic requested without an output field name, such as
+   * {@code AVG_Diabetes_Percent}. Statistics computed locally without an output field name are named the same way;
+   * setting this name as the output field name of a definition makes sure the service uses it too.
+   *
+   * @param fieldName field the statistic is computed on
+   * @param statisticType type of the statistic
+   * @return the output field name
+   */
+  public static String defaultOutputName(String fieldName, StatisticType statisticType) {
+    switch (statisticType) {
+      case AVERAGE:
+        return "AVG_" + fieldName;
+      case MAXIMUM:
+        return "MAX_" + fieldName;
+      case MINIMUM:
+        return "MIN_" + fieldName;
+      case STANDARD_DEVIATION:
+        return "STDDEV_" + fieldName;
+      case VARIANCE:
+        return "VAR_" + fieldName;
+      default:
+        return statisticType + "_" + fieldName;
+    }
+  }
+
+  /**
+   * Computes the statistics on the engine's pool.
+   *
+   * @param queryParameters statistic definitions, group-by fields and order-by fields. The where clause must be empty
+   * or the one the cache was loaded with.
+   * @return a future completing with one record per group
+   */
+  public CompletableFuture<List<LocalStatisticRecord>> queryStatisticsAsync(StatisticsQueryParameters queryParameters) {
+    try {
+      Query query = new Query(queryParameters);
+      return CompletableFuture.supplyAsync(() -> query.records(new RangeTask(query, 0, cache.size()).invoke()), pool);
+    } catch (IllegalArgumentException e) {
+      CompletableFuture<List<LocalStatisticRecord>> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+
+  /**
+   * Computes the statistics, waiting for the aggregation tasks.
+   *
+   * @param queryParameters statistic definitions, group-by fields and order-by fields. The where clause must be empty
+   * or the one the cache was loaded with.
+   * @return one record per group
+   * @throws IllegalArgumentException if a field is not cached or a statistic does not apply to its field
+   */
+  public List<LocalStatisticRecord> queryStatistics(StatisticsQueryParameters queryParameters) {
+    Query query = new Query(queryParameters);
+    return query.records(pool.invoke(new RangeTask(query, 0, cache.size())));
+  }
+
+  /**
+   * The query parameters resolved against the cached columns.
+   */
+  private final class Query {
+
+    private final List<StatisticDefinition> definitions;
+    private final String[] outputNames;
+    private final ColumnarFeatureCache.Column[] groupColumns;
+    /** Distinct columns the statistics are computed on. */
+    private final List<ColumnarFeatureCache.Column> statisticColumns = new ArrayList<>();
+    /** Index into statisticColumns of each definition. */
+    private final int[] statisticColumn;
+    private final List<QueryParameters.OrderBy> orderBy;
+
+    Query(StatisticsQueryParameters queryParameters) {
+      String whereClause = queryParameters.getWhereClause();
+      if (whereClause != null && !whereClause.isEmpty() && !whereClause.equals(cache.getWhereClause())) {
+        throw new IllegalArgumentException("The cache was loaded with where clause '" + cache.getWhereClause() +
+            "', not '" + whereClause + "'");
+      }
+      definitions = new ArrayList<>(queryParameters.getStatisticDefinitions());
+      if (definitions.isEmpty()) {
+        throw new IllegalArgumentException("At least one statistic definition is required");
+      }
+
+      outputNames = new String[definitions.size()];
+      statisticColumn = new int[definitions.size()];
+      for (int d = 0; d < definitions.size(); d++) {
+        StatisticDefinition definition = definitions.get(d);
+        ColumnarFeatureCache.Column column = cache.column(definition.getFieldName());
+        StatisticType type = definition.getStatisticType();
+        if (!column.isNumeric() && type != StatisticType.COUNT && type != StatisticType.MINIMUM &&
+            type != StatisticType.MAXIMUM) {
+          throw new IllegalArgumentException(type + " needs a numeric field, " + column.name + " is not numeric");
+        }
+        String outputName = definition.getOutStatisticFieldName();
+        outputNames[d] = outputName != null && !outputName.isEmpty() ? outputName :
+            defaultOutputName(column.name, type);
+        int index = statisticColumns.indexOf(column);
+        if (index < 0) {
+          index = statisticColumns.size();
+          statisticColumns.add(column);
+        }
+        statisticColumn[d] = index;
+      }
+
+      List<String> groupByFieldNames = queryParameters.getGroupByFieldNames();
+      groupColumns = new ColumnarFeatureCache.Column[groupByFieldNames.size()];
+      for (int g = 0; g < groupColumns.length; g++) {
+        groupColumns[g] = cache.column(groupByFieldNames.get(g));
+      }
+
+      orderBy = new ArrayList<>(queryParameters.getOrderByFields());
+    }
+
+    /**
+     * Aggregates the features in [from, to) by group.
+     */
+    Map<GroupKey, Accumulator[]> aggregate(int from, int to) {
+      Map<GroupKey, Accumulator[]> groups = new HashMap<>();
+      // look groups up with a reused key and only copy it when a group is new
+      GroupKey probe = new GroupKey(new int[groupColumns.length]);
+      for (int i = from; i < to; i++) {
+        for (int g = 0; g < groupColumns.length; g++) {
+          probe.codes[g] = groupColumns[g].codes[i];
+        }
+        probe.rehash();
+        Accumulator[] accumulators = groups.get(probe);
+        if (accumulators == null) {
+          accumulators = new Accumulator[statisticColumns.size()];
+          for (int s = 0; s < accumulators.length; s++) {
+            accumulators[s] = new Accumulator();
+          }
+          groups.put(probe.copy(), accumulators);
+        }
+        for (int s = 0; s < accumulators.length; s++) {
+          ColumnarFeatureCache.Column column = statisticColumns.get(s);
+          if (column.present.get(i)) {
+            accumulators[s].add(column.numbers != null ? column.numbers[i] : 0, column.codes[i]);
+          }
+        }
+      }
+      return groups;
+    }
+
+    /**
+     * Turns the aggregated groups into sorted records.
+     */
+    List<LocalStatisticRecord> records(Map<GroupKey, Accumulator[]> groups) {
+      // a query without group-by fields always has a single record, even if there are no features
+      if (groups.isEmpty() && groupColumns.length == 0) {
+        Accumulator[] empty = new Accumulator[statisticColumns.size()];
+        Arrays.setAll(empty, s -> new Accumulator());
+        groups.put(new GroupKey(new int[0]), empty);
+      }
+
+      List<LocalStatisticRecord> records = new ArrayList<>(groups.size());
+      List<GroupKey> keys = new ArrayList<>(groups.size());
+      for (Map.Entry<GroupKey, Accumulator[]> group : groups.entrySet()) {
+        Map<String, Object> groupValues = new LinkedHashMap<>();
+        for (int g = 0; g < groupColumns.length; g++) {
+          int code = group.getKey().codes[g];
+          groupValues.put(groupColumns[g].name, code < 0 ? null : groupColumns[g].dictionary[code]);
+        }
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (int d = 0; d < definitions.size(); d++) {
+          Accumulator accumulator = group.getValue()[statisticColumn[d]];
+          statistics.put(outputNames[d], accumulator.value(definitions.get(d).getStatisticType(),
+              statisticColumns.get(statisticColumn[d])));
+        }
+        records.add(new LocalStatisticRecord(groupValues, statistics));
+        keys.add(group.getKey());
+      }
+
+      Integer[] order = new Integer[records.size()];
+      Arrays.setAll(order, i -> i);
+      Arrays.sort(order, comparator(records, keys));
+      List<LocalStatisticRecord> sorted = new ArrayList<>(records.size());
+      for (int i : order) {
+        sorted.add(records.get(i));
+      }
+      return sorted;
+    }
+
+    private Comparator<Integer> comparator(List<LocalStatisticRecord> records, List<GroupKey> keys) {
+      Comparator<Integer> comparator = (a, b) -> 0;
+      for (QueryParameters.OrderBy field : orderBy) {
+        Comparator<Integer> fieldOrder = null;
+        for (int g = 0; g < groupColumns.length && fieldOrder == null; g++) {
+          if (groupColumns[g].name.equalsIgnoreCase(field.getFieldName())) {
+            int group = g;
+            // dictionary codes are in value order with nulls first
+            fieldOrder = Comparator.comparingInt(i -> keys.get(i).codes[group]);
+          }
+        }
+        for (int d = 0; d < outputNames.length && fieldOrder == null; d++) {
+          if (outputNames[d].equalsIgnoreCase(field.getFieldName())) {
+            String name = outputNames[d];
+            fieldOrder = Comparator.comparing(i -> records.get(i).getStatistics().get(name),
+                Comparator.nullsFirst(ColumnarFeatureCache.VALUE_ORDER));
+          }
+        }
+        if (fieldOrder == null) {
+          throw new IllegalArgumentException("Order-by field " + field.getFieldName() +
+              " is neither a group-by field nor a statistic");
+        }
+        comparator = comparator.thenComparing(field.getSortOrder() == QueryParameters.SortOrder.DESCENDING ?
+            fieldOrder.reversed() : fieldOrder);
+      }
+      for (int g = 0; g < groupColumns.length; g++) {
+        int group = g;
+        comparator = comparator.thenComparingInt(i -> keys.get(i).codes[group]);
+      }
+      return comparator;
+    }
+  }
+
+  /**
+   * Aggregates a range of features by splitting it in half until it is no larger than the range size, merging the
+   * groups of the two halves on the way back up.
+   */
+  private final class RangeTask extends RecursiveTask<Map<GroupKey, Accumulator[]>> {
+
+    private final Query query;
+    private final int from;
+    private final int to;
+
+    private RangeTask(Query query, int from, int to) {
+      this.query = query;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Map<GroupKey, Accumulator[]> compute() {
+      if (to - from <= rangeSize) {
+        return query.aggregate(from, to);
+      }
+
+      int middle = (from + to) >>> 1;
+      RangeTask left = new RangeTask(query, from, middle);
+      left.fork();
+      Map<GroupKey, Accumulator[]> merged = new RangeTask(query, middle, to).compute();
+      left.join().forEach((key, accumulators) -> merged.merge(key, accumulators, (a, b) -> {
+        for (int s = 0; s < a.length; s++) {
+          a[s].merge(b[s]);
+        }
+        return a;
+      }));
+      return merged;
+    }
+  }
+
+  /**
+   * The dictionary codes of a feature's group-by values.
+   */
+  private static final class GroupKey {
+
+    private final int[] codes;
+    private int hash;
+
+    private GroupKey(int[] codes) {
+      this.codes = codes;
+      rehash();
+    }
+
+    private void rehash() {
+      hash = Arrays.hashCode(codes);
+    }
+
+    private GroupKey copy() {
+      return new GroupKey(codes.clone());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof GroupKey && Arrays.equals(codes, ((GroupKey) other).codes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Running count, sum, extremes, mean and sum of squared differences from the mean of one field in one group.
+   */
+  private static final class Accumulator {
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private int minCode = Integer.MAX_VALUE;
+    private int maxCode = Integer.MIN_VALUE;
+    private double mean;
+    private double m2;
+
+    void add(double value, int code) {
+      count++;
+      sum += value;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      minCode = Math.min(minCode, code);
+      maxCode = Math.max(maxCode, code);
+      double delta = value - mean;
+      mean += delta / count;
+      m2 += delta * (value - mean);
+    }
+
+    void merge(Accumulator other) {
+      if (other.count == 0) {
+        return;
+      }
+      long total = count + other.count;
+      double delta = other.mean - mean;
+      m2 += other.m2 + delta * delta * count * other.count / total;
+      mean += delta * other.count / total;
+      count = total;
+      sum += other.sum;
+      min = Math.min(min, other.min);
+      max = Math.max(max, other.max);
+      minCode = Math.min(minCode, other.minCode);
+      maxCode = Math.max(maxCode, other.maxCode);
+    }
+
+    Object value(StatisticType type, ColumnarFeatureCache.Column column) {
+      if (type == StatisticType.COUNT) {
+        return count;
+      }
+      if (count == 0) {
+        return null;
+      }
+      switch (type) {
+        case AVERAGE:
+          return sum / count;
+        case SUM:
+          return sum;
+        case MINIMUM:
+          return column.isNumeric() ? (Object) min : column.dictionary[minCode];
+        case MAXIMUM:
+          return column.isNumeric() ? (Object) max : column.dictionary[maxCode];
+        case VARIANCE:
+          return count < 2 ? null : m2 / (count - 1);
+        case STANDARD_DEVIATION:
+          return count < 2 ? null : Math.sqrt(m2 / (count - 1));
+        default:
+          throw new IllegalArgumentException("Unsupported statistic type " + type);
+      }
+    }
+  }
+}
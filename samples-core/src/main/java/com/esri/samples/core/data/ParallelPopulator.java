@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Populates a manual cache service feature table with all features matching a where clause using several requests
+ * at once.
+ *
+ * <p>A single {@code populateFromServiceAsync} call is limited by the service's maximum record count and pages
+ * through larger results one request at a time. Instead, the object IDs of all matching features are requested
+ * first, which the service returns without a record limit. The sorted IDs are split into ranges no larger than the
+ * maximum record count and each range is populated with its own {@code populateFromServiceAsync} call, with a limited
+ * number of calls running at once. All calls add to the same table. If one call fails, the calls still running are
+ * cancelled and no further ranges are requested.
+ *
+ * <p>The object IDs are requested from the layer's REST query endpoint directly, without the table's credential, so
+ * the layer must not require a token.
+ */
+public final class ParallelPopulator {
+
+  /** Default number of features per range, the maximum record count of most services. */
+  public static final int DEFAULT_RANGE_SIZE = 1000;
+
+  /** Default number of ranges requested at once. */
+  public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+  private static final int TIMEOUT_MILLIS = 30000;
+
+  private final ServiceFeatureTable featureTable;
+  private final int rangeSize;
+  private final int maxConcurrent;
+  private final Executor executor;
+
+  /**
+   * Creates a populator with the default range size and concurrency, requesting object IDs on the common fork-join
+   * pool.
+   *
+   * @param featureTable loaded service feature table in manual cache mode
+   */
+  public ParallelPopulator(ServiceFeatureTable featureTable) {
+    this(featureTable, DEFAULT_RANGE_SIZE, DEFAULT_MAX_CONCURRENT, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a populator.
+   *
+   * @param featureTable loaded service feature table in manual cache mode
+   * @param rangeSize number of object IDs per request, at most the service's maximum record count
+   * @param maxConcurrent maximum number of requests running at once
+   * @param executor executor requesting the object IDs
+   */
+  public ParallelPopulator(ServiceFeatureTable featureTable, int rangeSize, int maxConcurrent, Executor executor) {
+    if (rangeSize <= 0) {
+      throw new IllegalArgumentException("Range size must be positive");
+    }
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("Maximum concurrent requests must be positive");
+    }
+    this.featureTable = featureTable;
+    this.rangeSize = rangeSize;
+    this.maxConcurrent = maxConcurrent;
+    this.executor = executor;
+  }
+
+  /**
+   * Clears the table's cache and populates it with all features matching a where clause.
+   *
+   * @param whereClause where clause the features must match
+   * @param outFields names of the fields to request, or "*" for all
+   * @return a future completing with the timings once all ranges have been added
+   */
+  public CompletableFuture<PopulateResult> populateAsync(String whereClause, List<String> outFields) {
+    long start = System.nanoTime();
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return requestObjectIds(whereClause);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor).thenCompose(objectIds -> {
+      long idMillis = (System.nanoTime() - start) / 1000000;
+      List<long[]> ranges = partition(objectIds.ids, rangeSize);
+      featureTable.clearCache(false);
+      return populateRanges(whereClause, objectIds.fieldName, ranges, outFields)
+          .thenApply(pages -> new PopulateResult(idMillis, (System.nanoTime() - start) / 1000000, pages.featureCounts,
+              pages.millis));
+    });
+  }
+
+  /**
+   * Splits sorted object IDs into ranges of at most the given size.
+   *
+   * @return the lowest and highest ID of each range
+   */
+  static List<long[]> partition(long[] sortedIds, int rangeSize) {
+    List<long[]> ranges = new ArrayList<>();
+    for (int i = 0; i < sortedIds.length; i += rangeSize) {
+      int last = Math.min(sortedIds.length, i + rangeSize) - 1;
+      ranges.add(new long[] {sortedIds[i], sortedIds[last]});
+    }
+    return ranges;
+  }
+
+  private CompletableFuture<Pages> populateRanges(String whereClause, String idField, List<long[]> ranges,
+      List<String> outFields) {
+    Pages pages = new Pages(ranges.size());
+    CompletableFuture<Pages> done = new CompletableFuture<>();
+    if (ranges.isEmpty()) {
+      done.complete(pages);
+      return done;
+    }
+
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger remaining = new AtomicInteger(ranges.size());
+    Set<ListenableFuture<FeatureQueryResult>> running = ConcurrentHashMap.newKeySet();
+    Runnable startNext = new Runnable() {
+      @Override
+      public void run() {
+        int index = next.getAndIncrement();
+        if (index >= ranges.size() || done.isDone()) {
+          return;
+        }
+        long[] range = ranges.get(index);
+        QueryParameters queryParameters = new QueryParameters();
+        queryParameters.setWhereClause("(" + whereClause + ") AND " + idField + " >= " + range[0] + " AND " + idField +
+            " <= " + range[1]);
+        long pageStart = System.nanoTime();
+        ListenableFuture<FeatureQueryResult> populate =
+            featureTable.populateFromServiceAsync(queryParameters, false, outFields);
+        running.add(populate);
+        // a range failing while this one was started has already cancelled the others
+        if (done.isDone()) {
+          populate.cancel(true);
+        }
+        populate.addDoneListener(() -> {
+          running.remove(populate);
+          try {
+            int count = 0;
+            for (Feature feature : populate.get()) {
+              count++;
+            }
+            pages.featureCounts[index] = count;
+            pages.millis[index] = (System.nanoTime() - pageStart) / 1000000;
+          } catch (Exception e) {
+            // the first failure completes the populate, the ranges still running are of no use any more
+            if (done.completeExceptionally(e.getCause() != null ? e.getCause() : e)) {
+              running.forEach(other -> other.cancel(true));
+            }
+            return;
+          }
+          if (remaining.decrementAndGet() == 0) {
+            done.complete(pages);
+          } else {
+            run();
+          }
+        });
+      }
+    };
+    for (int i = 0; i < Math.min(maxConcurrent, ranges.size()); i++) {
+      startNext.run();
+    }
+    return done;
+  }
+
+  private ObjectIds requestObjectIds(String whereClause) throws IOException {
+    String query = featureTable.getUri() + "/query?where=" + URLEncoder.encode(whereClause, "UTF-8") +
+        "&returnIdsOnly=true&f=json";
+    HttpURLConnection connection = (HttpURLConnection) new URL(query).openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    JsonObject response;
+    try {
+      int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Object ID query failed: HTTP " + status);
+      }
+      response = ServiceResponses.parse(ServiceResponses.read(connection));
+    } finally {
+      connection.disconnect();
+    }
+
+    // services report errors in the body with a 200 status
+    if (response == null || response.has("error")) {
+      throw new IOException("Object ID query failed" + ServiceResponses.errorMessage(response));
+    }
+    JsonElement ids = response.get("objectIds");
+    if (ids == null || !(ids.isJsonNull() || ids.isJsonArray())) {
+      throw new IOException("Object ID query returned no object IDs");
+    }
+    // a query matching no features returns null object IDs
+    long[] sortedIds = ids.isJsonNull() ? new long[0] :
+        StreamSupport.stream(ids.getAsJsonArray().spliterator(), false).mapToLong(JsonElement::getAsLong).sorted()
+            .toArray();
+
+    JsonElement field = response.get("objectIdFieldName");
+    return new ObjectIds(field != null && field.isJsonPrimitive() ? field.getAsString() : objectIdField(), sortedIds);
+  }
+
+  private String objectIdField() throws IOException {
+    String field = FeatureTables.objectIdField(featureTable);
+    if (field == null) {
+      throw new IOException("Table has no object ID field");
+    }
+    return field;
+  }
+
+  private static final class ObjectIds {
+
+    final String fieldName;
+    final long[] ids;
+
+    ObjectIds(String fieldName, long[] ids) {
+      this.fieldName = fieldName;
+      this.ids = ids;
+    }
+  }
+
+  /**
+   * Timings of the ranges, written by each range's completion listener.
+   */
+  private static final class Pages {
+
+    final int[] featureCounts;
+    final long[] millis;
+
+    Pages(int size) {
+      featureCounts = new int[size];
+      millis = new long[size];
+    }
+  }
+}
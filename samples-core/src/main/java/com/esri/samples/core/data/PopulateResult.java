@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.util.Arrays;
+
+/**
+ * Timings of a {@link ParallelPopulator} run. Each page is one object ID range requested with
+ * {@code populateFromServiceAsync}.
+ */
+public final class PopulateResult {
+
+  private final long idMillis;
+  private final long totalMillis;
+  private final int[] pageFeatureCounts;
+  private final long[] pageMillis;
+
+  PopulateResult(long idMillis, long totalMillis, int[] pageFeatureCounts, long[] pageMillis) {
+    this.idMillis = idMillis;
+    this.totalMillis = totalMillis;
+    this.pageFeatureCounts = pageFeatureCounts;
+    this.pageMillis = pageMillis;
+  }
+
+  /**
+   * @return number of features added to the table
+   */
+  public int getFeatureCount() {
+    return Arrays.stream(pageFeatureCounts).sum();
+  }
+
+  /**
+   * @return number of object ID ranges requested
+   */
+  public int getPageCount() {
+    return pageMillis.length;
+  }
+
+  /**
+   * @return time taken to request the object IDs in milliseconds
+   */
+  public long getIdMillis() {
+    return idMillis;
+  }
+
+  /**
+   * @return time from the start of the object ID request until the last page was added, in milliseconds
+   */
+  public long getTotalMillis() {
+    return totalMillis;
+  }
+
+  /**
+   * @return number of features in each page, in object ID order
+   */
+  public int[] getPageFeatureCounts() {
+    return pageFeatureCounts.clone();
+  }
+
+  /**
+   * @return time taken by each page in milliseconds, in object ID order
+   */
+  public long[] getPageMillis() {
+    return pageMillis.clone();
+  }
+
+  /**
+   * @return the longest time taken by a page in milliseconds, or 0 if there were no pages
+   */
+  public long getSlowestPageMillis() {
+    return Arrays.stream(pageMillis).max().orElse(0);
+  }
+
+  /**
+   * @return the sum of the page times in milliseconds, an estimate of requesting the same ranges one after another
+   */
+  public long getSerialPageMillis() {
+    return Arrays.stream(pageMillis).sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d features in %d pages: %d ms total, %d ms for object IDs, pages %d ms summed, %d ms slowest",
+        getFeatureCount(), getPageCount(), totalMillis, idMillis, getSerialPageMillis(), getSlowestPageMillis());
+  }
+}
@@ -0,0 +1,474 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.arcgisservices.RelationshipInfo;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.ArcGISFeature;
+import com.esri.arcgisruntime.data.ArcGISFeatureTable;
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.RelatedFeatureQueryResult;
+import com.esri.arcgisruntime.data.RelatedQueryParameters;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+
+/**
+ * Caches the features related to the features of a service feature table, prefetching them for many features at once.
+ *
+ * <p>{@code queryRelatedFeaturesAsync} takes a single feature, so browsing a list of features makes one request per
+ * feature and relationship. Instead, {@link #prefetchAsync} requests the related features of a page of features with
+ * one query per relationship, matching the relationship's key field in the related table against the key values of the
+ * whole page, and groups the results by feature. Entries are kept by relationship and object ID, with LRU eviction to a
+ * maximum number of entries.
+ *
+ * <p>Prefetching needs the source table to be a service feature table, since the related table is opened from the same
+ * service. Features which have not been prefetched, and relationships through an intermediate relationship table, are
+ * queried one at a time with {@code queryRelatedFeaturesAsync} and cached the same way.
+ */
+public final class RelatedFeatureCache {
+
+  /** Default maximum number of cached relationship and feature pairs. */
+  public static final int DEFAULT_MAX_ENTRIES = 2000;
+
+  /** Default number of features whose related features are prefetched at once. */
+  public static final int DEFAULT_PREFETCH_DEPTH = 50;
+
+  private final ArcGISFeatureTable sourceTable;
+  private final String objectIdField;
+  private final int maxEntries;
+  private final int prefetchDepth;
+
+  private final Map<Key, RelatedFeatures> entries;
+  private final Map<Key, CompletableFuture<RelatedFeatures>> pending = new HashMap<>();
+  private final Map<Long, CompletableFuture<RelatedTable>> relatedTables = new HashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder prefetched = new LongAdder();
+  private final LongAdder batchQueries = new LongAdder();
+  private final LongAdder singleQueries = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache with the default size and prefetch depth.
+   *
+   * @param sourceTable loaded table whose features' related features are cached
+   */
+  public RelatedFeatureCache(ArcGISFeatureTable sourceTable) {
+    this(sourceTable, DEFAULT_MAX_ENTRIES, DEFAULT_PREFETCH_DEPTH);
+  }
+
+  /**
+   * Creates a cache.
+   *
+   * @param sourceTable loaded table whose features' related features are cached
+   * @param maxEntries maximum number of cached relationship and feature pairs
+   * @param prefetchDepth maximum number of features whose related features are prefetched at once
+   */
+  public RelatedFeatureCache(ArcGISFeatureTable sourceTable, int maxEntries, int prefetchDepth) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Maximum entries must be positive");
+    }
+    if (prefetchDepth <= 0) {
+      throw new IllegalArgumentException("Prefetch depth must be positive");
+    }
+    this.sourceTable = sourceTable;
+    this.objectIdField = FeatureTables.objectIdField(sourceTable);
+    this.maxEntries = maxEntries;
+    this.prefetchDepth = prefetchDepth;
+    entries = new LinkedHashMap<Key, RelatedFeatures>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, RelatedFeatures> eldest) {
+        if (size() > RelatedFeatureCache.this.maxEntries) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets the features related to a feature through every relationship of its table.
+   *
+   * @param feature feature of the source table
+   * @return a future completing with the related features of each relationship
+   */
+  public CompletableFuture<List<RelatedFeatures>> queryAsync(ArcGISFeature feature) {
+    List<CompletableFuture<RelatedFeatures>> queries = new ArrayList<>();
+    for (RelationshipInfo relationshipInfo : sourceTable.getLayerInfo().getRelationshipInfos()) {
+      queries.add(queryAsync(feature, relationshipInfo));
+    }
+    return CompletableFuture.allOf(queries.toArray(new CompletableFuture[0])).thenApply(v -> {
+      List<RelatedFeatures> results = new ArrayList<>();
+      for (CompletableFuture<RelatedFeatures> query : queries) {
+        results.add(query.join());
+      }
+      return results;
+    });
+  }
+
+  /**
+   * Gets the features related to a feature through a relationship, from the cache or a running prefetch if possible.
+   *
+   * @param feature feature of the source table
+   * @param relationshipInfo relationship of the source table
+   * @return a future completing with the related features
+   */
+  public CompletableFuture<RelatedFeatures> queryAsync(ArcGISFeature feature, RelationshipInfo relationshipInfo) {
+    Key key = key(feature, relationshipInfo);
+    CompletableFuture<RelatedFeatures> query;
+    synchronized (this) {
+      RelatedFeatures cached = key != null ? entries.get(key) : null;
+      if (cached != null) {
+        hits.increment();
+        return CompletableFuture.completedFuture(cached);
+      }
+      misses.increment();
+      CompletableFuture<RelatedFeatures> running = key != null ? pending.get(key) : null;
+      if (running != null) {
+        return running;
+      }
+      query = new CompletableFuture<>();
+      if (key != null) {
+        pending.put(key, query);
+      }
+    }
+
+    singleQueries.increment();
+    RelatedQueryParameters relatedQueryParameters = new RelatedQueryParameters(relationshipInfo);
+    relatedQueryParameters.setReturnGeometry(true);
+    ListenableFuture<List<RelatedFeatureQueryResult>> relatedQuery =
+        sourceTable.queryRelatedFeaturesAsync(feature, relatedQueryParameters);
+    relatedQuery.addDoneListener(() -> {
+      try {
+        List<Feature> features = new ArrayList<>();
+        ArcGISFeatureTable relatedTable = null;
+        for (RelatedFeatureQueryResult result : relatedQuery.get()) {
+          relatedTable = result.getRelatedTable();
+          result.forEach(features::add);
+        }
+        complete(key, query, new RelatedFeatures(relationshipInfo, relatedTable, features));
+      } catch (Exception e) {
+        fail(Collections.singletonList(key), Collections.singletonList(query), e.getCause() != null ?
+            e.getCause() : e);
+      }
+    });
+    return query;
+  }
+
+  /**
+   * Requests the related features of the first features not yet cached, up to the prefetch depth, with one query per
+   * relationship. The features' key fields must have been loaded.
+   *
+   * @param features features of the source table, in the order they are likely to be used
+   * @return a future completing with the number of features whose related features were prefetched
+   */
+  public CompletableFuture<Integer> prefetchAsync(List<? extends Feature> features) {
+    if (!(sourceTable instanceof ServiceFeatureTable)) {
+      return CompletableFuture.completedFuture(0);
+    }
+    List<CompletableFuture<Integer>> batches = new ArrayList<>();
+    for (RelationshipInfo relationshipInfo : sourceTable.getLayerInfo().getRelationshipInfos()) {
+      String keyField = relationshipInfo.getKeyField();
+      String relationshipTableKey = relationshipInfo.getKeyFieldInRelationshipTable();
+      if (keyField == null || relationshipTableKey != null && !relationshipTableKey.isEmpty()) {
+        continue;
+      }
+
+      // claim the features which are neither cached nor being requested
+      Map<Object, List<Key>> keysByValue = new LinkedHashMap<>();
+      Map<Key, CompletableFuture<RelatedFeatures>> claimed = new LinkedHashMap<>();
+      synchronized (this) {
+        for (Feature feature : features) {
+          if (claimed.size() >= prefetchDepth) {
+            break;
+          }
+          Key key = key(feature, relationshipInfo);
+          Object value = AttributeIndex.key(feature.getAttributes().get(keyField));
+          if (key == null || value == null || entries.containsKey(key) || pending.containsKey(key)) {
+            continue;
+          }
+          CompletableFuture<RelatedFeatures> query = new CompletableFuture<>();
+          pending.put(key, query);
+          claimed.put(key, query);
+          keysByValue.computeIfAbsent(value, v -> new ArrayList<>()).add(key);
+        }
+      }
+      if (!claimed.isEmpty()) {
+        batches.add(prefetch(relationshipInfo, keysByValue, claimed));
+      }
+    }
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(v ->
+        batches.stream().mapToInt(CompletableFuture::join).sum());
+  }
+
+  private CompletableFuture<Integer> prefetch(RelationshipInfo relationshipInfo, Map<Object, List<Key>> keysByValue,
+      Map<Key, CompletableFuture<RelatedFeatures>> claimed) {
+    return relatedTable(relationshipInfo).thenCompose(related -> {
+      batchQueries.increment();
+      Map<Object, List<Feature>> featuresByValue = new HashMap<>();
+      return FeaturePages.forEach(related.table, () -> {
+        QueryParameters queryParameters = new QueryParameters();
+        queryParameters.setWhereClause(inClause(related.keyField, keysByValue.keySet()));
+        return queryParameters;
+      }, feature -> {
+        Object value = AttributeIndex.key(feature.getAttributes().get(related.keyField));
+        featuresByValue.computeIfAbsent(value, v -> new ArrayList<>()).add(feature);
+      }).thenApply(count -> {
+        for (Map.Entry<Object, List<Key>> entry : keysByValue.entrySet()) {
+          List<Feature> relatedFeatures = featuresByValue.getOrDefault(entry.getKey(), Collections.emptyList());
+          for (Key key : entry.getValue()) {
+            complete(key, claimed.get(key), new RelatedFeatures(relationshipInfo, related.table, relatedFeatures));
+          }
+        }
+        prefetched.add(claimed.size());
+        return claimed.size();
+      });
+    }).whenComplete((count, ex) -> {
+      if (ex != null) {
+        fail(claimed.keySet(), claimed.values(), ex);
+      }
+    });
+  }
+
+  /**
+   * Opens and loads the related table of a relationship from the source table's service, and finds its key field.
+   */
+  private synchronized CompletableFuture<RelatedTable> relatedTable(RelationshipInfo relationshipInfo) {
+    return relatedTables.computeIfAbsent(relationshipInfo.getId(), id -> {
+      CompletableFuture<RelatedTable> loaded = new CompletableFuture<>();
+      String uri = ((ServiceFeatureTable) sourceTable).getUri();
+      ServiceFeatureTable table =
+          new ServiceFeatureTable(uri.substring(0, uri.lastIndexOf('/') + 1) + relationshipInfo.getRelatedTableId());
+      table.addDoneLoadingListener(() -> {
+        if (table.getLoadStatus() != LoadStatus.LOADED) {
+          loaded.completeExceptionally(table.getLoadError());
+          return;
+        }
+        // the related table describes the same relationship from its side, with its own key field
+        for (RelationshipInfo inverse : table.getLayerInfo().getRelationshipInfos()) {
+          if (inverse.getId() == relationshipInfo.getId() && inverse.getKeyField() != null) {
+            loaded.complete(new RelatedTable(table, inverse.getKeyField()));
+            return;
+          }
+        }
+        loaded.completeExceptionally(new IllegalStateException("Related table has no key field for relationship " +
+            relationshipInfo.getName()));
+      });
+      // forget failed tables so that they are opened again by the next prefetch
+      loaded.whenComplete((related, ex) -> {
+        if (ex != null) {
+          synchronized (this) {
+            relatedTables.remove(id);
+          }
+        }
+      });
+      table.loadAsync();
+      return loaded;
+    });
+  }
+
+  private synchronized void complete(Key key, CompletableFuture<RelatedFeatures> query, RelatedFeatures related) {
+    if (key != null) {
+      pending.remove(key);
+      entries.put(key, related);
+    }
+    query.complete(related);
+  }
+
+  private void fail(Iterable<Key> keys, Iterable<CompletableFuture<RelatedFeatures>> queries, Throwable error) {
+    synchronized (this) {
+      for (Key key : keys) {
+        if (key != null) {
+          pending.remove(key);
+        }
+      }
+    }
+    for (CompletableFuture<RelatedFeatures> query : queries) {
+      query.completeExceptionally(error);
+    }
+  }
+
+  private Key key(Feature feature, RelationshipInfo relationshipInfo) {
+    Long objectId = FeatureTables.objectId(feature, objectIdField);
+    return objectId != null ? new Key(relationshipInfo.getId(), objectId) : null;
+  }
+
+  private static String inClause(String field, Iterable<Object> values) {
+    StringBuilder clause = new StringBuilder(field).append(" IN (");
+    boolean first = true;
+    for (Object value : values) {
+      if (!first) {
+        clause.append(", ");
+      }
+      first = false;
+      if (value instanceof Double && (Double) value == Math.rint((Double) value)) {
+        clause.append(((Double) value).longValue());
+      } else if (value instanceof Number) {
+        clause.append(value);
+      } else if (value instanceof UUID) {
+        clause.append("'{").append(value.toString().toUpperCase()).append("}'");
+      } else {
+        clause.append('\'').append(value.toString().replace("'", "''")).append('\'');
+      }
+    }
+    return clause.append(')').toString();
+  }
+
+  /**
+   * @return number of cached relationship and feature pairs
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return number of queries answered from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of queries not answered from the cache, including those waiting for a running prefetch
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return number of relationship and feature pairs prefetched
+   */
+  public long getPrefetchCount() {
+    return prefetched.sum();
+  }
+
+  /**
+   * @return number of prefetch queries, one per relationship and page of features
+   */
+  public long getBatchQueryCount() {
+    return batchQueries.sum();
+  }
+
+  /**
+   * @return number of related feature queries made for single features
+   */
+  public long getSingleQueryCount() {
+    return singleQueries.sum();
+  }
+
+  /**
+   * @return number of entries evicted to stay within the maximum entries
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d entries, %d hits, %d misses, %d prefetched in %d queries, %d single queries, %d evictions",
+        size(), getHitCount(), getMissCount(), getPrefetchCount(), getBatchQueryCount(), getSingleQueryCount(),
+        getEvictionCount());
+  }
+
+  /**
+   * The features related to one feature through one relationship.
+   */
+  public static final class RelatedFeatures {
+
+    private final RelationshipInfo relationshipInfo;
+    private final ArcGISFeatureTable relatedTable;
+    private final List<Feature> features;
+
+    RelatedFeatures(RelationshipInfo relationshipInfo, ArcGISFeatureTable relatedTable, List<Feature> features) {
+      this.relationshipInfo = relationshipInfo;
+      this.relatedTable = relatedTable;
+      this.features = Collections.unmodifiableList(features);
+    }
+
+    /**
+     * @return the relationship
+     */
+    public RelationshipInfo getRelationshipInfo() {
+      return relationshipInfo;
+    }
+
+    /**
+     * @return the related table, or null if no related features were found with queryRelatedFeaturesAsync
+     */
+    public ArcGISFeatureTable getRelatedTable() {
+      return relatedTable;
+    }
+
+    /**
+     * @return the related features
+     */
+    public List<Feature> getFeatures() {
+      return features;
+    }
+  }
+
+  private static final class RelatedTable {
+
+    final ServiceFeatureTable table;
+    final String keyField;
+
+    RelatedTable(ServiceFeatureTable table, String keyField) {
+      this.table = table;
+      this.keyField = keyField;
+    }
+  }
+
+  private static final class Key {
+
+    final long relationshipId;
+    final long objectId;
+
+    Key(long relationshipId, long objectId) {
+      this.relationshipId = relationshipId;
+      this.objectId = objectId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return relationshipId == other.relationshipId && objectId == other.objectId;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(relationshipId, objectId);
+    }
+  }
+}
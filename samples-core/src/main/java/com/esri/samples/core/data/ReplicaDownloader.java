@@ -0,0 +1,763 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.esri.arcgisruntime.concurrent.Job;
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.Geodatabase;
+import com.esri.arcgisruntime.data.GeodatabaseFeatureTable;
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.loadable.Loadable;
+import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseJob;
+import com.esri.arcgisruntime.tasks.geodatabase.GenerateGeodatabaseParameters;
+import com.esri.arcgisruntime.tasks.geodatabase.GenerateLayerOption;
+import com.esri.arcgisruntime.tasks.geodatabase.GeodatabaseSyncTask;
+
+/**
+ * Downloads a replica of a feature service as one geodatabase per layer, running several generate jobs at once and
+ * keeping the finished parts on disk so that a failed or interrupted download resumes where it stopped.
+ *
+ * <p>The parameters of the download are split into one part per layer option. Layers filtered by geometry can also
+ * be split into a grid of cells over the extent. The service returns every feature intersecting a cell, so a feature
+ * crossing the edge of a cell is in the geodatabases of all cells it touches: it is counted once per cell and, when
+ * each geodatabase is shown in its own layer, drawn once per cell. Layers showing a grid should therefore be combined
+ * by object ID, or a grid size of 1 used where features must appear once.
+ *
+ * <p>Each part is generated into its own file in the download directory, and a manifest in the same directory lists
+ * the parts which have finished along with their size, feature count and duration. When a download is started again
+ * with the same parameters, finished parts whose file is still there are opened instead of generated; a change to the
+ * service, extent, spatial reference, layers or grid discards them, unregistering their replicas before deleting
+ * their files.
+ *
+ * <p>Each part is a separate replica which is synced on its own. Downloads which are not synced call
+ * {@link #unregisterAsync()}, which unregisters every finished part once, whether it was generated by this download
+ * or by an earlier one which failed.
+ */
+public final class ReplicaDownloader {
+
+  /** Default number of generate jobs run at once. */
+  public static final int DEFAULT_MAX_CONCURRENT_JOBS = 3;
+
+  private static final String MANIFEST = "parts.properties";
+  private static final String PLAN = "plan";
+  private static final String BYTES = ".bytes";
+  private static final String UNREGISTERED = ".unregistered";
+
+  /**
+   * State of a part of the download.
+   */
+  public enum PartStatus {
+    /** Waiting for a job slot. */
+    PENDING,
+    /** Generating. */
+    RUNNING,
+    /** Generated by this download. */
+    SUCCEEDED,
+    /** Opened from a previous download. */
+    RESUMED,
+    /** Failed to generate or open. */
+    FAILED
+  }
+
+  private final GeodatabaseSyncTask syncTask;
+  private final Path directory;
+  private final int maxConcurrentJobs;
+  private final int gridSize;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+  private List<Part> parts = Collections.emptyList();
+  private final Deque<Part> queue = new ArrayDeque<>();
+  private final Properties manifest = new Properties();
+  private int running;
+  private int opening;
+  private boolean discarding;
+  private boolean cancelled;
+  private CompletableFuture<List<Part>> download;
+
+  /**
+   * Creates a downloader which runs {@link #DEFAULT_MAX_CONCURRENT_JOBS} jobs at once and does not split layers by
+   * extent.
+   *
+   * @param syncTask loaded task of the feature service
+   * @param directory directory for the geodatabases and the manifest, created if needed
+   */
+  public ReplicaDownloader(GeodatabaseSyncTask syncTask, Path directory) {
+    this(syncTask, directory, DEFAULT_MAX_CONCURRENT_JOBS, 1);
+  }
+
+  /**
+   * Creates a downloader.
+   *
+   * @param syncTask loaded task of the feature service
+   * @param directory directory for the geodatabases and the manifest, created if needed
+   * @param maxConcurrentJobs number of generate jobs run at once
+   * @param gridSize number of rows and columns of cells each layer filtered by geometry is split into
+   */
+  public ReplicaDownloader(GeodatabaseSyncTask syncTask, Path directory, int maxConcurrentJobs, int gridSize) {
+    if (maxConcurrentJobs <= 0) {
+      throw new IllegalArgumentException("Maximum concurrent jobs must be positive");
+    }
+    if (gridSize <= 0) {
+      throw new IllegalArgumentException("Grid size must be positive");
+    }
+    this.syncTask = syncTask;
+    this.directory = directory;
+    this.maxConcurrentJobs = maxConcurrentJobs;
+    this.gridSize = gridSize;
+  }
+
+  /**
+   * Downloads the replica described by the parameters, resuming from the parts finished by an earlier download with
+   * the same parameters. The extent, output spatial reference, attachments and sync model of the parameters apply to
+   * every part. The geodatabases of the previous download are closed first, since their files are opened again or
+   * deleted, so layers showing their tables must be removed before calling this.
+   *
+   * @param parameters parameters of the whole download
+   * @return a future completing with the loaded geodatabases of all parts, or failing with the error of the first part
+   * which failed once all others have finished
+   * @throws IllegalStateException if a download is already running
+   */
+  public synchronized CompletableFuture<List<Part>> downloadAsync(GenerateGeodatabaseParameters parameters) {
+    if (download != null && !download.isDone()) {
+      throw new IllegalStateException("A download is already running");
+    }
+    download = new CompletableFuture<>();
+    cancelled = false;
+    // release the files of the previous download before they are opened again or deleted
+    for (Part part : parts) {
+      if (part.geodatabase != null) {
+        part.geodatabase.close();
+        part.geodatabase = null;
+      }
+    }
+    String plan = plan(parameters);
+    List<String> staleIds;
+    try {
+      Files.createDirectories(directory);
+      parts = split(parameters);
+      staleIds = readManifest(plan);
+    } catch (IOException e) {
+      download.completeExceptionally(e);
+      return download;
+    }
+
+    if (staleIds.isEmpty()) {
+      start();
+    } else {
+      // the parts of an earlier download for other parameters are unregistered before their files are deleted
+      discarding = true;
+      discard(staleIds).whenComplete((discarded, ex) -> {
+        synchronized (this) {
+          discarding = false;
+          try {
+            manifest.clear();
+            manifest.setProperty(PLAN, plan);
+            saveManifest();
+          } catch (IOException e) {
+            download.completeExceptionally(e);
+            return;
+          }
+          start();
+        }
+        notifyListeners();
+      });
+    }
+    notifyListeners();
+    return download;
+  }
+
+  /**
+   * Opens the parts finished by an earlier download and queues the others. Must be called while holding the lock.
+   */
+  private void start() {
+    List<Part> finished = new ArrayList<>();
+    for (Part part : parts) {
+      if (cancelled) {
+        part.status = PartStatus.FAILED;
+        part.error = new IllegalStateException("Download cancelled");
+      } else if (manifest.containsKey(part.id + BYTES) && Files.exists(part.path)) {
+        // count the parts being opened, so the download cannot complete before all are open
+        part.status = PartStatus.RUNNING;
+        opening++;
+        finished.add(part);
+      } else {
+        queue.add(part);
+      }
+    }
+    finished.forEach(this::resume);
+    startQueued();
+    completeIfDone();
+  }
+
+  /**
+   * Cancels the running jobs, the parts being opened and the parts waiting to start. Finished parts stay on disk for
+   * the next download.
+   */
+  public void cancel() {
+    List<Job> jobs = new ArrayList<>();
+    synchronized (this) {
+      if (download == null || download.isDone()) {
+        return;
+      }
+      cancelled = true;
+      queue.forEach(part -> {
+        part.status = PartStatus.FAILED;
+        part.error = new IllegalStateException("Download cancelled");
+      });
+      queue.clear();
+      for (Part part : parts) {
+        if (part.status != PartStatus.RUNNING) {
+          continue;
+        }
+        if (part.job != null) {
+          jobs.add(part.job);
+        } else {
+          // a part being opened from an earlier download, whose geodatabase is closed once it has loaded
+          part.status = PartStatus.FAILED;
+          part.error = new IllegalStateException("Download cancelled");
+          opening--;
+        }
+      }
+      completeIfDone();
+    }
+    // the job done listeners record the cancelled parts
+    jobs.forEach(Job::cancel);
+    notifyListeners();
+  }
+
+  /**
+   * Unregisters the replicas of the finished parts which have not been unregistered yet, for downloads which are not
+   * synced. The parts stay on disk and can still be resumed.
+   *
+   * @return a future completing once all replicas are unregistered, or failing with the first error
+   */
+  public CompletableFuture<Void> unregisterAsync() {
+    List<CompletableFuture<Void>> unregisters = new ArrayList<>();
+    synchronized (this) {
+      String plan = manifest.getProperty(PLAN);
+      for (Part part : parts) {
+        Geodatabase geodatabase = part.geodatabase;
+        if (geodatabase != null && !manifest.containsKey(part.id + UNREGISTERED)) {
+          unregisters.add(unregister(geodatabase).thenRun(() -> markUnregistered(plan, part.id)));
+        }
+      }
+    }
+    return CompletableFuture.allOf(unregisters.toArray(new CompletableFuture[0]));
+  }
+
+  private synchronized void markUnregistered(String plan, String id) {
+    // a download for other parameters may have replaced the manifest meanwhile
+    if (!plan.equals(manifest.getProperty(PLAN))) {
+      return;
+    }
+    manifest.setProperty(id + UNREGISTERED, Boolean.TRUE.toString());
+    try {
+      saveManifest();
+    } catch (IOException e) {
+      // unregistered again by the next call, which fails on the service and is ignored
+    }
+  }
+
+  private CompletableFuture<Void> unregister(Geodatabase geodatabase) {
+    CompletableFuture<Void> unregistered = new CompletableFuture<>();
+    ListenableFuture<Void> unregister = syncTask.unregisterGeodatabaseAsync(geodatabase);
+    unregister.addDoneListener(() -> {
+      try {
+        unregister.get();
+        unregistered.complete(null);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        unregistered.completeExceptionally(e);
+      } catch (ExecutionException e) {
+        unregistered.completeExceptionally(e.getCause());
+      }
+    });
+    return unregistered;
+  }
+
+  /**
+   * Unregisters the replicas of parts from the manifest of an earlier download which were not unregistered yet, and
+   * deletes their files. Replicas which cannot be unregistered, e.g. because the service removed them, are deleted
+   * all the same.
+   */
+  private CompletableFuture<Void> discard(List<String> ids) {
+    List<CompletableFuture<Void>> discards = new ArrayList<>();
+    for (String id : ids) {
+      Path path = directory.resolve(id + ".geodatabase");
+      CompletableFuture<Void> unregistered;
+      Geodatabase geodatabase = null;
+      if (manifest.containsKey(id + UNREGISTERED) || !Files.exists(path)) {
+        unregistered = CompletableFuture.completedFuture(null);
+      } else {
+        Geodatabase opened = new Geodatabase(path.toString());
+        geodatabase = opened;
+        unregistered = loadAsync(opened).thenCompose(loaded -> unregister(opened));
+      }
+      Geodatabase toClose = geodatabase;
+      discards.add(unregistered.handle((result, ex) -> {
+        if (toClose != null) {
+          toClose.close();
+        }
+        try {
+          Files.deleteIfExists(path);
+        } catch (IOException e) {
+          // generated into again, which deletes it first
+        }
+        return null;
+      }));
+    }
+    return CompletableFuture.allOf(discards.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Splits the parameters into one part per layer option and, for layers filtered by geometry, grid cell.
+   */
+  private List<Part> split(GenerateGeodatabaseParameters parameters) {
+    List<Part> split = new ArrayList<>();
+    Geometry extent = parameters.getExtent();
+    for (GenerateLayerOption layerOption : parameters.getLayerOptions()) {
+      String layerId = "layer-" + layerOption.getLayerId();
+      if (gridSize == 1 || extent == null || !layerOption.isUseGeometry()) {
+        split.add(new Part(layerId, layerOption.getLayerId(), create(parameters, layerOption, extent)));
+        continue;
+      }
+      Envelope envelope = extent.getExtent();
+      double cellWidth = envelope.getWidth() / gridSize;
+      double cellHeight = envelope.getHeight() / gridSize;
+      for (int row = 0; row < gridSize; row++) {
+        for (int column = 0; column < gridSize; column++) {
+          Envelope cell = new Envelope(envelope.getXMin() + column * cellWidth, envelope.getYMin() + row * cellHeight,
+              envelope.getXMin() + (column + 1) * cellWidth, envelope.getYMin() + (row + 1) * cellHeight,
+              envelope.getSpatialReference());
+          Geometry cellExtent = extent instanceof Envelope ? cell : GeometryEngine.intersection(extent, cell);
+          if (cellExtent != null && !cellExtent.isEmpty()) {
+            split.add(new Part(layerId + "-" + row + "-" + column, layerOption.getLayerId(),
+                create(parameters, layerOption, cellExtent)));
+          }
+        }
+      }
+    }
+    return split;
+  }
+
+  private static GenerateGeodatabaseParameters create(GenerateGeodatabaseParameters parameters,
+      GenerateLayerOption layerOption, Geometry extent) {
+    GenerateGeodatabaseParameters partParameters = new GenerateGeodatabaseParameters();
+    partParameters.setExtent(extent);
+    partParameters.setOutSpatialReference(parameters.getOutSpatialReference());
+    partParameters.setReturnAttachments(parameters.isReturnAttachments());
+    partParameters.setSyncModel(parameters.getSyncModel());
+    partParameters.getLayerOptions().add(layerOption);
+    return partParameters;
+  }
+
+  /**
+   * Describes the parameters, so that parts are only resumed by a download of the same replica.
+   */
+  private String plan(GenerateGeodatabaseParameters parameters) {
+    StringBuilder plan = new StringBuilder(syncTask.getUri()).append('|')
+        .append(parameters.getExtent() != null ? parameters.getExtent().toJson() : "").append('|')
+        .append(wkid(parameters.getOutSpatialReference())).append('|')
+        .append(parameters.isReturnAttachments()).append('|')
+        .append(parameters.getSyncModel()).append('|')
+        .append(gridSize);
+    for (GenerateLayerOption layerOption : parameters.getLayerOptions()) {
+      plan.append('|').append(layerOption.getLayerId()).append(':').append(layerOption.getWhereClause());
+    }
+    return plan.toString();
+  }
+
+  private static int wkid(SpatialReference spatialReference) {
+    return spatialReference != null ? spatialReference.getWkid() : 0;
+  }
+
+  /**
+   * Reads the manifest. If it was written for other parameters, the IDs of the parts it lists are returned, and it is
+   * replaced once they have been discarded.
+   *
+   * @return IDs of finished parts of an earlier download for other parameters
+   */
+  private List<String> readManifest(String plan) throws IOException {
+    manifest.clear();
+    Path path = directory.resolve(MANIFEST);
+    if (Files.exists(path)) {
+      try (Reader reader = Files.newBufferedReader(path)) {
+        manifest.load(reader);
+      }
+    }
+    List<String> staleIds = new ArrayList<>();
+    if (!plan.equals(manifest.getProperty(PLAN))) {
+      for (String key : manifest.stringPropertyNames()) {
+        if (key.endsWith(BYTES)) {
+          staleIds.add(key.substring(0, key.length() - BYTES.length()));
+        }
+      }
+      if (staleIds.isEmpty()) {
+        manifest.clear();
+        manifest.setProperty(PLAN, plan);
+        saveManifest();
+      }
+    }
+    return staleIds;
+  }
+
+  private void saveManifest() throws IOException {
+    Path temporary = Files.createTempFile(directory, "parts", ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temporary)) {
+      manifest.store(writer, null);
+    }
+    Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Opens the geodatabase of a part finished by an earlier download, generating it again if it cannot be opened.
+   * Must be called while holding the lock, with the part counted as opening.
+   */
+  private void resume(Part part) {
+    Geodatabase geodatabase = new Geodatabase(part.path.toString());
+    countFeatures(geodatabase).whenComplete((count, ex) -> {
+      synchronized (this) {
+        if (part.status != PartStatus.RUNNING) {
+          // cancelled while opening
+          geodatabase.close();
+          return;
+        }
+        opening--;
+        if (ex == null) {
+          part.status = PartStatus.RESUMED;
+          part.geodatabase = geodatabase;
+          part.bytes = Long.parseLong(manifest.getProperty(part.id + BYTES));
+          part.featureCount = count;
+          part.millis = Long.parseLong(manifest.getProperty(part.id + ".millis", "0"));
+        } else {
+          // the file is damaged, download the part again
+          geodatabase.close();
+          part.status = PartStatus.PENDING;
+          queue.addFirst(part);
+        }
+        startQueued();
+        completeIfDone();
+      }
+      notifyListeners();
+    });
+  }
+
+  /**
+   * Starts generating waiting parts while job slots are free. Must be called while holding the lock.
+   */
+  private void startQueued() {
+    while (running < maxConcurrentJobs && !queue.isEmpty()) {
+      Part part = queue.poll();
+      running++;
+      part.status = PartStatus.RUNNING;
+      part.error = null;
+      long start = System.nanoTime();
+      try {
+        // a file left by an interrupted job cannot be generated into
+        Files.deleteIfExists(part.path);
+      } catch (IOException e) {
+        finish(part, null, 0, start, e);
+        continue;
+      }
+      GenerateGeodatabaseJob job = syncTask.generateGeodatabase(part.parameters, part.path.toString());
+      part.job = job;
+      job.addProgressChangedListener(this::notifyListeners);
+      job.addJobDoneListener(() -> {
+        if (job.getStatus() == Job.Status.SUCCEEDED) {
+          Geodatabase geodatabase = job.getResult();
+          countFeatures(geodatabase).whenComplete((count, ex) -> {
+            synchronized (this) {
+              finish(part, geodatabase, count != null ? count : 0, start, ex);
+            }
+            notifyListeners();
+          });
+        } else {
+          synchronized (this) {
+            finish(part, null, 0, start, job.getError() != null ? job.getError() :
+                new IllegalStateException("Generate job " + job.getStatus().toString().toLowerCase()));
+          }
+          notifyListeners();
+        }
+      });
+      job.start();
+    }
+  }
+
+  /**
+   * Records a finished part and starts the next one. Must be called while holding the lock.
+   */
+  private void finish(Part part, Geodatabase geodatabase, long featureCount, long start, Throwable error) {
+    running--;
+    part.job = null;
+    part.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    if (error == null) {
+      part.status = PartStatus.SUCCEEDED;
+      part.geodatabase = geodatabase;
+      part.featureCount = featureCount;
+      try {
+        part.bytes = Files.size(part.path);
+        manifest.setProperty(part.id + BYTES, Long.toString(part.bytes));
+        manifest.setProperty(part.id + ".features", Long.toString(featureCount));
+        manifest.setProperty(part.id + ".millis", Long.toString(part.millis));
+        // a part generated again is a new replica
+        manifest.remove(part.id + UNREGISTERED);
+        saveManifest();
+      } catch (IOException e) {
+        // the part is usable, but is generated again by the next download
+      }
+    } else {
+      part.status = PartStatus.FAILED;
+      part.error = error;
+      if (geodatabase != null) {
+        // generated, but unusable and not in the manifest, so its replica is not left registered
+        unregister(geodatabase).whenComplete((result, ex) -> geodatabase.close());
+      }
+    }
+    startQueued();
+    completeIfDone();
+  }
+
+  /**
+   * Completes the download once no part is running or waiting. Must be called while holding the lock.
+   */
+  private void completeIfDone() {
+    if (running > 0 || opening > 0 || discarding || !queue.isEmpty() || download.isDone()) {
+      return;
+    }
+    for (Part part : parts) {
+      if (part.status == PartStatus.FAILED) {
+        download.completeExceptionally(part.error);
+        return;
+      }
+    }
+    download.complete(new ArrayList<>(parts));
+  }
+
+  /**
+   * Loads a geodatabase and its tables, and counts their features.
+   */
+  private static CompletableFuture<Long> countFeatures(Geodatabase geodatabase) {
+    return loadAsync(geodatabase).thenCompose(loaded -> {
+      List<GeodatabaseFeatureTable> tables = geodatabase.getGeodatabaseFeatureTables();
+      CompletableFuture<?>[] tableLoads = tables.stream().map(ReplicaDownloader::loadAsync)
+          .toArray(CompletableFuture[]::new);
+      return CompletableFuture.allOf(tableLoads).thenApply(all ->
+          tables.stream().mapToLong(GeodatabaseFeatureTable::getTotalFeatureCount).sum());
+    });
+  }
+
+  private static CompletableFuture<Void> loadAsync(Loadable loadable) {
+    CompletableFuture<Void> loaded = new CompletableFuture<>();
+    loadable.addDoneLoadingListener(() -> {
+      if (loadable.getLoadStatus() == LoadStatus.LOADED) {
+        loaded.complete(null);
+      } else {
+        loaded.completeExceptionally(loadable.getLoadError());
+      }
+    });
+    loadable.loadAsync();
+    return loaded;
+  }
+
+  /**
+   * Adds a listener called whenever a part starts, makes progress or finishes, on the thread which made the change.
+   *
+   * @param listener listener to add
+   */
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  private void notifyListeners() {
+    changeListeners.forEach(Runnable::run);
+  }
+
+  /**
+   * @return the parts of the current or last download
+   */
+  public synchronized List<Part> getParts() {
+    return new ArrayList<>(parts);
+  }
+
+  /**
+   * @return progress of the whole download in percent, counting finished parts as complete
+   */
+  public synchronized int getProgress() {
+    if (parts.isEmpty()) {
+      return 0;
+    }
+    return parts.stream().mapToInt(Part::getProgress).sum() / parts.size();
+  }
+
+  /**
+   * @return number of parts with the given status
+   */
+  public synchronized long getCount(PartStatus status) {
+    return parts.stream().filter(part -> part.status == status).count();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("%d parts: %d generated, %d resumed, %d running, %d pending, %d failed", parts.size(),
+        getCount(PartStatus.SUCCEEDED), getCount(PartStatus.RESUMED), getCount(PartStatus.RUNNING),
+        getCount(PartStatus.PENDING), getCount(PartStatus.FAILED));
+  }
+
+  /**
+   * One layer, or one cell of a layer, of the download.
+   */
+  public final class Part {
+
+    private final String id;
+    private final long layerId;
+    private final GenerateGeodatabaseParameters parameters;
+    private final Path path;
+    private volatile PartStatus status = PartStatus.PENDING;
+    private volatile GenerateGeodatabaseJob job;
+    private volatile Geodatabase geodatabase;
+    private volatile Throwable error;
+    private volatile long bytes;
+    private volatile long featureCount;
+    private volatile long millis;
+
+    private Part(String id, long layerId, GenerateGeodatabaseParameters parameters) {
+      this.id = id;
+      this.layerId = layerId;
+      this.parameters = parameters;
+      this.path = directory.resolve(id + ".geodatabase");
+    }
+
+    /**
+     * @return identifier of the part, also the name of its file without extension
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * @return service layer ID of the layer in the part
+     */
+    public long getLayerId() {
+      return layerId;
+    }
+
+    /**
+     * @return extent of the part
+     */
+    public Geometry getExtent() {
+      return parameters.getExtent();
+    }
+
+    /**
+     * @return state of the part
+     */
+    public PartStatus getStatus() {
+      return status;
+    }
+
+    /**
+     * @return progress of the part in percent
+     */
+    public int getProgress() {
+      GenerateGeodatabaseJob runningJob = job;
+      if (status == PartStatus.SUCCEEDED || status == PartStatus.RESUMED) {
+        return 100;
+      }
+      return runningJob != null ? runningJob.getProgress() : 0;
+    }
+
+    /**
+     * @return the loaded geodatabase of the part, or null if it has not finished
+     */
+    public Geodatabase getGeodatabase() {
+      return geodatabase;
+    }
+
+    /**
+     * @return the error of a failed part, or null
+     */
+    public Throwable getError() {
+      return error;
+    }
+
+    /**
+     * @return size of the geodatabase file in bytes
+     */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /**
+     * @return number of features in the geodatabase, including features on the edge of a cell which are also in the
+     * geodatabases of the neighbouring cells
+     */
+    public long getFeatureCount() {
+      return featureCount;
+    }
+
+    /**
+     * @return time taken to generate the part in milliseconds, from the download which generated it
+     */
+    public long getMillis() {
+      return millis;
+    }
+
+    /**
+     * @return bytes downloaded per second while generating the part
+     */
+    public double getBytesPerSecond() {
+      return millis == 0 ? 0 : bytes * 1000.0 / millis;
+    }
+
+    /**
+     * @return features downloaded per second while generating the part
+     */
+    public double getFeaturesPerSecond() {
+      return millis == 0 ? 0 : featureCount * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s, %d features, %d KB in %d ms (%.0f features/s, %.0f KB/s)", id,
+          status.toString().toLowerCase(), featureCount, bytes / 1024, millis, getFeaturesPerSecond(),
+          getBytesPerSecond() / 1024);
+    }
+  }
+}
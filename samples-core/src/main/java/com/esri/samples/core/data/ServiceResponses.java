@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Helpers for reading the JSON responses of feature service REST endpoints, which report errors in the body with a
+ * 200 status.
+ */
+final class ServiceResponses {
+
+  private ServiceResponses() {
+  }
+
+  /**
+   * Reads the body of a response.
+   *
+   * @param connection connection which has been sent its request
+   * @return the body as UTF-8 text
+   * @throws IOException if the response has an error status or cannot be read
+   */
+  static String read(HttpURLConnection connection) throws IOException {
+    try (InputStream input = connection.getInputStream()) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int read; (read = input.read(buffer)) != -1; ) {
+        bytes.write(buffer, 0, read);
+      }
+      return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Parses a response body.
+   *
+   * @param body response body
+   * @return the JSON object, or null if the body is not one
+   */
+  static JsonObject parse(String body) {
+    try {
+      JsonElement json = new JsonParser().parse(body);
+      return json.isJsonObject() ? json.getAsJsonObject() : null;
+    } catch (JsonParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads the message of the "error" member of an object, which is a request error in a response or a rejected edit
+   * in an edit result.
+   *
+   * @param object response or result, may be null
+   * @return the message preceded by a colon, or an empty string if there is none
+   */
+  static String errorMessage(JsonObject object) {
+    JsonElement error = object != null ? object.get("error") : null;
+    if (error == null || !error.isJsonObject()) {
+      return "";
+    }
+    for (String name : new String[] {"message", "description"}) {
+      JsonElement message = error.getAsJsonObject().get(name);
+      if (message != null && message.isJsonPrimitive()) {
+        return ": " + message.getAsString();
+      }
+    }
+    return "";
+  }
+}
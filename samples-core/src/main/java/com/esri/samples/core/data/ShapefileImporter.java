@@ -0,0 +1,623 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.data.FeatureCollectionTable;
+import com.esri.arcgisruntime.data.Field;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryType;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Part;
+import com.esri.arcgisruntime.geometry.PartCollection;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+
+/**
+ * Imports the records of a shapefile into a {@link FeatureCollectionTable} and a {@link FeatureIndex}, so that the
+ * features can be drawn and queried by location without going back to the file.
+ *
+ * <p>The {@code .shp}, {@code .shx} and {@code .dbf} files are memory-mapped. Records are located through the
+ * {@code .shx} index, or by walking the record headers of the {@code .shp} file if there is none, and split into
+ * chunks which worker threads convert into geometries and attribute maps in parallel. The chunks are added to the
+ * table in file order on one thread, with a limited number of converted chunks waiting for it. The spatial index is
+ * packed once all features are added.
+ *
+ * <p>Points, multipoints, polylines and polygons are supported, with the z and m values of their variants dropped.
+ * Character, numeric, float, logical and date fields are imported; other fields, such as memo fields, are left out.
+ * Numeric fields without decimals and with fewer than 10 digits become integer fields and other numeric fields
+ * become double fields. Records marked as deleted in the {@code .dbf} file are skipped. The spatial reference is read
+ * from the {@code .prj} file and the text encoding from the {@code .cpg} file, defaulting to ISO-8859-1.
+ */
+public final class ShapefileImporter {
+
+  /** Default number of records converted by a worker at a time. */
+  public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+  private static final int HEADER_BYTES = 100;
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+  private final Path shapefile;
+  private final int threads;
+  private final int chunkSize;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+  private volatile FeatureCollectionTable table;
+  private volatile FeatureIndex index;
+  private volatile int recordCount;
+  private volatile long mappedBytes;
+  private final LongAdder importedCount = new LongAdder();
+  private final LongAdder skippedCount = new LongAdder();
+  private final LongAdder convertNanos = new LongAdder();
+  private volatile long insertNanos;
+  private volatile long indexNanos;
+  private volatile long totalMillis;
+
+  /**
+   * Creates an importer with a worker thread per processor and the default chunk size.
+   *
+   * @param shapefile path of the {@code .shp} file
+   */
+  public ShapefileImporter(Path shapefile) {
+    this(shapefile, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates an importer.
+   *
+   * @param shapefile path of the {@code .shp} file
+   * @param threads number of worker threads converting records
+   * @param chunkSize number of records converted by a worker at a time
+   */
+  public ShapefileImporter(Path shapefile, int threads, int chunkSize) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Thread count must be positive");
+    }
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    this.shapefile = shapefile;
+    this.threads = threads;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Adds a listener called as chunks of records are imported, on the importing thread.
+   *
+   * @param listener listener
+   */
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  /**
+   * Imports the shapefile in the background.
+   *
+   * @return future completing with the table holding the features, or exceptionally if a file cannot be read or
+   * holds an unsupported shape type
+   */
+  public CompletableFuture<FeatureCollectionTable> importAsync() {
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1,
+        new DaemonThreadFactory("shapefile-importer"));
+    // one thread adds the chunks in order while the others convert them
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return importFile(executor);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        executor.shutdown();
+      }
+    }, executor);
+  }
+
+  private FeatureCollectionTable importFile(ExecutorService executor) throws IOException {
+    long start = System.nanoTime();
+    mappedBytes = 0;
+    String baseName = shapefile.getFileName().toString().replaceFirst("(?i)\\.shp$", "");
+    ByteBuffer shp = map(shapefile);
+    ByteBuffer dbf = map(shapefile.resolveSibling(baseName + ".dbf"));
+    Path shxPath = shapefile.resolveSibling(baseName + ".shx");
+    int[] offsets = Files.exists(shxPath) ? readOffsets(map(shxPath)) : scanOffsets(shp);
+    Path prjPath = shapefile.resolveSibling(baseName + ".prj");
+    SpatialReference spatialReference = Files.exists(prjPath) ?
+        SpatialReference.create(new String(Files.readAllBytes(prjPath), StandardCharsets.US_ASCII).trim()) : null;
+    Path cpgPath = shapefile.resolveSibling(baseName + ".cpg");
+    Charset charset = Files.exists(cpgPath) ? charset(new String(Files.readAllBytes(cpgPath),
+        StandardCharsets.US_ASCII).trim()) : StandardCharsets.ISO_8859_1;
+
+    int shapeType = shp.getInt(32);
+    GeometryType geometryType = geometryType(shapeType);
+    if (dbf.getInt(4) != offsets.length) {
+      throw new IOException("The .shp and .dbf files of " + shapefile + " have different record counts");
+    }
+    List<DbfField> dbfFields = readFields(dbf, charset);
+    List<Field> fields = new ArrayList<>();
+    dbfFields.forEach(dbfField -> fields.add(dbfField.field));
+    table = new FeatureCollectionTable(fields, geometryType, spatialReference);
+    recordCount = offsets.length;
+    List<Feature> imported = new ArrayList<>(offsets.length);
+
+    // convert chunks in parallel, keeping a couple of chunks per worker converted ahead of the insert
+    int headerLength = dbf.getShort(8) & 0xFFFF;
+    int recordLength = dbf.getShort(10) & 0xFFFF;
+    Deque<Future<Chunk>> pending = new ArrayDeque<>();
+    for (int first = 0; first < offsets.length; first += chunkSize) {
+      int from = first;
+      int to = Math.min(offsets.length, first + chunkSize);
+      pending.add(executor.submit(() -> convert(shp, dbf, offsets, from, to, headerLength, recordLength, dbfFields,
+          spatialReference)));
+      if (pending.size() > 2 * threads) {
+        imported.addAll(insert(pending.poll()));
+      }
+    }
+    while (!pending.isEmpty()) {
+      imported.addAll(insert(pending.poll()));
+    }
+
+    // pack the index once, as packing it for every chunk would sort the growing tree again each time
+    long indexStart = System.nanoTime();
+    FeatureIndex featureIndex = new FeatureIndex(null);
+    featureIndex.addAll(imported);
+    index = featureIndex;
+    indexNanos = System.nanoTime() - indexStart;
+    totalMillis = (System.nanoTime() - start) / 1_000_000;
+    notifyListeners();
+    return table;
+  }
+
+  private List<Feature> insert(Future<Chunk> future) throws IOException {
+    Chunk chunk;
+    try {
+      chunk = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Import of " + shapefile + " interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to read " + shapefile, e.getCause());
+    }
+
+    long start = System.nanoTime();
+    List<Feature> features = new ArrayList<>(chunk.geometries.size());
+    for (int i = 0; i < chunk.geometries.size(); i++) {
+      features.add(table.createFeature(chunk.attributes.get(i), chunk.geometries.get(i)));
+    }
+    try {
+      table.addFeaturesAsync(features).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Import of " + shapefile + " interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to add features from " + shapefile, e.getCause());
+    }
+    insertNanos += System.nanoTime() - start;
+    importedCount.add(features.size());
+    skippedCount.add(chunk.skipped);
+    notifyListeners();
+    return features;
+  }
+
+  /**
+   * Converts the records from one index up to another, on a worker thread.
+   */
+  private Chunk convert(ByteBuffer sharedShp, ByteBuffer sharedDbf, int[] offsets, int from, int to,
+      int headerLength, int recordLength, List<DbfField> dbfFields, SpatialReference spatialReference)
+      throws IOException {
+    long start = System.nanoTime();
+    // each worker reads through its own view of the mapped files, as buffer positions are not thread-safe
+    ByteBuffer shp = sharedShp.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer dbf = sharedDbf.duplicate();
+    byte[] record = new byte[recordLength];
+    Chunk chunk = new Chunk(to - from);
+    for (int i = from; i < to; i++) {
+      dbf.position(headerLength + i * recordLength);
+      dbf.get(record);
+      if (record[0] == '*') {
+        chunk.skipped++;
+        continue;
+      }
+      Map<String, Object> attributes = new HashMap<>();
+      for (DbfField dbfField : dbfFields) {
+        Object value = dbfField.parse(record);
+        if (value != null) {
+          attributes.put(dbfField.field.getName(), value);
+        }
+      }
+      chunk.geometries.add(readGeometry(shp, offsets[i] + 8, spatialReference));
+      chunk.attributes.add(attributes);
+    }
+    convertNanos.add(System.nanoTime() - start);
+    return chunk;
+  }
+
+  /**
+   * Reads the geometry of a record from its content offset, or returns null for a null shape.
+   */
+  private static Geometry readGeometry(ByteBuffer shp, int offset, SpatialReference spatialReference)
+      throws IOException {
+    int shapeType = shp.getInt(offset);
+    if (shapeType == 0) {
+      return null;
+    }
+    switch (geometryType(shapeType)) {
+      case POINT:
+        return new Point(shp.getDouble(offset + 4), shp.getDouble(offset + 12), spatialReference);
+      case MULTIPOINT: {
+        int pointCount = shp.getInt(offset + 36);
+        PointCollection points = new PointCollection(spatialReference);
+        for (int i = 0, at = offset + 40; i < pointCount; i++, at += 16) {
+          points.add(shp.getDouble(at), shp.getDouble(at + 8));
+        }
+        return new Multipoint(points);
+      }
+      default: {
+        int partCount = shp.getInt(offset + 36);
+        int pointCount = shp.getInt(offset + 40);
+        int pointsOffset = offset + 44 + 4 * partCount;
+        PartCollection parts = new PartCollection(spatialReference);
+        for (int part = 0; part < partCount; part++) {
+          int first = shp.getInt(offset + 44 + 4 * part);
+          int end = part + 1 < partCount ? shp.getInt(offset + 48 + 4 * part) : pointCount;
+          PointCollection points = new PointCollection(spatialReference);
+          for (int i = first, at = pointsOffset + 16 * first; i < end; i++, at += 16) {
+            points.add(shp.getDouble(at), shp.getDouble(at + 8));
+          }
+          parts.add(new Part(points));
+        }
+        return geometryType(shapeType) == GeometryType.POLYGON ? new Polygon(parts) : new Polyline(parts);
+      }
+    }
+  }
+
+  private static GeometryType geometryType(int shapeType) throws IOException {
+    switch (shapeType) {
+      case 1:
+      case 11:
+      case 21:
+        return GeometryType.POINT;
+      case 3:
+      case 13:
+      case 23:
+        return GeometryType.POLYLINE;
+      case 5:
+      case 15:
+      case 25:
+        return GeometryType.POLYGON;
+      case 8:
+      case 18:
+      case 28:
+        return GeometryType.MULTIPOINT;
+      default:
+        throw new IOException("Unsupported shape type " + shapeType);
+    }
+  }
+
+  /**
+   * Reads the offsets of the records in the .shp file from the .shx file.
+   */
+  private static int[] readOffsets(ByteBuffer shx) {
+    ByteBuffer bigEndian = shx.duplicate().order(ByteOrder.BIG_ENDIAN);
+    int[] offsets = new int[(shx.limit() - HEADER_BYTES) / 8];
+    for (int i = 0; i < offsets.length; i++) {
+      // offsets are in 16-bit words
+      offsets[i] = bigEndian.getInt(HEADER_BYTES + 8 * i) * 2;
+    }
+    return offsets;
+  }
+
+  /**
+   * Finds the offsets of the records in the .shp file by walking their headers.
+   */
+  private static int[] scanOffsets(ByteBuffer shp) {
+    ByteBuffer bigEndian = shp.duplicate().order(ByteOrder.BIG_ENDIAN);
+    int[] offsets = new int[1024];
+    int count = 0;
+    for (int offset = HEADER_BYTES; offset + 8 <= shp.limit(); offset += 8 + bigEndian.getInt(offset + 4) * 2) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = offset;
+    }
+    return Arrays.copyOf(offsets, count);
+  }
+
+  private static List<DbfField> readFields(ByteBuffer dbf, Charset charset) {
+    List<DbfField> fields = new ArrayList<>();
+    int headerLength = dbf.getShort(8) & 0xFFFF;
+    // the first byte of each record is the deleted flag
+    int recordOffset = 1;
+    for (int at = 32; at + 32 <= headerLength && dbf.get(at) != 0x0D; at += 32) {
+      byte[] nameBytes = new byte[11];
+      for (int i = 0; i < nameBytes.length; i++) {
+        nameBytes[i] = dbf.get(at + i);
+      }
+      int nameLength = 0;
+      while (nameLength < nameBytes.length && nameBytes[nameLength] != 0) {
+        nameLength++;
+      }
+      String name = new String(nameBytes, 0, nameLength, StandardCharsets.US_ASCII).trim();
+      char type = (char) dbf.get(at + 11);
+      int length = dbf.get(at + 16) & 0xFF;
+      int decimals = dbf.get(at + 17) & 0xFF;
+      Field field = null;
+      switch (type) {
+        case 'C':
+          field = Field.createString(name, name, length);
+          break;
+        case 'N':
+        case 'F':
+          field = decimals == 0 && length < 10 ? Field.createInteger(name, name) : Field.createDouble(name, name);
+          break;
+        case 'L':
+          field = Field.createString(name, name, 1);
+          break;
+        case 'D':
+          field = Field.createDate(name, name);
+          break;
+        default:
+          break;
+      }
+      if (field != null) {
+        fields.add(new DbfField(field, type, recordOffset, length, charset));
+      }
+      recordOffset += length;
+    }
+    return fields;
+  }
+
+  private static Charset charset(String codePage) {
+    if (codePage.matches("\\d+")) {
+      codePage = "windows-" + codePage;
+    }
+    return Charset.isSupported(codePage) ? Charset.forName(codePage) : StandardCharsets.ISO_8859_1;
+  }
+
+  private ByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is larger than 2 GB");
+      }
+      mappedBytes += channel.size();
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  private void notifyListeners() {
+    changeListeners.forEach(Runnable::run);
+  }
+
+  /**
+   * Returns the table holding the imported features.
+   *
+   * @return table, or null before the import has read the file headers
+   */
+  public FeatureCollectionTable getTable() {
+    return table;
+  }
+
+  /**
+   * Returns the spatial index of the imported features.
+   *
+   * @return index, or null until the import is complete
+   */
+  public FeatureIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns the number of records in the shapefile.
+   *
+   * @return record count, or 0 before the import has read the file headers
+   */
+  public int getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Returns the number of features added to the table so far.
+   *
+   * @return imported count
+   */
+  public long getImportedCount() {
+    return importedCount.sum();
+  }
+
+  /**
+   * Returns the number of records skipped because they are marked as deleted.
+   *
+   * @return skipped count
+   */
+  public long getSkippedCount() {
+    return skippedCount.sum();
+  }
+
+  /**
+   * Returns the total size of the memory-mapped files.
+   *
+   * @return bytes
+   */
+  public long getMappedBytes() {
+    return mappedBytes;
+  }
+
+  /**
+   * Returns the percentage of records imported or skipped.
+   *
+   * @return progress from 0 to 100
+   */
+  public int getProgress() {
+    int count = recordCount;
+    return count == 0 ? 0 : (int) ((getImportedCount() + getSkippedCount()) * 100 / count);
+  }
+
+  /**
+   * Returns the time spent converting records, summed over the worker threads.
+   *
+   * @return milliseconds
+   */
+  public long getConvertMillis() {
+    return convertNanos.sum() / 1_000_000;
+  }
+
+  /**
+   * Returns the time spent adding features to the table.
+   *
+   * @return milliseconds
+   */
+  public long getInsertMillis() {
+    return insertNanos / 1_000_000;
+  }
+
+  /**
+   * Returns the time spent packing the spatial index.
+   *
+   * @return milliseconds
+   */
+  public long getIndexMillis() {
+    return indexNanos / 1_000_000;
+  }
+
+  /**
+   * Returns the time taken by the whole import.
+   *
+   * @return milliseconds, or 0 until the import is complete
+   */
+  public long getTotalMillis() {
+    return totalMillis;
+  }
+
+  /**
+   * Returns the number of records imported per second by the whole import.
+   *
+   * @return records per second, or 0 until the import is complete
+   */
+  public double getRecordsPerSecond() {
+    long millis = totalMillis;
+    return millis == 0 ? 0 : getImportedCount() * 1000.0 / millis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%,d of %,d records (%,d KB) in %,d ms (%,.0f records/s); convert %,d ms on %d threads, " +
+        "insert %,d ms, index %,d ms", getImportedCount(), recordCount, mappedBytes / 1024, totalMillis,
+        getRecordsPerSecond(), getConvertMillis(), threads, getInsertMillis(), getIndexMillis());
+  }
+
+  /**
+   * The converted records of a chunk.
+   */
+  private static final class Chunk {
+
+    final List<Geometry> geometries;
+    final List<Map<String, Object>> attributes;
+    int skipped;
+
+    Chunk(int size) {
+      geometries = new ArrayList<>(size);
+      attributes = new ArrayList<>(size);
+    }
+  }
+
+  /**
+   * A field of the .dbf file, with its position in a record.
+   */
+  private static final class DbfField {
+
+    final Field field;
+    final char type;
+    final int offset;
+    final int length;
+    final Charset charset;
+
+    DbfField(Field field, char type, int offset, int length, Charset charset) {
+      this.field = field;
+      this.type = type;
+      this.offset = offset;
+      this.length = length;
+      this.charset = charset;
+    }
+
+    /**
+     * Parses the value of the field in a record, or returns null if it is blank.
+     */
+    Object parse(byte[] record) {
+      String text = new String(record, offset, length, type == 'C' ? charset : StandardCharsets.US_ASCII).trim();
+      if (text.isEmpty()) {
+        return null;
+      }
+      switch (type) {
+        case 'C':
+          return text;
+        case 'L':
+          char value = Character.toUpperCase(text.charAt(0));
+          return value == 'T' || value == 'Y' ? "T" : value == 'F' || value == 'N' ? "F" : null;
+        case 'D':
+          if (text.length() != 8 || !text.chars().allMatch(Character::isDigit)) {
+            return null;
+          }
+          Calendar date = new GregorianCalendar(UTC);
+          date.clear();
+          date.set(Integer.parseInt(text.substring(0, 4)), Integer.parseInt(text.substring(4, 6)) - 1,
+              Integer.parseInt(text.substring(6, 8)));
+          return date;
+        default:
+          try {
+            return field.getFieldType() == Field.Type.INTEGER ? (Object) Integer.valueOf(text) :
+                (Object) Double.valueOf(text);
+          } catch (NumberFormatException e) {
+            // numeric fields hold asterisks when the value did not fit
+            return null;
+          }
+      }
+    }
+  }
+}
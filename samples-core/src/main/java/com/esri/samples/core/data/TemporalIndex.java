@@ -0,0 +1,402 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.esri.arcgisruntime.data.Feature;
+import com.esri.arcgisruntime.mapping.TimeExtent;
+
+/**
+ * Finds the features whose time falls within a time window, so that a time slider can be moved without querying the
+ * table again.
+ *
+ * <p>Features are sorted by start time and grouped into buckets of consecutive features, and an interval tree over the
+ * buckets keeps the latest end time of each subtree. A query skips every subtree ending before the window and stops at
+ * the first bucket starting after it, then tests the features of the remaining buckets. Features without a start time
+ * are not indexed. The index is built once and cannot be changed.
+ *
+ * <p>A {@link Window} follows a moving time window, such as the frames of an animation, and reports only the features
+ * entering and leaving it since the last frame.
+ */
+public final class TemporalIndex {
+
+  /** Default number of features per bucket. */
+  public static final int DEFAULT_BUCKET_SIZE = 64;
+
+  private final int bucketSize;
+  private final Feature[] features;
+  private final long[] starts;
+  private final long[] ends;
+  // latest end time of the buckets in each subtree, stored at the subtree's middle bucket
+  private final long[] subtreeEnds;
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder queryNanos = new LongAdder();
+  private final LongAdder matches = new LongAdder();
+
+  /**
+   * Indexes features with the default bucket size.
+   *
+   * @param features features to index
+   * @param startField name of the date field holding each feature's start time
+   * @param endField name of the date field holding each feature's end time, or null if features have a single time
+   */
+  public TemporalIndex(Collection<? extends Feature> features, String startField, String endField) {
+    this(features, startField, endField, DEFAULT_BUCKET_SIZE);
+  }
+
+  /**
+   * Indexes features.
+   *
+   * @param features features to index
+   * @param startField name of the date field holding each feature's start time
+   * @param endField name of the date field holding each feature's end time, or null if features have a single time
+   * @param bucketSize number of features per bucket
+   */
+  public TemporalIndex(Collection<? extends Feature> features, String startField, String endField, int bucketSize) {
+    if (bucketSize <= 0) {
+      throw new IllegalArgumentException("Bucket size must be positive");
+    }
+    this.bucketSize = bucketSize;
+
+    List<Entry> entries = new ArrayList<>(features.size());
+    for (Feature feature : features) {
+      Long start = millis(feature.getAttributes().get(startField));
+      if (start == null) {
+        continue;
+      }
+      Long end = endField != null ? millis(feature.getAttributes().get(endField)) : null;
+      // a missing end time means the feature lasts until now
+      entries.add(new Entry(feature, start, endField == null ? start : end != null ? end : Long.MAX_VALUE));
+    }
+    entries.sort((a, b) -> Long.compare(a.start, b.start));
+
+    this.features = new Feature[entries.size()];
+    starts = new long[entries.size()];
+    ends = new long[entries.size()];
+    for (int i = 0; i < entries.size(); i++) {
+      this.features[i] = entries.get(i).feature;
+      starts[i] = entries.get(i).start;
+      ends[i] = Math.max(entries.get(i).start, entries.get(i).end);
+    }
+    subtreeEnds = new long[bucketCount()];
+    buildSubtree(0, subtreeEnds.length);
+  }
+
+  private int bucketCount() {
+    return (features.length + bucketSize - 1) / bucketSize;
+  }
+
+  private long buildSubtree(int lo, int hi) {
+    if (lo >= hi) {
+      return Long.MIN_VALUE;
+    }
+    int mid = (lo + hi) >>> 1;
+    long end = Long.MIN_VALUE;
+    for (int i = mid * bucketSize; i < Math.min(features.length, (mid + 1) * bucketSize); i++) {
+      end = Math.max(end, ends[i]);
+    }
+    end = Math.max(end, Math.max(buildSubtree(lo, mid), buildSubtree(mid + 1, hi)));
+    subtreeEnds[mid] = end;
+    return end;
+  }
+
+  /**
+   * Finds the features whose time overlaps a time extent.
+   *
+   * @param timeExtent time extent, whose start or end may be null for no limit
+   * @return the features found, in order of start time
+   */
+  public List<Feature> query(TimeExtent timeExtent) {
+    return query(startMillis(timeExtent), endMillis(timeExtent));
+  }
+
+  /**
+   * Finds the features whose time overlaps a time window.
+   *
+   * @param start start of the window in milliseconds since the epoch
+   * @param end end of the window in milliseconds since the epoch
+   * @return the features found, in order of start time
+   */
+  public List<Feature> query(long start, long end) {
+    BitSet matched = evaluate(start, end);
+    List<Feature> found = new ArrayList<>(matched.cardinality());
+    for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+      found.add(features[i]);
+    }
+    return found;
+  }
+
+  private BitSet evaluate(long start, long end) {
+    long queryStart = System.nanoTime();
+    BitSet matched = new BitSet(features.length);
+    if (start <= end) {
+      search(0, subtreeEnds.length, start, end, matched);
+    }
+    queries.increment();
+    queryNanos.add(System.nanoTime() - queryStart);
+    matches.add(matched.cardinality());
+    return matched;
+  }
+
+  /**
+   * Adds the features of the buckets in a subtree overlapping the window.
+   *
+   * @return false once a bucket starts after the window, so no later bucket can match
+   */
+  private boolean search(int lo, int hi, long start, long end, BitSet matched) {
+    if (lo >= hi) {
+      return true;
+    }
+    int mid = (lo + hi) >>> 1;
+    if (subtreeEnds[mid] < start) {
+      // everything in this subtree ends before the window, but later subtrees may not
+      return true;
+    }
+    if (!search(lo, mid, start, end, matched)) {
+      return false;
+    }
+    int first = mid * bucketSize;
+    if (starts[first] > end) {
+      return false;
+    }
+    for (int i = first; i < Math.min(features.length, first + bucketSize); i++) {
+      if (starts[i] > end) {
+        return false;
+      }
+      if (ends[i] >= start) {
+        matched.set(i);
+      }
+    }
+    return search(mid + 1, hi, start, end, matched);
+  }
+
+  /**
+   * @return number of indexed features
+   */
+  public int size() {
+    return features.length;
+  }
+
+  /**
+   * @return the earliest start time in milliseconds since the epoch, or {@link Long#MAX_VALUE} if the index is empty
+   */
+  public long getStartMillis() {
+    return features.length > 0 ? starts[0] : Long.MAX_VALUE;
+  }
+
+  /**
+   * @return the latest end time in milliseconds since the epoch, or {@link Long#MIN_VALUE} if the index is empty
+   */
+  public long getEndMillis() {
+    return Arrays.stream(subtreeEnds).max().orElse(Long.MIN_VALUE);
+  }
+
+  /**
+   * @return estimated memory used by the index itself in bytes, not counting the features
+   */
+  public long getIndexBytes() {
+    // a reference, a start and an end time per feature, and a subtree end time per bucket
+    return features.length * (4L + 8 + 8) + subtreeEnds.length * 8L;
+  }
+
+  /**
+   * @return number of queries and window moves
+   */
+  public long getQueryCount() {
+    return queries.sum();
+  }
+
+  /**
+   * @return mean time of a query in microseconds
+   */
+  public double getMeanQueryMicros() {
+    long count = queries.sum();
+    return count == 0 ? 0 : queryNanos.sum() / 1000.0 / count;
+  }
+
+  /**
+   * @return number of features matched by queries
+   */
+  public long getMatchCount() {
+    return matches.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d features in %d buckets (%d KB), %d queries (%.1f microseconds mean), %d matches", size(),
+        subtreeEnds.length, getIndexBytes() / 1024, getQueryCount(), getMeanQueryMicros(), getMatchCount());
+  }
+
+  /**
+   * Creates a window following a moving time extent, starting with all indexed features shown.
+   *
+   * @return the window
+   */
+  public Window newWindow() {
+    return new Window();
+  }
+
+  private static Long millis(Object value) {
+    if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis();
+    } else if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    return null;
+  }
+
+  private static long startMillis(TimeExtent timeExtent) {
+    Calendar start = timeExtent.getStartTime();
+    return start != null ? start.getTimeInMillis() : Long.MIN_VALUE;
+  }
+
+  private static long endMillis(TimeExtent timeExtent) {
+    Calendar end = timeExtent.getEndTime();
+    return end != null ? end.getTimeInMillis() : Long.MAX_VALUE;
+  }
+
+  private static final class Entry {
+
+    final Feature feature;
+    final long start;
+    final long end;
+
+    Entry(Feature feature, long start, long end) {
+      this.feature = feature;
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  /**
+   * Follows a moving time window, such as the frames of an animation, keeping track of which features are in it.
+   * Windows are not thread-safe.
+   */
+  public final class Window {
+
+    private BitSet shown = new BitSet(features.length);
+    private long lastMoveNanos;
+    private long maxMoveNanos;
+
+    private Window() {
+      shown.set(0, features.length);
+    }
+
+    /**
+     * Moves the window to a time extent.
+     *
+     * @param timeExtent time extent, whose start or end may be null for no limit
+     * @return the features entering and leaving the window
+     */
+    public Changes move(TimeExtent timeExtent) {
+      return move(startMillis(timeExtent), endMillis(timeExtent));
+    }
+
+    /**
+     * Moves the window.
+     *
+     * @param start start of the window in milliseconds since the epoch
+     * @param end end of the window in milliseconds since the epoch
+     * @return the features entering and leaving the window
+     */
+    public Changes move(long start, long end) {
+      long moveStart = System.nanoTime();
+      BitSet next = evaluate(start, end);
+      BitSet entered = (BitSet) next.clone();
+      entered.andNot(shown);
+      BitSet left = shown;
+      left.andNot(next);
+      shown = next;
+      Changes changes = new Changes(features(entered), features(left), next.cardinality());
+      lastMoveNanos = System.nanoTime() - moveStart;
+      maxMoveNanos = Math.max(maxMoveNanos, lastMoveNanos);
+      return changes;
+    }
+
+    private List<Feature> features(BitSet bits) {
+      if (bits.isEmpty()) {
+        return Collections.emptyList();
+      }
+      List<Feature> list = new ArrayList<>(bits.cardinality());
+      for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+        list.add(features[i]);
+      }
+      return list;
+    }
+
+    /**
+     * @return time taken by the last move in microseconds
+     */
+    public double getLastMoveMicros() {
+      return lastMoveNanos / 1000.0;
+    }
+
+    /**
+     * @return longest time taken by a move in microseconds
+     */
+    public double getMaxMoveMicros() {
+      return maxMoveNanos / 1000.0;
+    }
+  }
+
+  /**
+   * The features entering and leaving a window when it was moved.
+   */
+  public static final class Changes {
+
+    private final List<Feature> entered;
+    private final List<Feature> left;
+    private final int shownCount;
+
+    Changes(List<Feature> entered, List<Feature> left, int shownCount) {
+      this.entered = entered;
+      this.left = left;
+      this.shownCount = shownCount;
+    }
+
+    /**
+     * @return the features which were outside the window before and are inside it now
+     */
+    public List<Feature> getEntered() {
+      return entered;
+    }
+
+    /**
+     * @return the features which were inside the window before and are outside it now
+     */
+    public List<Feature> getLeft() {
+      return left;
+    }
+
+    /**
+     * @return the number of features inside the window now
+     */
+    public int getShownCount() {
+      return shownCount;
+    }
+  }
+}
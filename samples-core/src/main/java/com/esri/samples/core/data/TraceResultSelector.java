@@ -0,0 +1,311 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.layers.Layer;
+import com.esri.arcgisruntime.utilitynetworks.UtilityElement;
+import com.esri.arcgisruntime.utilitynetworks.UtilityElementTraceResult;
+import com.esri.arcgisruntime.utilitynetworks.UtilityNetwork;
+import com.esri.arcgisruntime.utilitynetworks.UtilityTraceParameters;
+import com.esri.arcgisruntime.utilitynetworks.UtilityTraceResult;
+
+/**
+ * Selects the elements of a utility network trace result in the feature layers of their network sources.
+ *
+ * <p>The elements are grouped by network source name in a single pass, and each group is matched to the layers whose
+ * table has that name. The object IDs of a group are selected in chunks, so that no single query grows with the size
+ * of the trace, with a limited number of selections running at once across all layers. The layers are cleared
+ * before their chunks are added to the selection. Elements whose network source has no layer are counted but not
+ * selected.
+ *
+ * <p>The time taken by the trace, the grouping and the selections is recorded. A selector runs one trace or
+ * selection at a time.
+ */
+public final class TraceResultSelector {
+
+  /** Default number of object IDs selected by one query. */
+  public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+  /** Default number of selections running at once. */
+  public static final int DEFAULT_MAX_CONCURRENT_SELECTIONS = 4;
+
+  private final Map<String, List<FeatureLayer>> layersByTableName = new HashMap<>();
+  private final int chunkSize;
+  private final int maxConcurrentSelections;
+
+  private final Deque<Selection> queued = new ArrayDeque<>();
+  private CompletableFuture<Integer> selection;
+  private int running;
+  private int selectedCount;
+
+  private volatile long traceMillis;
+  private volatile long groupMicros;
+  private volatile long selectMillis;
+  private volatile long selectStart;
+  private volatile int elementCount;
+  private volatile int unmatchedCount;
+  private volatile int tableCount;
+  private volatile int selectionCount;
+
+  /**
+   * Creates a selector with the default chunk size and number of concurrent selections.
+   *
+   * @param layers layers to select in; layers other than feature layers are ignored
+   */
+  public TraceResultSelector(Collection<? extends Layer> layers) {
+    this(layers, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CONCURRENT_SELECTIONS);
+  }
+
+  /**
+   * Creates a selector.
+   *
+   * @param layers layers to select in; layers other than feature layers are ignored
+   * @param chunkSize number of object IDs selected by one query
+   * @param maxConcurrentSelections number of selections running at once
+   */
+  public TraceResultSelector(Collection<? extends Layer> layers, int chunkSize, int maxConcurrentSelections) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    if (maxConcurrentSelections <= 0) {
+      throw new IllegalArgumentException("Concurrent selections must be positive");
+    }
+    for (Layer layer : layers) {
+      if (layer instanceof FeatureLayer) {
+        FeatureLayer featureLayer = (FeatureLayer) layer;
+        layersByTableName.computeIfAbsent(featureLayer.getFeatureTable().getTableName(), name -> new ArrayList<>())
+            .add(featureLayer);
+      }
+    }
+    this.chunkSize = chunkSize;
+    this.maxConcurrentSelections = maxConcurrentSelections;
+  }
+
+  /**
+   * Runs a trace and selects the elements of its first result.
+   *
+   * @param utilityNetwork loaded utility network
+   * @param parameters trace parameters
+   * @return future completing with the number of elements selected, or exceptionally with the trace's error, with
+   * an {@link IllegalStateException} if the first result does not hold elements, or with the error of a selection
+   */
+  public CompletableFuture<Integer> traceAndSelectAsync(UtilityNetwork utilityNetwork,
+      UtilityTraceParameters parameters) {
+    CompletableFuture<List<UtilityTraceResult>> trace = new CompletableFuture<>();
+    long start = System.nanoTime();
+    ListenableFuture<List<UtilityTraceResult>> traceFuture = utilityNetwork.traceAsync(parameters);
+    traceFuture.addDoneListener(() -> {
+      traceMillis = (System.nanoTime() - start) / 1_000_000;
+      try {
+        trace.complete(traceFuture.get());
+      } catch (Exception e) {
+        trace.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+      }
+    });
+    return trace.thenCompose(results -> {
+      if (results.isEmpty() || !(results.get(0) instanceof UtilityElementTraceResult)) {
+        throw new IllegalStateException("Trace result not a utility element.");
+      }
+      return selectAsync(((UtilityElementTraceResult) results.get(0)).getElements());
+    });
+  }
+
+  /**
+   * Selects utility elements in the layers of their network sources.
+   *
+   * @param elements elements, such as those of a trace result
+   * @return future completing with the number of elements selected, or exceptionally with the error of the first
+   * selection which failed
+   * @throws IllegalStateException if a selection is already running
+   */
+  public synchronized CompletableFuture<Integer> selectAsync(List<UtilityElement> elements) {
+    if (selection != null && !selection.isDone()) {
+      throw new IllegalStateException("A selection is already running");
+    }
+
+    // group the object IDs by network source in one pass over the elements
+    long groupStart = System.nanoTime();
+    Map<String, List<Long>> objectIdsBySource = new HashMap<>();
+    for (UtilityElement element : elements) {
+      objectIdsBySource.computeIfAbsent(element.getNetworkSource().getName(), name -> new ArrayList<>())
+          .add(element.getObjectId());
+    }
+    int unmatched = 0;
+    int tables = 0;
+    for (Map.Entry<String, List<Long>> entry : objectIdsBySource.entrySet()) {
+      List<FeatureLayer> layers = layersByTableName.get(entry.getKey());
+      List<Long> objectIds = entry.getValue();
+      if (layers == null) {
+        unmatched += objectIds.size();
+        continue;
+      }
+      tables++;
+      for (FeatureLayer layer : layers) {
+        layer.clearSelection();
+        for (int from = 0; from < objectIds.size(); from += chunkSize) {
+          queued.add(new Selection(layer, objectIds.subList(from, Math.min(objectIds.size(), from + chunkSize))));
+        }
+      }
+    }
+    groupMicros = (System.nanoTime() - groupStart) / 1000;
+    elementCount = elements.size();
+    unmatchedCount = unmatched;
+    tableCount = tables;
+    selectionCount = queued.size();
+
+    selection = new CompletableFuture<>();
+    selectedCount = 0;
+    running = 0;
+    selectStart = System.nanoTime();
+    selectMillis = 0;
+    CompletableFuture<Integer> result = selection;
+    startQueued();
+    return result;
+  }
+
+  /**
+   * Starts queued selections while fewer than the maximum are running, and completes the selection once none are
+   * left.
+   */
+  private synchronized void startQueued() {
+    if (selection.isDone()) {
+      queued.clear();
+      return;
+    }
+    while (running < maxConcurrentSelections && !queued.isEmpty()) {
+      Selection next = queued.poll();
+      running++;
+      QueryParameters queryParameters = new QueryParameters();
+      queryParameters.getObjectIds().addAll(next.objectIds);
+      ListenableFuture<FeatureQueryResult> future = next.layer.selectFeaturesAsync(queryParameters,
+          FeatureLayer.SelectionMode.ADD);
+      future.addDoneListener(() -> finish(next, future));
+    }
+    if (running == 0 && queued.isEmpty()) {
+      selectMillis = (System.nanoTime() - selectStart) / 1_000_000;
+      selection.complete(selectedCount);
+    }
+  }
+
+  private void finish(Selection finished, ListenableFuture<FeatureQueryResult> future) {
+    Throwable error = null;
+    try {
+      future.get();
+    } catch (Exception e) {
+      error = e.getCause() != null ? e.getCause() : e;
+    }
+    synchronized (this) {
+      running--;
+      if (error != null) {
+        selectMillis = (System.nanoTime() - selectStart) / 1_000_000;
+        selection.completeExceptionally(error);
+      } else {
+        selectedCount += finished.objectIds.size();
+      }
+      startQueued();
+    }
+  }
+
+  /**
+   * Returns the time taken by the last trace.
+   *
+   * @return milliseconds, or 0 if no trace has been run
+   */
+  public long getTraceMillis() {
+    return traceMillis;
+  }
+
+  /**
+   * Returns the time taken to group the elements of the last selection by network source.
+   *
+   * @return microseconds
+   */
+  public long getGroupMicros() {
+    return groupMicros;
+  }
+
+  /**
+   * Returns the time taken by the selections of the last selection, from the first query to the last.
+   *
+   * @return milliseconds, or 0 while the selection runs
+   */
+  public long getSelectMillis() {
+    return selectMillis;
+  }
+
+  /**
+   * Returns the number of elements in the last selection.
+   *
+   * @return element count
+   */
+  public int getElementCount() {
+    return elementCount;
+  }
+
+  /**
+   * Returns the number of elements in the last selection whose network source has no layer.
+   *
+   * @return unmatched count
+   */
+  public int getUnmatchedCount() {
+    return unmatchedCount;
+  }
+
+  /**
+   * Returns the number of selection queries made by the last selection.
+   *
+   * @return selection count
+   */
+  public int getSelectionCount() {
+    return selectionCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%,d elements in %d tables (%,d unmatched); trace %,d ms, group %,d microseconds, " +
+        "select %,d ms in %d queries", elementCount, tableCount, unmatchedCount, traceMillis, groupMicros,
+        selectMillis, selectionCount);
+  }
+
+  /**
+   * A chunk of object IDs to select in a layer.
+   */
+  private static final class Selection {
+
+    final FeatureLayer layer;
+    final List<Long> objectIds;
+
+    Selection(FeatureLayer layer, List<Long> objectIds) {
+      this.layer = layer;
+      this.objectIds = objectIds;
+    }
+  }
+}
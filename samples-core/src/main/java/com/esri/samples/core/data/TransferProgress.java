@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.data;
+
+/**
+ * Receives the progress of a transfer after each chunk.
+ */
+@FunctionalInterface
+public interface TransferProgress {
+
+  /** Progress listener which ignores all updates. */
+  TransferProgress NONE = (bytes, totalBytes) -> { };
+
+  /**
+   * @param bytes number of bytes transferred so far
+   * @param totalBytes size of the transfer, or -1 if it is not known
+   */
+  void onProgress(long bytes, long totalBytes);
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geocode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.tasks.geocode.GeocodeParameters;
+import com.esri.arcgisruntime.tasks.geocode.GeocodeResult;
+import com.esri.arcgisruntime.tasks.geocode.LocatorTask;
+import com.esri.arcgisruntime.tasks.geocode.ReverseGeocodeParameters;
+
+/**
+ * Caches the geocode and reverse geocode results of a {@link LocatorTask}. Geocodes are keyed by the address with
+ * case, punctuation and white space normalized. Reverse geocodes are keyed by the cell of a square grid holding the
+ * location, so all locations within a cell share the result of the first one. Both are also keyed by the values of
+ * their parameters.
+ *
+ * <p>The cache holds the locator's futures, so a request which is still running is shared as well. Failed and
+ * cancelled requests are removed when they complete. Entries expire after a time to live and the least recently used
+ * entries are evicted beyond the capacity. The returned result lists are shared and must not be modified.
+ */
+public final class GeocodeCache {
+
+  /** Default number of cached results. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** Default time a result stays valid. */
+  public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private final LocatorTask locatorTask;
+  private final double cellSize;
+  private final long timeToLiveNanos;
+  private final Map<String, Entry> entries;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache with the default capacity and time to live.
+   *
+   * @param locatorTask locator to cache the results of
+   * @param cellSize size of the reverse geocode grid cells, in the units of the locations' spatial reference
+   */
+  public GeocodeCache(LocatorTask locatorTask, double cellSize) {
+    this(locatorTask, cellSize, DEFAULT_CAPACITY, DEFAULT_TIME_TO_LIVE_MILLIS);
+  }
+
+  /**
+   * @param locatorTask locator to cache the results of
+   * @param cellSize size of the reverse geocode grid cells, in the units of the locations' spatial reference
+   * @param capacity maximum number of cached results
+   * @param timeToLiveMillis time a result stays valid
+   */
+  public GeocodeCache(LocatorTask locatorTask, double cellSize, int capacity, long timeToLiveMillis) {
+    if (cellSize <= 0 || capacity < 1 || timeToLiveMillis <= 0) {
+      throw new IllegalArgumentException("Cell size, capacity and time to live must be positive");
+    }
+    this.locatorTask = locatorTask;
+    this.cellSize = cellSize;
+    this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+    entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > capacity) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Geocodes an address, or returns the cached results for the same address and parameters.
+   *
+   * @param searchText address to geocode
+   * @param geocodeParameters geocode parameters
+   * @return the locator's future for the results
+   */
+  public ListenableFuture<List<GeocodeResult>> geocodeAsync(String searchText, GeocodeParameters geocodeParameters) {
+    String key = "geocode|" + normalize(searchText) + "|" + fingerprint(geocodeParameters);
+    return get(key, () -> locatorTask.geocodeAsync(searchText, geocodeParameters));
+  }
+
+  /**
+   * Reverse geocodes a location, or returns the cached results for the same grid cell and parameters.
+   *
+   * @param location location to reverse geocode
+   * @param reverseGeocodeParameters reverse geocode parameters
+   * @return the locator's future for the results
+   */
+  public ListenableFuture<List<GeocodeResult>> reverseGeocodeAsync(Point location,
+      ReverseGeocodeParameters reverseGeocodeParameters) {
+    SpatialReference spatialReference = location.getSpatialReference();
+    String key = "reverse|" + (spatialReference != null ? spatialReference.getWkid() : 0) + "|" +
+        (long) Math.floor(location.getX() / cellSize) + "|" + (long) Math.floor(location.getY() / cellSize) + "|" +
+        fingerprint(reverseGeocodeParameters);
+    return get(key, () -> locatorTask.reverseGeocodeAsync(location, reverseGeocodeParameters));
+  }
+
+  private synchronized ListenableFuture<List<GeocodeResult>> get(String key,
+      Supplier<ListenableFuture<List<GeocodeResult>>> request) {
+    long now = System.nanoTime();
+    Entry entry = entries.get(key);
+    if (entry != null && now - entry.created < timeToLiveNanos) {
+      hits.increment();
+      return entry.future;
+    }
+
+    misses.increment();
+    ListenableFuture<List<GeocodeResult>> future = request.get();
+    Entry created = new Entry(future, now);
+    entries.put(key, created);
+    future.addDoneListener(() -> {
+      boolean failed = future.isCancelled();
+      if (!failed) {
+        try {
+          future.get();
+        } catch (Exception e) {
+          failed = true;
+        }
+      }
+      if (failed) {
+        synchronized (this) {
+          entries.remove(key, created);
+        }
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Removes expired results. Expired results are also replaced when they are next requested.
+   */
+  public synchronized void removeExpired() {
+    long now = System.nanoTime();
+    for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+      if (now - iterator.next().created >= timeToLiveNanos) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * @return number of requests answered from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of requests sent to the locator
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return number of results evicted to stay within the capacity
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return share of requests answered from the cache
+   */
+  public double getHitRate() {
+    long total = hits.sum() + misses.sum();
+    return total == 0 ? 0 : (double) hits.sum() / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d hits, %d misses (%.0f%% hit rate), %d evictions", getHitCount(), getMissCount(),
+        getHitRate() * 100, getEvictionCount());
+  }
+
+  /**
+   * Lower case with punctuation removed and runs of white space collapsed, so "380 New York St, Redlands" and
+   * "380 new york st redlands" share a key.
+   */
+  static String normalize(String address) {
+    return address.toLowerCase(Locale.ROOT).replaceAll("[\\p{Punct}\\s]+", " ").trim();
+  }
+
+  private static String fingerprint(GeocodeParameters parameters) {
+    if (parameters == null) {
+      return "";
+    }
+    return parameters.getResultAttributeNames() + "|" + parameters.getCategories() + "|" +
+        parameters.getMaxResults() + "|" + parameters.getMinScore() + "|" + parameters.getCountryCode() + "|" +
+        parameters.getOutputLanguageCode() + "|" + parameters.isForStorage() + "|" +
+        wkid(parameters.getOutputSpatialReference()) + "|" + toJson(parameters.getSearchArea()) + "|" +
+        toJson(parameters.getPreferredSearchLocation());
+  }
+
+  private static String fingerprint(ReverseGeocodeParameters parameters) {
+    if (parameters == null) {
+      return "";
+    }
+    return parameters.getResultAttributeNames() + "|" + parameters.getFeatureTypes() + "|" +
+        parameters.getMaxResults() + "|" + parameters.getMaxDistance() + "|" + parameters.getOutputLanguageCode() +
+        "|" + parameters.isForStorage() + "|" + wkid(parameters.getOutputSpatialReference());
+  }
+
+  private static int wkid(SpatialReference spatialReference) {
+    return spatialReference != null ? spatialReference.getWkid() : 0;
+  }
+
+  private static String toJson(Geometry geometry) {
+    return geometry != null ? geometry.toJson() : "";
+  }
+
+  /**
+   * A cached future and the time it was requested.
+   */
+  private static final class Entry {
+
+    private final ListenableFuture<List<GeocodeResult>> future;
+    private final long created;
+
+    private Entry(ListenableFuture<List<GeocodeResult>> future, long created) {
+      this.future = future;
+      this.created = created;
+    }
+  }
+}
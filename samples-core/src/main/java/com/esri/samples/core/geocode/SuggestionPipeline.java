@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geocode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.esri.arcgisruntime.concurrent.ListenableFuture;
+import com.esri.arcgisruntime.tasks.geocode.LocatorTask;
+import com.esri.arcgisruntime.tasks.geocode.SuggestParameters;
+import com.esri.arcgisruntime.tasks.geocode.SuggestResult;
+import com.esri.samples.core.concurrent.DaemonThreadFactory;
+
+/**
+ * Turns the text typed into a search box into as few suggest requests as possible. A request is only sent once the
+ * text has not changed for the debounce delay, a request which is still running when the text changes again is
+ * cancelled, and responses for text which has since changed are dropped.
+ *
+ * <p>Suggestions are cached by normalized text. Text which has been seen before is answered from the cache. Text
+ * which extends a cached text is answered at once with the cached suggestions which still match; if the cached list
+ * was shorter than the maximum number of results it held every match, so no request is sent at all.
+ *
+ * <p>Call {@link #textChanged(String)} from a single thread, e.g. from a key typed handler. The listener is called on
+ * the callback executor with the suggestions for the latest text only.
+ */
+public final class SuggestionPipeline implements AutoCloseable {
+
+  /** Default time the text must stay unchanged before suggestions are requested. */
+  public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+  /** Default number of texts with cached suggestions. */
+  public static final int DEFAULT_CACHE_CAPACITY = 256;
+
+  private static final ScheduledExecutorService DEBOUNCE =
+      Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("suggestion-debounce"));
+
+  private final LocatorTask locatorTask;
+  private final SuggestParameters suggestParameters;
+  private final long debounceMillis;
+  private final Executor callbackExecutor;
+  private final Consumer<List<SuggestResult>> listener;
+  private final Map<String, List<SuggestResult>> cache;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder cancelled = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder prefixHits = new LongAdder();
+  private final LongAdder totalLatencyNanos = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private volatile long lastLatencyNanos;
+
+  // guarded by this
+  private long generation;
+  private ScheduledFuture<?> scheduled;
+  private ListenableFuture<List<SuggestResult>> pending;
+
+  /**
+   * Creates a pipeline with the default debounce delay and cache capacity.
+   *
+   * @param locatorTask locator to get suggestions from
+   * @param suggestParameters parameters for every request, or null for the locator's defaults
+   * @param callbackExecutor executor to call the listener on, e.g. {@code Platform::runLater}
+   * @param listener receives the suggestions for the latest text
+   */
+  public SuggestionPipeline(LocatorTask locatorTask, SuggestParameters suggestParameters, Executor callbackExecutor,
+      Consumer<List<SuggestResult>> listener) {
+    this(locatorTask, suggestParameters, DEFAULT_DEBOUNCE_MILLIS, DEFAULT_CACHE_CAPACITY, callbackExecutor, listener);
+  }
+
+  /**
+   * @param locatorTask locator to get suggestions from
+   * @param suggestParameters parameters for every request, or null for the locator's defaults
+   * @param debounceMillis time the text must stay unchanged before suggestions are requested
+   * @param cacheCapacity number of texts with cached suggestions
+   * @param callbackExecutor executor to call the listener on, e.g. {@code Platform::runLater}
+   * @param listener receives the suggestions for the latest text
+   */
+  public SuggestionPipeline(LocatorTask locatorTask, SuggestParameters suggestParameters, long debounceMillis,
+      int cacheCapacity, Executor callbackExecutor, Consumer<List<SuggestResult>> listener) {
+    if (debounceMillis < 0 || cacheCapacity < 1) {
+      throw new IllegalArgumentException("Debounce delay must not be negative and cache capacity must be positive");
+    }
+    this.locatorTask = locatorTask;
+    this.suggestParameters = suggestParameters;
+    this.debounceMillis = debounceMillis;
+    this.callbackExecutor = callbackExecutor;
+    this.listener = listener;
+    cache = new LinkedHashMap<String, List<SuggestResult>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, List<SuggestResult>> eldest) {
+        return size() > cacheCapacity;
+      }
+    };
+  }
+
+  /**
+   * Requests suggestions for the current text of the search box, superseding any earlier text. Empty text only
+   * cancels the outstanding request.
+   *
+   * @param text text in the search box
+   */
+  public synchronized void textChanged(String text) {
+    long current = ++generation;
+    cancelOutstanding();
+
+    String key = normalize(text);
+    if (key.isEmpty()) {
+      return;
+    }
+
+    lookups.increment();
+    List<SuggestResult> cached = cache.get(key);
+    if (cached != null) {
+      hits.increment();
+      deliver(current, cached);
+      return;
+    }
+
+    // answer at once from the longest cached prefix
+    for (int length = key.length() - 1; length > 0; length--) {
+      List<SuggestResult> prefixResults = cache.get(key.substring(0, length));
+      if (prefixResults != null) {
+        List<SuggestResult> narrowed = narrow(prefixResults, key);
+        if (isComplete(prefixResults)) {
+          // the shorter text had fewer results than requested, so narrowing cannot miss any
+          hits.increment();
+          cache.put(key, narrowed);
+          deliver(current, narrowed);
+          return;
+        }
+        // show the narrowed suggestions until the locator's answer arrives
+        prefixHits.increment();
+        deliver(current, narrowed);
+        break;
+      }
+    }
+
+    scheduled = DEBOUNCE.schedule(() -> request(current, text, key), debounceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Cancels the outstanding request without clearing the cache.
+   */
+  @Override
+  public synchronized void close() {
+    generation++;
+    cancelOutstanding();
+  }
+
+  private void request(long requestGeneration, String text, String key) {
+    ListenableFuture<List<SuggestResult>> future;
+    synchronized (this) {
+      if (requestGeneration != generation) {
+        return;
+      }
+      requests.increment();
+      future = suggestParameters != null ? locatorTask.suggestAsync(text, suggestParameters) :
+          locatorTask.suggestAsync(text);
+      pending = future;
+    }
+    long start = System.nanoTime();
+    future.addDoneListener(() -> {
+      if (future.isCancelled()) {
+        return;
+      }
+      List<SuggestResult> results;
+      try {
+        results = future.get();
+      } catch (Exception e) {
+        failed.increment();
+        return;
+      }
+      lastLatencyNanos = System.nanoTime() - start;
+      totalLatencyNanos.add(lastLatencyNanos);
+      completed.increment();
+      synchronized (this) {
+        cache.put(key, results);
+        if (pending == future) {
+          pending = null;
+        }
+        deliver(requestGeneration, results);
+      }
+    });
+  }
+
+  private void deliver(long deliveryGeneration, List<SuggestResult> results) {
+    callbackExecutor.execute(() -> {
+      // drop results for text which has changed since
+      synchronized (this) {
+        if (deliveryGeneration != generation) {
+          return;
+        }
+      }
+      listener.accept(results);
+    });
+  }
+
+  private void cancelOutstanding() {
+    if (scheduled != null) {
+      scheduled.cancel(false);
+      scheduled = null;
+    }
+    if (pending != null) {
+      if (!pending.isDone() && pending.cancel(true)) {
+        cancelled.increment();
+      }
+      pending = null;
+    }
+  }
+
+  private boolean isComplete(List<SuggestResult> results) {
+    int maxResults = suggestParameters != null ? suggestParameters.getMaxResults() : 0;
+    return maxResults > 0 && results.size() < maxResults;
+  }
+
+  private static List<SuggestResult> narrow(List<SuggestResult> results, String key) {
+    List<SuggestResult> narrowed = new ArrayList<>();
+    for (SuggestResult result : results) {
+      if (normalize(result.getLabel()).contains(key)) {
+        narrowed.add(result);
+      }
+    }
+    return narrowed;
+  }
+
+  private static String normalize(String text) {
+    return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @return number of suggest requests sent to the locator
+   */
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of requests cancelled because the text changed before they completed
+   */
+  public long getCancelledCount() {
+    return cancelled.sum();
+  }
+
+  /**
+   * @return number of requests which failed
+   */
+  public long getFailedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * @return share of texts answered from the cache without a request, either exactly or by narrowing the suggestions
+   * of a prefix
+   */
+  public double getHitRate() {
+    long count = lookups.sum();
+    return count == 0 ? 0 : (double) hits.sum() / count;
+  }
+
+  /**
+   * @return number of texts shown narrowed suggestions of a prefix while waiting for their own request
+   */
+  public long getPrefixHitCount() {
+    return prefixHits.sum();
+  }
+
+  /**
+   * @return mean time from sending a request to its response, in milliseconds
+   */
+  public double getAverageLatencyMillis() {
+    long count = completed.sum();
+    return count == 0 ? 0 : totalLatencyNanos.sum() / 1e6 / count;
+  }
+
+  /**
+   * @return time from sending the latest completed request to its response, in milliseconds
+   */
+  public double getLastLatencyMillis() {
+    return lastLatencyNanos / 1e6;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d requests (%d cancelled, %d failed), %.0f%% cache hits, %d prefix hits, %.0f ms average latency",
+        getRequestCount(), getCancelledCount(), getFailedCount(), getHitRate() * 100, getPrefixHitCount(),
+        getAverageLatencyMillis());
+  }
+}
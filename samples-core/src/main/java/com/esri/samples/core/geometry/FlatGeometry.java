@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.ImmutablePart;
+import com.esri.arcgisruntime.geometry.Multipart;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Point;
+
+/**
+ * The coordinates of a geometry copied into primitive arrays, with a segment index for locating points against it.
+ */
+final class FlatGeometry {
+
+  static final int INTERIOR = 0;
+  static final int BOUNDARY = 1;
+  static final int EXTERIOR = 2;
+
+  /** Topological dimension: 0 for points, 1 for polylines and 2 for polygons and envelopes. */
+  final int dimension;
+
+  final double xmin;
+  final double ymin;
+  final double xmax;
+  final double ymax;
+
+  /** Point coordinates as (x, y) pairs. Only set for points and multipoints. */
+  final double[] points;
+
+  /** Path end points which lie on the boundary of a polyline, as (x, y) pairs. */
+  final double[] boundary;
+
+  /** Segments of polyline paths or polygon rings. Only set for polylines and polygons. */
+  final SegmentIndex segments;
+
+  /** For polylines, whether the start (bit 0) or end (bit 1) of each segment is on the boundary. */
+  final byte[] segmentFlags;
+
+  private FlatGeometry(int dimension, double[] points, double[] boundary, SegmentIndex segments,
+      byte[] segmentFlags, Envelope extent) {
+    this.dimension = dimension;
+    this.points = points;
+    this.boundary = boundary;
+    this.segments = segments;
+    this.segmentFlags = segmentFlags;
+    xmin = extent.getXMin();
+    ymin = extent.getYMin();
+    xmax = extent.getXMax();
+    ymax = extent.getYMax();
+  }
+
+  /**
+   * Copies the coordinates of a point, multipoint, polyline, polygon or envelope.
+   *
+   * @throws IllegalArgumentException if the geometry type is not supported
+   */
+  static FlatGeometry of(Geometry geometry) {
+    Envelope extent = geometry.getExtent();
+    switch (geometry.getGeometryType()) {
+      case POINT:
+        Point point = (Point) geometry;
+        return new FlatGeometry(0, new double[] {point.getX(), point.getY()}, new double[0], null, null, extent);
+      case MULTIPOINT:
+        Multipoint multipoint = (Multipoint) geometry;
+        double[] points = new double[multipoint.getPoints().size() * 2];
+        int i = 0;
+        for (Point p : multipoint.getPoints()) {
+          points[i++] = p.getX();
+          points[i++] = p.getY();
+        }
+        return new FlatGeometry(0, points, new double[0], null, null, extent);
+      case POLYLINE:
+        return ofPaths((Multipart) geometry, extent);
+      case POLYGON:
+        return ofRings((Multipart) geometry, extent);
+      case ENVELOPE:
+        double[] ring = {
+            extent.getXMin(), extent.getYMin(), extent.getXMin(), extent.getYMax(),
+            extent.getXMin(), extent.getYMax(), extent.getXMax(), extent.getYMax(),
+            extent.getXMax(), extent.getYMax(), extent.getXMax(), extent.getYMin(),
+            extent.getXMax(), extent.getYMin(), extent.getXMin(), extent.getYMin()
+        };
+        return new FlatGeometry(2, null, new double[0], new SegmentIndex(ring, 4), null, extent);
+      default:
+        throw new IllegalArgumentException("Unsupported geometry type " + geometry.getGeometryType());
+    }
+  }
+
+  private static FlatGeometry ofPaths(Multipart polyline, Envelope extent) {
+    int segmentCount = 0;
+    int pathCount = 0;
+    for (ImmutablePart part : polyline.getParts()) {
+      if (part.getPointCount() > 1) {
+        segmentCount += part.getPointCount() - 1;
+        pathCount++;
+      }
+    }
+    double[] coordinates = new double[segmentCount * 4];
+    // end points of each path as (x, y, segment, end) tuples, used to apply the mod-2 boundary rule
+    double[] ends = new double[pathCount * 2 * 4];
+    int s = 0;
+    int e = 0;
+    for (ImmutablePart part : polyline.getParts()) {
+      if (part.getPointCount() < 2) {
+        continue;
+      }
+      Point previous = null;
+      for (Point p : part.getPoints()) {
+        if (previous != null) {
+          coordinates[s * 4] = previous.getX();
+          coordinates[s * 4 + 1] = previous.getY();
+          coordinates[s * 4 + 2] = p.getX();
+          coordinates[s * 4 + 3] = p.getY();
+          s++;
+        }
+        previous = p;
+      }
+      int first = s - (part.getPointCount() - 1);
+      addEnd(ends, e++, coordinates[first * 4], coordinates[first * 4 + 1], first, 0);
+      addEnd(ends, e++, coordinates[(s - 1) * 4 + 2], coordinates[(s - 1) * 4 + 3], s - 1, 1);
+    }
+
+    // an end point is on the boundary if an odd number of path ends meet there
+    Integer[] order = new Integer[e];
+    for (int i = 0; i < e; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> ends[i * 4]).thenComparingDouble(i -> ends[i * 4 + 1]));
+    byte[] flags = new byte[segmentCount];
+    double[] boundary = new double[e * 2];
+    int boundaryCount = 0;
+    for (int start = 0; start < e; ) {
+      int end = start + 1;
+      while (end < e && ends[order[end] * 4] == ends[order[start] * 4] &&
+          ends[order[end] * 4 + 1] == ends[order[start] * 4 + 1]) {
+        end++;
+      }
+      if ((end - start) % 2 == 1) {
+        boundary[boundaryCount * 2] = ends[order[start] * 4];
+        boundary[boundaryCount * 2 + 1] = ends[order[start] * 4 + 1];
+        boundaryCount++;
+        for (int j = start; j < end; j++) {
+          int segment = (int) ends[order[j] * 4 + 2];
+          flags[segment] |= (byte) (1 << (int) ends[order[j] * 4 + 3]);
+        }
+      }
+      start = end;
+    }
+    return new FlatGeometry(1, null, Arrays.copyOf(boundary, boundaryCount * 2),
+        new SegmentIndex(coordinates, segmentCount), flags, extent);
+  }
+
+  private static void addEnd(double[] ends, int index, double x, double y, int segment, int end) {
+    ends[index * 4] = x;
+    ends[index * 4 + 1] = y;
+    ends[index * 4 + 2] = segment;
+    ends[index * 4 + 3] = end;
+  }
+
+  private static FlatGeometry ofRings(Multipart polygon, Envelope extent) {
+    int segmentCount = 0;
+    for (ImmutablePart part : polygon.getParts()) {
+      segmentCount += part.getPointCount();
+    }
+    double[] coordinates = new double[segmentCount * 4];
+    int s = 0;
+    for (ImmutablePart part : polygon.getParts()) {
+      int count = part.getPointCount();
+      if (count < 2) {
+        continue;
+      }
+      Point first = part.getPoint(0);
+      Point previous = first;
+      for (int i = 1; i <= count; i++) {
+        // close the ring back to the first point unless the part already repeats it
+        Point p = i < count ? part.getPoint(i) : first;
+        if (p.getX() != previous.getX() || p.getY() != previous.getY()) {
+          coordinates[s * 4] = previous.getX();
+          coordinates[s * 4 + 1] = previous.getY();
+          coordinates[s * 4 + 2] = p.getX();
+          coordinates[s * 4 + 3] = p.getY();
+          s++;
+        }
+        previous = p;
+      }
+    }
+    return new FlatGeometry(2, null, new double[0], new SegmentIndex(coordinates, s), null, extent);
+  }
+
+  /**
+   * Finds whether a location is in the interior, on the boundary or in the exterior of this geometry.
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @param tolerance distance below which coordinates are considered equal
+   * @return one of {@link #INTERIOR}, {@link #BOUNDARY} or {@link #EXTERIOR}
+   */
+  int locate(double x, double y, double tolerance) {
+    if (x < xmin - tolerance || x > xmax + tolerance || y < ymin - tolerance || y > ymax + tolerance) {
+      return EXTERIOR;
+    }
+    switch (dimension) {
+      case 0:
+        return nearAny(points, x, y, tolerance) ? INTERIOR : EXTERIOR;
+      case 1:
+        if (nearAny(boundary, x, y, tolerance)) {
+          return BOUNDARY;
+        }
+        return onSegment(x, y, tolerance) ? INTERIOR : EXTERIOR;
+      default:
+        return locateInRings(x, y, tolerance);
+    }
+  }
+
+  private boolean onSegment(double x, double y, double tolerance) {
+    return !segments.query(x - tolerance, y - tolerance, x + tolerance, y + tolerance, s ->
+        distanceSquared(x, y, segments.x1(s), segments.y1(s), segments.x2(s), segments.y2(s)) > tolerance * tolerance);
+  }
+
+  private int locateInRings(double x, double y, double tolerance) {
+    // count the ring crossings of a ray to the east of the location (even-odd rule)
+    int[] crossings = new int[1];
+    boolean onBoundary = !segments.query(x - tolerance, y - tolerance, xmax + tolerance, y + tolerance, s -> {
+      double x1 = segments.x1(s);
+      double y1 = segments.y1(s);
+      double x2 = segments.x2(s);
+      double y2 = segments.y2(s);
+      if (distanceSquared(x, y, x1, y1, x2, y2) <= tolerance * tolerance) {
+        return false;
+      }
+      if ((y1 > y) != (y2 > y) && x < x1 + (y - y1) * (x2 - x1) / (y2 - y1)) {
+        crossings[0]++;
+      }
+      return true;
+    });
+    if (onBoundary) {
+      return BOUNDARY;
+    }
+    return crossings[0] % 2 == 1 ? INTERIOR : EXTERIOR;
+  }
+
+  private static boolean nearAny(double[] coordinates, double x, double y, double tolerance) {
+    for (int i = 0; i < coordinates.length; i += 2) {
+      double dx = coordinates[i] - x;
+      double dy = coordinates[i + 1] - y;
+      if (dx * dx + dy * dy <= tolerance * tolerance) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Squared distance from a location to the segment (x1, y1)-(x2, y2).
+   */
+  static double distanceSquared(double x, double y, double x1, double y1, double x2, double y2) {
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    double px = x1 + t * dx - x;
+    double py = y1 + t * dy - y;
+    return px * px + py * py;
+  }
+}
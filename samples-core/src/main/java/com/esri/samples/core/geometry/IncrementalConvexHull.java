@@ -0,0 +1,266 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.ImmutablePart;
+import com.esri.arcgisruntime.geometry.Multipart;
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+/**
+ * Maintains the convex hull of a growing set of points. The hull is kept as an upper and a lower chain sorted by x,
+ * so adding a point costs O(log n) amortized: points inside the hull are rejected with two lookups, and every point
+ * removed from a chain is removed only once.
+ *
+ * <p>Removing a point which is a hull vertex recomputes the hull with {@link GeometryEngine#convexHull(Geometry)}
+ * over the remaining points. This class is not thread safe.
+ */
+public final class IncrementalConvexHull {
+
+  private final SpatialReference spatialReference;
+  private final Chain upper = new Chain(1);
+  private final Chain lower = new Chain(-1);
+  private double[] points = new double[32];
+  private int size;
+
+  /**
+   * @param spatialReference spatial reference of the points and of the hull
+   */
+  public IncrementalConvexHull(SpatialReference spatialReference) {
+    this.spatialReference = spatialReference;
+  }
+
+  /**
+   * Adds a point, which must be in this hull's spatial reference.
+   *
+   * @param point point to add
+   */
+  public void add(Point point) {
+    add(point.getX(), point.getY());
+  }
+
+  /**
+   * Adds a point.
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   */
+  public void add(double x, double y) {
+    // normalize negative zero, which sorts as a separate key
+    x += 0.0;
+    if (size * 2 == points.length) {
+      points = Arrays.copyOf(points, points.length * 2);
+    }
+    points[size * 2] = x;
+    points[size * 2 + 1] = y;
+    size++;
+    upper.insert(x, y);
+    lower.insert(x, y);
+  }
+
+  /**
+   * Removes one occurrence of a point. If the point is a vertex of the hull, the hull is recomputed from the remaining
+   * points.
+   *
+   * @param point point to remove
+   * @return true if the point had been added
+   */
+  public boolean remove(Point point) {
+    double x = point.getX();
+    double y = point.getY();
+    for (int i = 0; i < size; i++) {
+      if (points[i * 2] == x && points[i * 2 + 1] == y) {
+        System.arraycopy(points, (i + 1) * 2, points, i * 2, (size - i - 1) * 2);
+        size--;
+        if (upper.isVertex(x, y) || lower.isVertex(x, y)) {
+          rebuild();
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes all points.
+   */
+  public void clear() {
+    size = 0;
+    upper.vertices.clear();
+    lower.vertices.clear();
+  }
+
+  /**
+   * @return number of points added and not removed
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the current hull in the same form as {@link GeometryEngine#convexHull(Geometry)}: a point if all points are
+   * equal, a polyline if they are collinear and a polygon otherwise.
+   *
+   * @return the hull, or null if there are no points
+   */
+  public Geometry getHull() {
+    PointCollection vertices = vertices();
+    if (vertices.isEmpty()) {
+      return null;
+    } else if (vertices.size() == 1) {
+      return vertices.get(0);
+    } else if (vertices.size() == 2) {
+      return new Polyline(vertices);
+    }
+    return new Polygon(vertices);
+  }
+
+  /**
+   * Gets the current hull as a polygon. The polygon has no area while fewer than three points which are not collinear
+   * have been added.
+   *
+   * @return the hull polygon
+   */
+  public Polygon getPolygon() {
+    return new Polygon(vertices());
+  }
+
+  /**
+   * Collects the hull vertices clockwise, starting from the leftmost vertex.
+   */
+  private PointCollection vertices() {
+    PointCollection vertices = new PointCollection(spatialReference);
+    for (Map.Entry<Double, Double> vertex : upper.vertices.entrySet()) {
+      vertices.add(new Point(vertex.getKey(), vertex.getValue()));
+    }
+    // walk the lower chain back, skipping the end points it shares with the upper chain
+    for (Map.Entry<Double, Double> vertex : lower.vertices.descendingMap().entrySet()) {
+      Point point = new Point(vertex.getKey(), -vertex.getValue());
+      Point first = vertices.get(0);
+      Point last = vertices.get(vertices.size() - 1);
+      if (!(point.getX() == first.getX() && point.getY() == first.getY()) &&
+          !(point.getX() == last.getX() && point.getY() == last.getY())) {
+        vertices.add(point);
+      }
+    }
+    return vertices;
+  }
+
+  /**
+   * Recomputes the chains from the hull of the remaining points.
+   */
+  private void rebuild() {
+    upper.vertices.clear();
+    lower.vertices.clear();
+    if (size == 0) {
+      return;
+    }
+    PointCollection remaining = new PointCollection(spatialReference);
+    for (int i = 0; i < size; i++) {
+      remaining.add(new Point(points[i * 2], points[i * 2 + 1]));
+    }
+    Geometry hull = GeometryEngine.convexHull(new Multipoint(remaining));
+    if (hull instanceof Point) {
+      insertVertex((Point) hull);
+    } else if (hull instanceof Multipart) {
+      for (ImmutablePart part : ((Multipart) hull).getParts()) {
+        for (Point vertex : part.getPoints()) {
+          insertVertex(vertex);
+        }
+      }
+    }
+  }
+
+  private void insertVertex(Point vertex) {
+    upper.insert(vertex.getX(), vertex.getY());
+    lower.insert(vertex.getX(), vertex.getY());
+  }
+
+  /**
+   * One side of the hull, as a map from x to y. The lower chain stores negated y values so that both chains can be
+   * maintained as upper chains.
+   */
+  private static final class Chain {
+
+    private final double sign;
+    private final TreeMap<Double, Double> vertices = new TreeMap<>();
+
+    private Chain(double sign) {
+      this.sign = sign;
+    }
+
+    private boolean isVertex(double x, double y) {
+      Double vertexY = vertices.get(x);
+      return vertexY != null && vertexY == sign * y;
+    }
+
+    private void insert(double x, double pointY) {
+      double y = sign * pointY;
+      Double existing = vertices.get(x);
+      if (existing != null && existing >= y) {
+        return;
+      }
+      if (existing == null) {
+        Map.Entry<Double, Double> left = vertices.lowerEntry(x);
+        Map.Entry<Double, Double> right = vertices.higherEntry(x);
+        // points on or below the chain are not on the hull
+        if (left != null && right != null &&
+            cross(left.getKey(), left.getValue(), right.getKey(), right.getValue(), x, y) <= 0) {
+          return;
+        }
+      }
+      vertices.put(x, y);
+
+      // remove vertices which no longer make a right turn on either side of the new vertex
+      Map.Entry<Double, Double> a = vertices.lowerEntry(x);
+      while (a != null) {
+        Map.Entry<Double, Double> b = vertices.lowerEntry(a.getKey());
+        if (b == null || cross(b.getKey(), b.getValue(), a.getKey(), a.getValue(), x, y) < 0) {
+          break;
+        }
+        vertices.remove(a.getKey());
+        a = b;
+      }
+      a = vertices.higherEntry(x);
+      while (a != null) {
+        Map.Entry<Double, Double> b = vertices.higherEntry(a.getKey());
+        if (b == null || cross(x, y, a.getKey(), a.getValue(), b.getKey(), b.getValue()) < 0) {
+          break;
+        }
+        vertices.remove(a.getKey());
+        a = b;
+      }
+    }
+
+    /**
+     * Cross product of (a - o) and (b - o): positive if o, a, b make a left turn.
+     */
+    private static double cross(double ox, double oy, double ax, double ay, double bx, double by) {
+      return (ax - ox) * (by - oy) - (ay - oy) * (bx - ox);
+    }
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.Arrays;
+
+import static com.esri.samples.core.geometry.FlatGeometry.BOUNDARY;
+import static com.esri.samples.core.geometry.FlatGeometry.EXTERIOR;
+import static com.esri.samples.core.geometry.FlatGeometry.INTERIOR;
+
+/**
+ * A DE-9IM style intersection matrix between two geometries. Each cell only records whether the interior, boundary
+ * or exterior of the first geometry intersects the interior, boundary or exterior of the second one. The only
+ * dimension tracked is whether the interiors of two polylines share a segment, which is all the OGC predicates need.
+ *
+ * <p>The matrix is built by splitting the segments of each geometry where they meet the other geometry and locating
+ * every node and sub-segment midpoint against the other geometry.
+ */
+final class IntersectionMatrix {
+
+  private final boolean[] cells = new boolean[9];
+  private final int dimensionA;
+  private final int dimensionB;
+  private boolean interiorLinesOverlap;
+
+  private IntersectionMatrix(int dimensionA, int dimensionB) {
+    this.dimensionA = dimensionA;
+    this.dimensionB = dimensionB;
+    cells[EXTERIOR * 3 + EXTERIOR] = true;
+  }
+
+  /**
+   * Computes the matrix between a and b.
+   *
+   * @param a first geometry
+   * @param b second geometry
+   * @param tolerance distance below which coordinates are considered equal
+   * @return the intersection matrix
+   */
+  static IntersectionMatrix compute(FlatGeometry a, FlatGeometry b, double tolerance) {
+    IntersectionMatrix matrix = new IntersectionMatrix(a.dimension, b.dimension);
+    matrix.classify(a, b, tolerance, false);
+    matrix.classify(b, a, tolerance, true);
+    // a geometry can never cover the interior of one with a higher dimension
+    if (a.dimension > b.dimension) {
+      matrix.cells[INTERIOR * 3 + EXTERIOR] = true;
+    }
+    if (b.dimension > a.dimension) {
+      matrix.cells[EXTERIOR * 3 + INTERIOR] = true;
+    }
+    return matrix;
+  }
+
+  boolean get(int locationA, int locationB) {
+    return cells[locationA * 3 + locationB];
+  }
+
+  boolean isDisjoint() {
+    return !get(INTERIOR, INTERIOR) && !get(INTERIOR, BOUNDARY) && !get(BOUNDARY, INTERIOR) &&
+        !get(BOUNDARY, BOUNDARY);
+  }
+
+  boolean isTouches() {
+    return !get(INTERIOR, INTERIOR) && (get(INTERIOR, BOUNDARY) || get(BOUNDARY, INTERIOR) ||
+        get(BOUNDARY, BOUNDARY));
+  }
+
+  boolean isContains() {
+    return get(INTERIOR, INTERIOR) && !get(EXTERIOR, INTERIOR) && !get(EXTERIOR, BOUNDARY);
+  }
+
+  boolean isWithin() {
+    return get(INTERIOR, INTERIOR) && !get(INTERIOR, EXTERIOR) && !get(BOUNDARY, EXTERIOR);
+  }
+
+  boolean isCrosses() {
+    if (dimensionA < dimensionB) {
+      return get(INTERIOR, INTERIOR) && get(INTERIOR, EXTERIOR);
+    }
+    if (dimensionA > dimensionB) {
+      return get(INTERIOR, INTERIOR) && get(EXTERIOR, INTERIOR);
+    }
+    return dimensionA == 1 && get(INTERIOR, INTERIOR) && !interiorLinesOverlap;
+  }
+
+  boolean isOverlaps() {
+    if (dimensionA != dimensionB) {
+      return false;
+    }
+    boolean interiors = dimensionA == 1 ? interiorLinesOverlap : get(INTERIOR, INTERIOR);
+    return interiors && get(INTERIOR, EXTERIOR) && get(EXTERIOR, INTERIOR);
+  }
+
+  /**
+   * Records where the parts of x lie relative to y.
+   *
+   * @param transposed true if x is the second geometry of the matrix
+   */
+  private void classify(FlatGeometry x, FlatGeometry y, double tolerance, boolean transposed) {
+    if (x.dimension == 0) {
+      for (int i = 0; i < x.points.length; i += 2) {
+        mark(INTERIOR, y.locate(x.points[i], x.points[i + 1], tolerance), transposed);
+      }
+      return;
+    }
+
+    for (int i = 0; i < x.boundary.length; i += 2) {
+      mark(BOUNDARY, y.locate(x.boundary[i], x.boundary[i + 1], tolerance), transposed);
+    }
+
+    // a polyline's segments are its interior, a polygon's segments are its boundary
+    int segmentPart = x.dimension == 1 ? INTERIOR : BOUNDARY;
+    int[] visited = new int[1];
+    NodeList nodes = new NodeList();
+    x.segments.query(y.xmin - tolerance, y.ymin - tolerance, y.xmax + tolerance, y.ymax + tolerance, s -> {
+      visited[0]++;
+      classifySegment(x, s, y, segmentPart, nodes, tolerance, transposed);
+      return true;
+    });
+
+    // segments outside the other geometry's envelope are all in its exterior
+    if (visited[0] < x.segments.size()) {
+      mark(segmentPart, EXTERIOR, transposed);
+      if (x.dimension == 2) {
+        mark(INTERIOR, EXTERIOR, transposed);
+      }
+    }
+  }
+
+  private void classifySegment(FlatGeometry x, int s, FlatGeometry y, int segmentPart, NodeList nodes,
+      double tolerance, boolean transposed) {
+    double x1 = x.segments.x1(s);
+    double y1 = x.segments.y1(s);
+    double dx = x.segments.x2(s) - x1;
+    double dy = x.segments.y2(s) - y1;
+    double length = Math.sqrt(dx * dx + dy * dy);
+    if (length == 0) {
+      return;
+    }
+
+    collectNodes(x, s, y, nodes, tolerance);
+    double[] t = nodes.sorted(tolerance / length);
+
+    for (int i = 0; i < nodes.size; i++) {
+      // path vertices on the boundary of a polyline were classified with the boundary points
+      if (x.dimension == 1 && ((i == 0 && (x.segmentFlags[s] & 1) != 0) ||
+          (i == nodes.size - 1 && (x.segmentFlags[s] & 2) != 0))) {
+        continue;
+      }
+      mark(segmentPart, y.locate(x1 + t[i] * dx, y1 + t[i] * dy, tolerance), transposed);
+    }
+
+    for (int i = 1; i < nodes.size; i++) {
+      double mid = (t[i - 1] + t[i]) / 2;
+      double mx = x1 + mid * dx;
+      double my = y1 + mid * dy;
+      int location = y.locate(mx, my, tolerance);
+      mark(segmentPart, location, transposed);
+      if (x.dimension == 1 && y.dimension == 1 && location == INTERIOR) {
+        interiorLinesOverlap = true;
+      }
+      if (x.dimension == 2 && y.dimension == 2) {
+        if (location == BOUNDARY) {
+          // shared boundary: look a little to either side to find out which interiors meet
+          double offset = tolerance * 10 / length;
+          probe(x, y, mx - dy * offset, my + dx * offset, tolerance, transposed);
+          probe(x, y, mx + dy * offset, my - dx * offset, tolerance, transposed);
+        } else {
+          // the interior of x right next to its boundary is on the same side of y
+          mark(INTERIOR, location, transposed);
+        }
+      }
+    }
+  }
+
+  private void probe(FlatGeometry x, FlatGeometry y, double px, double py, double tolerance, boolean transposed) {
+    if (x.locate(px, py, tolerance) == INTERIOR) {
+      mark(INTERIOR, y.locate(px, py, tolerance), transposed);
+    }
+  }
+
+  /**
+   * Collects the parameters along segment s of x where it meets y, including its own end points.
+   */
+  private static void collectNodes(FlatGeometry x, int s, FlatGeometry y, NodeList nodes, double tolerance) {
+    double x1 = x.segments.x1(s);
+    double y1 = x.segments.y1(s);
+    double x2 = x.segments.x2(s);
+    double y2 = x.segments.y2(s);
+    nodes.clear();
+    nodes.add(0);
+    nodes.add(1);
+
+    double qminX = Math.min(x1, x2) - tolerance;
+    double qminY = Math.min(y1, y2) - tolerance;
+    double qmaxX = Math.max(x1, x2) + tolerance;
+    double qmaxY = Math.max(y1, y2) + tolerance;
+
+    if (y.dimension == 0) {
+      for (int i = 0; i < y.points.length; i += 2) {
+        addProjection(nodes, x1, y1, x2, y2, y.points[i], y.points[i + 1], tolerance);
+      }
+      return;
+    }
+
+    y.segments.query(qminX, qminY, qmaxX, qmaxY, o -> {
+      double ox1 = y.segments.x1(o);
+      double oy1 = y.segments.y1(o);
+      double ox2 = y.segments.x2(o);
+      double oy2 = y.segments.y2(o);
+      // end points of the other segment touching this one, which also covers collinear overlaps
+      addProjection(nodes, x1, y1, x2, y2, ox1, oy1, tolerance);
+      addProjection(nodes, x1, y1, x2, y2, ox2, oy2, tolerance);
+
+      // proper crossing
+      double rx = x2 - x1;
+      double ry = y2 - y1;
+      double qx = ox2 - ox1;
+      double qy = oy2 - oy1;
+      double denominator = rx * qy - ry * qx;
+      if (denominator != 0) {
+        double t = ((ox1 - x1) * qy - (oy1 - y1) * qx) / denominator;
+        double u = ((ox1 - x1) * ry - (oy1 - y1) * rx) / denominator;
+        if (t > 0 && t < 1 && u >= 0 && u <= 1) {
+          nodes.add(t);
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void addProjection(NodeList nodes, double x1, double y1, double x2, double y2, double px, double py,
+      double tolerance) {
+    if (FlatGeometry.distanceSquared(px, py, x1, y1, x2, y2) <= tolerance * tolerance) {
+      double dx = x2 - x1;
+      double dy = y2 - y1;
+      double t = ((px - x1) * dx + (py - y1) * dy) / (dx * dx + dy * dy);
+      nodes.add(Math.max(0, Math.min(1, t)));
+    }
+  }
+
+  private void mark(int locationX, int locationY, boolean transposed) {
+    if (transposed) {
+      cells[locationY * 3 + locationX] = true;
+    } else {
+      cells[locationX * 3 + locationY] = true;
+    }
+  }
+
+  /**
+   * A reusable list of segment parameters.
+   */
+  private static final class NodeList {
+
+    private double[] values = new double[8];
+    private int size;
+
+    void clear() {
+      size = 0;
+    }
+
+    void add(double t) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = t;
+    }
+
+    /**
+     * Sorts the parameters and merges those closer than the given gap.
+     */
+    double[] sorted(double gap) {
+      Arrays.sort(values, 0, size);
+      int kept = 1;
+      for (int i = 1; i < size; i++) {
+        if (values[i] - values[kept - 1] > gap) {
+          values[kept++] = values[i];
+        }
+      }
+      // always keep the segment's end point as the last node
+      values[kept - 1] = 1;
+      size = kept;
+      return values;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A static R-tree over item envelopes, bulk loaded with the Sort-Tile-Recursive algorithm. Items are sorted into
+ * vertical slices by the x of their center and each slice by y, then packed into full leaf nodes; each upper level
+ * packs consecutive nodes of the level below. All envelopes are stored in one flat array, level by level, so a query
+ * touches no objects.
+ *
+ * <p>The tree cannot be changed once built. Queries are read-only, so a tree can be shared between threads.
+ */
+public final class PackedRTree {
+
+  /**
+   * Receives the items found by a query.
+   */
+  public interface Visitor {
+
+    /**
+     * @param item item passed to the tree when it was built
+     * @return false to stop the query
+     */
+    boolean visit(int item);
+  }
+
+  /** Default number of entries per node. */
+  public static final int DEFAULT_NODE_SIZE = 16;
+
+  private final int nodeSize;
+  private final int size;
+
+  // envelopes as (xmin, ymin, xmax, ymax) of the items in packed order, then of each level of nodes up to the root
+  private final double[] boxes;
+  // item of each leaf entry in packed order
+  private final int[] items;
+  // index of the first entry of each level, with the total number of entries at the end
+  private final int[] levelStart;
+
+  /**
+   * Packs a tree with the default node size.
+   *
+   * @param envelopes item envelopes as (xmin, ymin, xmax, ymax) quadruples
+   * @param itemIds item reported for each envelope
+   * @param size number of items
+   */
+  public PackedRTree(double[] envelopes, int[] itemIds, int size) {
+    this(envelopes, itemIds, size, DEFAULT_NODE_SIZE);
+  }
+
+  /**
+   * Packs a tree.
+   *
+   * @param envelopes item envelopes as (xmin, ymin, xmax, ymax) quadruples
+   * @param itemIds item reported for each envelope
+   * @param size number of items
+   * @param nodeSize number of entries per node
+   */
+  public PackedRTree(double[] envelopes, int[] itemIds, int size, int nodeSize) {
+    if (nodeSize < 2) {
+      throw new IllegalArgumentException("Node size must be at least 2");
+    }
+    this.nodeSize = nodeSize;
+    this.size = size;
+
+    // count the entries of each level
+    int levels = 1;
+    int total = size;
+    for (int count = size; count > 1; ) {
+      count = (count + nodeSize - 1) / nodeSize;
+      total += count;
+      levels++;
+    }
+    levelStart = new int[levels + 1];
+    boxes = new double[total * 4];
+    items = new int[size];
+
+    // sort the leaf entries into slices by x and within each slice by y
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(envelopes[a * 4] + envelopes[a * 4 + 2],
+        envelopes[b * 4] + envelopes[b * 4 + 2]));
+    int leafCount = (size + nodeSize - 1) / nodeSize;
+    int sliceCount = Math.max(1, (int) Math.ceil(Math.sqrt(leafCount)));
+    int sliceSize = sliceCount * nodeSize;
+    for (int start = 0; start < size; start += sliceSize) {
+      Arrays.sort(order, start, Math.min(size, start + sliceSize), (a, b) -> Double.compare(
+          envelopes[a * 4 + 1] + envelopes[a * 4 + 3], envelopes[b * 4 + 1] + envelopes[b * 4 + 3]));
+    }
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(envelopes, order[i] * 4, boxes, i * 4, 4);
+      items[i] = itemIds[order[i]];
+    }
+
+    // each node covers the next nodeSize entries of the level below
+    int level = 0;
+    int start = 0;
+    int count = size;
+    while (true) {
+      levelStart[level] = start;
+      if (count <= 1) {
+        break;
+      }
+      int parentStart = start + count;
+      int parents = (count + nodeSize - 1) / nodeSize;
+      for (int p = 0; p < parents; p++) {
+        double xmin = Double.POSITIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY;
+        double xmax = Double.NEGATIVE_INFINITY;
+        double ymax = Double.NEGATIVE_INFINITY;
+        for (int c = start + p * nodeSize; c < Math.min(start + count, start + (p + 1) * nodeSize); c++) {
+          xmin = Math.min(xmin, boxes[c * 4]);
+          ymin = Math.min(ymin, boxes[c * 4 + 1]);
+          xmax = Math.max(xmax, boxes[c * 4 + 2]);
+          ymax = Math.max(ymax, boxes[c * 4 + 3]);
+        }
+        int node = parentStart + p;
+        boxes[node * 4] = xmin;
+        boxes[node * 4 + 1] = ymin;
+        boxes[node * 4 + 2] = xmax;
+        boxes[node * 4 + 3] = ymax;
+      }
+      level++;
+      start = parentStart;
+      count = parents;
+    }
+    levelStart[levels] = total;
+  }
+
+  /**
+   * @return number of items in the tree
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Visits each item whose envelope intersects the query envelope.
+   *
+   * @return false if the visitor stopped the query
+   */
+  public boolean query(double qminX, double qminY, double qmaxX, double qmaxY, Visitor visitor) {
+    if (size == 0) {
+      return true;
+    }
+    int root = levelStart.length - 2;
+    return search(root, levelStart[root], qminX, qminY, qmaxX, qmaxY, visitor);
+  }
+
+  private boolean search(int level, int entry, double qminX, double qminY, double qmaxX, double qmaxY,
+      Visitor visitor) {
+    if (boxes[entry * 4] > qmaxX || boxes[entry * 4 + 2] < qminX || boxes[entry * 4 + 1] > qmaxY ||
+        boxes[entry * 4 + 3] < qminY) {
+      return true;
+    }
+    if (level == 0) {
+      return visitor.visit(items[entry]);
+    }
+    // children of this node are the matching run of entries in the level below
+    int index = entry - levelStart[level];
+    int childStart = levelStart[level - 1];
+    int childEnd = levelStart[level];
+    for (int c = childStart + index * nodeSize; c < Math.min(childEnd, childStart + (index + 1) * nodeSize); c++) {
+      if (!search(level - 1, c, qminX, qminY, qmaxX, qmaxY, visitor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.EnumSet;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+
+/**
+ * A geometry prepared for testing many other geometries against it. Preparing copies the coordinates into primitive
+ * arrays and builds a segment index once, so that all seven relationships to another geometry are found with a
+ * single pass over that geometry rather than seven separate {@link GeometryEngine} calls.
+ *
+ * <p>Relationships follow the OGC definitions used by {@link GeometryEngine}. Coordinates closer than the XY
+ * tolerance are considered equal; by default this is the default tolerance of Esri spatial references, which
+ * {@link GeometryEngine} uses too, and a different tolerance can be given when preparing. {@link GeometryEngine}
+ * remains the reference: {@code PreparedGeometryBenchmark} checks that both give the same relationships. Points,
+ * multipoints, polylines, polygons and envelopes are supported. A prepared geometry is immutable and can be shared
+ * between threads.
+ */
+public final class PreparedGeometry {
+
+  /** Default XY tolerance of geographic spatial references, in degrees. */
+  public static final double DEFAULT_GEOGRAPHIC_TOLERANCE = 8.983152841195214E-9;
+
+  /** Default XY tolerance of projected spatial references, in meters. */
+  public static final double DEFAULT_PROJECTED_TOLERANCE = 0.001;
+
+  private final Geometry geometry;
+  private final FlatGeometry flat;
+  private final double tolerance;
+
+  private PreparedGeometry(Geometry geometry, double tolerance) {
+    this.geometry = geometry;
+    this.tolerance = tolerance;
+    flat = geometry.isEmpty() ? null : FlatGeometry.of(geometry);
+  }
+
+  /**
+   * Prepares a geometry for repeated relationship tests, using the default XY tolerance of its spatial reference.
+   *
+   * @param geometry geometry to prepare
+   * @return the prepared geometry
+   * @throws IllegalArgumentException if the geometry type is not supported
+   */
+  public static PreparedGeometry prepare(Geometry geometry) {
+    SpatialReference spatialReference = geometry.getSpatialReference();
+    return prepare(geometry, spatialReference != null && spatialReference.isGeographic() ?
+        DEFAULT_GEOGRAPHIC_TOLERANCE : DEFAULT_PROJECTED_TOLERANCE);
+  }
+
+  /**
+   * Prepares a geometry for repeated relationship tests.
+   *
+   * @param geometry geometry to prepare
+   * @param tolerance distance below which coordinates are considered equal, in the units of the geometry's spatial
+   * reference
+   * @return the prepared geometry
+   * @throws IllegalArgumentException if the geometry type is not supported or the tolerance is negative
+   */
+  public static PreparedGeometry prepare(Geometry geometry, double tolerance) {
+    if (tolerance < 0) {
+      throw new IllegalArgumentException("Tolerance must not be negative");
+    }
+    return new PreparedGeometry(geometry, tolerance);
+  }
+
+  /**
+   * @return distance below which coordinates are considered equal
+   */
+  public double getTolerance() {
+    return tolerance;
+  }
+
+  /**
+   * @return the geometry this was prepared from
+   */
+  public Geometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * Gets the spatial relationships this geometry has to another geometry, i.e. the relationships for which
+   * {@code GeometryEngine.<relationship>(getGeometry(), other)} returns true.
+   *
+   * @param other geometry to test, projected to this geometry's spatial reference if necessary
+   * @return the relationships which exist
+   */
+  public EnumSet<SpatialRelationship> relationships(Geometry other) {
+    if (flat == null || other.isEmpty()) {
+      return EnumSet.of(SpatialRelationship.DISJOINT);
+    }
+    if (other.getSpatialReference() != null && geometry.getSpatialReference() != null &&
+        !other.getSpatialReference().equals(geometry.getSpatialReference())) {
+      other = GeometryEngine.project(other, geometry.getSpatialReference());
+    }
+
+    // envelopes that do not meet cannot contain geometries that do
+    if (!envelopeIntersects(other)) {
+      return EnumSet.of(SpatialRelationship.DISJOINT);
+    }
+
+    IntersectionMatrix matrix = IntersectionMatrix.compute(flat, FlatGeometry.of(other), tolerance);
+    EnumSet<SpatialRelationship> relationships = EnumSet.noneOf(SpatialRelationship.class);
+    if (matrix.isCrosses()) {
+      relationships.add(SpatialRelationship.CROSSES);
+    }
+    if (matrix.isContains()) {
+      relationships.add(SpatialRelationship.CONTAINS);
+    }
+    if (matrix.isDisjoint()) {
+      relationships.add(SpatialRelationship.DISJOINT);
+    } else {
+      relationships.add(SpatialRelationship.INTERSECTS);
+    }
+    if (matrix.isOverlaps()) {
+      relationships.add(SpatialRelationship.OVERLAPS);
+    }
+    if (matrix.isTouches()) {
+      relationships.add(SpatialRelationship.TOUCHES);
+    }
+    if (matrix.isWithin()) {
+      relationships.add(SpatialRelationship.WITHIN);
+    }
+    return relationships;
+  }
+
+  private boolean envelopeIntersects(Geometry other) {
+    Envelope extent = other.getExtent();
+    return extent.getXMin() <= flat.xmax + tolerance && extent.getXMax() >= flat.xmin - tolerance &&
+        extent.getYMin() <= flat.ymax + tolerance && extent.getYMax() >= flat.ymin - tolerance;
+  }
+}
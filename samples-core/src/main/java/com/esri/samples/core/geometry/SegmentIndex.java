@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+/**
+ * A uniform grid over the segments of a geometry. Segments are stored as flat (x1, y1, x2, y2) coordinates and each
+ * grid cell lists the segments whose envelope overlaps it.
+ *
+ * <p>Queries are read-only, so an index can be shared between threads once built.
+ */
+final class SegmentIndex {
+
+  /**
+   * Receives the segments found by a query.
+   */
+  interface Visitor {
+
+    /**
+     * @param segment index of the segment
+     * @return false to stop the query
+     */
+    boolean visit(int segment);
+  }
+
+  private final double[] coordinates;
+  private final int size;
+  private final double minX;
+  private final double minY;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final int columns;
+  private final int rows;
+  private final int[] cellStart;
+  private final int[] cellSegments;
+
+  /**
+   * @param coordinates segment coordinates as (x1, y1, x2, y2) quadruples
+   * @param size number of segments
+   */
+  SegmentIndex(double[] coordinates, int size) {
+    this.coordinates = coordinates;
+    this.size = size;
+
+    double xmin = Double.POSITIVE_INFINITY;
+    double ymin = Double.POSITIVE_INFINITY;
+    double xmax = Double.NEGATIVE_INFINITY;
+    double ymax = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < size * 4; i += 2) {
+      xmin = Math.min(xmin, coordinates[i]);
+      ymin = Math.min(ymin, coordinates[i + 1]);
+      xmax = Math.max(xmax, coordinates[i]);
+      ymax = Math.max(ymax, coordinates[i + 1]);
+    }
+    minX = size == 0 ? 0 : xmin;
+    minY = size == 0 ? 0 : ymin;
+
+    // aim for a couple of segments per cell
+    int side = Math.max(1, (int) Math.sqrt(size / 2.0));
+    columns = xmax > xmin ? side : 1;
+    rows = ymax > ymin ? side : 1;
+    cellWidth = xmax > xmin ? (xmax - xmin) / columns : 1;
+    cellHeight = ymax > ymin ? (ymax - ymin) / rows : 1;
+
+    // count the segments per cell, then fill them in a compressed row layout
+    cellStart = new int[columns * rows + 1];
+    for (int s = 0; s < size; s++) {
+      int c0 = column(minX(s));
+      int c1 = column(maxX(s));
+      int r0 = row(minY(s));
+      int r1 = row(maxY(s));
+      for (int r = r0; r <= r1; r++) {
+        for (int c = c0; c <= c1; c++) {
+          cellStart[r * columns + c + 1]++;
+        }
+      }
+    }
+    for (int i = 1; i < cellStart.length; i++) {
+      cellStart[i] += cellStart[i - 1];
+    }
+    cellSegments = new int[cellStart[cellStart.length - 1]];
+    int[] fill = new int[columns * rows];
+    for (int s = 0; s < size; s++) {
+      int c0 = column(minX(s));
+      int c1 = column(maxX(s));
+      int r0 = row(minY(s));
+      int r1 = row(maxY(s));
+      for (int r = r0; r <= r1; r++) {
+        for (int c = c0; c <= c1; c++) {
+          int cell = r * columns + c;
+          cellSegments[cellStart[cell] + fill[cell]++] = s;
+        }
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  double x1(int segment) {
+    return coordinates[segment * 4];
+  }
+
+  double y1(int segment) {
+    return coordinates[segment * 4 + 1];
+  }
+
+  double x2(int segment) {
+    return coordinates[segment * 4 + 2];
+  }
+
+  double y2(int segment) {
+    return coordinates[segment * 4 + 3];
+  }
+
+  /**
+   * Visits each segment whose envelope intersects the query envelope exactly once.
+   *
+   * @return false if the visitor stopped the query
+   */
+  boolean query(double qminX, double qminY, double qmaxX, double qmaxY, Visitor visitor) {
+    int c0 = column(qminX);
+    int c1 = column(qmaxX);
+    int r0 = row(qminY);
+    int r1 = row(qmaxY);
+    for (int r = r0; r <= r1; r++) {
+      for (int c = c0; c <= c1; c++) {
+        int cell = r * columns + c;
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+          int s = cellSegments[i];
+          if (minX(s) > qmaxX || maxX(s) < qminX || minY(s) > qmaxY || maxY(s) < qminY) {
+            continue;
+          }
+          // a segment is listed in every cell it overlaps, so only report it from the cell holding the lower left
+          // corner of its overlap with the query
+          double refX = Math.max(qminX, minX(s));
+          double refY = Math.max(qminY, minY(s));
+          if (column(refX) == c && row(refY) == r && !visitor.visit(s)) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private double minX(int s) {
+    return Math.min(coordinates[s * 4], coordinates[s * 4 + 2]);
+  }
+
+  private double maxX(int s) {
+    return Math.max(coordinates[s * 4], coordinates[s * 4 + 2]);
+  }
+
+  private double minY(int s) {
+    return Math.min(coordinates[s * 4 + 1], coordinates[s * 4 + 3]);
+  }
+
+  private double maxY(int s) {
+    return Math.max(coordinates[s * 4 + 1], coordinates[s * 4 + 3]);
+  }
+
+  private int column(double x) {
+    int c = (int) Math.floor((x - minX) / cellWidth);
+    return Math.max(0, Math.min(columns - 1, c));
+  }
+
+  private int row(double y) {
+    int r = (int) Math.floor((y - minY) / cellHeight);
+    return Math.max(0, Math.min(rows - 1, r));
+  }
+}
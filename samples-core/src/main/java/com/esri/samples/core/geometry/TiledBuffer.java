@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import com.esri.arcgisruntime.geometry.Envelope;
+import com.esri.arcgisruntime.geometry.Geometry;
+import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.Polygon;
+
+/**
+ * Buffers large numbers of geometries in parallel. The inputs are split into spatial tiles which are buffered (and
+ * optionally unioned) independently on a {@link ForkJoinPool}. When unioning, neighbouring tile results are then
+ * merged pairwise until a single polygon remains, so no single union call has to process every buffer at once.
+ *
+ * <p>Each tile's buffers are passed to a listener as soon as the tile completes, so they can be shown while the rest
+ * of the work is still running. The listener is called from pool threads.
+ */
+public final class TiledBuffer {
+
+  /** Default number of geometries per tile. */
+  public static final int DEFAULT_TILE_CAPACITY = 512;
+
+  private final ForkJoinPool pool;
+  private final int tileCapacity;
+
+  /**
+   * Creates a tiled buffer which runs on the common pool with the default tile capacity.
+   */
+  public TiledBuffer() {
+    this(ForkJoinPool.commonPool(), DEFAULT_TILE_CAPACITY);
+  }
+
+  /**
+   * @param pool pool to run the tile and merge tasks on
+   * @param tileCapacity target number of geometries per tile
+   */
+  public TiledBuffer(ForkJoinPool pool, int tileCapacity) {
+    if (tileCapacity < 1) {
+      throw new IllegalArgumentException("Tile capacity must be positive");
+    }
+    this.pool = pool;
+    this.tileCapacity = tileCapacity;
+  }
+
+  /**
+   * Buffers each geometry by its distance, in the units of the geometries' spatial reference.
+   *
+   * @param geometries geometries to buffer
+   * @param distances buffer distance of each geometry
+   * @param union whether to union the buffers into a single polygon
+   * @param tileListener called with the buffers of each tile as it completes (unioned per tile if union is true), or
+   * null
+   * @return a future completing with the buffers, or with the single unioned buffer
+   */
+  public CompletableFuture<List<Polygon>> bufferAsync(List<? extends Geometry> geometries, List<Double> distances,
+      boolean union, Consumer<List<Polygon>> tileListener) {
+    if (geometries.size() != distances.size()) {
+      throw new IllegalArgumentException("Each geometry needs one buffer distance");
+    }
+    if (geometries.isEmpty()) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+    List<Tile> tiles = createTiles(geometries, distances);
+    Consumer<List<Polygon>> listener = tileListener != null ? tileListener : buffers -> {};
+    return CompletableFuture.supplyAsync(() -> new TileTask(tiles, 0, tiles.size(), union, listener).invoke(), pool);
+  }
+
+  /**
+   * Groups the geometries by the cell of a grid over their extent which holds the center of their envelope. Tiles are
+   * returned in Morton order so that tiles which are next to each other in the list are also close on the map.
+   */
+  private List<Tile> createTiles(List<? extends Geometry> geometries, List<Double> distances) {
+    int count = geometries.size();
+    double[] centers = new double[count * 2];
+    double xmin = Double.POSITIVE_INFINITY;
+    double ymin = Double.POSITIVE_INFINITY;
+    double xmax = Double.NEGATIVE_INFINITY;
+    double ymax = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      Envelope extent = geometries.get(i).getExtent();
+      centers[i * 2] = (extent.getXMin() + extent.getXMax()) / 2;
+      centers[i * 2 + 1] = (extent.getYMin() + extent.getYMax()) / 2;
+      xmin = Math.min(xmin, centers[i * 2]);
+      ymin = Math.min(ymin, centers[i * 2 + 1]);
+      xmax = Math.max(xmax, centers[i * 2]);
+      ymax = Math.max(ymax, centers[i * 2 + 1]);
+    }
+
+    int side = (int) Math.ceil(Math.sqrt(Math.ceil(count / (double) tileCapacity)));
+    double cellWidth = xmax > xmin ? (xmax - xmin) / side : 1;
+    double cellHeight = ymax > ymin ? (ymax - ymin) / side : 1;
+    Map<Integer, Tile> tiles = new TreeMap<>();
+    for (int i = 0; i < count; i++) {
+      int column = Math.min(side - 1, (int) ((centers[i * 2] - xmin) / cellWidth));
+      int row = Math.min(side - 1, (int) ((centers[i * 2 + 1] - ymin) / cellHeight));
+      Tile tile = tiles.computeIfAbsent(interleave(column, row), key -> new Tile());
+      tile.geometries.add(geometries.get(i));
+      tile.distances.add(distances.get(i));
+    }
+    return new ArrayList<>(tiles.values());
+  }
+
+  /**
+   * Interleaves the bits of a column and row into a Morton code.
+   */
+  private static int interleave(int column, int row) {
+    int key = 0;
+    for (int bit = 0; bit < 16; bit++) {
+      key |= ((column >> bit) & 1) << (2 * bit);
+      key |= ((row >> bit) & 1) << (2 * bit + 1);
+    }
+    return key;
+  }
+
+  /**
+   * The geometries and distances which fall into one grid cell.
+   */
+  private static final class Tile {
+
+    private final List<Geometry> geometries = new ArrayList<>();
+    private final List<Double> distances = new ArrayList<>();
+  }
+
+  /**
+   * Buffers a range of tiles by splitting it in half until a single tile remains. When unioning, the results of the
+   * two halves are unioned on the way back up.
+   */
+  private static final class TileTask extends RecursiveTask<List<Polygon>> {
+
+    private final List<Tile> tiles;
+    private final int from;
+    private final int to;
+    private final boolean union;
+    private final Consumer<List<Polygon>> listener;
+
+    private TileTask(List<Tile> tiles, int from, int to, boolean union, Consumer<List<Polygon>> listener) {
+      this.tiles = tiles;
+      this.from = from;
+      this.to = to;
+      this.union = union;
+      this.listener = listener;
+    }
+
+    @Override
+    protected List<Polygon> compute() {
+      if (to - from == 1) {
+        Tile tile = tiles.get(from);
+        List<Polygon> buffers = GeometryEngine.buffer(tile.geometries, tile.distances, union);
+        listener.accept(buffers);
+        return buffers;
+      }
+
+      int middle = (from + to) >>> 1;
+      TileTask left = new TileTask(tiles, from, middle, union, listener);
+      left.fork();
+      List<Polygon> right = new TileTask(tiles, middle, to, union, listener).compute();
+      List<Polygon> merged = new ArrayList<>(left.join());
+      if (union) {
+        if (merged.isEmpty()) {
+          return right;
+        } else if (!right.isEmpty()) {
+          return Collections.singletonList((Polygon) GeometryEngine.union(merged.get(0), right.get(0)));
+        }
+      } else {
+        merged.addAll(right);
+      }
+      return merged;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.graphics;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
+
+/**
+ * Loads a message file into a graphics overlay in the background. Messages are read with a {@link MessageReader} off
+ * the UI thread and the graphics are added to the overlay in batches on the UI thread. At most a few batches wait to
+ * be added at any time, so the reader cannot run far ahead of the UI.
+ */
+public final class MessageLoader {
+
+  /** Default number of graphics added to the overlay at once. */
+  public static final int DEFAULT_BATCH_SIZE = 2000;
+
+  private static final int MAX_PENDING_BATCHES = 4;
+
+  private final int batchSize;
+  private final Executor readExecutor;
+  private final Executor uiExecutor;
+
+  /**
+   * Creates a loader which reads on the common pool with the default batch size.
+   *
+   * @param uiExecutor executor for adding graphics on the UI thread, e.g. {@code Platform::runLater}
+   */
+  public MessageLoader(Executor uiExecutor) {
+    this(DEFAULT_BATCH_SIZE, ForkJoinPool.commonPool(), uiExecutor);
+  }
+
+  /**
+   * @param batchSize number of graphics added to the overlay at once
+   * @param readExecutor executor to read the file on
+   * @param uiExecutor executor for adding graphics on the UI thread, e.g. {@code Platform::runLater}
+   */
+  public MessageLoader(int batchSize, Executor readExecutor, Executor uiExecutor) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    this.batchSize = batchSize;
+    this.readExecutor = readExecutor;
+    this.uiExecutor = uiExecutor;
+  }
+
+  /**
+   * Reads all messages in a file and adds a graphic for each to the overlay.
+   *
+   * @param file message file
+   * @param graphicsOverlay overlay to add the graphics to
+   * @return a future completing with the number of graphics once all of them have been added to the overlay
+   */
+  public CompletableFuture<Integer> loadAsync(File file, GraphicsOverlay graphicsOverlay) {
+    return CompletableFuture.supplyAsync(() -> {
+      Semaphore pending = new Semaphore(MAX_PENDING_BATCHES);
+      int count = 0;
+      try (MessageReader reader = new MessageReader(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+        List<Graphic> batch;
+        while (!(batch = reader.nextGraphics(batchSize)).isEmpty()) {
+          pending.acquire();
+          List<Graphic> graphics = batch;
+          uiExecutor.execute(() -> {
+            try {
+              graphicsOverlay.getGraphics().addAll(graphics);
+            } finally {
+              pending.release();
+            }
+          });
+          count += batch.size();
+        }
+        // wait for the last batches to be added
+        pending.acquire(MAX_PENDING_BATCHES);
+        return count;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while loading " + file, e);
+      }
+    }, readExecutor);
+  }
+}
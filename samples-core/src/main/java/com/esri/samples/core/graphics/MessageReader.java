@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.core.graphics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.esri.arcgisruntime.geometry.Multipoint;
+import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.PointCollection;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.mapping.view.Graphic;
+
+/**
+ * Reads military symbology messages, such as the MIL-STD-2525D message files used with dictionary renderers, one
+ * message at a time with a StAX parser. Each child element of a {@code message} element becomes an attribute, and the
+ * {@code _wkid} and {@code _control_points} attributes give the geometry of the graphic.
+ *
+ * <p>Only the current message is held in memory, so files of any size can be read.
+ */
+public final class MessageReader implements Closeable {
+
+  private static final String MESSAGE = "message";
+  private static final String WKID = "_wkid";
+  private static final String CONTROL_POINTS = "_control_points";
+
+  private final InputStream input;
+  private final XMLStreamReader reader;
+  private final Map<Integer, SpatialReference> spatialReferences = new HashMap<>();
+
+  /**
+   * @param input stream of the message file, which is closed with this reader
+   * @throws IOException if the stream cannot be parsed as XML
+   */
+  public MessageReader(InputStream input) throws IOException {
+    try {
+      reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+    } catch (XMLStreamException e) {
+      throw new IOException("Error opening message stream", e);
+    }
+    this.input = input;
+  }
+
+  /**
+   * Reads the attributes of the next message.
+   *
+   * @return the attributes, or null if there are no more messages
+   * @throws IOException if the stream cannot be read or is not well formed
+   */
+  public Map<String, Object> nextMessage() throws IOException {
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT && MESSAGE.equals(reader.getLocalName())) {
+          Map<String, Object> attributes = new HashMap<>();
+          while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            attributes.put(name, reader.getElementText().trim());
+          }
+          return attributes;
+        }
+      }
+      return null;
+    } catch (XMLStreamException e) {
+      throw new IOException("Error reading message", e);
+    }
+  }
+
+  /**
+   * Reads up to the given number of messages and creates a graphic for each.
+   *
+   * @param count maximum number of graphics to read
+   * @return the graphics, which is empty if there are no more messages
+   * @throws IOException if the stream cannot be read or a message has no valid geometry
+   */
+  public List<Graphic> nextGraphics(int count) throws IOException {
+    List<Graphic> graphics = new ArrayList<>(count);
+    Map<String, Object> attributes;
+    while (graphics.size() < count && (attributes = nextMessage()) != null) {
+      graphics.add(createGraphic(attributes));
+    }
+    return graphics;
+  }
+
+  /**
+   * Creates a multipoint graphic from a message's attributes.
+   *
+   * @param attributes message attributes, including the spatial reference and control points
+   * @return the graphic
+   * @throws IOException if the message has no valid geometry
+   */
+  public Graphic createGraphic(Map<String, Object> attributes) throws IOException {
+    Object wkid = attributes.get(WKID);
+    Object controlPoints = attributes.get(CONTROL_POINTS);
+    if (wkid == null || controlPoints == null) {
+      throw new IOException("Message without " + WKID + " or " + CONTROL_POINTS);
+    }
+    try {
+      SpatialReference spatialReference = spatialReferences.computeIfAbsent(Integer.parseInt((String) wkid),
+          SpatialReference::create);
+
+      // coordinates are separated by semicolons, x and y by a comma
+      PointCollection points = new PointCollection(spatialReference);
+      for (String coordinates : ((String) controlPoints).split(";")) {
+        int comma = coordinates.indexOf(',');
+        points.add(new Point(Double.parseDouble(coordinates.substring(0, comma)),
+            Double.parseDouble(coordinates.substring(comma + 1))));
+      }
+      return new Graphic(new Multipoint(points), attributes);
+    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+      throw new IOException("Invalid geometry in message", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      throw new IOException("Error closing message stream", e);
+    } finally {
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.esri.samples.core.graphics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.esri.arcgisruntime.geometry.GeometryType;
+import com.esri.arcgisruntime.layers.FeatureLayer;
+import com.esri.arcgisruntime.layers.FeatureLayer.RenderingMode;
+import com.esri.arcgisruntime.layers.Layer;
+import com.esri.arcgisruntime.loadable.LoadStatus;
+import com.esri.arcgisruntime.mapping.view.DrawStatus;
+import com.esri.arcgisruntime.mapping.view.DrawStatusChangedEvent;
+import com.esri.arcgisruntime.mapping.view.DrawStatusChangedListener;
+import com.esri.arcgisruntime.mapping.view.GeoView;
+
+/**
+ * Switches the feature layers of a map or scene view between static and dynamic rendering, based on how long the
+ * view takes to draw and how many features each layer holds.
+ *
+ * <p>The time from each {@link DrawStatus#IN_PROGRESS} event of the view to the following
+ * {@link DrawStatus#COMPLETED} event is recorded as a draw time. After every window of draws the tuner makes at most
+ * one switch:
+ * <ul>
+ *   <li>a dynamic layer with more than the maximum number of dynamic features switches to static rendering, as does
+ *   the dynamic layer with the most features when the mean draw time of the window is above the maximum;</li>
+ *   <li>otherwise the static layer with the fewest features switches to dynamic rendering if it has no more than half
+ *   the maximum number of dynamic features and the mean draw time is below half the maximum, so that a layer does not
+ *   switch back and forth.</li>
+ * </ul>
+ *
+ * <p>A layer is switched by replacing it in the operational layers with a copy which has the new rendering mode set
+ * before it loads. The copy fetches its features again. Every switch is recorded as a {@link Decision} holding the
+ * mean draw time of the window before it and, once complete, of the window after it.
+ *
+ * <p>The feature count of a layer is the number of features in its table, which for a service feature table is the
+ * number of features it has fetched. A layer with the {@link RenderingMode#AUTOMATIC} mode counts as dynamic for
+ * points and static otherwise. Views raise draw status events on the JavaFX application thread; the tuner and its
+ * decision listener are only used there.
+ */
+public final class RenderingModeTuner implements AutoCloseable {
+
+  /** Default mean draw time above which a dynamic layer switches to static rendering. */
+  public static final long DEFAULT_MAX_DRAW_MILLIS = 250;
+
+  /** Default number of features above which a dynamic layer switches to static rendering. */
+  public static final int DEFAULT_MAX_DYNAMIC_FEATURES = 5000;
+
+  /** Default number of draws between decisions. */
+  public static final int DEFAULT_WINDOW_SIZE = 5;
+
+  private final GeoView view;
+  private final List<Layer> layers;
+  private final long maxDrawMillis;
+  private final int maxDynamicFeatures;
+  private final int windowSize;
+  private final DrawStatusChangedListener drawStatusChangedListener = this::drawStatusChanged;
+  private final List<Decision> decisions = new ArrayList<>();
+  private Consumer<Decision> decisionListener = decision -> { };
+
+  private long drawStart = -1;
+  private int windowDraws;
+  private double windowMillis;
+  private Decision measuring;
+
+  private long drawCount;
+  private double totalDrawMillis;
+  private double lastDrawMillis = Double.NaN;
+  private double lastWindowMillis = Double.NaN;
+
+  /**
+   * Creates a tuner with the default thresholds and window size.
+   *
+   * @param view map or scene view drawing the layers
+   * @param layers operational layers of the view's map or scene
+   */
+  public RenderingModeTuner(GeoView view, List<Layer> layers) {
+    this(view, layers, DEFAULT_MAX_DRAW_MILLIS, DEFAULT_MAX_DYNAMIC_FEATURES, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a tuner and starts timing the draws of the view.
+   *
+   * @param view map or scene view drawing the layers
+   * @param layers operational layers of the view's map or scene
+   * @param maxDrawMillis mean draw time above which a dynamic layer switches to static rendering
+   * @param maxDynamicFeatures number of features above which a dynamic layer switches to static rendering
+   * @param windowSize number of draws between decisions
+   */
+  public RenderingModeTuner(GeoView view, List<Layer> layers, long maxDrawMillis, int maxDynamicFeatures,
+      int windowSize) {
+    if (maxDrawMillis <= 0) {
+      throw new IllegalArgumentException("Maximum draw time must be positive");
+    }
+    if (maxDynamicFeatures <= 0) {
+      throw new IllegalArgumentException("Maximum dynamic features must be positive");
+    }
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("Window size must be positive");
+    }
+    this.view = view;
+    this.layers = layers;
+    this.maxDrawMillis = maxDrawMillis;
+    this.maxDynamicFeatures = maxDynamicFeatures;
+    this.windowSize = windowSize;
+    view.addDrawStatusChangedListener(drawStatusChangedListener);
+  }
+
+  /**
+   * Sets a listener called when a layer is switched and again when the draw times after the switch are measured.
+   *
+   * @param listener listener, called on the JavaFX application thread
+   */
+  public void setDecisionListener(Consumer<Decision> listener) {
+    decisionListener = listener == null ? decision -> { } : listener;
+  }
+
+  /**
+   * Stops timing the draws of the view. The layers keep their current rendering modes.
+   */
+  @Override
+  public void close() {
+    view.removeDrawStatusChangedListener(drawStatusChangedListener);
+  }
+
+  private void drawStatusChanged(DrawStatusChangedEvent event) {
+    if (event.getDrawStatus() == DrawStatus.IN_PROGRESS) {
+      if (drawStart < 0) {
+        drawStart = System.nanoTime();
+      }
+      return;
+    }
+    if (event.getDrawStatus() != DrawStatus.COMPLETED || drawStart < 0) {
+      return;
+    }
+
+    double millis = (System.nanoTime() - drawStart) / 1e6;
+    drawStart = -1;
+    drawCount++;
+    totalDrawMillis += millis;
+    lastDrawMillis = millis;
+    windowMillis += millis;
+    if (++windowDraws < windowSize) {
+      return;
+    }
+
+    double mean = windowMillis / windowDraws;
+    windowMillis = 0;
+    windowDraws = 0;
+    lastWindowMillis = mean;
+    if (measuring != null) {
+      // the first window after a switch only measures its effect
+      measuring.meanDrawMillisAfter = mean;
+      Decision decision = measuring;
+      measuring = null;
+      decisionListener.accept(decision);
+    } else {
+      decide(mean);
+    }
+  }
+
+  /**
+   * Picks the layer to switch, if any, for the mean draw time of a window.
+   */
+  private void decide(double meanDrawMillis) {
+    FeatureLayer toStatic = null;
+    long toStaticCount = -1;
+    FeatureLayer toDynamic = null;
+    long toDynamicCount = Long.MAX_VALUE;
+    for (Layer layer : layers) {
+      if (!(layer instanceof FeatureLayer) || layer.getLoadStatus() != LoadStatus.LOADED) {
+        continue;
+      }
+      FeatureLayer featureLayer = (FeatureLayer) layer;
+      long count = featureLayer.getFeatureTable().getTotalFeatureCount();
+      if (isDynamic(featureLayer)) {
+        if ((count > maxDynamicFeatures || meanDrawMillis > maxDrawMillis) && count > toStaticCount) {
+          toStatic = featureLayer;
+          toStaticCount = count;
+        }
+      } else if (count <= maxDynamicFeatures / 2 && meanDrawMillis < maxDrawMillis / 2.0 && count < toDynamicCount) {
+        toDynamic = featureLayer;
+        toDynamicCount = count;
+      }
+    }
+
+    if (toStatic != null) {
+      String reason = toStaticCount > maxDynamicFeatures ?
+          String.format("%,d features > %,d", toStaticCount, maxDynamicFeatures) :
+          String.format("mean draw %.0f ms > %d ms", meanDrawMillis, maxDrawMillis);
+      switchLayer(toStatic, RenderingMode.STATIC, toStaticCount, reason, meanDrawMillis);
+    } else if (toDynamic != null) {
+      String reason = String.format("%,d features <= %,d and mean draw %.0f ms < %d ms", toDynamicCount,
+          maxDynamicFeatures / 2, meanDrawMillis, maxDrawMillis / 2);
+      switchLayer(toDynamic, RenderingMode.DYNAMIC, toDynamicCount, reason, meanDrawMillis);
+    }
+  }
+
+  private void switchLayer(FeatureLayer layer, RenderingMode mode, long featureCount, String reason,
+      double meanDrawMillis) {
+    int index = layers.indexOf(layer);
+    if (index < 0) {
+      return;
+    }
+    FeatureLayer copy = layer.copy();
+    copy.setRenderingMode(mode);
+    layers.set(index, copy);
+
+    Decision decision = new Decision(layer.getName(), mode == RenderingMode.STATIC ? RenderingMode.DYNAMIC :
+        RenderingMode.STATIC, mode, featureCount, reason, meanDrawMillis);
+    decisions.add(decision);
+    measuring = decision;
+    decisionListener.accept(decision);
+  }
+
+  private static boolean isDynamic(FeatureLayer layer) {
+    RenderingMode mode = layer.getRenderingMode();
+    if (mode == RenderingMode.AUTOMATIC) {
+      GeometryType geometryType = layer.getFeatureTable().getGeometryType();
+      return geometryType == GeometryType.POINT || geometryType == GeometryType.MULTIPOINT;
+    }
+    return mode == RenderingMode.DYNAMIC;
+  }
+
+  /**
+   * Returns the switches made so far, oldest first.
+   *
+   * @return decisions
+   */
+  public List<Decision> getDecisions() {
+    return Collections.unmodifiableList(new ArrayList<>(decisions));
+  }
+
+  /**
+   * Returns the number of draws timed.
+   *
+   * @return draw count
+   */
+  public long getDrawCount() {
+    return drawCount;
+  }
+
+  /**
+   * Returns the time taken by the last draw.
+   *
+   * @return milliseconds, or NaN before the first draw
+   */
+  public double getLastDrawMillis() {
+    return lastDrawMillis;
+  }
+
+  /**
+   * Returns the mean draw time of the last complete window.
+   *
+   * @return milliseconds, or NaN before the first window is complete
+   */
+  public double getWindowDrawMillis() {
+    return lastWindowMillis;
+  }
+
+  /**
+   * Returns the mean time taken by all draws.
+   *
+   * @return milliseconds, or NaN before the first draw
+   */
+  public double getMeanDrawMillis() {
+    return drawCount == 0 ? Double.NaN : totalDrawMillis / drawCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d draws, last %.0f ms, window mean %.0f ms, mean %.0f ms, %d switches", drawCount,
+        lastDrawMillis, lastWindowMillis, getMeanDrawMillis(), decisions.size());
+  }
+
+  /**
+   * A switch of a layer's rendering mode, with the draw times around it.
+   */
+  public static final class Decision {
+
+    private final String layerName;
+    private final RenderingMode from;
+    private final RenderingMode to;
+    private final long featureCount;
+    private final String reason;
+    private final double meanDrawMillisBefore;
+    private double meanDrawMillisAfter = Double.NaN;
+
+    private Decision(String layerName, RenderingMode from, RenderingMode to, long featureCount, String reason,
+        double meanDrawMillisBefore) {
+      this.layerName = layerName;
+      this.from = from;
+      this.to = to;
+      this.featureCount = featureCount;
+      this.reason = reason;
+      this.meanDrawMillisBefore = meanDrawMillisBefore;
+    }
+
+    public String getLayerName() {
+      return layerName;
+    }
+
+    public RenderingMode getFrom() {
+      return from;
+    }
+
+    public RenderingMode getTo() {
+      return to;
+    }
+
+    /**
+     * Returns the number of features in the layer's table when it was switched.
+     *
+     * @return feature count
+     */
+    public long getFeatureCount() {
+      return featureCount;
+    }
+
+    /**
+     * Returns the threshold which caused the switch.
+     *
+     * @return reason
+     */
+    public String getReason() {
+      return reason;
+    }
+
+    /**
+     * Returns the mean draw time of the window before the switch.
+     *
+     * @return milliseconds
+     */
+    public double getMeanDrawMillisBefore() {
+      return meanDrawMillisBefore;
+    }
+
+    /**
+     * Returns the mean draw time of the window after the switch.
+     *
+     * @return milliseconds, or NaN until the window is complete
+     */
+    public double getMeanDrawMillisAfter() {
+      return meanDrawMillisAfter;
+    }
+
+    /**
+     * Returns whether the draw times after the switch have been measured.
+     *
+     * @return true once the window after the switch is complete
+     */
+    public boolean isMeasured() {
+      return !Double.isNaN(meanDrawMillisAfter);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s -> %s (%s), draw %.0f ms -> %s", layerName, from, to, reason,
+          meanDrawMillisBefore, isMeasured() ? String.format("%.0f ms", meanDrawMillisAfter) : "...");
+    }
+  }
+}
@@ -16,25 +16,19 @@
 
 package com.esri.samples.animate_3d_graphic;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
 import javafx.scene.control.ToggleButton;
-import javafx.util.Duration;
 
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.PointCollection;
@@ -69,14 +63,19 @@ public class Animate3dGraphicController {
   @FXML private ComboBox<String> missionSelector;
   @FXML private ToggleButton playButton;
   @FXML private ToggleButton followButton;
-  @FXML private Timeline animation;
+  @FXML private Slider progressSlider;
+  @FXML private Slider speedSlider;
   @FXML private Label altitudeLabel;
   @FXML private Label headingLabel;
   @FXML private Label pitchLabel;
   @FXML private Label rollLabel;
+  @FXML private Label frameTimeLabel;
+  @FXML private Label updateTimeLabel;
 
   private OrbitGeoElementCameraController orbitCameraController;
-  private List<Map<String, Object>> missionData;
+  private Trajectory missionData;
+  private TrajectoryPlayer player;
+  private boolean updatingProgress;
   private Graphic plane3D;
   private Graphic plane2D;
   private Graphic routeGraphic;
@@ -152,8 +151,23 @@ public class Animate3dGraphicController {
       orbitCameraController.setCameraPitchOffset(75.0);
       sceneView.setCameraController(orbitCameraController);
 
-      // setup animation to render a new frame every 20 ms by default
-      animation.getKeyFrames().add(new KeyFrame(Duration.millis(20), e -> animate(animationModel.nextKeyframe())));
+      // set up the player to interpolate a new frame on every pulse, one mission sample per 20 ms at normal speed
+      player = new TrajectoryPlayer(this::animate);
+      player.speedProperty().bind(speedSlider.valueProperty());
+
+      // move the player when the user drags or clicks the progress slider
+      progressSlider.maxProperty().bind(animationModel.framesProperty());
+      progressSlider.valueProperty().bindBidirectional(animationModel.keyframeProperty());
+      progressSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+        if (!updatingProgress) {
+          player.seek(newValue.doubleValue());
+        }
+      });
+
+      // show the average frame time, the number of frames dropped so far and the time spent updating the graphics
+      frameTimeLabel.textProperty().bind(Bindings.format("%.1f ms (%d dropped)", player.frameTimeProperty(),
+          player.droppedFramesProperty()));
+      updateTimeLabel.textProperty().bind(Bindings.format("%.2f ms", player.updateTimeProperty()));
 
       // bind button properties
       followButton.textProperty().bind(Bindings.createStringBinding(() -> followButton.isSelected() 
@@ -176,51 +190,36 @@ public class Animate3dGraphicController {
   @FXML
   private void changeMission() {
 
-    // clear previous mission data
-    missionData = new ArrayList<>();
-
     // get mission data
     String mission = missionSelector.getSelectionModel().getSelectedItem();
     missionData = getMissionData(mission);
     animationModel.setFrames(missionData.size());
-    animationModel.setKeyframe(0);
 
     // draw mission route on mini map
     PointCollection points = new PointCollection(WGS84);
-    points.addAll(missionData.stream().map(m -> (Point) m.get("POSITION")).collect(Collectors.toList()));
+    for (int i = 0; i < missionData.size(); i++) {
+      points.add(new Point(missionData.getX(i), missionData.getY(i), missionData.getZ(i)));
+    }
     Polyline route = new Polyline(points);
     routeGraphic.setGeometry(route);
 
     // refresh mini map zoom and show initial keyframe
-    mapView.setViewpointScaleAsync(100000).addDoneListener(() -> Platform.runLater(() -> animate(0)));
+    mapView.setViewpointScaleAsync(100000).addDoneListener(() -> Platform.runLater(() ->
+        player.setTrajectory(missionData)));
   }
 
   /**
    * Loads the mission data from a .csv file into memory.
    *
    * @param mission .csv file name containing the mission data
-   * @return ordered list of mapped key value pairs representing coordinates and rotation parameters for each step of
-   * the mission
+   * @return trajectory holding the coordinates and rotation parameters for each step of the mission
    */
-  private List<Map<String, Object>> getMissionData(String mission) {
-
-    // open a file reader to the mission file that automatically closes after read
-    try (BufferedReader missionFile = new BufferedReader(
-        new InputStreamReader(getClass().getResourceAsStream("/csv/" + mission)))) {
-      return missionFile.lines()
-          //ex: -156.3666517,20.6255059,999.999908,83.77659,1.05E-09,-47.766567
-          .map(l -> l.split(","))
-          .map(l -> {
-            // create a map of parameters (ordinates) to values
-            Map<String, Object> ordinates = new HashMap<>();
-            ordinates.put("POSITION", new Point(Float.valueOf(l[0]), Float.valueOf(l[1]), Float.valueOf(l[2]),
-                WGS84));
-            ordinates.put("HEADING", Float.valueOf(l[3]));
-            ordinates.put("PITCH", Float.valueOf(l[4]));
-            ordinates.put("ROLL", Float.valueOf(l[5]));
-            return ordinates;
-          })
-          .collect(Collectors.toList());
+  private Trajectory getMissionData(String mission) {
+
+    // open a stream to the mission file that automatically closes after read
+    //ex: -156.3666517,20.6255059,999.999908,83.77659,1.05E-09,-47.766567
+    try (InputStream missionFile = getClass().getResourceAsStream("/csv/" + mission)) {
+      return Trajectory.read(missionFile);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -228,36 +227,43 @@ public class Animate3dGraphicController {
   }
 
   /**
-   * Animates a single keyframe corresponding to the index in the mission data profile. Updates the position and
-   * rotation of the 2D/3D plane graphic and sets the camera viewpoint.
+   * Shows a single frame of the animation. Updates the position and rotation of the 2D/3D plane graphic and sets the
+   * camera viewpoint.
    *
-   * @param keyframe index in mission data to show
+   * @param pose interpolated position and orientation to show
    */
-  private void animate(int keyframe) {
+  private void animate(TrajectoryPlayer.Pose pose) {
+
+    // get the position and orientation from the player
+    Point position = new Point(pose.getX(), pose.getY(), pose.getZ(), WGS84);
+    float heading = (float) pose.getHeading();
+    float pitch = (float) pose.getPitch();
+    float roll = (float) pose.getRoll();
 
-    // get the next position from the mission data
-    Map<String, Object> datum = missionData.get(keyframe);
-    Point position = (Point) datum.get("POSITION");
+    // move the progress slider without seeking
+    updatingProgress = true;
+    animationModel.setKeyframe(pose.getSample());
+    updatingProgress = false;
 
     // update the position parameters pane
     altitudeLabel.setText(String.format("%.2f", position.getZ()));
-    headingLabel.setText(String.format("%.2f", (float) datum.get("HEADING")));
-    pitchLabel.setText(String.format("%.2f", (float) datum.get("PITCH")));
-    rollLabel.setText(String.format("%.2f", (float) datum.get("ROLL")));
+    headingLabel.setText(String.format("%.2f", heading));
+    pitchLabel.setText(String.format("%.2f", pitch));
+    rollLabel.setText(String.format("%.2f", roll));
 
     // update plane's position and orientation
     plane3D.setGeometry(position);
-    plane3D.getAttributes().put("HEADING", datum.get("HEADING"));
-    plane3D.getAttributes().put("PITCH", datum.get("PITCH"));
-    plane3D.getAttributes().put("ROLL", datum.get("ROLL"));
+    plane3D.getAttributes().put("HEADING", heading);
+    plane3D.getAttributes().put("PITCH", pitch);
+    plane3D.getAttributes().put("ROLL", roll);
 
     // update mini map plane's position and rotation
     plane2D.setGeometry(position);
     if (followButton.isSelected()) {
       // rotate the map view in the direction of motion to make graphic always point up
-      mapView.setViewpoint(new Viewpoint(position, mapView.getMapScale(), 360 + (float) datum.get("HEADING")));
+      mapView.setViewpoint(new Viewpoint(position, mapView.getMapScale(), 360 + heading));
     } else {
-      plane2D.getAttributes().put("ANGLE", 360 + (float) datum.get("HEADING") - mapView.getMapRotation());
+      plane2D.getAttributes().put("ANGLE", 360 + heading - mapView.getMapRotation());
     }
   }
 
@@ -268,9 +274,9 @@ public class Animate3dGraphicController {
   private void togglePlay() {
 
     if (playButton.isSelected()) {
-      animation.play();
+      player.start();
     } else {
-      animation.stop();
+      player.stop();
     }
   }
 
@@ -312,7 +318,9 @@ public class Animate3dGraphicController {
    */
   void terminate() {
 
-    animation.stop();
+    if (player != null) {
+      player.stop();
+    }
     if (sceneView != null) {
       sceneView.dispose();
     }
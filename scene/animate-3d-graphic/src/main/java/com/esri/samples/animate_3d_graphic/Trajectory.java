@@ -0,0 +1,219 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.animate_3d_graphic;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Column store for a mission's trajectory. Each sample's position and orientation is kept in primitive float arrays,
+ * so a trajectory costs 24 bytes per sample and reading a sample does not allocate.
+ */
+public final class Trajectory {
+
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int Z = 2;
+  private static final int HEADING = 3;
+  private static final int PITCH = 4;
+  private static final int ROLL = 5;
+  private static final int COLUMNS = 6;
+
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+      1e20, 1e21, 1e22
+  };
+
+  private final float[][] columns;
+  private final int size;
+
+  private Trajectory(float[][] columns, int size) {
+    this.columns = columns;
+    this.size = size;
+  }
+
+  /**
+   * Reads a trajectory from comma separated lines of x, y, z, heading, pitch and roll, e.g.
+   * {@code -156.3666517,20.6255059,999.999908,83.77659,1.05E-09,-47.766567}. Lines may end with CR, LF or CRLF.
+   *
+   * <p>The input is parsed byte by byte straight into the columns, without creating a string per line or value.
+   *
+   * @param input stream to read, which is not closed
+   * @return the trajectory
+   * @throws IOException if the stream cannot be read or a line does not have six numeric values
+   */
+  public static Trajectory read(InputStream input) throws IOException {
+    InputStream in = input instanceof BufferedInputStream ? input : new BufferedInputStream(input, 1 << 16);
+    float[][] columns = new float[COLUMNS][1024];
+    int size = 0;
+    int column = 0;
+    int line = 1;
+
+    // state of the number being parsed
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    int exponentValue = 0;
+    boolean negative = false;
+    boolean negativeExponent = false;
+    boolean fraction = false;
+    boolean inExponent = false;
+    boolean empty = true;
+
+    int c;
+    do {
+      c = in.read();
+      if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+        if (empty && column == 0 && c != ',') {
+          // blank line or second half of CRLF
+          if (c == '\n') {
+            line++;
+          }
+          continue;
+        }
+        if (empty || column >= COLUMNS) {
+          throw new IOException("Expected " + COLUMNS + " numbers on line " + line);
+        }
+        if (column == 0 && size == columns[0].length) {
+          for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = Arrays.copyOf(columns[i], size * 2);
+          }
+        }
+        int e = exponent + (negativeExponent ? -exponentValue : exponentValue);
+        double value = e >= 0 ? mantissa * pow10(e) : mantissa / pow10(-e);
+        columns[column][size] = (float) (negative ? -value : value);
+        column++;
+
+        if (c != ',') {
+          if (column != COLUMNS) {
+            throw new IOException("Expected " + COLUMNS + " numbers on line " + line);
+          }
+          size++;
+          column = 0;
+          line++;
+        }
+        mantissa = 0;
+        digits = 0;
+        exponent = 0;
+        exponentValue = 0;
+        negative = false;
+        negativeExponent = false;
+        fraction = false;
+        inExponent = false;
+        empty = true;
+      } else if (c >= '0' && c <= '9') {
+        empty = false;
+        if (inExponent) {
+          exponentValue = exponentValue * 10 + (c - '0');
+        } else if (digits < 18) {
+          // keep the first 18 significant digits, more than a float can hold
+          mantissa = mantissa * 10 + (c - '0');
+          if (mantissa > 0) {
+            digits++;
+          }
+          if (fraction) {
+            exponent--;
+          }
+        } else if (!fraction) {
+          exponent++;
+        }
+      } else if (c == '-' || c == '+') {
+        if (inExponent) {
+          negativeExponent = c == '-';
+        } else {
+          negative = c == '-';
+        }
+      } else if (c == '.') {
+        fraction = true;
+      } else if (c == 'e' || c == 'E') {
+        inExponent = true;
+      } else if (c != ' ' && c != '\t') {
+        throw new IOException("Unexpected character '" + (char) c + "' on line " + line);
+      }
+    } while (c != -1);
+
+    return new Trajectory(columns, size);
+  }
+
+  private static double pow10(int exponent) {
+    return exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[exponent] : Math.pow(10, exponent);
+  }
+
+  /**
+   * @return number of samples
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param sample index of the sample
+   * @return longitude of the sample
+   */
+  public float getX(int sample) {
+    return get(X, sample);
+  }
+
+  /**
+   * @param sample index of the sample
+   * @return latitude of the sample
+   */
+  public float getY(int sample) {
+    return get(Y, sample);
+  }
+
+  /**
+   * @param sample index of the sample
+   * @return altitude of the sample in meters
+   */
+  public float getZ(int sample) {
+    return get(Z, sample);
+  }
+
+  /**
+   * @param sample index of the sample
+   * @return heading of the sample in degrees
+   */
+  public float getHeading(int sample) {
+    return get(HEADING, sample);
+  }
+
+  /**
+   * @param sample index of the sample
+   * @return pitch of the sample in degrees
+   */
+  public float getPitch(int sample) {
+    return get(PITCH, sample);
+  }
+
+  /**
+   * @param sample index of the sample
+   * @return roll of the sample in degrees
+   */
+  public float getRoll(int sample) {
+    return get(ROLL, sample);
+  }
+
+  private float get(int column, int sample) {
+    if (sample < 0 || sample >= size) {
+      throw new IndexOutOfBoundsException("Sample " + sample + " of " + size);
+    }
+    return columns[column][sample];
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 Esri.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.esri.samples.animate_3d_graphic;
+
+import java.util.function.Consumer;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.SimpleDoubleProperty;
+
+/**
+ * Plays a trajectory back by wall-clock time rather than one sample per tick. On every JavaFX pulse the playback
+ * position is advanced by the elapsed time multiplied by the speed, and the pose between the two nearest samples is
+ * interpolated. The listener is called at most once per pulse, so slow pulses skip ahead instead of slowing playback
+ * down.
+ */
+public class TrajectoryPlayer extends AnimationTimer {
+
+  /** Time between two samples of a trajectory at normal speed. */
+  private static final double SAMPLE_PERIOD_SECONDS = 0.02;
+
+  /** Expected time between two pulses at 60 frames per second. */
+  private static final double PULSE_NANOS = 1e9 / 60;
+
+  /** Weight of the latest value in the averaged metrics. */
+  private static final double SMOOTHING = 0.1;
+
+  private final Consumer<Pose> listener;
+  private final Pose pose = new Pose();
+  private final DoubleProperty speed = new SimpleDoubleProperty(1);
+  private final ReadOnlyDoubleWrapper frameTime = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyDoubleWrapper updateTime = new ReadOnlyDoubleWrapper();
+  private final ReadOnlyLongWrapper droppedFrames = new ReadOnlyLongWrapper();
+
+  private Trajectory trajectory;
+  private double position;
+  private long lastPulse;
+  private boolean running;
+  private boolean dirty;
+
+  /**
+   * Creates a player.
+   *
+   * @param listener called on the JavaFX application thread with the interpolated pose, at most once per pulse. The
+   * pose is reused between calls.
+   */
+  public TrajectoryPlayer(Consumer<Pose> listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Sets the trajectory to play and moves to its first sample.
+   *
+   * @param trajectory trajectory to play
+   */
+  public void setTrajectory(Trajectory trajectory) {
+    this.trajectory = trajectory;
+    seek(0);
+  }
+
+  /**
+   * Moves the playback position. While playing, the new pose is shown on the next pulse.
+   *
+   * @param sample fractional sample index to move to
+   */
+  public void seek(double sample) {
+    if (trajectory == null || trajectory.size() == 0) {
+      return;
+    }
+    position = wrap(sample);
+    dirty = true;
+    if (!running) {
+      update();
+    }
+  }
+
+  @Override
+  public void start() {
+    lastPulse = 0;
+    running = true;
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    super.stop();
+  }
+
+  @Override
+  public void handle(long now) {
+    if (trajectory == null || trajectory.size() == 0) {
+      return;
+    }
+    if (lastPulse != 0) {
+      long elapsed = now - lastPulse;
+      frameTime.set(smooth(frameTime.get(), elapsed / 1e6));
+      droppedFrames.set(droppedFrames.get() + Math.max(0, Math.round(elapsed / PULSE_NANOS) - 1));
+      position = wrap(position + elapsed / 1e9 * speed.get() / SAMPLE_PERIOD_SECONDS);
+      dirty = true;
+    }
+    lastPulse = now;
+    if (dirty) {
+      update();
+    }
+  }
+
+  /**
+   * Interpolates the pose at the current position and passes it to the listener.
+   */
+  private void update() {
+    int sample = (int) position;
+    double fraction = position - sample;
+    // do not interpolate from the last sample back to the first one
+    int next = sample + 1 < trajectory.size() ? sample + 1 : sample;
+
+    pose.sample = sample;
+    pose.x = lerp(trajectory.getX(sample), trajectory.getX(next), fraction);
+    pose.y = lerp(trajectory.getY(sample), trajectory.getY(next), fraction);
+    pose.z = lerp(trajectory.getZ(sample), trajectory.getZ(next), fraction);
+    pose.heading = lerpAngle(trajectory.getHeading(sample), trajectory.getHeading(next), fraction);
+    pose.pitch = lerpAngle(trajectory.getPitch(sample), trajectory.getPitch(next), fraction);
+    pose.roll = lerpAngle(trajectory.getRoll(sample), trajectory.getRoll(next), fraction);
+
+    long start = System.nanoTime();
+    listener.accept(pose);
+    updateTime.set(smooth(updateTime.get(), (System.nanoTime() - start) / 1e6));
+    dirty = false;
+  }
+
+  private double wrap(double sample) {
+    double size = trajectory.size();
+    double wrapped = sample - size * Math.floor(sample / size);
+    // rounding can leave a tiny negative sample at exactly the size
+    return wrapped < size ? wrapped : 0;
+  }
+
+  private static double lerp(double a, double b, double fraction) {
+    return a + (b - a) * fraction;
+  }
+
+  /**
+   * Interpolates between two angles in degrees along the shorter way around the circle.
+   */
+  private static double lerpAngle(double a, double b, double fraction) {
+    double difference = b - a;
+    difference -= 360 * Math.floor((difference + 180) / 360);
+    return a + difference * fraction;
+  }
+
+  private static double smooth(double average, double value) {
+    return average == 0 ? value : average + (value - average) * SMOOTHING;
+  }
+
+  /**
+   * Playback speed, where 1 plays one sample every 20 ms.
+   *
+   * @return speed property
+   */
+  public DoubleProperty speedProperty() {
+    return speed;
+  }
+
+  /**
+   * Averaged time between pulses in milliseconds.
+   *
+   * @return frame time property
+   */
+  public ReadOnlyDoubleProperty frameTimeProperty() {
+    return frameTime.getReadOnlyProperty();
+  }
+
+  /**
+   * Averaged time spent in the listener per pulse in milliseconds.
+   *
+   * @return update time property
+   */
+  public ReadOnlyDoubleProperty updateTimeProperty() {
+    return updateTime.getReadOnlyProperty();
+  }
+
+  /**
+   * Number of 60 Hz frames which were missed because a pulse came late.
+   *
+   * @return dropped frames property
+   */
+  public ReadOnlyLongProperty droppedFramesProperty() {
+    return droppedFrames.getReadOnlyProperty();
+  }
+
+  /**
+   * Position and orientation of the trajectory at the playback position.
+   */
+  public static final class Pose {
+
+    private int sample;
+    private double x;
+    private double y;
+    private double z;
+    private double heading;
+    private double pitch;
+    private double roll;
+
+    /**
+     * @return index of the sample at or before the playback position
+     */
+    public int getSample() {
+      return sample;
+    }
+
+    public double getX() {
+      return x;
+    }
+
+    public double getY() {
+      return y;
+    }
+
+    public double getZ() {
+      return z;
+    }
+
+    public double getHeading() {
+      return heading;
+    }
+
+    public double getPitch() {
+      return pitch;
+    }
+
+    public double getRoll() {
+      return roll;
+    }
+  }
+}
@@ -19,6 +19,7 @@ package com.esri.samples.find_address;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -46,6 +47,8 @@ import com.esri.arcgisruntime.symbology.PictureMarkerSymbol;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeParameters;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeResult;
 import com.esri.arcgisruntime.tasks.geocode.LocatorTask;
+import com.esri.arcgisruntime.tasks.geocode.SuggestResult;
+import com.esri.samples.core.geocode.SuggestionPipeline;
 
 public class FindAddressSample extends Application {
 
@@ -54,6 +57,7 @@ public class FindAddressSample extends Application {
   private GraphicsOverlay graphicsOverlay;
   private PictureMarkerSymbol pinSymbol;
   private ComboBox<String> searchBox;
+  private SuggestionPipeline suggestionPipeline;
 
   @Override
   public void start(Stage stage) {
@@ -112,6 +116,20 @@ public class FindAddressSample extends Application {
       pinSymbol = new PictureMarkerSymbol(img);
       pinSymbol.loadAsync();
 
+      // get auto-complete suggestions while the user types, debouncing keystrokes and cancelling outdated requests
+      suggestionPipeline = new SuggestionPipeline(locatorTask, null, Platform::runLater, suggestions -> {
+        searchBox.getItems().setAll(suggestions.stream().map(SuggestResult::getLabel).collect(Collectors.toList()));
+        searchBox.show();
+      });
+      searchBox.getEditor().setOnKeyTyped(evt -> {
+        String text = searchBox.getEditor().getText();
+        suggestionPipeline.textChanged(text);
+        // show the example locations again once the text is cleared
+        if (text.trim().isEmpty()) {
+          searchBox.getItems().setAll(examples);
+        }
+      });
+
       // event to get geocode when query is submitted
       searchBox.setOnAction((ActionEvent evt) -> {
 
@@ -248,6 +266,9 @@ public class FindAddressSample extends Application {
   public void stop() {
 
     // release resources when the application closes
+    if (suggestionPipeline != null) {
+      suggestionPipeline.close();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
@@ -52,6 +52,7 @@ import com.esri.arcgisruntime.tasks.geocode.GeocodeResult;
 import com.esri.arcgisruntime.tasks.geocode.LocatorTask;
 import com.esri.arcgisruntime.tasks.geocode.SuggestParameters;
 import com.esri.arcgisruntime.tasks.geocode.SuggestResult;
+import com.esri.samples.core.geocode.SuggestionPipeline;
 
 public class FindPlaceController {
 
@@ -64,6 +65,8 @@ public class FindPlaceController {
   private GraphicsOverlay graphicsOverlay;
   private LocatorTask locatorTask;
   private PictureMarkerSymbol pinSymbol;
+  private SuggestionPipeline placeSuggestions;
+  private SuggestionPipeline locationSuggestions;
 
   @FXML
   public void initialize() {
@@ -89,41 +92,22 @@ public class FindPlaceController {
     pinSymbol = new PictureMarkerSymbol(img);
     pinSymbol.loadAsync();
 
-    // event to get auto-complete suggestions when the user types a place query
-    placeBox.getEditor().setOnKeyTyped((KeyEvent evt) -> {
-
-      // get the search box text for auto-complete suggestions
-      String typed = placeBox.getEditor().getText();
-
-      if (!"".equals(typed)) {
-
-        // suggest places only
-        SuggestParameters geocodeParameters = new SuggestParameters();
-        geocodeParameters.getCategories().add("POI");
+    // suggest places only
+    SuggestParameters placeSuggestParameters = new SuggestParameters();
+    placeSuggestParameters.getCategories().add("POI");
 
-        // get suggestions from the locatorTask
-        ListenableFuture<List<SuggestResult>> suggestions = locatorTask.suggestAsync(typed, geocodeParameters);
+    // debounce the suggestions requested while typing and cancel those which are no longer needed
+    placeSuggestions = new SuggestionPipeline(locatorTask, placeSuggestParameters, Platform::runLater,
+        suggestions -> showSuggestions(suggestions, placeBox));
+    locationSuggestions = new SuggestionPipeline(locatorTask, null, Platform::runLater,
+        suggestions -> showSuggestions(suggestions, locationBox));
 
-        // add a listener to update suggestions list when loaded
-        suggestions.addDoneListener(new SuggestionsLoadedListener(suggestions, placeBox));
-      }
-    });
+    // event to get auto-complete suggestions when the user types a place query
+    placeBox.getEditor().setOnKeyTyped((KeyEvent evt) -> placeSuggestions.textChanged(placeBox.getEditor().getText()));
 
     // event to get auto-complete suggestions for location when the user types a search location
-    locationBox.getEditor().setOnKeyTyped((KeyEvent evt) -> {
-
-      // get the search box text for auto-complete suggestions
-      String typed = locationBox.getEditor().getText();
-
-      if (!typed.equals("")) {
-
-        // get suggestions from the locatorTask
-        ListenableFuture<List<SuggestResult>> suggestions = locatorTask.suggestAsync(typed);
-
-        // add a listener to update suggestions list when loaded
-        suggestions.addDoneListener(new SuggestionsLoadedListener(suggestions, locationBox));
-      }
-    });
+    locationBox.getEditor().setOnKeyTyped((KeyEvent evt) ->
+        locationSuggestions.textChanged(locationBox.getEditor().getText()));
 
     // event to display a callout for a selected result
     mapView.setOnMouseClicked(evt -> {
@@ -214,44 +198,17 @@ public class FindPlaceController {
   }
 
   /**
-   * A listener to update a {@link ComboBox} when suggestions from a call to
-   * {@link LocatorTask#suggestAsync(String, SuggestParameters)} are loaded.
+   * Updates the auto-complete list of a {@link ComboBox} with the labels of suggestions from a
+   * {@link SuggestionPipeline}.
+   *
+   * @param suggestResults suggestions for the text in the combo box
+   * @param comboBox the {@link ComboBox} to update with the suggestions
    */
-  private class SuggestionsLoadedListener implements Runnable {
-
-    private final ListenableFuture<List<SuggestResult>> results;
-    private final ComboBox<String> comboBox;
-
-    /**
-     * Constructs a listener to update an auto-complete list for geocode
-     * suggestions.
-     *
-     * @param results suggestion results from a {@link LocatorTask}
-     * @param box the {@link ComboBox} to update with the suggestions
-     */
-    SuggestionsLoadedListener(ListenableFuture<List<SuggestResult>> results, ComboBox<String> box) {
-      this.results = results;
-      this.comboBox = box;
-    }
-
-    @Override
-    public void run() {
-
-      try {
-        List<SuggestResult> suggestResult = results.get();
-        List<String> suggestions = suggestResult.stream().map(SuggestResult::getLabel).collect(Collectors.toList());
-
-        // update the combo box with suggestions
-        Platform.runLater(() -> {
-          comboBox.getItems().clear();
-          comboBox.getItems().addAll(suggestions);
-          comboBox.show();
-        });
-
-      } catch (InterruptedException | ExecutionException e) {
-        e.printStackTrace();
-      }
-    }
+  private void showSuggestions(List<SuggestResult> suggestResults, ComboBox<String> comboBox) {
+    List<String> suggestions = suggestResults.stream().map(SuggestResult::getLabel).collect(Collectors.toList());
+    comboBox.getItems().clear();
+    comboBox.getItems().addAll(suggestions);
+    comboBox.show();
   }
 
   /**
@@ -364,6 +321,10 @@ public class FindPlaceController {
    */
   void terminate() {
 
+    // cancel outstanding suggestion requests
+    placeSuggestions.close();
+    locationSuggestions.close();
+
     if (mapView != null) {
       mapView.dispose();
     }
@@ -19,6 +19,7 @@ package com.esri.samples.offline_geocode;
 import java.io.File;
 import java.util.HashMap;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -54,12 +55,16 @@ import com.esri.arcgisruntime.tasks.geocode.GeocodeParameters;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeResult;
 import com.esri.arcgisruntime.tasks.geocode.LocatorTask;
 import com.esri.arcgisruntime.tasks.geocode.ReverseGeocodeParameters;
+import com.esri.arcgisruntime.tasks.geocode.SuggestResult;
+import com.esri.samples.core.geocode.GeocodeCache;
+import com.esri.samples.core.geocode.SuggestionPipeline;
 
 public class OfflineGeocodeSample extends Application {
 
   private MapView mapView;
   private ArcGISTiledLayer tiledLayer;
   private LocatorTask locatorTask;
+  private GeocodeCache geocodeCache;
   private GeocodeParameters geocodeParameters;
   private ReverseGeocodeParameters reverseGeocodeParameters;
   private GraphicsOverlay graphicsOverlay;
@@ -67,6 +72,7 @@ public class OfflineGeocodeSample extends Application {
   private ComboBox<String> searchBox;
   private ListenableFuture<IdentifyGraphicsOverlayResult> identifyResults;
   private boolean realtimeMode = false;
+  private SuggestionPipeline suggestionPipeline;
 
   @Override
   public void start(Stage stage) {
@@ -116,7 +122,7 @@ public class OfflineGeocodeSample extends Application {
           mapView.getCallout().dismiss();
 
           // run the locatorTask geocode task
-          ListenableFuture<List<GeocodeResult>> results = locatorTask.geocodeAsync(query, geocodeParameters);
+          ListenableFuture<List<GeocodeResult>> results = geocodeCache.geocodeAsync(query, geocodeParameters);
 
           // add a listener to display the result when loaded
           results.addDoneListener(new ResultsLoadedListener(results));
@@ -166,6 +172,22 @@ public class OfflineGeocodeSample extends Application {
               new File(System.getProperty("data.dir"), "./samples-data/sanfrancisco/SanFranciscoLocator.loc").getAbsolutePath();
       locatorTask = new LocatorTask(locatorPath);
 
+      // cache geocode results, sharing reverse geocode results between locations within 10 meters of each other
+      geocodeCache = new GeocodeCache(locatorTask, 10);
+
+      // get auto-complete suggestions while the user types if the locator supports them, debouncing keystrokes and
+      // cancelling outdated requests
+      locatorTask.addDoneLoadingListener(() -> {
+        if (locatorTask.getLoadStatus() == LoadStatus.LOADED && locatorTask.getLocatorInfo().isSupportsSuggestions()) {
+          suggestionPipeline = new SuggestionPipeline(locatorTask, null, Platform::runLater, suggestions -> {
+            searchBox.getItems().setAll(suggestions.stream().map(SuggestResult::getLabel).collect(Collectors.toList()));
+            searchBox.show();
+          });
+          searchBox.getEditor().setOnKeyTyped(evt -> suggestionPipeline.textChanged(searchBox.getEditor().getText()));
+        }
+      });
+      locatorTask.loadAsync();
+
       // set geocode task parameters
       geocodeParameters = new GeocodeParameters();
       geocodeParameters.getResultAttributeNames().add("*"); // return all attributes
@@ -209,7 +231,7 @@ public class OfflineGeocodeSample extends Application {
                   mapView.setOnMouseMoved(handler);
                 } else {
                   // reverse geocode the selected point
-                  ListenableFuture<List<GeocodeResult>> results = locatorTask.reverseGeocodeAsync(point,
+                  ListenableFuture<List<GeocodeResult>> results = geocodeCache.reverseGeocodeAsync(point,
                       reverseGeocodeParameters);
                   results.addDoneListener(new ResultsLoadedListener(results));
                 }
@@ -247,8 +269,8 @@ public class OfflineGeocodeSample extends Application {
       // disable the move event listener to reduce unnecessary geocode calls
       mapView.setOnMouseMoved(null);
 
-      // run the locator task
-      ListenableFuture<List<GeocodeResult>> results = locatorTask.reverseGeocodeAsync(point, reverseGeocodeParameters);
+      // run the locator task, or reuse the result for a nearby location
+      ListenableFuture<List<GeocodeResult>> results = geocodeCache.reverseGeocodeAsync(point, reverseGeocodeParameters);
       results.addDoneListener(() -> {
         try {
           // get the geocode from the result
@@ -366,6 +388,9 @@ public class OfflineGeocodeSample extends Application {
   public void stop() {
 
     // release resources when the application closes
+    if (suggestionPipeline != null) {
+      suggestionPipeline.close();
+    }
     if (mapView != null) {
       mapView.dispose();
     }
@@ -21,8 +21,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Point2D;
 import javafx.scene.control.Alert;
@@ -39,8 +41,7 @@ import javafx.scene.paint.Color;
 
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.ArcGISFeature;
-import com.esri.arcgisruntime.data.FeatureQueryResult;
-import com.esri.arcgisruntime.data.QueryParameters;
+import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
@@ -67,15 +68,15 @@ import com.esri.arcgisruntime.symbology.SimpleRenderer;
 import com.esri.arcgisruntime.symbology.UniqueValueRenderer;
 import com.esri.arcgisruntime.utilitynetworks.UtilityDomainNetwork;
 import com.esri.arcgisruntime.utilitynetworks.UtilityElement;
-import com.esri.arcgisruntime.utilitynetworks.UtilityElementTraceResult;
 import com.esri.arcgisruntime.utilitynetworks.UtilityNetwork;
 import com.esri.arcgisruntime.utilitynetworks.UtilityNetworkSource;
 import com.esri.arcgisruntime.utilitynetworks.UtilityTerminal;
 import com.esri.arcgisruntime.utilitynetworks.UtilityTerminalConfiguration;
 import com.esri.arcgisruntime.utilitynetworks.UtilityTier;
 import com.esri.arcgisruntime.utilitynetworks.UtilityTraceParameters;
-import com.esri.arcgisruntime.utilitynetworks.UtilityTraceResult;
 import com.esri.arcgisruntime.utilitynetworks.UtilityTraceType;
+import com.esri.samples.core.data.FeatureIndex;
+import com.esri.samples.core.data.TraceResultSelector;
 
 public class TraceAUtilityNetworkController {
 
@@ -101,6 +102,11 @@ public class TraceAUtilityNetworkController {
   private UtilityNetwork utilityNetwork;
   private UtilityTier mediumVoltageTier;
   private UtilityTraceParameters utilityTraceParameters;
+  private Envelope indexedArea;
+  private ServiceFeatureTable distributionLineFeatureTable;
+  private ServiceFeatureTable electricDeviceFeatureTable;
+  private volatile FeatureIndex distributionLineIndex;
+  private volatile FeatureIndex electricDeviceIndex;
 
   public void initialize() {
     try {
@@ -108,20 +114,35 @@ public class TraceAUtilityNetworkController {
       ArcGISMap map = new ArcGISMap(Basemap.createStreetsNightVector());
       mapView.setMap(map);
       // set the viewpoint to a subsection of the utility network
-      mapView.setViewpointAsync(new Viewpoint(
-          new Envelope(-9813547.35557238, 5129980.36635111, -9813185.0602376, 5130215.41254146,
-              SpatialReferences.getWebMercator())));
+      indexedArea = new Envelope(-9813547.35557238, 5129980.36635111, -9813185.0602376, 5130215.41254146,
+          SpatialReferences.getWebMercator());
+      mapView.setViewpointAsync(new Viewpoint(indexedArea));
 
       // load the utility network data from the feature service and create feature layers
       String featureServiceURL =
           "https://sampleserver7.arcgisonline.com/arcgis/rest/services/UtilityNetwork/NapervilleElectric/FeatureServer";
 
-      ServiceFeatureTable distributionLineFeatureTable = new ServiceFeatureTable(featureServiceURL + "/115");
+      distributionLineFeatureTable = new ServiceFeatureTable(featureServiceURL + "/115");
       FeatureLayer distributionLineLayer = new FeatureLayer(distributionLineFeatureTable);
 
-      ServiceFeatureTable electricDeviceFeatureTable = new ServiceFeatureTable(featureServiceURL + "/100");
+      electricDeviceFeatureTable = new ServiceFeatureTable(featureServiceURL + "/100");
       FeatureLayer electricDeviceLayer = new FeatureLayer(electricDeviceFeatureTable);
 
+      // index the lines and devices in the initial viewpoint in memory, so clicks on them are answered without a
+      // request to the service
+      distributionLineFeatureTable.addDoneLoadingListener(() -> {
+        if (distributionLineFeatureTable.getLoadStatus() == LoadStatus.LOADED) {
+          FeatureIndex.loadAsync(distributionLineFeatureTable, indexedArea)
+              .thenAccept(index -> distributionLineIndex = index);
+        }
+      });
+      electricDeviceFeatureTable.addDoneLoadingListener(() -> {
+        if (electricDeviceFeatureTable.getLoadStatus() == LoadStatus.LOADED) {
+          FeatureIndex.loadAsync(electricDeviceFeatureTable, indexedArea)
+              .thenAccept(index -> electricDeviceIndex = index);
+        }
+      });
+
       // create and apply a renderer for the electric distribution lines feature layer
       UniqueValueRenderer.UniqueValue mediumVoltageValue = new UniqueValueRenderer.UniqueValue("N/A", "Medium Voltage",
           new SimpleLineSymbol(SimpleLineSymbol.Style.SOLID, ColorUtil.colorToArgb(Color.DARKCYAN), 3),
@@ -201,13 +222,29 @@ public class TraceAUtilityNetworkController {
     if (utilityNetwork.getLoadStatus() == LoadStatus.LOADED && e.getButton() == MouseButton.PRIMARY &&
         e.isStillSincePress()) {
 
-      // show the progress indicator
-      progressIndicator.setVisible(true);
-
       // get the clicked map point
       Point2D screenPoint = new Point2D(e.getX(), e.getY());
       Point mapPoint = mapView.screenToLocation(screenPoint);
 
+      // find the clicked feature in the feature indexes once they have loaded, devices are drawn above lines
+      FeatureIndex deviceIndex = electricDeviceIndex;
+      FeatureIndex lineIndex = distributionLineIndex;
+      if (deviceIndex != null && lineIndex != null && GeometryEngine.intersects(indexedArea, mapPoint)) {
+        double tolerance = 10 * mapView.getUnitsPerDensityIndependentPixel();
+        List<Feature> identified = deviceIndex.identify(mapPoint, tolerance,
+            electricDeviceFeatureTable.getSpatialReference(), 1);
+        if (identified.isEmpty()) {
+          identified = lineIndex.identify(mapPoint, tolerance, distributionLineFeatureTable.getSpatialReference(), 1);
+        }
+        if (!identified.isEmpty() && identified.get(0) instanceof ArcGISFeature) {
+          addTraceElement((ArcGISFeature) identified.get(0), mapPoint);
+        }
+        return;
+      }
+
+      // show the progress indicator
+      progressIndicator.setVisible(true);
+
       // identify the feature to be used
       ListenableFuture<List<IdentifyLayerResult>> identifyLayerResultsFuture =
           mapView.identifyLayersAsync(screenPoint, 10, false);
@@ -227,76 +264,7 @@ public class TraceAUtilityNetworkController {
               // retrieve the geoelements in the feature layer
               GeoElement identifiedFeature = firstResult.getElements().get(0);
               if (identifiedFeature instanceof ArcGISFeature) {
-
-                // create element from the identified feature
-                UtilityElement utilityElement = utilityNetwork.createElement((ArcGISFeature) identifiedFeature);
-
-                // check if the network source is a junction or an edge
-                if (utilityElement.getNetworkSource().getSourceType() == UtilityNetworkSource.Type.JUNCTION) {
-
-                  // check if the feature has a terminal configuration and multiple terminals
-                  if (utilityElement.getAssetType().getTerminalConfiguration() != null) {
-                    UtilityTerminalConfiguration utilityTerminalConfiguration =
-                        utilityElement.getAssetType().getTerminalConfiguration();
-                    List<UtilityTerminal> terminals = utilityTerminalConfiguration.getTerminals();
-
-                    if (terminals.size() > 1) {
-                      // prompt the user to select a terminal for this feature
-                      Optional<UtilityTerminal> userSelectedTerminal = promptForTerminalSelection(terminals);
-
-                      // apply the selected terminal
-                      if (userSelectedTerminal.isPresent()) {
-                        UtilityTerminal terminal = userSelectedTerminal.get();
-                        utilityElement.setTerminal(terminal);
-                        // show the terminals name in the status label
-                        String terminalName = terminal.getName() != null ? terminal.getName() : "default";
-                        statusLabel.setText("Feature added at terminal: " + terminalName);
-
-                        // don't create the element if no terminal was selected
-                      } else {
-                        statusLabel.setText("No terminal selected - no feature added");
-                        return;
-                      }
-                    }
-                  }
-
-                } else if (utilityElement.getNetworkSource().getSourceType() == UtilityNetworkSource.Type.EDGE) {
-
-                  // get the geometry of the identified feature as a polyline, and remove the z component
-                  Polyline polyline = (Polyline) GeometryEngine.removeZ(identifiedFeature.getGeometry());
-
-                  // compute how far the clicked location is along the edge feature
-                  double fractionAlongEdge = GeometryEngine.fractionAlong(polyline, mapPoint, -1);
-                  if (Double.isNaN(fractionAlongEdge)) {
-                    new Alert(Alert.AlertType.ERROR, "Cannot add starting location / barrier here.");
-                    return;
-                  }
-
-                  // set the fraction along edge
-                  utilityElement.setFractionAlongEdge(fractionAlongEdge);
-
-                  // update the status label text
-                  statusLabel.setText("Fraction along edge: " + Math.round(utilityElement.getFractionAlongEdge() * 1000d) / 1000d );
-                }
-
-                // create a graphic for the new utility element
-                Graphic traceLocationGraphic = new Graphic();
-
-                // find the closest coordinate on the selected element to the clicked point
-                ProximityResult proximityResult =
-                    GeometryEngine.nearestCoordinate(identifiedFeature.getGeometry(), mapPoint);
-
-                // set the graphic's geometry to the coordinate on the element
-                traceLocationGraphic.setGeometry(proximityResult.getCoordinate());
-
-                // add the element to the appropriate list, and add the appropriate graphic to its graphics overlay
-                if (startingLocationsRadioButton.isSelected()) {
-                  startingLocations.add(utilityElement);
-                  startingLocationsGraphicsOverlay.getGraphics().add(traceLocationGraphic);
-                } else {
-                  barriers.add(utilityElement);
-                  barriersGraphicsOverlay.getGraphics().add(traceLocationGraphic);
-                }
+                addTraceElement((ArcGISFeature) identifiedFeature, mapPoint);
               }
             }
           }
@@ -310,6 +278,85 @@ public class TraceAUtilityNetworkController {
     }
   }
 
+  /**
+   * Creates a utility element from a clicked feature and adds it to the starting locations or barriers.
+   *
+   * @param identifiedFeature the clicked feature
+   * @param mapPoint the clicked map point
+   */
+  private void addTraceElement(ArcGISFeature identifiedFeature, Point mapPoint) {
+
+    // create element from the identified feature
+    UtilityElement utilityElement = utilityNetwork.createElement(identifiedFeature);
+
+    // check if the network source is a junction or an edge
+    if (utilityElement.getNetworkSource().getSourceType() == UtilityNetworkSource.Type.JUNCTION) {
+
+      // check if the feature has a terminal configuration and multiple terminals
+      if (utilityElement.getAssetType().getTerminalConfiguration() != null) {
+        UtilityTerminalConfiguration utilityTerminalConfiguration =
+            utilityElement.getAssetType().getTerminalConfiguration();
+        List<UtilityTerminal> terminals = utilityTerminalConfiguration.getTerminals();
+
+        if (terminals.size() > 1) {
+          // prompt the user to select a terminal for this feature
+          Optional<UtilityTerminal> userSelectedTerminal = promptForTerminalSelection(terminals);
+
+          // apply the selected terminal
+          if (userSelectedTerminal.isPresent()) {
+            UtilityTerminal terminal = userSelectedTerminal.get();
+            utilityElement.setTerminal(terminal);
+            // show the terminals name in the status label
+            String terminalName = terminal.getName() != null ? terminal.getName() : "default";
+            statusLabel.setText("Feature added at terminal: " + terminalName);
+
+            // don't create the element if no terminal was selected
+          } else {
+            statusLabel.setText("No terminal selected - no feature added");
+            return;
+          }
+        }
+      }
+
+    } else if (utilityElement.getNetworkSource().getSourceType() == UtilityNetworkSource.Type.EDGE) {
+
+      // get the geometry of the identified feature as a polyline, and remove the z component
+      Polyline polyline = (Polyline) GeometryEngine.removeZ(identifiedFeature.getGeometry());
+
+      // compute how far the clicked location is along the edge feature
+      double fractionAlongEdge = GeometryEngine.fractionAlong(polyline, mapPoint, -1);
+      if (Double.isNaN(fractionAlongEdge)) {
+        new Alert(Alert.AlertType.ERROR, "Cannot add starting location / barrier here.");
+        return;
+      }
+
+      // set the fraction along edge
+      utilityElement.setFractionAlongEdge(fractionAlongEdge);
+
+      // update the status label text
+      statusLabel.setText("Fraction along edge: " + Math.round(utilityElement.getFractionAlongEdge() * 1000d) / 1000d );
+    }
+
+    // create a graphic for the new utility element
+    Graphic traceLocationGraphic = new Graphic();
+
+    // find the closest coordinate on the selected element to the clicked point
+    ProximityResult proximityResult =
+        GeometryEngine.nearestCoordinate(identifiedFeature.getGeometry(), mapPoint);
+
+    // set the graphic's geometry to the coordinate on the element
+    traceLocationGraphic.setGeometry(proximityResult.getCoordinate());
+
+    // add the element to the appropriate list, and add the appropriate graphic to its graphics overlay
+    if (startingLocationsRadioButton.isSelected()) {
+      startingLocations.add(utilityElement);
+      startingLocationsGraphicsOverlay.getGraphics().add(traceLocationGraphic);
+    } else {
+      barriers.add(utilityElement);
+      barriersGraphicsOverlay.getGraphics().add(traceLocationGraphic);
+    }
+  }
+
   /**
    * Prompts the user to select a terminal from a provided list.
    *
@@ -375,70 +422,31 @@ public class TraceAUtilityNetworkController {
     // set the trace configuration using the tier from the utility domain network
     utilityTraceParameters.setTraceConfiguration(mediumVoltageTier.getTraceConfiguration());
 
-    // run the utility trace and get the results
-    ListenableFuture<List<UtilityTraceResult>> utilityTraceResultsFuture =
-        utilityNetwork.traceAsync(utilityTraceParameters);
-    utilityTraceResultsFuture.addDoneListener(() -> {
-      try {
-        List<UtilityTraceResult> utilityTraceResults = utilityTraceResultsFuture.get();
-
-        if (utilityTraceResults.get(0) instanceof UtilityElementTraceResult) {
-          UtilityElementTraceResult utilityElementTraceResult = (UtilityElementTraceResult) utilityTraceResults.get(0);
-
-          if (!utilityElementTraceResult.getElements().isEmpty()) {
-
-            // iterate through the map's feature layers
-            mapView.getMap().getOperationalLayers().forEach(layer -> {
-              if (layer instanceof FeatureLayer) {
-
-                // create query parameters to find features whose network source name matches the layer's feature
-                // table name
-                QueryParameters queryParameters = new QueryParameters();
-                utilityElementTraceResult.getElements().forEach(utilityElement -> {
-
-                  String networkSourceName = utilityElement.getNetworkSource().getName();
-                  String featureTableName = ((FeatureLayer) layer).getFeatureTable().getTableName();
-
-                  if (networkSourceName.equals(featureTableName)) {
-                    queryParameters.getObjectIds().add(utilityElement.getObjectId());
-                  }
-                });
-
-                // select features that match the query
-                ListenableFuture<FeatureQueryResult> featureQueryResultListenableFuture =
-                    ((FeatureLayer) layer).selectFeaturesAsync(queryParameters, FeatureLayer.SelectionMode.NEW);
-
-                // wait for the selection to finish
-                featureQueryResultListenableFuture.addDoneListener(() -> {
-                  // update the status text, enable the buttons and hide the progress indicator
-                  statusLabel.setText("Trace completed.");
-                  enableButtonInteraction();
-                  progressIndicator.setVisible(false);
-                  enableButtonInteraction();
-                });
-              }
-            });
-          }
-        } else {
-          statusLabel.setText("Trace failed.");
-          progressIndicator.setVisible(false);
-          new Alert(Alert.AlertType.ERROR, "Trace result not a utility element.").show();
-          enableButtonInteraction();
-        }
-
-      } catch (Exception e) {
+    // run the utility trace and select the resulting elements in the feature layers of their network sources, in
+    // chunks of object IDs with a few selections running at once
+    TraceResultSelector traceResultSelector = new TraceResultSelector(mapView.getMap().getOperationalLayers());
+    traceResultSelector.traceAndSelectAsync(utilityNetwork, utilityTraceParameters).whenComplete((selected, ex) ->
+        Platform.runLater(() -> {
+      progressIndicator.setVisible(false);
+      if (ex == null) {
+        // update the status text with the time taken by the trace and the selection
+        statusLabel.setText("Trace completed: " + traceResultSelector);
+      } else {
         statusLabel.setText("Trace failed.");
-        progressIndicator.setVisible(false);
-        // Note: this sample server may return a generic message in some circumstances when incompatible trace
-        // parameters are specified
-        if (e.getMessage().contains("-2147208935")) {
+        Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        if (cause instanceof IllegalStateException) {
+          // the trace result is not a utility element trace result
+          new Alert(Alert.AlertType.ERROR, cause.getMessage()).show();
+          // Note: this sample server may return a generic message in some circumstances when incompatible trace
+          // parameters are specified
+        } else if (String.valueOf(cause.getMessage()).contains("-2147208935")) {
           new Alert(Alert.AlertType.ERROR, "Cannot run trace with the provided parameters.").show();
         } else {
           new Alert(Alert.AlertType.ERROR, "Error running utility network trace.").show();
         }
-        enableButtonInteraction();
       }
-    });
+      enableButtonInteraction();
+    }));
   }
 
   /**